@@ -0,0 +1,122 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.security.common.auth.saf;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import lombok.Value;
+import org.springframework.security.core.Authentication;
+
+import java.time.Duration;
+
+/**
+ * Decorator of {@link SafResourceAccessVerifying} remembering the decisions for a short time. Each check of another
+ * provider means a native call or a REST call to ZSS, while the same user usually checks the same resource many times
+ * in a row.
+ * <p>
+ * The allowed and the denied decisions have their own time to live, so the change of permissions in SAF is reflected
+ * in a short time. Failed checks are not cached. The decisions of a user should be evicted once the user logs out.
+ */
+public class SafResourceAccessCaching implements SafResourceAccessVerifying {
+
+    private final SafResourceAccessVerifying delegate;
+    private final Cache<ResourceUserLevel, Boolean> cache;
+
+    public SafResourceAccessCaching(SafResourceAccessVerifying delegate, long maxSize, Duration allowedTtl, Duration deniedTtl) {
+        this(delegate, maxSize, allowedTtl, deniedTtl, Ticker.systemTicker());
+    }
+
+    SafResourceAccessCaching(SafResourceAccessVerifying delegate, long maxSize, Duration allowedTtl, Duration deniedTtl, Ticker ticker) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfter(new DecisionExpiry(allowedTtl.toNanos(), deniedTtl.toNanos()))
+            .ticker(ticker)
+            .recordStats()
+            .build();
+    }
+
+    @Override
+    public boolean hasSafResourceAccess(Authentication authentication, String resourceClass, String resourceName, String accessLevel) {
+        String userId = authentication.getName();
+        if (userId == null) {
+            return delegate.hasSafResourceAccess(authentication, resourceClass, resourceName, accessLevel);
+        }
+
+        ResourceUserLevel key = new ResourceUserLevel(userId, resourceClass, resourceName, accessLevel);
+        return cache.get(key, k -> delegate.hasSafResourceAccess(authentication, resourceClass, resourceName, accessLevel));
+    }
+
+    /**
+     * Remove all decisions about the user, i.e. after logout.
+     *
+     * @param userId user to forget decisions of
+     */
+    public void evict(String userId) {
+        cache.asMap().keySet().removeIf(key -> key.getUserId().equals(userId));
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    public long getSize() {
+        return cache.estimatedSize();
+    }
+
+    @Value
+    private static class ResourceUserLevel {
+
+        String userId;
+        String resourceClass;
+        String resourceName;
+        String accessLevel;
+
+    }
+
+    @Value
+    private static class DecisionExpiry implements Expiry<ResourceUserLevel, Boolean> {
+
+        long allowedTtlNanos;
+        long deniedTtlNanos;
+
+        @Override
+        public long expireAfterCreate(ResourceUserLevel key, Boolean allowed, long currentTime) {
+            return Boolean.TRUE.equals(allowed) ? allowedTtlNanos : deniedTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(ResourceUserLevel key, Boolean allowed, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, allowed, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ResourceUserLevel key, Boolean allowed, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+    }
+
+}
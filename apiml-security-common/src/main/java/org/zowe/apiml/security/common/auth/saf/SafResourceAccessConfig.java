@@ -12,13 +12,16 @@ package org.zowe.apiml.security.common.auth.saf;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
 import org.zowe.apiml.security.common.config.AuthConfigurationProperties;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Arrays;
 
 @Configuration
@@ -37,6 +40,21 @@ public class SafResourceAccessConfig {
     @Value("${apiml.security.authorization.endpoint.enabled:false}")
     private boolean endpointEnabled;
 
+    @Value("${apiml.security.authorization.cache.enabled:false}")
+    private boolean cacheEnabled;
+
+    @Value("${apiml.security.authorization.cache.maxSize:10000}")
+    private long cacheMaxSize = 10000;
+
+    @Value("${apiml.security.authorization.cache.allowedTtlSeconds:30}")
+    private long cacheAllowedTtlSeconds = 30;
+
+    @Value("${apiml.security.authorization.cache.deniedTtlSeconds:10}")
+    private long cacheDeniedTtlSeconds = 10;
+
+    @Autowired(required = false)
+    private AutowireCapableBeanFactory beanFactory;
+
     protected SafResourceAccessVerifying createEndpoint(RestTemplate restTemplate, AuthConfigurationProperties authConfigurationProperties) {
         return new SafResourceAccessEndpoint(restTemplate, authConfigurationProperties);
     }
@@ -49,6 +67,21 @@ public class SafResourceAccessConfig {
         return new SafResourceAccessDummy();
     }
 
+    private SafResourceAccessVerifying cached(SafResourceAccessVerifying safResourceAccessVerifying) {
+        if (!cacheEnabled || safResourceAccessVerifying == null) {
+            return safResourceAccessVerifying;
+        }
+
+        if (beanFactory != null) {
+            // the provider is not the bean itself anymore, so its configuration values have to be injected explicitly
+            beanFactory.autowireBean(safResourceAccessVerifying);
+        }
+
+        log.debug("Decisions about SAF resources are cached for {} s (allowed) and {} s (denied)", cacheAllowedTtlSeconds, cacheDeniedTtlSeconds);
+        return new SafResourceAccessCaching(safResourceAccessVerifying, cacheMaxSize,
+            Duration.ofSeconds(cacheAllowedTtlSeconds), Duration.ofSeconds(cacheDeniedTtlSeconds));
+    }
+
     private SafResourceAccessVerifying create(RestTemplate restTemplate,AuthConfigurationProperties authConfigurationProperties, String type, boolean force) {
         switch (StringUtils.lowerCase(type)) {
             case ENDPOINT:
@@ -81,12 +114,12 @@ public class SafResourceAccessConfig {
     @Bean
     public SafResourceAccessVerifying safResourceAccessVerifying(RestTemplate restTemplate, AuthConfigurationProperties authConfigurationProperties) {
         if (!StringUtils.isEmpty(provider)) {
-            return create(restTemplate, authConfigurationProperties, provider, true);
+            return cached(create(restTemplate, authConfigurationProperties, provider, true));
         }
 
         for (String type : PROVIDERS) {
             SafResourceAccessVerifying srv = create(restTemplate, authConfigurationProperties, type, false);
-            if (srv != null) return srv;
+            if (srv != null) return cached(srv);
         }
 
         return null;
@@ -0,0 +1,145 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.security.common.auth.saf;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SafResourceAccessCachingTest {
+
+    private static final String DEFINITION =
+        "safAccess:\n" +
+        " ZOWE:\n" +
+        "  APIML.RESOURCE:\n" +
+        "   READ:\n" +
+        "    - USER1\n";
+
+    private static final Authentication USER1 = new UsernamePasswordAuthenticationToken("USER1", "password");
+    private static final Authentication USER2 = new UsernamePasswordAuthenticationToken("USER2", "password");
+
+    private final AtomicLong ticker = new AtomicLong();
+    private final SafResourceAccessVerifying dummy = spy(new SafResourceAccessDummy(
+        new ByteArrayInputStream(DEFINITION.getBytes(StandardCharsets.UTF_8))
+    ));
+    private final SafResourceAccessCaching underTest = new SafResourceAccessCaching(
+        dummy, 100, Duration.ofSeconds(30), Duration.ofSeconds(10), ticker::get
+    );
+
+    private boolean check(Authentication authentication) {
+        return underTest.hasSafResourceAccess(authentication, "ZOWE", "APIML.RESOURCE", "READ");
+    }
+
+    private void advance(long seconds) {
+        ticker.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    @Nested
+    class WhenCheckedRepeatedly {
+
+        @Test
+        void givenAllowedAccess_thenDecisionIsReusedUntilExpiration() {
+            assertTrue(check(USER1));
+            advance(29);
+            assertTrue(check(USER1));
+            verify(dummy, times(1)).hasSafResourceAccess(USER1, "ZOWE", "APIML.RESOURCE", "READ");
+
+            advance(2);
+            assertTrue(check(USER1));
+            verify(dummy, times(2)).hasSafResourceAccess(USER1, "ZOWE", "APIML.RESOURCE", "READ");
+        }
+
+        @Test
+        void givenDeniedAccess_thenDecisionExpiresSooner() {
+            assertFalse(check(USER2));
+            advance(9);
+            assertFalse(check(USER2));
+            verify(dummy, times(1)).hasSafResourceAccess(USER2, "ZOWE", "APIML.RESOURCE", "READ");
+
+            advance(2);
+            assertFalse(check(USER2));
+            verify(dummy, times(2)).hasSafResourceAccess(USER2, "ZOWE", "APIML.RESOURCE", "READ");
+        }
+
+        @Test
+        void givenDifferentLevel_thenItIsCheckedSeparately() {
+            assertTrue(check(USER1));
+            assertFalse(underTest.hasSafResourceAccess(USER1, "ZOWE", "APIML.RESOURCE", "UPDATE"));
+
+            verify(dummy, times(2)).hasSafResourceAccess(eq(USER1), anyString(), anyString(), anyString());
+        }
+
+        @Test
+        void thenHitsAndMissesAreCounted() {
+            check(USER1);
+            check(USER1);
+            check(USER2);
+
+            assertEquals(1, underTest.getHitCount());
+            assertEquals(2, underTest.getMissCount());
+            assertEquals(2, underTest.getSize());
+        }
+    }
+
+    @Nested
+    class WhenCheckFails {
+
+        @Test
+        void thenExceptionIsThrownAndNotCached() {
+            SafResourceAccessVerifying failing = mock(SafResourceAccessVerifying.class);
+            when(failing.hasSafResourceAccess(any(), any(), any(), any()))
+                .thenThrow(new EndpointImproprietyConfigureException("not configured", "http://localhost"))
+                .thenReturn(true);
+            SafResourceAccessCaching caching = new SafResourceAccessCaching(failing, 100, Duration.ofSeconds(30), Duration.ofSeconds(10));
+
+            assertThrows(EndpointImproprietyConfigureException.class, () -> caching.hasSafResourceAccess(USER1, "ZOWE", "APIML.RESOURCE", "READ"));
+            assertTrue(caching.hasSafResourceAccess(USER1, "ZOWE", "APIML.RESOURCE", "READ"));
+        }
+    }
+
+    @Nested
+    class WhenEvicted {
+
+        @Test
+        void givenUser_thenOnlyDecisionsOfTheUserAreRemoved() {
+            check(USER1);
+            check(USER2);
+
+            underTest.evict("USER1");
+            check(USER1);
+            check(USER2);
+
+            verify(dummy, times(2)).hasSafResourceAccess(USER1, "ZOWE", "APIML.RESOURCE", "READ");
+            verify(dummy, times(1)).hasSafResourceAccess(USER2, "ZOWE", "APIML.RESOURCE", "READ");
+        }
+
+        @Test
+        void givenAll_thenAllDecisionsAreRemoved() {
+            check(USER1);
+
+            underTest.evictAll();
+            check(USER1);
+
+            verify(dummy, times(2)).hasSafResourceAccess(USER1, "ZOWE", "APIML.RESOURCE", "READ");
+        }
+    }
+
+}
@@ -103,6 +103,23 @@ class SafResourceAccessConfigTest {
         assertThrows(IllegalArgumentException.class, () -> getSafResourceAccessConfig("unknown", true, true, true, true));
     }
 
+    @Test
+    void givenEnabledCache_whenCreate_thenProviderIsCached() {
+        SafResourceAccessConfig config = new SafResourceAccessConfigMock(true, true, true);
+        ReflectionTestUtils.setField(config, "provider", "dummy");
+        ReflectionTestUtils.setField(config, "cacheEnabled", true);
+
+        assertTrue(config.safResourceAccessVerifying(restTemplate, authConfigurationProperties) instanceof SafResourceAccessCaching);
+    }
+
+    @Test
+    void givenEnabledCacheAndNoAvailableProvider_whenCreate_thenReturnNull() {
+        SafResourceAccessConfig config = new SafResourceAccessConfigMock(false, false, false);
+        ReflectionTestUtils.setField(config, "cacheEnabled", true);
+
+        assertNull(config.safResourceAccessVerifying(restTemplate, authConfigurationProperties));
+    }
+
     @RequiredArgsConstructor
     public static class SafResourceAccessConfigMock extends SafResourceAccessConfig {
 
@@ -72,11 +72,22 @@ public final class GZipResponseUtils {
      *                          method and the set header is ignored.
      */
     public static void addGzipHeader(final HttpServletResponse response) throws GZipResponseException {
-        response.setHeader("Content-Encoding", "gzip");
+        addContentEncodingHeader(response, "gzip");
+    }
+
+    /**
+     * Adds the Content-Encoding HTTP header with the given content coding to the response.
+     *
+     * @param response the response which will have a header added to it. I.e this method changes its parameter
+     * @param encoding the content coding of the body, i.e. gzip or deflate
+     * @throws RuntimeException Either the response is committed or the set header is ignored.
+     */
+    public static void addContentEncodingHeader(final HttpServletResponse response, String encoding) throws GZipResponseException {
+        response.setHeader("Content-Encoding", encoding);
         boolean containsEncoding = response.containsHeader("Content-Encoding");
         if (!containsEncoding) {
             throw new GZipResponseException("Failure when attempting to set "
-                + "Content-Encoding: gzip");
+                + "Content-Encoding: " + encoding);
         }
     }
 }
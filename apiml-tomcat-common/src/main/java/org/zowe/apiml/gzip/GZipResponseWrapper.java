@@ -15,9 +15,9 @@ import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpServletResponseWrapper;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
-import java.util.zip.GZIPOutputStream;
 
 public class GZipResponseWrapper extends HttpServletResponseWrapper {
 
@@ -29,9 +29,10 @@ public class GZipResponseWrapper extends HttpServletResponseWrapper {
      * Constructs a response adaptor wrapping the given response.
      *
      * @param response The response to be wrapped
+     * @param stream   The stream compressing the body, i.e. {@link java.util.zip.GZIPOutputStream}
      * @throws IllegalArgumentException if the response is null
      */
-    public GZipResponseWrapper(HttpServletResponse response, GZIPOutputStream stream) {
+    public GZipResponseWrapper(HttpServletResponse response, OutputStream stream) {
         super(response);
         gzipOutputStream = new GZipServletOutputStream(stream);
     }
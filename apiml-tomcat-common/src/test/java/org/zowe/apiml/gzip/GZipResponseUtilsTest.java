@@ -28,6 +28,13 @@ class GZipResponseUtilsTest {
         assertEquals("gzip", response.getHeader("Content-Encoding"));
     }
 
+    @Test
+    void addOtherEncodingHeader() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        GZipResponseUtils.addContentEncodingHeader(response, "deflate");
+        assertEquals("deflate", response.getHeader("Content-Encoding"));
+    }
+
     @Test
     void whenSetHeaderFails_thenThrowException() {
         HttpServletResponse response = mock(HttpServletResponse.class);
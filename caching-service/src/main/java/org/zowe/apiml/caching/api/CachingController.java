@@ -18,6 +18,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.service.ExpirationReaper;
 import org.zowe.apiml.caching.service.Messages;
 import org.zowe.apiml.caching.service.Storage;
 import org.zowe.apiml.caching.service.StorageException;
@@ -25,6 +26,7 @@ import org.zowe.apiml.message.core.Message;
 import org.zowe.apiml.message.core.MessageService;
 
 import jakarta.servlet.http.HttpServletRequest;
+import java.util.List;
 import java.util.Optional;
 
 @RestController
@@ -33,7 +35,7 @@ import java.util.Optional;
 public class CachingController {
     private final Storage storage;
     private final MessageService messageService;
-
+    private final ExpirationReaper expirationReaper;
 
     @GetMapping(value = "/cache", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Retrieves all values in the cache",
@@ -94,7 +96,7 @@ public class CachingController {
 
     @PostMapping(value = "/cache", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Create a new key in the cache",
-        description = "A new key-value pair will be added to the cache")
+        description = "A new key-value pair will be added to the cache. Optional ttl in seconds limits how long the key-value pair is stored.")
     @ResponseBody
     public ResponseEntity<Object> createKey(@RequestBody KeyValue keyValue, HttpServletRequest request) {
         return keyValueRequest(storage::create,
@@ -126,6 +128,23 @@ public class CachingController {
         ).orElseGet(this::getUnauthorizedResponse);
     }
 
+    @GetMapping(value = "/cache-list/{mapKey}/changes", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Retrieves the changes of the cache map",
+        description = "Items added, updated and removed since the provided epoch and sequence number. The whole map is returned if the changes are not available anymore.")
+    @ResponseBody
+    public ResponseEntity<Object> getMapChanges(@PathVariable String mapKey, @RequestParam(required = false) String epoch,
+                                                @RequestParam(defaultValue = "0") long since, HttpServletRequest request) {
+        return getServiceId(request).<ResponseEntity<Object>>map(
+            s -> {
+                try {
+                    return new ResponseEntity<>(storage.getMapChanges(s, mapKey, epoch, since), HttpStatus.OK);
+                } catch (Exception exception) {
+                    return handleIncompatibleStorageMethod(exception, request.getRequestURL());
+                }
+            }
+        ).orElseGet(this::getUnauthorizedResponse);
+    }
+
     @GetMapping(value = "/cache-list", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Retrieves all the maps in the cache",
         description = "Values returned for the calling service")
@@ -178,7 +197,7 @@ public class CachingController {
 
     @PutMapping(value = "/cache", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Update key in the cache",
-        description = "Value at the key in the provided key-value pair will be updated to the provided value")
+        description = "Value at the key in the provided key-value pair will be updated to the provided value. Optional ttl in seconds limits how long the key-value pair is stored.")
     @ResponseBody
     public ResponseEntity<Object> update(@RequestBody KeyValue keyValue, HttpServletRequest request) {
         return keyValueRequest(storage::update,
@@ -186,6 +205,57 @@ public class CachingController {
     }
 
 
+    @PutMapping(value = "/cache", params = "upsert=true", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Create or update key in the cache",
+        description = "The provided key-value pair will be stored in the cache, the value is replaced if the key already exists. Optional ttl in seconds limits how long the key-value pair is stored.")
+    @ResponseBody
+    public ResponseEntity<Object> upsert(@RequestBody KeyValue keyValue, HttpServletRequest request) {
+        return keyValueRequest(storage::upsert,
+            keyValue, request, HttpStatus.NO_CONTENT);
+    }
+
+    @PostMapping(value = "/cache/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Create or update multiple keys in the cache",
+        description = "All the provided key-value pairs will be stored in the cache, existing keys are updated. Optional ttl in seconds limits how long the key-value pair is stored.")
+    @ResponseBody
+    public ResponseEntity<Object> upsertKeys(@RequestBody List<KeyValue> keyValues, HttpServletRequest request) {
+        return batchRequest(serviceId -> {
+            checkForInvalidBatch(keyValues);
+            long now = System.currentTimeMillis();
+            for (KeyValue keyValue : keyValues) {
+                checkForInvalidPayload(keyValue);
+                checkForInvalidTtl(keyValue);
+                keyValue.applyTtl(now);
+            }
+
+            storage.upsertAll(serviceId, keyValues);
+            keyValues.forEach(keyValue -> expirationReaper.schedule(serviceId, keyValue));
+            return null;
+        }, request, HttpStatus.CREATED);
+    }
+
+    @PostMapping(value = "/cache/batch/read", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Retrieves multiple values in the cache",
+        description = "Values returned for the provided keys. Keys which are not in the cache are not part of the response.")
+    @ResponseBody
+    public ResponseEntity<Object> getValues(@RequestBody List<String> keys, HttpServletRequest request) {
+        return batchRequest(serviceId -> {
+            checkForInvalidKeys(keys);
+            return storage.readAll(serviceId, keys);
+        }, request, HttpStatus.OK);
+    }
+
+    @PostMapping(value = "/cache/batch/delete", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Delete multiple keys from the cache",
+        description = "Will delete key-value pairs for the provided keys. Deleted key-value pairs are returned.")
+    @ResponseBody
+    public ResponseEntity<Object> deleteKeys(@RequestBody List<String> keys, HttpServletRequest request) {
+        return batchRequest(serviceId -> {
+            checkForInvalidKeys(keys);
+            return storage.deleteAll(serviceId, keys);
+        }, request, HttpStatus.OK);
+    }
+
     private ResponseEntity<Object> exceptionToResponse(StorageException exception) {
         Message message = messageService.createMessage(exception.getKey(), (Object[]) exception.getParameters());
         return new ResponseEntity<>(message.mapToView(), exception.getStatus());
@@ -232,8 +302,11 @@ public class CachingController {
 
         try {
             checkForInvalidPayload(keyValue);
+            checkForInvalidTtl(keyValue);
 
+            keyValue.applyTtl(System.currentTimeMillis());
             keyValueOperation.storageRequest(serviceId.get(), keyValue);
+            expirationReaper.schedule(serviceId.get(), keyValue);
 
             return new ResponseEntity<>(successStatus);
         } catch (StorageException exception) {
@@ -252,6 +325,8 @@ public class CachingController {
 
         try {
             checkForInvalidPayload(keyValue);
+            // the map items do not expire
+            keyValue.setExpiresAt(null);
 
             operation.storageRequest(serviceId.get(), mapKey, keyValue);
 
@@ -263,6 +338,28 @@ public class CachingController {
         }
     }
 
+    /**
+     * Authenticate the user.
+     * Do the batch operation passed in as Lambda, it is responsible for the verification of the data.
+     * Properly handle and package Exceptions.
+     */
+    private ResponseEntity<Object> batchRequest(BatchOperation batchOperation, HttpServletRequest request, HttpStatus successStatus) {
+        Optional<String> serviceId = getServiceId(request);
+        if (!serviceId.isPresent()) {
+            return getUnauthorizedResponse();
+        }
+
+        try {
+            Object result = batchOperation.storageRequest(serviceId.get());
+
+            return new ResponseEntity<>(result, successStatus);
+        } catch (StorageException exception) {
+            return exceptionToResponse(exception);
+        } catch (Exception exception) {
+            return handleInternalError(exception, request.getRequestURL());
+        }
+    }
+
     private Optional<String> getServiceId(HttpServletRequest request) {
         Optional<String> certificateServiceId = getHeader(request, "X-Certificate-DistinguishedName");
         Optional<String> specificServiceId = getHeader(request, "X-CS-Service-ID");
@@ -321,6 +418,30 @@ public class CachingController {
         }
     }
 
+    private void checkForInvalidBatch(List<?> batch) {
+        if (batch == null || batch.isEmpty()) {
+            invalidPayload(null, "No entries provided in the payload");
+        }
+    }
+
+    private void checkForInvalidKeys(List<String> keys) {
+        checkForInvalidBatch(keys);
+
+        if (keys.contains(null)) {
+            keyNotInCache();
+        }
+    }
+
+    private void checkForInvalidTtl(KeyValue keyValue) {
+        Long ttl = keyValue.getTtl();
+        if (ttl != null && ttl <= 0) {
+            invalidPayload(keyValue.toString(), "Time to live has to be a positive number of seconds");
+        }
+        if (ttl != null && ttl > KeyValue.MAX_TTL) {
+            invalidPayload(keyValue.toString(), "Time to live cannot be longer than " + KeyValue.MAX_TTL + " seconds");
+        }
+    }
+
     @FunctionalInterface
     interface KeyOperation {
         KeyValue storageRequest(String serviceId, String key);
@@ -331,6 +452,11 @@ public class CachingController {
         KeyValue storageRequest(String serviceId, KeyValue keyValue) throws StorageException;
     }
 
+    @FunctionalInterface
+    interface BatchOperation {
+        Object storageRequest(String serviceId);
+    }
+
     @FunctionalInterface
     interface MapKeyValueOperation {
         KeyValue storageRequest(String serviceId, String mapKey, KeyValue keyValue);
@@ -0,0 +1,30 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zowe.apiml.caching.service.ExpirationReaper;
+import org.zowe.apiml.caching.service.Storage;
+
+@Configuration
+public class ExpirationConfiguration {
+    @Value("${caching.storage.expiration.tickMillis:1000}")
+    private long tickMillis;
+    @Value("${caching.storage.expiration.wheelSize:512}")
+    private int wheelSize;
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public ExpirationReaper expirationReaper(Storage storage) {
+        return new ExpirationReaper(storage, tickMillis, wheelSize);
+    }
+}
@@ -25,10 +25,24 @@ import java.util.Date;
 @JsonInclude(JsonInclude.Include.NON_EMPTY)
 @Data
 public class KeyValue implements Serializable {
+    /**
+     * The longest supported time to live in seconds (10 years).
+     */
+    public static final long MAX_TTL = 10L * 365 * 24 * 60 * 60;
+
     private final String key;
     private final String value;
     private String serviceId;
     private final String created;
+    /**
+     * Optional time to live of the entry in seconds. When set, {@link #expiresAt} is computed from it before storing.
+     */
+    private Long ttl;
+    /**
+     * Time in milliseconds since epoch after which the entry is considered as not existing. It is always computed by
+     * the service, a value sent by the client is replaced in {@link #applyTtl(long)}.
+     */
+    private Long expiresAt;
 
     public KeyValue(String key, String value) {
         this.key = key;
@@ -41,6 +55,24 @@ public class KeyValue implements Serializable {
         return String.valueOf(new Date().getTime());
     }
 
+    /**
+     * Compute the expiration time based on the time to live. Without the time to live the entry does not expire.
+     *
+     * @param now current time in milliseconds
+     * @throws ArithmeticException if the expiration time does not fit into long
+     */
+    public void applyTtl(long now) {
+        if (ttl == null) {
+            expiresAt = null;
+        } else {
+            expiresAt = Math.addExact(now, Math.multiplyExact(ttl, 1000L));
+        }
+    }
+
+    public boolean isExpired(long now) {
+        return expiresAt != null && expiresAt <= now;
+    }
+
     @JsonCreator
     public KeyValue() {
         key = "";
@@ -0,0 +1,48 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Changes of a cache map since the given epoch and sequence number. When {@link #full} is set, the changes could not be
+ * computed and {@link #changed} contains the whole map, which replaces the copy held by the caller.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MapChanges {
+    /**
+     * Identifies the change log which issued the sequence. The caller sends it back with the sequence, if the log was
+     * replaced meanwhile, the whole map is returned.
+     */
+    private String epoch;
+    /**
+     * Sequence number of the last change included in the response. The next request asks for the changes since it.
+     */
+    private long sequence;
+    private boolean full;
+    /**
+     * Items added or updated since the requested sequence.
+     */
+    private Map<String, String> changed = new HashMap<>();
+    /**
+     * Keys of the items removed since the requested sequence.
+     */
+    private Set<String> removed = new HashSet<>();
+}
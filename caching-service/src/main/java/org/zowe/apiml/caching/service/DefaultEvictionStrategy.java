@@ -12,7 +12,8 @@ package org.zowe.apiml.caching.service;
 
 public class DefaultEvictionStrategy implements EvictionStrategy {
     @Override
-    public void evict(String key) {
+    public boolean evict(String key) {
         // Intentionally do nothing.
+        return false;
     }
 }
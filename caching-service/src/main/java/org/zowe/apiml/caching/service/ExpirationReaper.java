@@ -0,0 +1,143 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.zowe.apiml.caching.model.KeyValue;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background process removing the entries with time to live from the {@link Storage} once they expire.
+ *
+ * The scheduled expirations are kept in a hashed timer wheel. Every tick processes just one bucket of the wheel, so the
+ * cost of the cleanup is proportional to the number of entries expiring in that tick and not to the size of the storage.
+ * Entries expiring later than one revolution of the wheel stay in the bucket until their tick comes.
+ *
+ * The reaper is a best effort mechanism to release the space. It knows only the entries stored through this instance
+ * and the storages never return expired entries even if they were not removed yet.
+ */
+@Slf4j
+public class ExpirationReaper {
+    private final Storage storage;
+    private final long tickMillis;
+    private final long startTime;
+    private final Queue<Expiration>[] wheel;
+
+    private volatile long currentTick;
+    private ScheduledExecutorService executor;
+
+    public ExpirationReaper(Storage storage, long tickMillis, int wheelSize) {
+        this(storage, tickMillis, wheelSize, System.currentTimeMillis());
+    }
+
+    @SuppressWarnings("unchecked")
+    ExpirationReaper(Storage storage, long tickMillis, int wheelSize, long startTime) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("The tick and the size of the wheel have to be positive");
+        }
+
+        this.storage = storage;
+        this.tickMillis = tickMillis;
+        this.startTime = startTime;
+        this.wheel = new Queue[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "caching-expiration-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Schedule removal of the entry. Entries without the expiration time are ignored.
+     */
+    public void schedule(String serviceId, KeyValue keyValue) {
+        Long expiresAt = keyValue.getExpiresAt();
+        if (expiresAt == null) {
+            return;
+        }
+
+        long tick = Math.max(tickOf(expiresAt), currentTick);
+        wheel[bucketOf(tick)].add(new Expiration(serviceId, keyValue.getKey(), tick));
+    }
+
+    /**
+     * Process all the ticks which passed until the given time.
+     */
+    synchronized void advance(long now) {
+        long lastTick = (now - startTime) / tickMillis;
+        // after a long pause it is enough to go through every bucket once
+        long tick = Math.max(currentTick, lastTick - wheel.length + 1);
+        for (; tick <= lastTick; tick++) {
+            expire(wheel[bucketOf(tick)], tick);
+        }
+        currentTick = Math.max(currentTick, lastTick + 1);
+    }
+
+    private void tick() {
+        try {
+            advance(System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            log.warn("Error while removing expired entries: {}", e.getMessage());
+        }
+    }
+
+    private void expire(Queue<Expiration> bucket, long tick) {
+        Iterator<Expiration> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Expiration expiration = iterator.next();
+            if (expiration.tick > tick) {
+                continue;
+            }
+
+            iterator.remove();
+            try {
+                storage.removeExpired(expiration.serviceId, expiration.key);
+            } catch (RuntimeException e) {
+                log.debug("Expired entry {}|{} was not removed: {}", expiration.serviceId, expiration.key, e.getMessage());
+            }
+        }
+    }
+
+    private long tickOf(long time) {
+        return Math.max(0, (time - startTime + tickMillis - 1) / tickMillis);
+    }
+
+    private int bucketOf(long tick) {
+        return (int) (tick % wheel.length);
+    }
+
+    @RequiredArgsConstructor
+    private static class Expiration {
+        private final String serviceId;
+        private final String key;
+        private final long tick;
+    }
+}
@@ -20,7 +20,7 @@ public class RejectStrategy implements EvictionStrategy {
     private final ApimlLogger apimlLog;
 
     @Override
-    public void evict(String key) {
+    public boolean evict(String key) {
         apimlLog.log("org.zowe.apiml.cache.insufficientStorage");
 
         throw new StorageException(Messages.INSUFFICIENT_STORAGE.getKey(), Messages.INSUFFICIENT_STORAGE.getStatus());
@@ -11,7 +11,10 @@
 package org.zowe.apiml.caching.service;
 
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.model.MapChanges;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -53,6 +56,18 @@ public interface Storage {
      */
     Map<String, Map<String, String>> getAllMaps(String serviceId) throws StorageException;
 
+    /**
+     * Return the changes of the specific map since the given sequence number. If the changes are not known anymore,
+     * the whole map is returned.
+     *
+     * @param serviceId Id of the service owning the map
+     * @param mapKey key of the specific map
+     * @param epoch epoch returned by the previous call, null for the first call
+     * @param sequence sequence number returned by the previous call, 0 for the first call
+     * @return Items changed and removed since the sequence and the current epoch and sequence number
+     */
+    MapChanges getMapChanges(String serviceId, String mapKey, String epoch, long sequence) throws StorageException;
+
     /**
      * Returns the keys associated with the provided keys.
      *
@@ -71,6 +86,15 @@ public interface Storage {
      */
     KeyValue update(String serviceId, KeyValue toUpdate);
 
+    /**
+     * Store the KeyValue pair in the storage. If there is an existing pair with the same key it is replaced.
+     *
+     * @param serviceId Id of the service to store the value for.
+     * @param toUpsert  KeyValue pair to be stored.
+     * @return The stored KeyValue pair.
+     */
+    KeyValue upsert(String serviceId, KeyValue toUpsert);
+
     /**
      * Delete the key/value pair if it exists within the context of the service. If there is none existing null
      * is returned.
@@ -89,6 +113,33 @@ public interface Storage {
      */
     Map<String, KeyValue> readForService(String serviceId);
 
+    /**
+     * Return the key/value pairs for all the provided keys within the context of the service.
+     *
+     * @param serviceId Id of the service to read values for
+     * @param keys      keys to lookup
+     * @return Map with the found key/value pairs. Keys without a stored value are missing in the map.
+     */
+    Map<String, KeyValue> readAll(String serviceId, Collection<String> keys);
+
+    /**
+     * Store all the provided key/value pairs. Existing pairs with the same keys are replaced by the new values.
+     *
+     * @param serviceId Id of the service to store the values for.
+     * @param toStore   KeyValue pairs to be stored.
+     * @return The stored KeyValue pairs.
+     */
+    List<KeyValue> upsertAll(String serviceId, Collection<KeyValue> toStore);
+
+    /**
+     * Delete the key/value pairs for all the provided keys which exist within the context of the service.
+     *
+     * @param serviceId Id of the service to delete the values for.
+     * @param keys      Keys to delete from the storage.
+     * @return Map with the deleted key/value pairs. Keys without a stored value are missing in the map.
+     */
+    Map<String, KeyValue> deleteAll(String serviceId, Collection<String> keys);
+
     /**
      * Delete all key value pairs.
      *
@@ -109,4 +160,14 @@ public interface Storage {
      * @param mapKey the map key
      */
     void removeNonRelevantTokens(String serviceId, String mapKey);
+
+    /**
+     * Delete the key/value pair if it exists and its time to live already passed. Entries which are not expired
+     * are left untouched. Expired entries are never returned by the read operations, this method just releases the
+     * space they occupy.
+     *
+     * @param serviceId Id of the service to delete the value for.
+     * @param key       Key of the entry to verify.
+     */
+    void removeExpired(String serviceId, String key);
 }
@@ -17,7 +17,9 @@ import lombok.Getter;
 @Getter
 public enum Strategies {
     REJECT("reject"),
-    REMOVE_OLDEST("removeOldest");
+    REMOVE_OLDEST("removeOldest"),
+    REMOVE_LEAST_RECENTLY_USED("removeLeastRecentlyUsed"),
+    REMOVE_LEAST_FREQUENTLY_USED("removeLeastFrequentlyUsed");
 
     private final String key;
 }
@@ -14,17 +14,20 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import lombok.extern.slf4j.Slf4j;
+import org.infinispan.Cache;
+import org.infinispan.commons.api.BasicCache;
 import org.infinispan.lock.api.ClusteredLock;
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.model.MapChanges;
 import org.zowe.apiml.caching.service.Messages;
 import org.zowe.apiml.caching.service.Storage;
 import org.zowe.apiml.caching.service.StorageException;
 import org.zowe.apiml.models.AccessTokenContainer;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -33,13 +36,40 @@ public class InfinispanStorage implements Storage {
 
     private final ConcurrentMap<String, KeyValue> cache;
     private final ConcurrentMap<String, Map<String, String>> tokenCache;
-    private final ClusteredLock lock;
+    private final ConcurrentMap<String, MapChangeLog> changesCache;
+    private final Function<String, ClusteredLock> locks;
+    private final ServiceIndex serviceIndex;
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
     public InfinispanStorage(ConcurrentMap<String, KeyValue> cache, ConcurrentMap<String, Map<String, String>> tokenCache, ClusteredLock lock) {
+        this(cache, tokenCache, new ConcurrentHashMap<>(), cacheKey -> lock);
+    }
+
+    /**
+     * @param changesCache keeps the numbered changes of the maps in the token cache, under the same keys
+     * @param locks provides the lock guarding the map stored in the token cache under the given key
+     */
+    public InfinispanStorage(ConcurrentMap<String, KeyValue> cache, ConcurrentMap<String, Map<String, String>> tokenCache,
+                             ConcurrentMap<String, MapChangeLog> changesCache, Function<String, ClusteredLock> locks) {
         this.cache = cache;
         this.tokenCache = tokenCache;
-        this.lock = lock;
+        this.changesCache = changesCache;
+        this.locks = locks;
+        this.serviceIndex = createServiceIndex(cache);
+    }
+
+    /**
+     * The index is kept only for the Infinispan cache, it is fed by the cache events.
+     */
+    @SuppressWarnings("unchecked")
+    private static ServiceIndex createServiceIndex(ConcurrentMap<String, KeyValue> cache) {
+        if (!(cache instanceof Cache)) {
+            return null;
+        }
+
+        ServiceIndex index = new ServiceIndex();
+        ((Cache<String, KeyValue>) cache).addListener(index);
+        return index;
     }
 
     static {
@@ -51,7 +81,11 @@ public class InfinispanStorage implements Storage {
         toCreate.setServiceId(serviceId);
         log.info("Writing record: {}|{}|{}", serviceId, toCreate.getKey(), toCreate.getValue());
 
-        KeyValue serviceCache = cache.putIfAbsent(serviceId + toCreate.getKey(), toCreate);
+        String cacheKey = serviceId + toCreate.getKey();
+        KeyValue serviceCache = putIfAbsent(cacheKey, toCreate);
+        if (serviceCache != null && serviceCache.isExpired(System.currentTimeMillis()) && cache.remove(cacheKey, serviceCache)) {
+            serviceCache = putIfAbsent(cacheKey, toCreate);
+        }
 
         if (serviceCache != null) {
             throw new StorageException(Messages.DUPLICATE_KEY.getKey(), Messages.DUPLICATE_KEY.getStatus(), toCreate.getKey());
@@ -61,23 +95,18 @@ public class InfinispanStorage implements Storage {
 
     @Override
     public KeyValue storeMapItem(String serviceId, String mapKey, KeyValue toCreate) {
-        CompletableFuture<Boolean> complete = lock.tryLock(4, TimeUnit.SECONDS).whenComplete((r, ex) -> {
-            if (Boolean.TRUE.equals(r)) {
-                try {
-                    String cacheKey = serviceId + mapKey;
-                    log.info("Storing the item into token cache: {} -> {}|{}", cacheKey, toCreate.getKey(), toCreate.getValue());
-                    Map<String, String> tokenCacheItem = tokenCache.get(cacheKey);
-                    if (tokenCacheItem == null) {
-                        tokenCacheItem = new HashMap<>();
-                    }
-                    tokenCacheItem.put(toCreate.getKey(), toCreate.getValue());
-                    tokenCache.put(cacheKey, tokenCacheItem);
-                } finally {
-                    lock.unlock();
-                }
+        String cacheKey = serviceId + mapKey;
+        withLock(cacheKey, () -> {
+            log.info("Storing the item into token cache: {} -> {}|{}", cacheKey, toCreate.getKey(), toCreate.getValue());
+            Map<String, String> tokenCacheItem = tokenCache.get(cacheKey);
+            boolean mapExists = tokenCacheItem != null && !tokenCacheItem.isEmpty();
+            if (tokenCacheItem == null) {
+                tokenCacheItem = new HashMap<>();
             }
+            tokenCacheItem.put(toCreate.getKey(), toCreate.getValue());
+            tokenCache.put(cacheKey, tokenCacheItem);
+            recordChanges(cacheKey, mapExists, Collections.singletonMap(toCreate.getKey(), toCreate.getValue()), Collections.emptySet());
         });
-        completeJoin(complete);
         return null;
     }
 
@@ -100,7 +129,7 @@ public class InfinispanStorage implements Storage {
     public KeyValue read(String serviceId, String key) {
         log.info("Reading record for service {} under key {}", serviceId, key);
         KeyValue serviceCache = cache.get(serviceId + key);
-        if (serviceCache != null) {
+        if (serviceCache != null && !serviceCache.isExpired(System.currentTimeMillis())) {
             return serviceCache;
         } else {
             throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), key, serviceId);
@@ -111,19 +140,27 @@ public class InfinispanStorage implements Storage {
     public KeyValue update(String serviceId, KeyValue toUpdate) {
         toUpdate.setServiceId(serviceId);
         log.info("Updating record for service {} under key {}", serviceId, toUpdate);
-        KeyValue serviceCache = cache.put(serviceId + toUpdate.getKey(), toUpdate);
-        if (serviceCache == null) {
+        KeyValue serviceCache = put(serviceId + toUpdate.getKey(), toUpdate);
+        if (serviceCache == null || serviceCache.isExpired(System.currentTimeMillis())) {
             throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), toUpdate.getKey(), serviceId);
         }
         return toUpdate;
 
     }
 
+    @Override
+    public KeyValue upsert(String serviceId, KeyValue toUpsert) {
+        toUpsert.setServiceId(serviceId);
+        log.info("Upserting record for service {} under key {}", serviceId, toUpsert);
+        put(serviceId + toUpsert.getKey(), toUpsert);
+        return toUpsert;
+    }
+
     @Override
     public KeyValue delete(String serviceId, String toDelete) {
         log.info("Removing record for service {} under key {}", serviceId, toDelete);
         KeyValue entry = cache.remove(serviceId + toDelete);
-        if (entry != null) {
+        if (entry != null && !entry.isExpired(System.currentTimeMillis())) {
             return entry;
         } else {
             throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), toDelete, serviceId);
@@ -134,17 +171,104 @@ public class InfinispanStorage implements Storage {
     public Map<String, KeyValue> readForService(String serviceId) {
         log.info("Reading all records for service {} ", serviceId);
         Map<String, KeyValue> result = new HashMap<>();
+        long now = System.currentTimeMillis();
+        if (serviceIndex != null) {
+            getAll(serviceIndex.cacheKeys(serviceId)).values().forEach(value -> {
+                if (value != null && serviceId.equals(value.getServiceId()) && !value.isExpired(now)) {
+                    result.put(value.getKey(), value);
+                }
+            });
+            return result;
+        }
+
         cache.forEach((key, value) -> {
-            if (serviceId.equals(value.getServiceId())) {
+            if (serviceId.equals(value.getServiceId()) && !value.isExpired(now)) {
+                result.put(value.getKey(), value);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public Map<String, KeyValue> readAll(String serviceId, Collection<String> keys) {
+        log.info("Reading records for service {} under keys {}", serviceId, keys);
+        Set<String> cacheKeys = keys.stream().map(key -> serviceId + key).collect(Collectors.toSet());
+        Map<String, KeyValue> result = new HashMap<>();
+        long now = System.currentTimeMillis();
+        getAll(cacheKeys).values().forEach(value -> {
+            if (value != null && serviceId.equals(value.getServiceId()) && !value.isExpired(now)) {
                 result.put(value.getKey(), value);
             }
         });
         return result;
     }
 
+    @Override
+    public List<KeyValue> upsertAll(String serviceId, Collection<KeyValue> toStore) {
+        log.info("Storing {} records for service {}", toStore.size(), serviceId);
+        Map<String, KeyValue> withoutLifespan = new HashMap<>();
+        for (KeyValue keyValue : toStore) {
+            keyValue.setServiceId(serviceId);
+            if (keyValue.getExpiresAt() == null) {
+                withoutLifespan.put(serviceId + keyValue.getKey(), keyValue);
+            } else {
+                withoutLifespan.remove(serviceId + keyValue.getKey());
+                put(serviceId + keyValue.getKey(), keyValue);
+            }
+        }
+
+        if (!withoutLifespan.isEmpty()) {
+            cache.putAll(withoutLifespan);
+        }
+        return new ArrayList<>(toStore);
+    }
+
+    @Override
+    public Map<String, KeyValue> deleteAll(String serviceId, Collection<String> keys) {
+        log.info("Removing records for service {} under keys {}", serviceId, keys);
+        Map<String, KeyValue> result = new HashMap<>();
+        long now = System.currentTimeMillis();
+        for (String key : keys) {
+            KeyValue entry = cache.remove(serviceId + key);
+            if (entry != null && !entry.isExpired(now)) {
+                result.put(key, entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The embedded cache reads all the keys at once, which saves a round trip to the owners for every key.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, KeyValue> getAll(Set<String> cacheKeys) {
+        if (cache instanceof Cache) {
+            return ((Cache<String, KeyValue>) cache).getAdvancedCache().getAll(cacheKeys);
+        }
+
+        Map<String, KeyValue> result = new HashMap<>();
+        for (String cacheKey : cacheKeys) {
+            KeyValue value = cache.get(cacheKey);
+            if (value != null) {
+                result.put(cacheKey, value);
+            }
+        }
+        return result;
+    }
+
     @Override
     public void deleteForService(String serviceId) {
         log.info("Removing all records for service {} ", serviceId);
+        if (serviceIndex != null) {
+            for (String cacheKey : serviceIndex.cacheKeys(serviceId)) {
+                KeyValue value = cache.get(cacheKey);
+                if (value != null && serviceId.equals(value.getServiceId())) {
+                    cache.remove(cacheKey, value);
+                }
+            }
+            return;
+        }
+
         cache.forEach((key, value) -> {
             if (value.getServiceId().equals(serviceId)) {
                 cache.remove(key);
@@ -152,18 +276,49 @@ public class InfinispanStorage implements Storage {
         });
     }
 
+    @Override
+    public void removeExpired(String serviceId, String key) {
+        String cacheKey = serviceId + key;
+        KeyValue entry = cache.get(cacheKey);
+        if (entry != null && entry.isExpired(System.currentTimeMillis()) && cache.remove(cacheKey, entry)) {
+            log.debug("Removed expired record for service {} under key {}", serviceId, key);
+        }
+    }
+
+    /**
+     * Entries with the time to live are stored with the lifespan, so Infinispan expires them across the cluster.
+     */
+    @SuppressWarnings("unchecked")
+    private KeyValue putIfAbsent(String cacheKey, KeyValue keyValue) {
+        Long lifespan = lifespan(keyValue);
+        if (lifespan != null && cache instanceof BasicCache) {
+            return ((BasicCache<String, KeyValue>) cache).putIfAbsent(cacheKey, keyValue, lifespan, TimeUnit.MILLISECONDS);
+        }
+
+        return cache.putIfAbsent(cacheKey, keyValue);
+    }
+
+    @SuppressWarnings("unchecked")
+    private KeyValue put(String cacheKey, KeyValue keyValue) {
+        Long lifespan = lifespan(keyValue);
+        if (lifespan != null && cache instanceof BasicCache) {
+            return ((BasicCache<String, KeyValue>) cache).put(cacheKey, keyValue, lifespan, TimeUnit.MILLISECONDS);
+        }
+
+        return cache.put(cacheKey, keyValue);
+    }
+
+    private Long lifespan(KeyValue keyValue) {
+        if (keyValue.getExpiresAt() == null) {
+            return null;
+        }
+
+        return Math.max(1, keyValue.getExpiresAt() - System.currentTimeMillis());
+    }
+
     @Override
     public void removeNonRelevantTokens(String serviceId, String mapKey) {
-        CompletableFuture<Boolean> complete = lock.tryLock(4, TimeUnit.SECONDS).whenComplete((r, ex) -> {
-            if (Boolean.TRUE.equals(r)) {
-                try {
-                    removeToken(serviceId, mapKey);
-                } finally {
-                    lock.unlock();
-                }
-            }
-        });
-        completeJoin(complete);
+        withLock(serviceId + mapKey, () -> removeToken(serviceId, mapKey));
     }
 
     private void removeToken(String serviceId, String mapKey) {
@@ -179,24 +334,67 @@ public class InfinispanStorage implements Storage {
                 }
             }).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
             tokenCache.put(serviceId + mapKey, result);
+            recordRemovals(serviceId + mapKey, map, result);
         }
     }
 
     @Override
     public void removeNonRelevantRules(String serviceId, String mapKey) {
+        withLock(serviceId + mapKey, () -> {
+            long timestamp = System.currentTimeMillis();
+            Map<String, String> map = tokenCache.get(serviceId + mapKey);
+            if (map != null && !map.isEmpty()) {
+                Map<String,String> result = map.entrySet().stream().filter(entry -> {
+                    long delta = timestamp - Long.parseLong(entry.getValue());
+                    long deltaToDays = TimeUnit.MILLISECONDS.toDays(delta);
+                    return deltaToDays <= 90;
+                }).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+                tokenCache.put(serviceId + mapKey, result);
+                recordRemovals(serviceId + mapKey, map, result);
+            }
+        });
+    }
+
+    @Override
+    public MapChanges getMapChanges(String serviceId, String mapKey, String epoch, long sequence) {
+        log.info("Reading changes of token cache for service {} under the {} key since {}:{}.", serviceId, mapKey, epoch, sequence);
+        String cacheKey = serviceId + mapKey;
+        // the log is read first, the map can then contain newer changes, which are sent again next time
+        MapChangeLog changes = changesCache.get(cacheKey);
+        if (changes == null || !changes.covers(epoch, sequence)) {
+            return MapChangeLog.full(changes, tokenCache.get(cacheKey));
+        }
+        return changes.since(sequence);
+    }
+
+    /**
+     * Has to be called under the lock of the map.
+     */
+    private void recordChanges(String cacheKey, boolean mapExists, Map<String, String> changed, Set<String> removed) {
+        MapChangeLog changes = changesCache.get(cacheKey);
+        if (changes == null) {
+            changes = MapChangeLog.start(mapExists);
+        }
+        changesCache.put(cacheKey, changes.record(changed, removed));
+    }
+
+    private void recordRemovals(String cacheKey, Map<String, String> original, Map<String, String> result) {
+        Set<String> removed = new HashSet<>(original.keySet());
+        removed.removeAll(result.keySet());
+        if (!removed.isEmpty()) {
+            recordChanges(cacheKey, true, Collections.emptyMap(), removed);
+        }
+    }
+
+    /**
+     * Run the action under the lock of the map, the updates of the other maps are not blocked.
+     */
+    private void withLock(String cacheKey, Runnable action) {
+        ClusteredLock lock = locks.apply(cacheKey);
         CompletableFuture<Boolean> complete = lock.tryLock(4, TimeUnit.SECONDS).whenComplete((r, ex) -> {
             if (Boolean.TRUE.equals(r)) {
                 try {
-                    long timestamp = System.currentTimeMillis();
-                    Map<String, String> map = tokenCache.get(serviceId + mapKey);
-                    if (map != null && !map.isEmpty()) {
-                        Map<String,String> result = map.entrySet().stream().filter(entry -> {
-                            long delta = timestamp - Long.parseLong(entry.getValue());
-                            long deltaToDays = TimeUnit.MILLISECONDS.toDays(delta);
-                            return deltaToDays <= 90;
-                        }).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-                        tokenCache.put(serviceId + mapKey, result);
-                    }
+                    action.run();
                 } finally {
                     lock.unlock();
                 }
@@ -0,0 +1,122 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.infinispan.storage;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.zowe.apiml.caching.model.MapChanges;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Numbered changes of one map in the token cache. Every added, updated or removed item gets the next sequence number.
+ * Only the latest {@link #MAX_CHANGES} changes are kept, older sequences are answered with the whole map.
+ * <p>
+ * Every log gets a random epoch when it is started. If the log is lost, for example after all the instances of the
+ * Caching Service were restarted, the new log has a different epoch and the sequences issued by the old one are not
+ * covered, even if the numbers are in the range of the new log.
+ * <p>
+ * The log is immutable, every change creates a new instance which replaces the old one in the cache.
+ */
+@Getter
+@RequiredArgsConstructor
+public class MapChangeLog implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    static final int MAX_CHANGES = 1000;
+
+    private final String epoch;
+    private final long sequence;
+    /**
+     * All the changes after this sequence are kept in the log.
+     */
+    private final long firstSequence;
+    private final ArrayList<Change> changes;
+
+    /**
+     * @param mapExists whether the map already contains items, which were not logged
+     */
+    static MapChangeLog start(boolean mapExists) {
+        long sequence = mapExists ? 1 : 0;
+        return new MapChangeLog(UUID.randomUUID().toString(), sequence, sequence, new ArrayList<>());
+    }
+
+    MapChangeLog record(Map<String, String> changed, Collection<String> removed) {
+        ArrayList<Change> newChanges = new ArrayList<>(changes);
+        long newSequence = sequence;
+        for (Map.Entry<String, String> entry : changed.entrySet()) {
+            newChanges.add(new Change(++newSequence, entry.getKey(), entry.getValue()));
+        }
+        for (String key : removed) {
+            newChanges.add(new Change(++newSequence, key, null));
+        }
+
+        long newFirstSequence = firstSequence;
+        if (newChanges.size() > MAX_CHANGES) {
+            List<Change> dropped = newChanges.subList(0, newChanges.size() - MAX_CHANGES);
+            newFirstSequence = dropped.get(dropped.size() - 1).getSequence();
+            dropped.clear();
+        }
+        return new MapChangeLog(epoch, newSequence, newFirstSequence, newChanges);
+    }
+
+    /**
+     * @param epoch epoch of the log which issued the sequence
+     * @return whether all the changes after the sequence are kept in the log
+     */
+    boolean covers(String epoch, long since) {
+        return this.epoch.equals(epoch) && since >= firstSequence && since <= sequence;
+    }
+
+    /**
+     * @param since sequence known by the caller, it has to be {@link #covers(String, long) covered} by the log
+     */
+    MapChanges since(long since) {
+        Map<String, String> changed = new HashMap<>();
+        Set<String> removed = new HashSet<>();
+        for (Change change : changes) {
+            if (change.getSequence() <= since) {
+                continue;
+            }
+            if (change.getValue() == null) {
+                changed.remove(change.getKey());
+                removed.add(change.getKey());
+            } else {
+                removed.remove(change.getKey());
+                changed.put(change.getKey(), change.getValue());
+            }
+        }
+        return new MapChanges(epoch, sequence, false, changed, removed);
+    }
+
+    /**
+     * @param log the current log of the map, null if there is none yet
+     */
+    static MapChanges full(MapChangeLog log, Map<String, String> map) {
+        String epoch = log == null ? null : log.getEpoch();
+        long sequence = log == null ? 0 : log.getSequence();
+        return new MapChanges(epoch, sequence, true, map == null ? new HashMap<>() : new HashMap<>(map), new HashSet<>());
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Change implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final long sequence;
+        private final String key;
+        /**
+         * New value of the item, null when the item was removed.
+         */
+        private final String value;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.infinispan.storage;
+
+import org.infinispan.notifications.Listener;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryCreated;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryExpired;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryModified;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryRemoved;
+import org.infinispan.notifications.cachelistener.event.CacheEntryCreatedEvent;
+import org.infinispan.notifications.cachelistener.event.CacheEntryExpiredEvent;
+import org.infinispan.notifications.cachelistener.event.CacheEntryModifiedEvent;
+import org.infinispan.notifications.cachelistener.event.CacheEntryRemovedEvent;
+import org.zowe.apiml.caching.model.KeyValue;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local index of the cache keys by the service, so the operations with all records of a service don't have to go
+ * through the whole cache.
+ * <p>
+ * The index listens to the changes of the local copy of the cache. The cache is replicated, so every node receives the
+ * events for all the entries and keeps the complete index. The entries existing when the listener is registered are
+ * indexed as well. The index can contain keys which were removed in the meantime, the callers have to check the values.
+ */
+@Listener(includeCurrentState = true, observation = Listener.Observation.POST)
+public class ServiceIndex {
+    private final Map<String, Set<String>> cacheKeys = new ConcurrentHashMap<>();
+
+    @CacheEntryCreated
+    public void created(CacheEntryCreatedEvent<String, KeyValue> event) {
+        add(event.getKey(), event.getValue());
+    }
+
+    @CacheEntryModified
+    public void modified(CacheEntryModifiedEvent<String, KeyValue> event) {
+        add(event.getKey(), event.getNewValue());
+    }
+
+    @CacheEntryRemoved
+    public void removed(CacheEntryRemovedEvent<String, KeyValue> event) {
+        remove(event.getKey(), event.getOldValue());
+    }
+
+    @CacheEntryExpired
+    public void expired(CacheEntryExpiredEvent<String, KeyValue> event) {
+        remove(event.getKey(), event.getValue());
+    }
+
+    /**
+     * @return copy of the cache keys of the service
+     */
+    public Set<String> cacheKeys(String serviceId) {
+        Set<String> keys = cacheKeys.get(serviceId);
+        if (keys == null) {
+            return Collections.emptySet();
+        }
+        return new HashSet<>(keys);
+    }
+
+    void add(String cacheKey, KeyValue value) {
+        if (value != null && value.getServiceId() != null) {
+            cacheKeys.compute(value.getServiceId(), (serviceId, keys) -> {
+                Set<String> result = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+                result.add(cacheKey);
+                return result;
+            });
+        }
+    }
+
+    void remove(String cacheKey, KeyValue value) {
+        if (value != null && value.getServiceId() != null) {
+            cacheKeys.computeIfPresent(value.getServiceId(), (serviceId, keys) -> {
+                keys.remove(cacheKey);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.infinispan.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.infinispan.lock.api.ClusteredLock;
+import org.infinispan.lock.api.ClusteredLockManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Provides a clustered lock for every map in the token cache, so the updates of the different maps don't wait for
+ * each other. The locks are defined on the first use, the definition is shared by all nodes of the cluster.
+ */
+@RequiredArgsConstructor
+public class TokenCacheLocks implements Function<String, ClusteredLock> {
+    static final String LOCK_PREFIX = "zoweInvalidatedTokenLock-";
+
+    private final ClusteredLockManager lockManager;
+    private final ConcurrentMap<String, ClusteredLock> locks = new ConcurrentHashMap<>();
+
+    @Override
+    public ClusteredLock apply(String cacheKey) {
+        return locks.computeIfAbsent(cacheKey, key -> {
+            String name = LOCK_PREFIX + key;
+            lockManager.defineLock(name);
+            return lockManager.get(name);
+        });
+    }
+}
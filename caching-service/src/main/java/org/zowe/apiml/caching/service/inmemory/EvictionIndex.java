@@ -0,0 +1,177 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.inmemory;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.zowe.apiml.caching.model.KeyValue;
+
+import java.util.*;
+
+/**
+ * Index of the entries stored in the {@link InMemoryStorage} ordered by the priority in which they should be evicted.
+ * The index is kept up to date on every write and read so the eviction candidate is available without scanning
+ * the whole storage. All the operations are O(log n).
+ *
+ * The order depends on the selected strategy:
+ * - oldest first - by the time of creation of the stored value
+ * - least recently used - by the last read or write of the entry
+ * - least frequently used - by the amount of reads and writes of the entry, ties are broken by the last access
+ */
+public class EvictionIndex {
+    private static final Comparator<Entry> OLDEST_FIRST = Comparator
+        .comparingLong(Entry::getCreated)
+        .thenComparingLong(Entry::getSequence);
+    private static final Comparator<Entry> LEAST_RECENTLY_USED = Comparator
+        .comparingLong(Entry::getLastAccess)
+        .thenComparingLong(Entry::getSequence);
+    private static final Comparator<Entry> LEAST_FREQUENTLY_USED = Comparator
+        .comparingLong(Entry::getHits)
+        .thenComparingLong(Entry::getLastAccess)
+        .thenComparingLong(Entry::getSequence);
+
+    private final boolean reorderOnRead;
+    private final NavigableSet<Entry> queue;
+    private final Map<String, Map<String, Entry>> entries = new HashMap<>();
+
+    private long clock;
+
+    EvictionIndex(Comparator<Entry> order, boolean reorderOnRead) {
+        this.queue = new TreeSet<>(order);
+        this.reorderOnRead = reorderOnRead;
+    }
+
+    public static EvictionIndex oldestFirst() {
+        return new EvictionIndex(OLDEST_FIRST, false);
+    }
+
+    public static EvictionIndex leastRecentlyUsed() {
+        return new EvictionIndex(LEAST_RECENTLY_USED, true);
+    }
+
+    public static EvictionIndex leastFrequentlyUsed() {
+        return new EvictionIndex(LEAST_FREQUENTLY_USED, true);
+    }
+
+    /**
+     * Register newly stored entry. If the entry is already known it is handled as an update.
+     */
+    public synchronized void add(String serviceId, KeyValue keyValue) {
+        Entry existing = find(serviceId, keyValue.getKey());
+        if (existing != null) {
+            reorder(existing, parseCreated(keyValue));
+            return;
+        }
+
+        long now = ++clock;
+        Entry entry = new Entry(serviceId, keyValue.getKey(), now);
+        entry.created = parseCreated(keyValue);
+        entry.lastAccess = now;
+        entry.hits = 1;
+
+        entries.computeIfAbsent(serviceId, k -> new HashMap<>()).put(keyValue.getKey(), entry);
+        queue.add(entry);
+    }
+
+    /**
+     * Register new value of already stored entry.
+     */
+    public synchronized void update(String serviceId, KeyValue keyValue) {
+        Entry existing = find(serviceId, keyValue.getKey());
+        if (existing == null) {
+            add(serviceId, keyValue);
+            return;
+        }
+
+        reorder(existing, parseCreated(keyValue));
+    }
+
+    /**
+     * Register read of the entry.
+     */
+    public synchronized void touch(String serviceId, String key) {
+        if (!reorderOnRead) {
+            return;
+        }
+
+        Entry existing = find(serviceId, key);
+        if (existing != null) {
+            reorder(existing, existing.created);
+        }
+    }
+
+    public synchronized void remove(String serviceId, String key) {
+        Map<String, Entry> serviceEntries = entries.get(serviceId);
+        if (serviceEntries == null) {
+            return;
+        }
+
+        Entry removed = serviceEntries.remove(key);
+        if (removed != null) {
+            queue.remove(removed);
+        }
+        if (serviceEntries.isEmpty()) {
+            entries.remove(serviceId);
+        }
+    }
+
+    public synchronized void removeService(String serviceId) {
+        Map<String, Entry> serviceEntries = entries.remove(serviceId);
+        if (serviceEntries != null) {
+            queue.removeAll(serviceEntries.values());
+        }
+    }
+
+    /**
+     * @return the entry which should be evicted first or null if the index is empty
+     */
+    public synchronized Entry eldest() {
+        return queue.isEmpty() ? null : queue.first();
+    }
+
+    public synchronized int size() {
+        return queue.size();
+    }
+
+    private Entry find(String serviceId, String key) {
+        Map<String, Entry> serviceEntries = entries.get(serviceId);
+        return serviceEntries == null ? null : serviceEntries.get(key);
+    }
+
+    private void reorder(Entry entry, long created) {
+        queue.remove(entry);
+        entry.created = created;
+        entry.lastAccess = ++clock;
+        entry.hits++;
+        queue.add(entry);
+    }
+
+    private long parseCreated(KeyValue keyValue) {
+        try {
+            return Long.parseLong(keyValue.getCreated());
+        } catch (NumberFormatException e) {
+            return System.currentTimeMillis();
+        }
+    }
+
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    @Getter
+    public static class Entry {
+        private final String serviceId;
+        private final String key;
+        private final long sequence;
+
+        private long created;
+        private long lastAccess;
+        private long hits;
+    }
+}
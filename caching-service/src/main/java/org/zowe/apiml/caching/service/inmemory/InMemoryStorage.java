@@ -12,20 +12,29 @@ package org.zowe.apiml.caching.service.inmemory;
 
 import lombok.extern.slf4j.Slf4j;
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.model.MapChanges;
 import org.zowe.apiml.caching.service.*;
 import org.zowe.apiml.caching.service.inmemory.config.InMemoryConfig;
 import org.zowe.apiml.message.core.MessageService;
 import org.zowe.apiml.message.log.ApimlLogger;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Slf4j
 public class InMemoryStorage implements Storage {
     private Map<String, Map<String, KeyValue>> storage;
     private EvictionStrategy strategy = new DefaultEvictionStrategy();
     private InMemoryConfig config;
+    private EvictionIndex index;
+    private final AtomicInteger size = new AtomicInteger();
 
     public InMemoryStorage(InMemoryConfig inMemoryConfig, MessageService messageService) {
         this(inMemoryConfig, new ConcurrentHashMap<>(), ApimlLogger.of(RejectStrategy.class, messageService));
@@ -39,7 +48,15 @@ public class InMemoryStorage implements Storage {
         if (evictionStrategy.equals(Strategies.REJECT.getKey())) {
             strategy = new RejectStrategy(apimlLogger);
         } else if (evictionStrategy.equals(Strategies.REMOVE_OLDEST.getKey())) {
-            strategy = new RemoveOldestStrategy(storage);
+            index = EvictionIndex.oldestFirst();
+        } else if (evictionStrategy.equals(Strategies.REMOVE_LEAST_RECENTLY_USED.getKey())) {
+            index = EvictionIndex.leastRecentlyUsed();
+        } else if (evictionStrategy.equals(Strategies.REMOVE_LEAST_FREQUENTLY_USED.getKey())) {
+            index = EvictionIndex.leastFrequentlyUsed();
+        }
+
+        if (index != null) {
+            strategy = new IndexedEvictionStrategy(index, this::removeEvicted);
         }
     }
 
@@ -47,17 +64,20 @@ public class InMemoryStorage implements Storage {
     public KeyValue create(String serviceId, KeyValue toCreate) {
         log.info("Writing record: {}|{}|{}", serviceId, toCreate.getKey(), toCreate.getValue());
 
-        storage.computeIfAbsent(serviceId, k -> new HashMap<>());
         Map<String, KeyValue> serviceStorage = storage.get(serviceId);
-        if (serviceStorage.containsKey(toCreate.getKey())) {
-            throw new StorageException(Messages.DUPLICATE_KEY.getKey(), Messages.DUPLICATE_KEY.getStatus(), toCreate.getKey());
+        KeyValue existing = serviceStorage == null ? null : serviceStorage.get(toCreate.getKey());
+        if (existing != null && !removeIfExpired(serviceId, serviceStorage, existing, System.currentTimeMillis())) {
+            throw duplicateKey(toCreate.getKey());
         }
 
         if (aboveThreshold()) {
             strategy.evict(toCreate.getKey());
         }
 
-        serviceStorage.put(toCreate.getKey(), toCreate);
+        // The check above is just a shortcut to avoid unnecessary eviction, another request could store the same key meanwhile
+        if (store(serviceId, toCreate, true) != null) {
+            throw duplicateKey(toCreate.getKey());
+        }
 
         return toCreate;
     }
@@ -77,16 +97,26 @@ public class InMemoryStorage implements Storage {
         throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
     }
 
+    @Override
+    public MapChanges getMapChanges(String serviceId, String mapKey, String epoch, long sequence) throws StorageException {
+        throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
+    }
+
     @Override
     public KeyValue read(String serviceId, String key) {
         log.info("Reading Record: {}|{}|{}", serviceId, key, "-");
 
         Map<String, KeyValue> serviceSpecificStorage = storage.get(serviceId);
-        if (serviceSpecificStorage == null || !serviceSpecificStorage.containsKey(key)) {
-            throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), key, serviceId);
+        KeyValue result = serviceSpecificStorage == null ? null : serviceSpecificStorage.get(key);
+        if (result == null || removeIfExpired(serviceId, serviceSpecificStorage, result, System.currentTimeMillis())) {
+            throw keyNotInCache(serviceId, key);
+        }
+
+        if (index != null) {
+            index.touch(serviceId, key);
         }
 
-        return serviceSpecificStorage.get(key);
+        return result;
     }
 
     @Override
@@ -94,36 +124,150 @@ public class InMemoryStorage implements Storage {
         log.info("Updating Record: {}|{}|{}", serviceId, toUpdate.getKey(), toUpdate.getValue());
 
         String key = toUpdate.getKey();
-        if (isKeyNotInCache(serviceId, key)) {
-            throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), key, serviceId);
+        Map<String, KeyValue> serviceStorage = storage.get(serviceId);
+        KeyValue existing = serviceStorage == null ? null : serviceStorage.get(key);
+        if (existing == null || removeIfExpired(serviceId, serviceStorage, existing, System.currentTimeMillis())) {
+            throw keyNotInCache(serviceId, key);
         }
 
-        Map<String, KeyValue> serviceStorage = storage.get(serviceId);
+        AtomicBoolean replaced = new AtomicBoolean();
+        storage.computeIfPresent(serviceId, (id, current) -> {
+            if (current.replace(key, toUpdate) != null) {
+                replaced.set(true);
+                if (index != null) {
+                    index.update(serviceId, toUpdate);
+                }
+            }
+            return current;
+        });
+        if (!replaced.get()) {
+            throw keyNotInCache(serviceId, key);
+        }
 
-        serviceStorage.put(key, toUpdate);
         return toUpdate;
     }
 
+    @Override
+    public KeyValue upsert(String serviceId, KeyValue toUpsert) {
+        log.info("Upserting Record: {}|{}|{}", serviceId, toUpsert.getKey(), toUpsert.getValue());
+
+        Map<String, KeyValue> serviceStorage = storage.get(serviceId);
+        if ((serviceStorage == null || !serviceStorage.containsKey(toUpsert.getKey())) && aboveThreshold()) {
+            strategy.evict(toUpsert.getKey());
+        }
+
+        store(serviceId, toUpsert, false);
+
+        return toUpsert;
+    }
+
     @Override
     public KeyValue delete(String serviceId, String key) {
         log.info("Deleting Record: {}|{}|{}", serviceId, key, "-");
 
-        if (isKeyNotInCache(serviceId, key)) {
-            throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), key, serviceId);
+        Map<String, KeyValue> serviceSpecificStorage = storage.get(serviceId);
+        KeyValue removed = serviceSpecificStorage == null ? null : serviceSpecificStorage.remove(key);
+        if (removed == null) {
+            throw keyNotInCache(serviceId, key);
+        }
+
+        size.decrementAndGet();
+        if (index != null) {
+            index.remove(serviceId, key);
         }
 
-        Map<String, KeyValue> serviceSpecificStorage = storage.get(serviceId);
-        return serviceSpecificStorage.remove(key);
+        return removed;
     }
 
     @Override
     public Map<String, KeyValue> readForService(String serviceId) {
-        return storage.get(serviceId);
+        Map<String, KeyValue> serviceStorage = storage.get(serviceId);
+        if (serviceStorage != null) {
+            long now = System.currentTimeMillis();
+            new ArrayList<>(serviceStorage.values()).forEach(keyValue -> removeIfExpired(serviceId, serviceStorage, keyValue, now));
+        }
+
+        return serviceStorage;
+    }
+
+    @Override
+    public Map<String, KeyValue> readAll(String serviceId, Collection<String> keys) {
+        log.info("Reading Records: {}|{}|{}", serviceId, keys, "-");
+
+        Map<String, KeyValue> result = new HashMap<>();
+        Map<String, KeyValue> serviceStorage = storage.get(serviceId);
+        if (serviceStorage == null) {
+            return result;
+        }
+
+        long now = System.currentTimeMillis();
+        for (String key : keys) {
+            KeyValue keyValue = serviceStorage.get(key);
+            if (keyValue != null && !removeIfExpired(serviceId, serviceStorage, keyValue, now)) {
+                result.put(key, keyValue);
+                if (index != null) {
+                    index.touch(serviceId, key);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<KeyValue> upsertAll(String serviceId, Collection<KeyValue> toStore) {
+        log.info("Writing Records: {}|{}", serviceId, toStore.size());
+
+        List<KeyValue> result = new ArrayList<>(toStore.size());
+        for (KeyValue keyValue : toStore) {
+            result.add(upsert(serviceId, keyValue));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, KeyValue> deleteAll(String serviceId, Collection<String> keys) {
+        log.info("Deleting Records: {}|{}|{}", serviceId, keys, "-");
+
+        Map<String, KeyValue> result = new HashMap<>();
+        Map<String, KeyValue> serviceStorage = storage.get(serviceId);
+        if (serviceStorage == null) {
+            return result;
+        }
+
+        long now = System.currentTimeMillis();
+        for (String key : keys) {
+            KeyValue removed = serviceStorage.remove(key);
+            if (removed == null) {
+                continue;
+            }
+
+            size.decrementAndGet();
+            if (index != null) {
+                index.remove(serviceId, key);
+            }
+            if (!removed.isExpired(now)) {
+                result.put(key, removed);
+            }
+        }
+        return result;
     }
 
     @Override
     public void deleteForService(String serviceId) {
-        storage.remove(serviceId);
+        storage.compute(serviceId, (id, serviceStorage) -> {
+            if (serviceStorage != null) {
+                // only the entries removed here are counted, another request could remove some of them meanwhile
+                for (String key : new ArrayList<>(serviceStorage.keySet())) {
+                    if (serviceStorage.remove(key) != null) {
+                        size.decrementAndGet();
+                    }
+                }
+            }
+            if (index != null) {
+                index.removeService(serviceId);
+            }
+            return null;
+        });
     }
 
     @Override
@@ -136,16 +280,76 @@ public class InMemoryStorage implements Storage {
         throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
     }
 
-    private boolean isKeyNotInCache(String serviceId, String keyToTest) {
+    @Override
+    public void removeExpired(String serviceId, String key) {
+        Map<String, KeyValue> serviceStorage = storage.get(serviceId);
+        KeyValue existing = serviceStorage == null ? null : serviceStorage.get(key);
+        if (existing != null && removeIfExpired(serviceId, serviceStorage, existing, System.currentTimeMillis())) {
+            log.debug("Removed expired record: {}|{}", serviceId, key);
+        }
+    }
+
+    /**
+     * Store the entry to the map of the service, the map is created if it does not exist. The write is atomic with
+     * {@link #deleteForService(String)}, so the entry is never stored to a map which was removed meanwhile.
+     *
+     * @param onlyIfAbsent true to keep the existing entry of the key
+     * @return the previous entry of the key or null if there was none
+     */
+    private KeyValue store(String serviceId, KeyValue keyValue, boolean onlyIfAbsent) {
+        AtomicReference<KeyValue> previous = new AtomicReference<>();
+        storage.compute(serviceId, (id, current) -> {
+            Map<String, KeyValue> serviceStorage = current != null ? current : new ConcurrentHashMap<>();
+            KeyValue existing = onlyIfAbsent
+                ? serviceStorage.putIfAbsent(keyValue.getKey(), keyValue)
+                : serviceStorage.put(keyValue.getKey(), keyValue);
+            previous.set(existing);
+
+            if (existing == null) {
+                size.incrementAndGet();
+            }
+            if ((index != null) && (existing == null || !onlyIfAbsent)) {
+                index.update(serviceId, keyValue);
+            }
+            return serviceStorage;
+        });
+        return previous.get();
+    }
+
+    /**
+     * @return true if the entry was expired and it is not stored anymore
+     */
+    private boolean removeIfExpired(String serviceId, Map<String, KeyValue> serviceStorage, KeyValue keyValue, long now) {
+        if (!keyValue.isExpired(now)) {
+            return false;
+        }
+
+        if (serviceStorage.remove(keyValue.getKey(), keyValue)) {
+            size.decrementAndGet();
+            if (index != null) {
+                index.remove(serviceId, keyValue.getKey());
+            }
+        }
+        return true;
+    }
+
+    private StorageException keyNotInCache(String serviceId, String key) {
+        return new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), key, serviceId);
+    }
+
+    private StorageException duplicateKey(String key) {
+        return new StorageException(Messages.DUPLICATE_KEY.getKey(), Messages.DUPLICATE_KEY.getStatus(), key);
+    }
+
+    private void removeEvicted(String serviceId, String key) {
         Map<String, KeyValue> serviceSpecificStorage = storage.get(serviceId);
-        return serviceSpecificStorage == null || serviceSpecificStorage.get(keyToTest) == null;
+        if (serviceSpecificStorage != null && serviceSpecificStorage.remove(key) != null) {
+            size.decrementAndGet();
+        }
     }
 
     private boolean aboveThreshold() {
-        int currentSize = 0;
-        for (Map.Entry<String, Map<String, KeyValue>> serviceStorage: storage.entrySet()) {
-            currentSize += serviceStorage.getValue().size();
-        }
+        int currentSize = size.get();
 
         log.info("Current Size {}.", currentSize);
 
@@ -0,0 +1,41 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.inmemory;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.zowe.apiml.caching.service.EvictionStrategy;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Eviction strategy removing the first entry of the {@link EvictionIndex}. The order of the index (oldest,
+ * least recently used, least frequently used) decides which entry is removed.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class IndexedEvictionStrategy implements EvictionStrategy {
+    private final EvictionIndex index;
+    private final BiConsumer<String, String> remover;
+
+    @Override
+    public boolean evict(String key) {
+        EvictionIndex.Entry eldest = index.eldest();
+        if (eldest == null) {
+            return false;
+        }
+
+        log.debug("Evicting record: {}|{}", eldest.getServiceId(), eldest.getKey());
+        remover.accept(eldest.getServiceId(), eldest.getKey());
+        index.remove(eldest.getServiceId(), eldest.getKey());
+        return true;
+    }
+}
@@ -97,15 +97,15 @@ public class RedisOperator {
      * Updates a given entry in Redis.
      *
      * @param entryToUpdate RedisEntry containing the service ID and key to update, with the new value.
-     * @return true if the key exists for a service ID and the value was updated, otherwise false.
+     * @return true if the key exists and is not expired for a service ID and the value was updated, otherwise false.
      */
     public boolean update(RedisEntry entryToUpdate) throws RedisOutOfMemoryException {
         String serviceId = entryToUpdate.getServiceId();
         KeyValue toUpdate = entryToUpdate.getEntry();
 
         try {
-            boolean exists = redis.hexists(serviceId, toUpdate.getKey()).get();
-            if (!exists) {
+            String existing = redis.hget(serviceId, toUpdate.getKey()).get();
+            if (existing == null || new RedisEntry(serviceId, existing).getEntry().isExpired(System.currentTimeMillis())) {
                 return false;
             }
 
@@ -122,6 +122,29 @@ public class RedisOperator {
         return false;
     }
 
+    /**
+     * Creates or replaces a given entry in Redis using a single HSET command.
+     *
+     * @param entryToUpsert RedisEntry containing the service ID for which to store the entry, and the key and value.
+     * @return true if the entry was stored, otherwise false.
+     */
+    public boolean upsert(RedisEntry entryToUpsert) throws RedisOutOfMemoryException {
+        KeyValue toUpsert = entryToUpsert.getEntry();
+
+        try {
+            redis.hset(entryToUpsert.getServiceId(), toUpsert.getKey(), entryToUpsert.getEntryAsString()).get();
+            return true;
+        } catch (ExecutionException e) {
+            handleWriteOperationExecutionException(e);
+        } catch (InterruptedException e) {
+            handleInterruptedException(e);
+        } catch (RedisEntryException e) {
+            return false;
+        }
+
+        return false;
+    }
+
     /**
      * Retrieve an entry for a given service with the corresponding key.
      *
@@ -160,6 +183,93 @@ public class RedisOperator {
         return Collections.emptyList();
     }
 
+    /**
+     * Retrieves the entries with the given keys for a given service using a single HMGET command.
+     *
+     * @return List of RedisEntry instances for the existing keys. If there are no such entries an empty List is returned.
+     */
+    public List<RedisEntry> getAll(String serviceId, Collection<String> keys) {
+        try {
+            List<io.lettuce.core.KeyValue<String, String>> result = redis.hmget(serviceId, keys.toArray(new String[0])).get();
+            return collectEntries(serviceId, result);
+        } catch (InterruptedException e) {
+            handleInterruptedException(e);
+        } catch (ExecutionException e) {
+            throw new RetryableRedisException(e);
+        }
+
+        return Collections.emptyList();
+    }
+
+    /**
+     * Creates or replaces all the given entries of a service using a single HSET command.
+     *
+     * @return true if the entries were stored, false if any of them couldn't be serialized and nothing was stored.
+     */
+    public boolean upsertAll(String serviceId, Collection<RedisEntry> entries) throws RedisOutOfMemoryException {
+        Map<String, String> fields = new HashMap<>();
+
+        try {
+            for (RedisEntry entry : entries) {
+                fields.put(entry.getEntry().getKey(), entry.getEntryAsString());
+            }
+
+            redis.hset(serviceId, fields).get();
+            return true;
+        } catch (ExecutionException e) {
+            handleWriteOperationExecutionException(e);
+        } catch (InterruptedException e) {
+            handleInterruptedException(e);
+        } catch (RedisEntryException e) {
+            log.warn("Error storing entries for: {}. Error: {}", serviceId, e.getMessage());
+        }
+
+        return false;
+    }
+
+    /**
+     * Deletes the entries with the given keys for a given service. The HMGET reading the deleted entries and the HDEL
+     * are pipelined, both commands are sent before waiting for the first reply.
+     *
+     * @return List of the deleted RedisEntry instances. If there were no such entries an empty List is returned.
+     */
+    public List<RedisEntry> deleteAll(String serviceId, Collection<String> keys) {
+        String[] fields = keys.toArray(new String[0]);
+
+        try {
+            RedisFuture<List<io.lettuce.core.KeyValue<String, String>>> existing = redis.hmget(serviceId, fields);
+            RedisFuture<Long> deleted = redis.hdel(serviceId, fields);
+
+            List<io.lettuce.core.KeyValue<String, String>> result = existing.get();
+            deleted.get();
+            return collectEntries(serviceId, result);
+        } catch (InterruptedException e) {
+            handleInterruptedException(e);
+        } catch (ExecutionException e) {
+            throw new RetryableRedisException(e);
+        }
+
+        return Collections.emptyList();
+    }
+
+    private List<RedisEntry> collectEntries(String serviceId, List<io.lettuce.core.KeyValue<String, String>> redisEntries) {
+        List<RedisEntry> entries = new ArrayList<>();
+
+        for (io.lettuce.core.KeyValue<String, String> entry : redisEntries) {
+            if (!entry.hasValue()) {
+                continue;
+            }
+
+            try {
+                entries.add(new RedisEntry(serviceId, entry.getValue()));
+            } catch (RedisEntryException e) {
+                log.warn("Error retrieving entry: {}|{}. Error: {}", serviceId, entry.getKey(), e.getMessage());
+            }
+        }
+
+        return entries;
+    }
+
     private List<RedisEntry> collectEntries(String serviceId, Map<String, String> redisEntries) {
         List<RedisEntry> entries = new ArrayList<>();
 
@@ -13,15 +13,14 @@ package org.zowe.apiml.caching.service.redis;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.retry.annotation.Retryable;
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.model.MapChanges;
 import org.zowe.apiml.caching.service.Messages;
 import org.zowe.apiml.caching.service.Storage;
 import org.zowe.apiml.caching.service.StorageException;
 import org.zowe.apiml.caching.service.redis.exceptions.RedisOutOfMemoryException;
 import org.zowe.apiml.caching.service.redis.exceptions.RetryableRedisException;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 /**
  * Class handles requests from controller and orchestrates operations on the low level RedisOperator class.
@@ -30,6 +29,9 @@ import java.util.Map;
  * configured memory, or there is not enough memory available and a no eviction policy is used, an error message is returned to the user.
  * If another entry will be evicted to make space for a create or update operation, no warning is logged and the eviction
  * is left to Redis.
+ * <p>
+ * The entries of a service are stored as fields of a single Redis hash and Redis can expire only whole keys, therefore
+ * entries with time to live are filtered out on read once expired and removed by {@link #removeExpired(String, String)}.
  */
 @Slf4j
 public class RedisStorage implements Storage {
@@ -49,6 +51,9 @@ public class RedisStorage implements Storage {
         RedisEntry entryToCreate = new RedisEntry(serviceId, toCreate);
         try {
             boolean result = redis.create(entryToCreate);
+            if (!result && removeIfExpired(serviceId, toCreate.getKey())) {
+                result = redis.create(entryToCreate);
+            }
 
             if (!result) {
                 throw new StorageException(Messages.DUPLICATE_KEY.getKey(), Messages.DUPLICATE_KEY.getStatus(), toCreate.getKey(), serviceId);
@@ -74,13 +79,18 @@ public class RedisStorage implements Storage {
         throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
     }
 
+    @Override
+    public MapChanges getMapChanges(String serviceId, String mapKey, String epoch, long sequence) throws StorageException {
+        throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
+    }
+
     @Override
     @Retryable(value = RetryableRedisException.class)
     public KeyValue read(String serviceId, String key) {
         log.info("Reading entry: {}|{}", serviceId, key);
 
         RedisEntry result = redis.get(serviceId, key);
-        if (result == null) {
+        if (result == null || result.getEntry().isExpired(System.currentTimeMillis())) {
             throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), key, serviceId);
         }
         return result.getEntry();
@@ -104,6 +114,22 @@ public class RedisStorage implements Storage {
         return toUpdate;
     }
 
+    @Override
+    @Retryable(value = RetryableRedisException.class)
+    public KeyValue upsert(String serviceId, KeyValue toUpsert) {
+        log.info("Upserting entry: {}|{}|{}", serviceId, toUpsert.getKey(), toUpsert.getValue());
+
+        RedisEntry entryToUpsert = new RedisEntry(serviceId, toUpsert);
+        try {
+            if (!redis.upsert(entryToUpsert)) {
+                throw new StorageException(Messages.INVALID_PAYLOAD.getKey(), Messages.INVALID_PAYLOAD.getStatus(), toUpsert.getKey(), "Entry cannot be serialized");
+            }
+        } catch (RedisOutOfMemoryException e) {
+            throw new StorageException(Messages.INSUFFICIENT_STORAGE.getKey(), Messages.INSUFFICIENT_STORAGE.getStatus());
+        }
+        return toUpsert;
+    }
+
     @Override
     @Retryable(value = RetryableRedisException.class)
     public KeyValue delete(String serviceId, String toDelete) {
@@ -112,7 +138,7 @@ public class RedisStorage implements Storage {
         RedisEntry entryToDelete = redis.get(serviceId, toDelete);
         boolean result = redis.delete(serviceId, toDelete);
 
-        if (!result) {
+        if (!result || (entryToDelete != null && entryToDelete.getEntry().isExpired(System.currentTimeMillis()))) {
             throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), toDelete, serviceId);
         }
         return entryToDelete.getEntry();
@@ -126,12 +152,76 @@ public class RedisStorage implements Storage {
         List<RedisEntry> redisResult = redis.get(serviceId);
         Map<String, KeyValue> readResult = new HashMap<>();
 
+        long now = System.currentTimeMillis();
         for (RedisEntry redisEntry : redisResult) {
-            readResult.put(redisEntry.getEntry().getKey(), redisEntry.getEntry());
+            if (!redisEntry.getEntry().isExpired(now)) {
+                readResult.put(redisEntry.getEntry().getKey(), redisEntry.getEntry());
+            }
         }
         return readResult;
     }
 
+    @Override
+    @Retryable(value = RetryableRedisException.class)
+    public Map<String, KeyValue> readAll(String serviceId, Collection<String> keys) {
+        log.info("Reading entries: {}|{}", serviceId, keys);
+
+        Map<String, KeyValue> readResult = new HashMap<>();
+        if (keys.isEmpty()) {
+            return readResult;
+        }
+
+        collectNotExpired(redis.getAll(serviceId, keys), readResult);
+        return readResult;
+    }
+
+    @Override
+    @Retryable(value = RetryableRedisException.class)
+    public List<KeyValue> upsertAll(String serviceId, Collection<KeyValue> toStore) {
+        log.info("Storing entries: {}|{}", serviceId, toStore.size());
+
+        if (toStore.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<RedisEntry> entries = new ArrayList<>(toStore.size());
+        for (KeyValue keyValue : toStore) {
+            entries.add(new RedisEntry(serviceId, keyValue));
+        }
+
+        try {
+            if (!redis.upsertAll(serviceId, entries)) {
+                throw new StorageException(Messages.INVALID_PAYLOAD.getKey(), Messages.INVALID_PAYLOAD.getStatus(), serviceId, "Entries cannot be serialized");
+            }
+        } catch (RedisOutOfMemoryException e) {
+            throw new StorageException(Messages.INSUFFICIENT_STORAGE.getKey(), Messages.INSUFFICIENT_STORAGE.getStatus());
+        }
+        return new ArrayList<>(toStore);
+    }
+
+    @Override
+    @Retryable(value = RetryableRedisException.class)
+    public Map<String, KeyValue> deleteAll(String serviceId, Collection<String> keys) {
+        log.info("Deleting entries: {}|{}", serviceId, keys);
+
+        Map<String, KeyValue> deleteResult = new HashMap<>();
+        if (keys.isEmpty()) {
+            return deleteResult;
+        }
+
+        collectNotExpired(redis.deleteAll(serviceId, keys), deleteResult);
+        return deleteResult;
+    }
+
+    private void collectNotExpired(List<RedisEntry> redisEntries, Map<String, KeyValue> result) {
+        long now = System.currentTimeMillis();
+        for (RedisEntry redisEntry : redisEntries) {
+            if (!redisEntry.getEntry().isExpired(now)) {
+                result.put(redisEntry.getEntry().getKey(), redisEntry.getEntry());
+            }
+        }
+    }
+
     @Override
     public void deleteForService(String serviceId) {
         log.info("Deleting all entries: {}", serviceId);
@@ -143,6 +233,27 @@ public class RedisStorage implements Storage {
         }
     }
 
+    @Override
+    @Retryable(value = RetryableRedisException.class)
+    public void removeExpired(String serviceId, String key) {
+        if (removeIfExpired(serviceId, key)) {
+            log.debug("Removed expired entry: {}|{}", serviceId, key);
+        }
+    }
+
+    /**
+     * @return true if the entry with the given key was expired and it was removed
+     */
+    private boolean removeIfExpired(String serviceId, String key) {
+        RedisEntry existing = redis.get(serviceId, key);
+        if (existing != null && existing.getEntry().isExpired(System.currentTimeMillis())) {
+            redis.delete(serviceId, key);
+            return true;
+        }
+
+        return false;
+    }
+
     @Override
     public void removeNonRelevantTokens(String serviceId, String mapKey) {
         throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
@@ -29,11 +29,11 @@ public class RemoveOldestStrategy implements EvictionStrategy {
     private final VsamFile file;
 
     @Override
-    public void evict(String key) {
-        removeOldestRecord();
+    public boolean evict(String key) {
+        return removeOldestRecord();
     }
 
-    private void removeOldestRecord() {
+    private boolean removeOldestRecord() {
         VsamRecord oldest = null;
         try {
             byte[] ignoreKey = " ".getBytes(ZFileConstants.DEFAULT_EBCDIC_CODE_PAGE);
@@ -61,17 +61,19 @@ public class RemoveOldestStrategy implements EvictionStrategy {
         } catch (ZFileException | VsamRecordException | UnsupportedEncodingException e) {
             log.info(e.toString());
         }
-        checkAndRemoveRecord(oldest);
+        return checkAndRemoveRecord(oldest);
     }
 
-    private void checkAndRemoveRecord(VsamRecord oldest) {
+    private boolean checkAndRemoveRecord(VsamRecord oldest) {
         if (oldest != null) {
             log.info("Removing the oldest record {}", oldest.getKeyValue().getKey());
             Optional<VsamRecord> returned = file.delete(oldest);
             if (returned.isPresent()) {
                 log.info("The oldest record has been successfully removed!");
+                return true;
             }
         }
         log.info("It was not possible to delete the record.");
+        return false;
     }
 }
@@ -42,6 +42,12 @@ public class VsamFile implements Closeable {
 
     private final ApimlLogger apimlLog;
 
+    /**
+     * Set when the underlying ZFile reported an error, such a file shouldn't be used anymore.
+     */
+    @Getter
+    private boolean broken;
+
     public static final String VSAM_RECORD_ERROR_MESSAGE = "VsamRecordException occurred: {}";
     public static final String RECORD_FOUND_MESSAGE = "Record found: {}";
     public static final String RECORD_CANNOT_BE_NULL_MESSAGE = "Record cannot be null";
@@ -186,6 +192,7 @@ public class VsamFile implements Closeable {
             log.info(UNSUPPORTED_ENCODING_MESSAGE, ZFileConstants.DEFAULT_EBCDIC_CODE_PAGE);
         } catch (ZFileException e) {
             log.info(e.toString());
+            broken = true;
             throw new RetryableVsamException(e);
         } catch (VsamRecordException e) {
             log.info(VSAM_RECORD_ERROR_MESSAGE, e.toString());
@@ -270,6 +277,7 @@ public class VsamFile implements Closeable {
             log.info(UNSUPPORTED_ENCODING_MESSAGE, ZFileConstants.DEFAULT_EBCDIC_CODE_PAGE);
         } catch (ZFileException e) {
             log.info(e.toString());
+            broken = true;
         } catch (VsamRecordException e) {
             log.info(VSAM_RECORD_ERROR_MESSAGE, e.toString());
         }
@@ -289,6 +297,9 @@ public class VsamFile implements Closeable {
         try {
             byte[] recBuf = new byte[vsamConfig.getRecordLength()];
 
+            // reused file can be positioned anywhere
+            zfile.locate(" ".getBytes(ZFileConstants.DEFAULT_EBCDIC_CODE_PAGE), ZFileConstants.LOCATE_KEY_FIRST);
+
             int overflowProtection = 10000;
             while (zfile.read(recBuf) != -1) {
 
@@ -302,8 +313,11 @@ public class VsamFile implements Closeable {
                     break;
                 }
             }
+        } catch (UnsupportedEncodingException e) {
+            log.info(UNSUPPORTED_ENCODING_MESSAGE, ZFileConstants.DEFAULT_EBCDIC_CODE_PAGE);
         } catch (ZFileException e) {
             log.info(e.toString());
+            broken = true;
         }
         return recordsCounter;
     }
@@ -0,0 +1,178 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.vsam;
+
+import lombok.extern.slf4j.Slf4j;
+import org.zowe.apiml.caching.service.vsam.config.VsamConfig;
+import org.zowe.apiml.message.log.ApimlLogger;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Producer keeping the opened VSAM files for reuse instead of opening the dataset for every operation.
+ * <p>
+ * The files are leased by {@link #newVsamFile(VsamConfig, VsamConfig.VsamOptions, ApimlLogger)} and returned to the pool
+ * when closed. The read and the write files are pooled separately. There is a single write file by default, as the writes
+ * need exclusive access to the dataset anyway.
+ * <p>
+ * VSAM buffers the records per opened file, so a read file opened before the last write could return stale data. Every
+ * write therefore makes the idle read files obsolete and they are reopened on the next lease. The files are also reopened
+ * after the maximum age to see the changes done by the other instances of the Caching Service.
+ */
+@Slf4j
+public class VsamFilePool extends VsamFileProducer {
+    private final VsamConfig vsamConfig;
+    private final ApimlLogger apimlLog;
+    private final Function<VsamConfig.VsamOptions, ZFileProducer> zFileProducers;
+
+    private final Map<VsamConfig.VsamOptions, BlockingDeque<PooledVsamFile>> idle = new EnumMap<>(VsamConfig.VsamOptions.class);
+    private final Map<VsamConfig.VsamOptions, Semaphore> permits = new EnumMap<>(VsamConfig.VsamOptions.class);
+    private final AtomicLong writeGeneration = new AtomicLong();
+    private volatile boolean closed;
+
+    public VsamFilePool(VsamConfig vsamConfig, ApimlLogger apimlLog) {
+        this(vsamConfig, apimlLog, options -> new ZFileProducer(vsamConfig, options, apimlLog));
+    }
+
+    VsamFilePool(VsamConfig vsamConfig, ApimlLogger apimlLog, Function<VsamConfig.VsamOptions, ZFileProducer> zFileProducers) {
+        this.vsamConfig = vsamConfig;
+        this.apimlLog = apimlLog;
+        this.zFileProducers = zFileProducers;
+
+        idle.put(VsamConfig.VsamOptions.READ, new LinkedBlockingDeque<>());
+        idle.put(VsamConfig.VsamOptions.WRITE, new LinkedBlockingDeque<>());
+        permits.put(VsamConfig.VsamOptions.READ, new Semaphore(Math.max(1, vsamConfig.getReadFiles())));
+        permits.put(VsamConfig.VsamOptions.WRITE, new Semaphore(Math.max(1, vsamConfig.getWriteFiles())));
+    }
+
+    /**
+     * Lease an opened file. If all the files are leased, wait until one is returned.
+     *
+     * @throws RetryableVsamException when no file was returned to the pool in time
+     */
+    @Override
+    public VsamFile newVsamFile(VsamConfig config, VsamConfig.VsamOptions options, ApimlLogger apimlLogger) {
+        if (closed) {
+            throw new IllegalStateException("The pool of VSAM files is closed");
+        }
+
+        Semaphore permit = permits.get(options);
+        acquire(permit, options);
+
+        try {
+            PooledVsamFile file;
+            while ((file = idle.get(options).pollFirst()) != null) {
+                if (isReusable(file)) {
+                    file.lease();
+                    return file;
+                }
+                file.discard();
+            }
+
+            file = new PooledVsamFile(options);
+            file.lease();
+            return file;
+        } catch (RuntimeException e) {
+            permit.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        idle.values().forEach(files -> {
+            PooledVsamFile file;
+            while ((file = files.pollFirst()) != null) {
+                file.discard();
+            }
+        });
+    }
+
+    int idleFiles(VsamConfig.VsamOptions options) {
+        return idle.get(options).size();
+    }
+
+    private void acquire(Semaphore permit, VsamConfig.VsamOptions options) {
+        try {
+            if (!permit.tryAcquire(vsamConfig.getLeaseTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                throw new RetryableVsamException(new TimeoutException("No " + options + " VSAM file is available"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RetryableVsamException(e);
+        }
+    }
+
+    private void release(PooledVsamFile file) {
+        try {
+            if (file.options == VsamConfig.VsamOptions.WRITE) {
+                writeGeneration.incrementAndGet();
+            }
+
+            if (!closed && isReusable(file)) {
+                idle.get(file.options).offerFirst(file);
+            } else {
+                file.discard();
+            }
+        } finally {
+            permits.get(file.options).release();
+        }
+    }
+
+    private boolean isReusable(PooledVsamFile file) {
+        if (file.isBroken() || System.currentTimeMillis() - file.openedAt >= vsamConfig.getMaxFileAgeMillis()) {
+            return false;
+        }
+
+        return file.options == VsamConfig.VsamOptions.WRITE || file.generation == writeGeneration.get();
+    }
+
+    /**
+     * File returning itself to the pool when closed.
+     */
+    private class PooledVsamFile extends VsamFile {
+        private final VsamConfig.VsamOptions options;
+        private final long openedAt = System.currentTimeMillis();
+        private final long generation = writeGeneration.get();
+        private final AtomicBoolean leased = new AtomicBoolean();
+
+        PooledVsamFile(VsamConfig.VsamOptions options) {
+            super(vsamConfig, options, false, zFileProducers.apply(options), new VsamInitializer(), apimlLog);
+            this.options = options;
+            log.debug("Opened a new {} VSAM file for the pool", options);
+        }
+
+        void lease() {
+            leased.set(true);
+        }
+
+        @Override
+        public void close() {
+            if (leased.compareAndSet(true, false)) {
+                release(this);
+            }
+        }
+
+        void discard() {
+            super.close();
+        }
+    }
+}
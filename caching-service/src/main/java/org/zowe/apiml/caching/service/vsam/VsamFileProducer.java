@@ -13,8 +13,18 @@ package org.zowe.apiml.caching.service.vsam;
 import org.zowe.apiml.caching.service.vsam.config.VsamConfig;
 import org.zowe.apiml.message.log.ApimlLogger;
 
-public class VsamFileProducer {
+import java.io.Closeable;
+
+public class VsamFileProducer implements Closeable {
     public VsamFile newVsamFile(VsamConfig config, VsamConfig.VsamOptions options, ApimlLogger apimlLogger) {
         return new VsamFile(config, options, apimlLogger);
     }
+
+    /**
+     * Release the files kept by the producer. Every file produced by this implementation is closed by its user.
+     */
+    @Override
+    public void close() {
+        // nothing to release
+    }
 }
@@ -0,0 +1,57 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.vsam;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Number of records in the VSAM file maintained by the writes of this instance, so the file does not have to be read
+ * as a whole before every write. The records written by the other instances are not visible, so the file is counted
+ * again after the refresh interval or after an operation with unknown impact on the count.
+ */
+class VsamRecordCounter {
+    private final long refreshMillis;
+    private final LongSupplier clock;
+
+    private int count;
+    private long countedAt;
+    private boolean valid;
+
+    VsamRecordCounter(long refreshMillis) {
+        this(refreshMillis, System::currentTimeMillis);
+    }
+
+    VsamRecordCounter(long refreshMillis, LongSupplier clock) {
+        this.refreshMillis = refreshMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * @return the maintained count, the records in the file are counted if it is not known or too old
+     */
+    synchronized int get(VsamFile file) {
+        long now = clock.getAsLong();
+        if (!valid || now - countedAt >= refreshMillis) {
+            count = file.countAllRecords();
+            countedAt = now;
+            valid = true;
+        }
+        return count;
+    }
+
+    synchronized void add(int delta) {
+        count = Math.max(0, count + delta);
+    }
+
+    synchronized void invalidate() {
+        valid = false;
+    }
+}
@@ -10,9 +10,11 @@
 
 package org.zowe.apiml.caching.service.vsam;
 
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.retry.annotation.Retryable;
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.model.MapChanges;
 import org.zowe.apiml.caching.service.EvictionStrategy;
 import org.zowe.apiml.caching.service.Messages;
 import org.zowe.apiml.caching.service.Storage;
@@ -20,10 +22,7 @@ import org.zowe.apiml.caching.service.StorageException;
 import org.zowe.apiml.caching.service.vsam.config.VsamConfig;
 import org.zowe.apiml.message.log.ApimlLogger;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
 
 /**
  * Class handles requests from controller and orchestrates operations on the low level VSAM File class
@@ -33,7 +32,8 @@ public class VsamStorage implements Storage {
 
     private VsamConfig vsamConfig;
     private EvictionStrategyProducer evictionStrategyProducer;
-    private VsamFileProducer producer = new VsamFileProducer();
+    private VsamFileProducer producer;
+    private VsamRecordCounter recordCounter;
     private ApimlLogger apimlLog;
 
     public VsamStorage(VsamConfig vsamConfig, VsamInitializer vsamInitializer, ApimlLogger apimlLog, EvictionStrategyProducer evictionStrategyProducer) {
@@ -50,6 +50,8 @@ public class VsamStorage implements Storage {
 
         this.vsamConfig = vsamConfig;
         this.evictionStrategyProducer = evictionStrategyProducer;
+        this.producer = new VsamFilePool(vsamConfig, apimlLog);
+        this.recordCounter = new VsamRecordCounter(vsamConfig.getRecordCountRefreshMillis());
 
         log.info("Using Vsam configuration: {}", vsamConfig);
         vsamInitializer.storageWarmup(vsamConfig, apimlLog);
@@ -58,9 +60,15 @@ public class VsamStorage implements Storage {
     public VsamStorage(VsamConfig vsamConfig, VsamInitializer vsamInitializer, VsamFileProducer producer, ApimlLogger apimlLogger, EvictionStrategyProducer evictionStrategyProducer) {
         this(vsamConfig, vsamInitializer, apimlLogger, evictionStrategyProducer);
 
+        this.producer.close();
         this.producer = producer;
     }
 
+    @PreDestroy
+    public void close() {
+        producer.close();
+    }
+
     private EvictionStrategy provideStrategy(VsamFile file) {
         return evictionStrategyProducer.evictionStrategy(file);
     }
@@ -74,15 +82,13 @@ public class VsamStorage implements Storage {
         try (VsamFile file = producer.newVsamFile(vsamConfig, VsamConfig.VsamOptions.WRITE, apimlLog)) {
             toCreate.setServiceId(serviceId);
             VsamRecord vsamRec = new VsamRecord(vsamConfig, serviceId, toCreate);
-            int currentSize = file.countAllRecords();
+            int currentSize = recordCounter.get(file);
             log.info("Current Size {}.", currentSize);
 
-            if (aboveThreshold(currentSize)) {
-                EvictionStrategy strategy = provideStrategy(file);
-                log.info("Evicting record using the {} strategy", vsamConfig.getGeneralConfig().getEvictionStrategy());
-                strategy.evict(toCreate.getKey());
+            Optional<VsamRecord> returned = createEvictingIfFull(file, vsamRec, currentSize);
+            if (!returned.isPresent() && removeIfExpired(file, vsamRec)) {
+                returned = createCounted(file, vsamRec);
             }
-            Optional<VsamRecord> returned = file.create(vsamRec);
             if (returned.isPresent()) {
                 result = returned.get().getKeyValue();
             }
@@ -110,6 +116,11 @@ public class VsamStorage implements Storage {
         throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
     }
 
+    @Override
+    public MapChanges getMapChanges(String serviceId, String mapKey, String epoch, long sequence) throws StorageException {
+        throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
+    }
+
     private boolean aboveThreshold(int currentSize) {
         return currentSize >= vsamConfig.getGeneralConfig().getMaxDataSize();
     }
@@ -125,7 +136,7 @@ public class VsamStorage implements Storage {
             VsamRecord vsamRec = new VsamRecord(vsamConfig, serviceId, new KeyValue(key, "", serviceId));
 
             Optional<VsamRecord> returned = file.read(vsamRec);
-            if (returned.isPresent()) {
+            if (returned.isPresent() && !returned.get().getKeyValue().isExpired(System.currentTimeMillis())) {
                 result = returned.get().getKeyValue();
             }
         }
@@ -147,14 +158,49 @@ public class VsamStorage implements Storage {
             toUpdate.setServiceId(serviceId);
             VsamRecord vsamRec = new VsamRecord(vsamConfig, serviceId, toUpdate);
 
+            if (!removeIfExpired(file, vsamRec)) {
+                Optional<VsamRecord> returned = file.update(vsamRec);
+                if (returned.isPresent()) {
+                    result = returned.get().getKeyValue();
+                }
+            }
+        }
+
+        if (result == null) {
+            throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), toUpdate.getKey(), serviceId);
+        }
+
+        return result;
+    }
+
+    @Override
+    @Retryable(value = {RetryableVsamException.class, IllegalStateException.class, UnsupportedOperationException.class})
+    public KeyValue upsert(String serviceId, KeyValue toUpsert) {
+        log.info("Upserting Record: {}|{}|{}", serviceId, toUpsert.getKey(), toUpsert.getValue());
+        KeyValue result = null;
+
+        try (VsamFile file = producer.newVsamFile(vsamConfig, VsamConfig.VsamOptions.WRITE, apimlLog)) {
+            toUpsert.setServiceId(serviceId);
+            VsamRecord vsamRec = new VsamRecord(vsamConfig, serviceId, toUpsert);
+
             Optional<VsamRecord> returned = file.update(vsamRec);
+            if (!returned.isPresent()) {
+                // the size matters only when a new record is written
+                int currentSize = recordCounter.get(file);
+                log.info("Current Size {}.", currentSize);
+                returned = createEvictingIfFull(file, vsamRec, currentSize);
+            }
+            if (!returned.isPresent()) {
+                // another instance created the record in the meantime
+                returned = file.update(vsamRec);
+            }
             if (returned.isPresent()) {
                 result = returned.get().getKeyValue();
             }
         }
 
         if (result == null) {
-            throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), toUpdate.getKey(), serviceId);
+            throw new StorageException(Messages.DUPLICATE_KEY.getKey(), Messages.DUPLICATE_KEY.getStatus(), toUpsert.getKey(), serviceId);
         }
 
         return result;
@@ -173,6 +219,9 @@ public class VsamStorage implements Storage {
 
             Optional<VsamRecord> returned = file.delete(vsamRec);
             if (returned.isPresent()) {
+                recordCounter.add(-1);
+            }
+            if (returned.isPresent() && !returned.get().getKeyValue().isExpired(System.currentTimeMillis())) {
                 result = returned.get().getKeyValue();
             }
         }
@@ -195,20 +244,157 @@ public class VsamStorage implements Storage {
             returned = file.readForService(serviceId);
         }
 
-        returned.forEach(vsamRecord -> result.put(vsamRecord.getKeyValue().getKey(), vsamRecord.getKeyValue()));
+        long now = System.currentTimeMillis();
+        returned.stream()
+            .filter(vsamRecord -> !vsamRecord.getKeyValue().isExpired(now))
+            .forEach(vsamRecord -> result.put(vsamRecord.getKeyValue().getKey(), vsamRecord.getKeyValue()));
 
         return result;
     }
 
+    @Override
+    @Retryable(value = {RetryableVsamException.class})
+    public Map<String, KeyValue> readAll(String serviceId, Collection<String> keys) {
+        log.info("Reading Records: {}|{}|{}", serviceId, keys, "-");
+        Map<String, KeyValue> result = new HashMap<>();
+
+        try (VsamFile file = producer.newVsamFile(vsamConfig, VsamConfig.VsamOptions.READ, apimlLog)) {
+            long now = System.currentTimeMillis();
+            for (VsamRecord vsamRec : inKeyOrder(serviceId, keysOnly(serviceId, keys))) {
+                file.read(vsamRec)
+                    .map(VsamRecord::getKeyValue)
+                    .filter(keyValue -> !keyValue.isExpired(now))
+                    .ifPresent(keyValue -> result.put(keyValue.getKey(), keyValue));
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    @Retryable(value = {RetryableVsamException.class, IllegalStateException.class, UnsupportedOperationException.class})
+    public List<KeyValue> upsertAll(String serviceId, Collection<KeyValue> toStore) {
+        log.info("Writing Records: {}|{}|{}", serviceId, toStore.size(), "-");
+        List<KeyValue> result = new ArrayList<>();
+
+        try (VsamFile file = producer.newVsamFile(vsamConfig, VsamConfig.VsamOptions.WRITE, apimlLog)) {
+            toStore.forEach(keyValue -> keyValue.setServiceId(serviceId));
+            for (VsamRecord vsamRec : inKeyOrder(serviceId, toStore)) {
+                Optional<VsamRecord> returned = file.update(vsamRec);
+                if (!returned.isPresent()) {
+                    int currentSize = recordCounter.get(file);
+                    log.info("Current Size {}.", currentSize);
+                    returned = createEvictingIfFull(file, vsamRec, currentSize);
+                }
+                returned.ifPresent(stored -> result.add(stored.getKeyValue()));
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    @Retryable(value = {RetryableVsamException.class, IllegalStateException.class, UnsupportedOperationException.class})
+    public Map<String, KeyValue> deleteAll(String serviceId, Collection<String> keys) {
+        log.info("Deleting Records: {}|{}|{}", serviceId, keys, "-");
+        Map<String, KeyValue> result = new HashMap<>();
+
+        try (VsamFile file = producer.newVsamFile(vsamConfig, VsamConfig.VsamOptions.WRITE, apimlLog)) {
+            long now = System.currentTimeMillis();
+            for (VsamRecord vsamRec : inKeyOrder(serviceId, keysOnly(serviceId, keys))) {
+                file.delete(vsamRec)
+                    .map(deleted -> {
+                        recordCounter.add(-1);
+                        return deleted.getKeyValue();
+                    })
+                    .filter(keyValue -> !keyValue.isExpired(now))
+                    .ifPresent(keyValue -> result.put(keyValue.getKey(), keyValue));
+            }
+        }
+
+        return result;
+    }
+
+    private Optional<VsamRecord> createEvictingIfFull(VsamFile file, VsamRecord vsamRec, int currentSize) {
+        if (aboveThreshold(currentSize)) {
+            log.info("Evicting record using the {} strategy", vsamConfig.getGeneralConfig().getEvictionStrategy());
+            // the reject strategy throws the exception, the others could fail to remove a record
+            if (provideStrategy(file).evict(vsamRec.getKeyValue().getKey())) {
+                recordCounter.add(-1);
+            }
+        }
+        return createCounted(file, vsamRec);
+    }
+
+    private Optional<VsamRecord> createCounted(VsamFile file, VsamRecord vsamRec) {
+        Optional<VsamRecord> created = file.create(vsamRec);
+        if (created.isPresent()) {
+            recordCounter.add(1);
+        }
+        return created;
+    }
+
+    private List<KeyValue> keysOnly(String serviceId, Collection<String> keys) {
+        List<KeyValue> keyValues = new ArrayList<>(keys.size());
+        keys.forEach(key -> keyValues.add(new KeyValue(key, "", serviceId)));
+        return keyValues;
+    }
+
+    /**
+     * Sort the records by their VSAM keys, so the batch is processed in the order of the KSDS index instead of
+     * jumping back and forth in the file. Records with the same key are processed only once, the last one wins.
+     */
+    private Collection<VsamRecord> inKeyOrder(String serviceId, Collection<KeyValue> keyValues) {
+        Map<byte[], VsamRecord> ordered = new TreeMap<>(Arrays::compareUnsigned);
+        try {
+            for (KeyValue keyValue : keyValues) {
+                VsamRecord vsamRec = new VsamRecord(vsamConfig, serviceId, keyValue);
+                ordered.put(vsamRec.getKeyBytes(), vsamRec);
+            }
+        } catch (VsamRecordException e) {
+            log.info(VsamFile.VSAM_RECORD_ERROR_MESSAGE, e.toString());
+            throw new RetryableVsamException(e);
+        }
+        return ordered.values();
+    }
+
     @Override
     public void deleteForService(String serviceId) {
         log.info("Deleting All Records: {}|{}|{}", serviceId, "-", "-");
 
         try (VsamFile file = producer.newVsamFile(vsamConfig, VsamConfig.VsamOptions.WRITE, apimlLog)) {
             file.deleteForService(serviceId);
+        } finally {
+            recordCounter.invalidate();
         }
     }
 
+    @Override
+    @Retryable(value = {RetryableVsamException.class, IllegalStateException.class, UnsupportedOperationException.class})
+    public void removeExpired(String serviceId, String key) {
+        try (VsamFile file = producer.newVsamFile(vsamConfig, VsamConfig.VsamOptions.WRITE, apimlLog)) {
+            VsamRecord vsamRec = new VsamRecord(vsamConfig, serviceId, new KeyValue(key, "", serviceId));
+            if (removeIfExpired(file, vsamRec)) {
+                log.debug("Removed expired record: {}|{}", serviceId, key);
+            }
+        }
+    }
+
+    /**
+     * @return true if the record with the same key was expired and it was removed from the file
+     */
+    private boolean removeIfExpired(VsamFile file, VsamRecord vsamRec) {
+        Optional<VsamRecord> existing = file.read(vsamRec);
+        if (existing.isPresent() && existing.get().getKeyValue().isExpired(System.currentTimeMillis())) {
+            if (file.delete(existing.get()).isPresent()) {
+                recordCounter.add(-1);
+            }
+            return true;
+        }
+
+        return false;
+    }
+
     @Override
     public void removeNonRelevantTokens(String serviceId, String mapKey) {
         throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
@@ -37,6 +37,16 @@ public class VsamConfig {
     private int recordLength;
     @Value("${caching.storage.vsam.encoding:" + ZFileConstants.DEFAULT_EBCDIC_CODE_PAGE + "}")
     private String encoding;
+    @Value("${caching.storage.vsam.pool.readFiles:4}")
+    private int readFiles;
+    @Value("${caching.storage.vsam.pool.writeFiles:1}")
+    private int writeFiles;
+    @Value("${caching.storage.vsam.pool.maxFileAgeMillis:30000}")
+    private long maxFileAgeMillis;
+    @Value("${caching.storage.vsam.pool.leaseTimeoutMillis:5000}")
+    private long leaseTimeoutMillis;
+    @Value("${caching.storage.vsam.recordCountRefreshMillis:30000}")
+    private long recordCountRefreshMillis;
 
     public enum VsamOptions {
         READ("rb,type=record"),
@@ -19,6 +19,8 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.model.MapChanges;
+import org.zowe.apiml.caching.service.ExpirationReaper;
 import org.zowe.apiml.caching.service.Messages;
 import org.zowe.apiml.caching.service.Storage;
 import org.zowe.apiml.caching.service.StorageException;
@@ -46,6 +48,7 @@ class CachingControllerTest {
 
     private HttpServletRequest mockRequest;
     private Storage mockStorage;
+    private ExpirationReaper mockExpirationReaper;
     private final MessageService messageService = new YamlMessageService("/caching-log-messages.yml");
     private CachingController underTest;
 
@@ -55,7 +58,8 @@ class CachingControllerTest {
         when(mockRequest.getHeader("X-Certificate-DistinguishedName")).thenReturn(SERVICE_ID);
         when(mockRequest.getHeader("X-CS-Service-ID")).thenReturn(null);
         mockStorage = mock(Storage.class);
-        underTest = new CachingController(mockStorage, messageService);
+        mockExpirationReaper = mock(ExpirationReaper.class);
+        underTest = new CachingController(mockStorage, messageService, mockExpirationReaper);
     }
 
     @Nested
@@ -172,6 +176,69 @@ class CachingControllerTest {
             assertThat(response.getStatusCode(), is(HttpStatus.INTERNAL_SERVER_ERROR));
         }
 
+        @Test
+        void givenTimeToLive_thenExpirationIsComputedAndScheduled() {
+            KeyValue keyValue = new KeyValue(KEY, VALUE);
+            keyValue.setTtl(60L);
+            long before = System.currentTimeMillis();
+
+            ResponseEntity<?> response = underTest.createKey(keyValue, mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.CREATED));
+            assertThat(keyValue.getExpiresAt() >= before + 60_000, is(true));
+            verify(mockStorage).create(SERVICE_ID, keyValue);
+            verify(mockExpirationReaper).schedule(SERVICE_ID, keyValue);
+        }
+
+        @Test
+        void givenNegativeTimeToLive_thenResponseBadRequest() {
+            KeyValue keyValue = new KeyValue(KEY, VALUE);
+            keyValue.setTtl(-1L);
+
+            ResponseEntity<?> response = underTest.createKey(keyValue, mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.BAD_REQUEST));
+            verify(mockStorage, never()).create(any(), any());
+        }
+
+        @Test
+        void givenTooLongTimeToLive_thenResponseBadRequest() {
+            KeyValue keyValue = new KeyValue(KEY, VALUE);
+            keyValue.setTtl(Long.MAX_VALUE);
+
+            ResponseEntity<?> response = underTest.createKey(keyValue, mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.BAD_REQUEST));
+            verify(mockStorage, never()).create(any(), any());
+        }
+
+        @Test
+        void givenMaximalTimeToLive_thenExpirationIsComputed() {
+            KeyValue keyValue = new KeyValue(KEY, VALUE);
+            keyValue.setTtl(KeyValue.MAX_TTL);
+
+            ResponseEntity<?> response = underTest.createKey(keyValue, mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.CREATED));
+            assertThat(keyValue.getExpiresAt() > System.currentTimeMillis(), is(true));
+        }
+
+        @Test
+        void givenExpirationFromClient_thenItIsIgnored() {
+            KeyValue keyValue = new KeyValue(KEY, VALUE);
+            keyValue.setExpiresAt(1L);
+
+            ResponseEntity<?> response = underTest.createKey(keyValue, mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.CREATED));
+            assertThat(keyValue.getExpiresAt(), is(nullValue()));
+            verify(mockStorage).create(SERVICE_ID, keyValue);
+        }
+
+        @Test
+        void givenStorageFails_thenExpirationIsNotScheduled() {
+            KeyValue keyValue = new KeyValue(KEY, VALUE);
+            keyValue.setTtl(60L);
+            when(mockStorage.create(SERVICE_ID, keyValue)).thenThrow(new StorageException(Messages.DUPLICATE_KEY.getKey(), Messages.DUPLICATE_KEY.getStatus(), KEY));
+
+            underTest.createKey(keyValue, mockRequest);
+            verify(mockExpirationReaper, never()).schedule(any(), any());
+        }
     }
 
     @Nested
@@ -196,6 +263,108 @@ class CachingControllerTest {
         }
     }
 
+    @Nested
+    class WhenUpsertKey {
+        @Test
+        void givenKeyValue_thenResponseNoContent() {
+            ResponseEntity<?> response = underTest.upsert(KEY_VALUE, mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.NO_CONTENT));
+            verify(mockStorage).upsert(SERVICE_ID, KEY_VALUE);
+        }
+
+        @Test
+        void givenTimeToLive_thenExpirationIsScheduled() {
+            KeyValue keyValue = new KeyValue(KEY, VALUE);
+            keyValue.setTtl(60L);
+
+            underTest.upsert(keyValue, mockRequest);
+            verify(mockExpirationReaper).schedule(SERVICE_ID, keyValue);
+        }
+
+        @Test
+        void givenStorageIsFull_thenResponseInsufficientStorage() {
+            when(mockStorage.upsert(SERVICE_ID, KEY_VALUE)).thenThrow(new StorageException(Messages.INSUFFICIENT_STORAGE.getKey(), Messages.INSUFFICIENT_STORAGE.getStatus()));
+
+            ResponseEntity<?> response = underTest.upsert(KEY_VALUE, mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.INSUFFICIENT_STORAGE));
+        }
+    }
+
+    @Nested
+    class WhenBatchRequested {
+        private final List<String> keys = Arrays.asList(KEY, "missing");
+
+        @Test
+        void givenKeyValues_thenAllAreStoredAndExpirationScheduled() {
+            KeyValue withTtl = new KeyValue("key2", VALUE);
+            withTtl.setTtl(60L);
+            List<KeyValue> keyValues = Arrays.asList(new KeyValue(KEY, VALUE), withTtl);
+
+            ResponseEntity<?> response = underTest.upsertKeys(keyValues, mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.CREATED));
+            assertThat(withTtl.getExpiresAt() == null, is(false));
+            verify(mockStorage).upsertAll(SERVICE_ID, keyValues);
+            verify(mockExpirationReaper).schedule(SERVICE_ID, withTtl);
+        }
+
+        @Test
+        void givenInvalidKeyValue_thenNothingIsStored() {
+            List<KeyValue> keyValues = Arrays.asList(KEY_VALUE, new KeyValue(KEY, null));
+
+            ResponseEntity<?> response = underTest.upsertKeys(keyValues, mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.BAD_REQUEST));
+            verify(mockStorage, never()).upsertAll(any(), any());
+        }
+
+        @Test
+        void givenNoKeyValues_thenResponseBadRequest() {
+            ResponseEntity<?> response = underTest.upsertKeys(Collections.emptyList(), mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.BAD_REQUEST));
+        }
+
+        @Test
+        void givenKeys_thenFoundValuesAreReturned() {
+            Map<String, KeyValue> values = Collections.singletonMap(KEY, KEY_VALUE);
+            when(mockStorage.readAll(SERVICE_ID, keys)).thenReturn(values);
+
+            ResponseEntity<?> response = underTest.getValues(keys, mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.OK));
+            assertThat(response.getBody(), is(values));
+        }
+
+        @Test
+        void givenNullKey_thenResponseBadRequest() {
+            ResponseEntity<?> response = underTest.getValues(Arrays.asList(KEY, null), mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.BAD_REQUEST));
+        }
+
+        @Test
+        void givenKeysToDelete_thenDeletedValuesAreReturned() {
+            Map<String, KeyValue> values = Collections.singletonMap(KEY, KEY_VALUE);
+            when(mockStorage.deleteAll(SERVICE_ID, keys)).thenReturn(values);
+
+            ResponseEntity<?> response = underTest.deleteKeys(keys, mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.OK));
+            assertThat(response.getBody(), is(values));
+        }
+
+        @Test
+        void givenStorageWithError_thenResponseInternalError() {
+            when(mockStorage.deleteAll(SERVICE_ID, keys)).thenThrow(new RuntimeException("error"));
+
+            ResponseEntity<?> response = underTest.deleteKeys(keys, mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.INTERNAL_SERVER_ERROR));
+        }
+
+        @Test
+        void givenNoCertificateInformation_thenReturnUnauthorized() {
+            when(mockRequest.getHeader("X-Certificate-DistinguishedName")).thenReturn(null);
+
+            ResponseEntity<?> response = underTest.getValues(keys, mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.UNAUTHORIZED));
+        }
+    }
+
     @Nested
     class WhenDeleteKey {
         @Test
@@ -393,6 +562,24 @@ class CachingControllerTest {
             ResponseEntity<?> response = underTest.getAllMapItems(any(), mockRequest);
             assertThat(response.getStatusCode(), is(HttpStatus.BAD_REQUEST));
         }
+
+        @Test
+        void givenSequence_thenReturnChangesSinceIt() throws StorageException {
+            MapChanges changes = new MapChanges("epoch", 5, false, Collections.singletonMap("key", "token"), Collections.singleton("removed"));
+            when(mockStorage.getMapChanges(SERVICE_ID, MAP_KEY, "epoch", 3)).thenReturn(changes);
+
+            ResponseEntity<?> response = underTest.getMapChanges(MAP_KEY, "epoch", 3, mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.OK));
+            assertThat(response.getBody(), is(changes));
+        }
+
+        @Test
+        void givenIncompatibleStorage_thenChangesAreBadRequest() throws StorageException {
+            when(mockStorage.getMapChanges(SERVICE_ID, MAP_KEY, null, 0)).thenThrow(new RuntimeException("error"));
+
+            ResponseEntity<?> response = underTest.getMapChanges(MAP_KEY, null, 0, mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.BAD_REQUEST));
+        }
     }
 
     @Nested
@@ -0,0 +1,117 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.zowe.apiml.caching.model.KeyValue;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ExpirationReaperTest {
+    private static final String SERVICE_ID = "service";
+    private static final long START = 1_000_000L;
+    private static final long TICK = 1000L;
+    private static final int WHEEL_SIZE = 8;
+
+    private Storage storage;
+    private ExpirationReaper underTest;
+
+    @BeforeEach
+    void setUp() {
+        storage = mock(Storage.class);
+        underTest = new ExpirationReaper(storage, TICK, WHEEL_SIZE, START);
+    }
+
+    private KeyValue expiringAt(String key, long expiresAt) {
+        KeyValue keyValue = new KeyValue(key, "value");
+        keyValue.setExpiresAt(expiresAt);
+        return keyValue;
+    }
+
+    @Test
+    void givenEntryWithoutExpiration_thenItIsNotScheduled() {
+        underTest.schedule(SERVICE_ID, new KeyValue("key", "value"));
+
+        underTest.advance(START + 100 * TICK);
+
+        verifyNoInteractions(storage);
+    }
+
+    @Test
+    void givenExpiringEntry_whenTimeDidNotPass_thenItIsNotRemoved() {
+        underTest.schedule(SERVICE_ID, expiringAt("key", START + 3 * TICK));
+
+        underTest.advance(START + 2 * TICK);
+
+        verify(storage, never()).removeExpired(any(), any());
+    }
+
+    @Test
+    void givenExpiringEntry_whenTimePassed_thenItIsRemovedOnce() {
+        underTest.schedule(SERVICE_ID, expiringAt("key", START + 3 * TICK - 10));
+
+        underTest.advance(START + 3 * TICK);
+        underTest.advance(START + 4 * TICK);
+
+        verify(storage, times(1)).removeExpired(SERVICE_ID, "key");
+    }
+
+    @Test
+    void givenEntryExpiringAfterMoreRevolutions_thenItWaitsForItsTick() {
+        underTest.schedule(SERVICE_ID, expiringAt("key", START + (WHEEL_SIZE + 2) * TICK));
+
+        underTest.advance(START + 2 * TICK);
+        verify(storage, never()).removeExpired(any(), any());
+
+        underTest.advance(START + (WHEEL_SIZE + 2) * TICK);
+        verify(storage).removeExpired(SERVICE_ID, "key");
+    }
+
+    @Test
+    void givenLongPause_thenAllExpiredEntriesAreRemoved() {
+        underTest.schedule(SERVICE_ID, expiringAt("first", START + TICK));
+        underTest.schedule(SERVICE_ID, expiringAt("second", START + 5 * TICK));
+
+        underTest.advance(START + 10 * WHEEL_SIZE * TICK);
+
+        verify(storage).removeExpired(SERVICE_ID, "first");
+        verify(storage).removeExpired(SERVICE_ID, "second");
+    }
+
+    @Test
+    void givenAlreadyExpiredEntry_thenItIsRemovedInNextTick() {
+        underTest.advance(START + 5 * TICK);
+        underTest.schedule(SERVICE_ID, expiringAt("key", START));
+
+        underTest.advance(START + 6 * TICK);
+
+        verify(storage).removeExpired(SERVICE_ID, "key");
+    }
+
+    @Test
+    void givenStorageFails_thenOtherEntriesAreStillRemoved() {
+        doThrow(new RuntimeException("error")).when(storage).removeExpired(SERVICE_ID, "first");
+        underTest.schedule(SERVICE_ID, expiringAt("first", START + TICK));
+        underTest.schedule(SERVICE_ID, expiringAt("second", START + TICK));
+
+        underTest.advance(START + TICK);
+
+        verify(storage).removeExpired(SERVICE_ID, "second");
+    }
+
+    @Test
+    void givenInvalidConfiguration_thenExceptionIsThrown() {
+        assertThrows(IllegalArgumentException.class, () -> new ExpirationReaper(storage, 0, WHEEL_SIZE));
+    }
+}
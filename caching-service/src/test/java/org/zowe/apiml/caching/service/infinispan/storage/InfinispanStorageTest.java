@@ -12,15 +12,22 @@ package org.zowe.apiml.caching.service.infinispan.storage;
 
 import org.infinispan.AdvancedCache;
 import org.infinispan.Cache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
 import org.infinispan.lock.api.ClusteredLock;
+import org.infinispan.manager.DefaultCacheManager;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.model.MapChanges;
 import org.zowe.apiml.caching.service.StorageException;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
@@ -151,6 +158,108 @@ class InfinispanStorageTest {
 
     }
 
+    @Nested
+    class WhenBatchIsProcessed {
+        @Test
+        void givenEmbeddedCache_thenAllKeysAreReadAtOnce() {
+            AdvancedCache<String, KeyValue> advancedCache = mock(AdvancedCache.class);
+            KeyValue stored = new KeyValue("key", "value");
+            stored.setServiceId(serviceId1);
+            when(cache.getAdvancedCache()).thenReturn(advancedCache);
+            when(advancedCache.getAll(new HashSet<>(Arrays.asList(serviceId1 + "key", serviceId1 + "missing"))))
+                .thenReturn(Collections.singletonMap(serviceId1 + "key", stored));
+
+            Map<String, KeyValue> result = storage.readAll(serviceId1, Arrays.asList("key", "missing"));
+            assertEquals(Collections.singletonMap("key", stored), result);
+        }
+
+        @Test
+        void givenEntriesWithoutTtl_thenTheyAreStoredAtOnce() {
+            KeyValue keyValue = new KeyValue("key", "value");
+
+            storage.upsertAll(serviceId1, Collections.singletonList(keyValue));
+            verify(cache, times(1)).putAll(Collections.singletonMap(serviceId1 + "key", keyValue));
+            assertEquals(serviceId1, keyValue.getServiceId());
+        }
+
+        @Test
+        void givenStoredEntries_thenTheyAreReplacedAndDeleted() {
+            ConcurrentMap<String, KeyValue> cache = new ConcurrentHashMap<>();
+            InfinispanStorage storage = new InfinispanStorage(cache, tokenCache, lock);
+            storage.create(serviceId1, new KeyValue("key", "value"));
+
+            storage.upsertAll(serviceId1, Arrays.asList(new KeyValue("key", "updated"), new KeyValue("key2", "value2")));
+            assertEquals("updated", storage.readAll(serviceId1, Arrays.asList("key", "key2")).get("key").getValue());
+
+            Map<String, KeyValue> deleted = storage.deleteAll(serviceId1, Arrays.asList("key", "key2", "missing"));
+            assertEquals(2, deleted.size());
+            assertEquals(0, storage.readForService(serviceId1).size());
+        }
+    }
+
+    @Nested
+    class WhenServiceIsIndexed {
+        private static final int SERVICES = 2000;
+
+        DefaultCacheManager cacheManager;
+        Cache<String, KeyValue> embeddedCache;
+        InfinispanStorage storage;
+
+        @BeforeEach
+        void setUp() {
+            cacheManager = new DefaultCacheManager();
+            cacheManager.defineConfiguration("indexed", new ConfigurationBuilder().build());
+            embeddedCache = cacheManager.getCache("indexed");
+            embeddedCache.put("existing" + "key", serviceEntry("existing", "key"));
+
+            storage = new InfinispanStorage(embeddedCache, tokenCache, lock);
+            for (int i = 0; i < SERVICES; i++) {
+                storage.create("service" + i, new KeyValue("key", "value"));
+                storage.create("service" + i, new KeyValue("key2", "value"));
+            }
+        }
+
+        @AfterEach
+        void tearDown() {
+            cacheManager.stop();
+        }
+
+        private KeyValue serviceEntry(String serviceId, String key) {
+            KeyValue keyValue = new KeyValue(key, "value");
+            keyValue.setServiceId(serviceId);
+            return keyValue;
+        }
+
+        @Test
+        void givenManyServices_thenOnlyEntriesOfTheServiceAreRead() {
+            Map<String, KeyValue> result = storage.readForService("service10");
+
+            assertEquals(new HashSet<>(Arrays.asList("key", "key2")), result.keySet());
+            result.values().forEach(value -> assertEquals("service10", value.getServiceId()));
+        }
+
+        @Test
+        void givenEntriesStoredBeforeStart_thenTheyAreIndexed() {
+            assertEquals(1, storage.readForService("existing").size());
+        }
+
+        @Test
+        void givenManyServices_thenOnlyEntriesOfTheServiceAreDeleted() {
+            storage.deleteForService("service10");
+
+            assertEquals(0, storage.readForService("service10").size());
+            assertEquals(2, storage.readForService("service1").size());
+            assertEquals(2 * SERVICES, embeddedCache.size());
+        }
+
+        @Test
+        void givenDeletedEntry_thenItIsNotRead() {
+            storage.delete("service10", "key");
+
+            assertEquals(Collections.singleton("key2"), storage.readForService("service10").keySet());
+        }
+    }
+
     @Nested
     class WhenStoreToken {
         KeyValue keyValue;
@@ -189,6 +298,22 @@ class InfinispanStorageTest {
             assertNull(storage.storeMapItem(serviceId1, "invalidTokens", keyValue));
             verify(tokenCache, times(1)).put(serviceId1 + "invalidTokens", hashMap);
         }
+
+        @Test
+        void givenDifferentMaps_thenEachIsGuardedByItsLock() {
+            ClusteredLock rulesLock = mock(ClusteredLock.class);
+            when(rulesLock.tryLock(4, TimeUnit.SECONDS)).thenReturn(CompletableFuture.completedFuture(true));
+            Map<String, ClusteredLock> locks = new HashMap<>();
+            locks.put(serviceId1 + "invalidTokens", lock);
+            locks.put(serviceId1 + "invalidTokenRules", rulesLock);
+            InfinispanStorage storage = new InfinispanStorage(cache, tokenCache, new ConcurrentHashMap<>(), locks::get);
+
+            storage.storeMapItem(serviceId1, "invalidTokens", new KeyValue("token", "value"));
+            storage.storeMapItem(serviceId1, "invalidTokenRules", new KeyValue("rule", "1"));
+
+            verify(lock, times(1)).unlock();
+            verify(rulesLock, times(1)).unlock();
+        }
     }
 
     @Nested
@@ -257,6 +382,82 @@ class InfinispanStorageTest {
         }
     }
 
+    @Nested
+    class WhenReadingMapChanges {
+        InfinispanStorage underTest;
+        ConcurrentMap<String, Map<String, String>> tokenCache;
+
+        @BeforeEach
+        void createStorage() {
+            lock = mock(ClusteredLock.class);
+            when(lock.tryLock(4, TimeUnit.SECONDS)).thenReturn(CompletableFuture.completedFuture(true));
+            tokenCache = new ConcurrentHashMap<>();
+            underTest = new InfinispanStorage(cache, tokenCache, new ConcurrentHashMap<>(), cacheKey -> lock);
+        }
+
+        @Test
+        void givenStoredItems_thenOnlyNewerAreReturned() {
+            underTest.storeMapItem(serviceId1, "invalidTokens", new KeyValue("key1", "token1"));
+            MapChanges first = underTest.getMapChanges(serviceId1, "invalidTokens", null, 0);
+            long sequence = first.getSequence();
+            underTest.storeMapItem(serviceId1, "invalidTokens", new KeyValue("key2", "token2"));
+
+            MapChanges changes = underTest.getMapChanges(serviceId1, "invalidTokens", first.getEpoch(), sequence);
+            assertFalse(changes.isFull());
+            assertEquals(Collections.singletonMap("key2", "token2"), changes.getChanged());
+            assertEquals(sequence + 1, changes.getSequence());
+        }
+
+        @Test
+        void givenEvictedRules_thenTheyAreReturnedAsRemoved() {
+            underTest.storeMapItem(serviceId1, "invalidUsers", new KeyValue("old", "0"));
+            underTest.storeMapItem(serviceId1, "invalidUsers", new KeyValue("new", String.valueOf(System.currentTimeMillis())));
+            MapChanges first = underTest.getMapChanges(serviceId1, "invalidUsers", null, 0);
+
+            underTest.removeNonRelevantRules(serviceId1, "invalidUsers");
+
+            MapChanges changes = underTest.getMapChanges(serviceId1, "invalidUsers", first.getEpoch(), first.getSequence());
+            assertEquals(Collections.singleton("old"), changes.getRemoved());
+            assertTrue(changes.getChanged().isEmpty());
+        }
+
+        @Test
+        void givenMapWithoutLog_thenWholeMapIsReturned() {
+            tokenCache.put(serviceId1 + "invalidTokens", Collections.singletonMap("key1", "token1"));
+
+            MapChanges changes = underTest.getMapChanges(serviceId1, "invalidTokens", null, 0);
+            assertTrue(changes.isFull());
+            assertEquals(Collections.singletonMap("key1", "token1"), changes.getChanged());
+        }
+
+        @Test
+        void givenUnknownSequence_thenWholeMapIsReturned() {
+            underTest.storeMapItem(serviceId1, "invalidTokens", new KeyValue("key1", "token1"));
+            String epoch = underTest.getMapChanges(serviceId1, "invalidTokens", null, 0).getEpoch();
+
+            MapChanges changes = underTest.getMapChanges(serviceId1, "invalidTokens", epoch, 100);
+            assertTrue(changes.isFull());
+            assertEquals(Collections.singletonMap("key1", "token1"), changes.getChanged());
+        }
+
+        @Test
+        void givenChangeLogWasLost_thenWholeMapIsReturned() {
+            ConcurrentHashMap<String, MapChangeLog> changesCache = new ConcurrentHashMap<>();
+            underTest = new InfinispanStorage(cache, tokenCache, changesCache, cacheKey -> lock);
+            underTest.storeMapItem(serviceId1, "invalidTokens", new KeyValue("key1", "token1"));
+            MapChanges first = underTest.getMapChanges(serviceId1, "invalidTokens", null, 0);
+
+            changesCache.clear();
+            underTest.storeMapItem(serviceId1, "invalidTokens", new KeyValue("key2", "token2"));
+            underTest.storeMapItem(serviceId1, "invalidTokens", new KeyValue("key3", "token3"));
+
+            MapChanges changes = underTest.getMapChanges(serviceId1, "invalidTokens", first.getEpoch(), first.getSequence());
+            assertTrue(changes.isFull());
+            assertEquals(3, changes.getChanged().size());
+            assertNotEquals(first.getEpoch(), changes.getEpoch());
+        }
+    }
+
     @Nested
     class WhenEvictNonRelevantTokensAndRules {
         InfinispanStorage underTest;
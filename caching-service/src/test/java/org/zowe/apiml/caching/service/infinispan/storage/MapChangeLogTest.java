@@ -0,0 +1,90 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.infinispan.storage;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.zowe.apiml.caching.model.MapChanges;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapChangeLogTest {
+
+    @Nested
+    class WhenStarted {
+        @Test
+        void givenNewMap_thenAllChangesAreCovered() {
+            MapChangeLog log = MapChangeLog.start(false);
+
+            assertTrue(log.covers(log.getEpoch(), 0));
+        }
+
+        @Test
+        void givenExistingMap_thenInitialSequenceIsNotCovered() {
+            MapChangeLog log = MapChangeLog.start(true);
+
+            assertFalse(log.covers(log.getEpoch(), 0));
+            assertTrue(log.covers(log.getEpoch(), 1));
+        }
+
+        @Test
+        void givenSequenceOfOtherLog_thenItIsNotCovered() {
+            MapChangeLog log = MapChangeLog.start(false);
+
+            assertFalse(log.covers(MapChangeLog.start(false).getEpoch(), 0));
+            assertFalse(log.covers(null, 0));
+        }
+    }
+
+    @Nested
+    class WhenChangesAreMerged {
+        @Test
+        void givenItemAddedAndRemoved_thenItIsOnlyRemoved() {
+            MapChangeLog log = MapChangeLog.start(false)
+                .record(Collections.singletonMap("key", "value"), Collections.emptySet())
+                .record(Collections.emptyMap(), Collections.singleton("key"));
+
+            MapChanges changes = log.since(0);
+            assertEquals(2, changes.getSequence());
+            assertTrue(changes.getChanged().isEmpty());
+            assertEquals(Collections.singleton("key"), changes.getRemoved());
+        }
+
+        @Test
+        void givenItemRemovedAndAddedAgain_thenItIsChanged() {
+            MapChangeLog log = MapChangeLog.start(false)
+                .record(Collections.emptyMap(), Collections.singleton("key"))
+                .record(Collections.singletonMap("key", "value"), Collections.emptySet());
+
+            MapChanges changes = log.since(0);
+            assertEquals(Collections.singletonMap("key", "value"), changes.getChanged());
+            assertTrue(changes.getRemoved().isEmpty());
+        }
+    }
+
+    @Nested
+    class WhenLogIsFull {
+        @Test
+        void thenOldestChangesAreDropped() {
+            MapChangeLog log = MapChangeLog.start(false);
+            for (int i = 0; i < MapChangeLog.MAX_CHANGES + 10; i++) {
+                log = log.record(Collections.singletonMap("key" + i, "value"), Collections.emptySet());
+            }
+
+            assertEquals(MapChangeLog.MAX_CHANGES, log.getChanges().size());
+            assertFalse(log.covers(log.getEpoch(), 9));
+            assertTrue(log.covers(log.getEpoch(), 10));
+            assertEquals(1, log.since(log.getSequence() - 1).getChanged().size());
+        }
+    }
+}
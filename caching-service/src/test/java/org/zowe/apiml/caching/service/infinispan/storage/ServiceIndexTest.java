@@ -0,0 +1,56 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.infinispan.storage;
+
+import org.junit.jupiter.api.Test;
+import org.zowe.apiml.caching.model.KeyValue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ServiceIndexTest {
+    private final ServiceIndex underTest = new ServiceIndex();
+
+    private KeyValue entry(String serviceId, String key) {
+        KeyValue keyValue = new KeyValue(key, "value");
+        keyValue.setServiceId(serviceId);
+        return keyValue;
+    }
+
+    @Test
+    void givenEntriesOfMoreServices_thenKeysAreSeparated() {
+        underTest.add("service1key1", entry("service1", "key1"));
+        underTest.add("service1key2", entry("service1", "key2"));
+        underTest.add("service2key1", entry("service2", "key1"));
+
+        assertEquals(new HashSet<>(Arrays.asList("service1key1", "service1key2")), underTest.cacheKeys("service1"));
+    }
+
+    @Test
+    void givenRemovedEntry_thenKeyIsNotReturned() {
+        underTest.add("service1key1", entry("service1", "key1"));
+
+        underTest.remove("service1key1", entry("service1", "key1"));
+
+        assertEquals(Collections.emptySet(), underTest.cacheKeys("service1"));
+    }
+
+    @Test
+    void givenEntryWithoutService_thenItIsIgnored() {
+        underTest.add("key", new KeyValue("key", "value"));
+        underTest.remove("key", null);
+
+        assertEquals(Collections.emptySet(), underTest.cacheKeys("key"));
+    }
+}
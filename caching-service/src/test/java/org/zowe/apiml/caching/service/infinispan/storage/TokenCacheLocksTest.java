@@ -0,0 +1,47 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.infinispan.storage;
+
+import org.infinispan.lock.api.ClusteredLock;
+import org.infinispan.lock.api.ClusteredLockManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class TokenCacheLocksTest {
+    private ClusteredLockManager lockManager;
+    private TokenCacheLocks underTest;
+
+    @BeforeEach
+    void setUp() {
+        lockManager = mock(ClusteredLockManager.class);
+        when(lockManager.get(anyString())).thenAnswer(invocation -> mock(ClusteredLock.class));
+        underTest = new TokenCacheLocks(lockManager);
+    }
+
+    @Test
+    void givenSameMap_thenLockIsDefinedOnce() {
+        ClusteredLock first = underTest.apply("service1invalidTokens");
+        ClusteredLock second = underTest.apply("service1invalidTokens");
+
+        assertSame(first, second);
+        verify(lockManager, times(1)).defineLock(TokenCacheLocks.LOCK_PREFIX + "service1invalidTokens");
+    }
+
+    @Test
+    void givenDifferentMaps_thenDifferentLocksAreUsed() {
+        assertNotSame(underTest.apply("service1invalidTokens"), underTest.apply("service1invalidTokenRules"));
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.inmemory;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.zowe.apiml.caching.model.KeyValue;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+class EvictionIndexTest {
+    private static final String SERVICE_ID = "service";
+
+    @Nested
+    class GivenOldestFirst {
+        private final EvictionIndex underTest = EvictionIndex.oldestFirst();
+
+        @Test
+        void whenEntriesAreRead_thenOrderIsByCreation() {
+            underTest.add(SERVICE_ID, new KeyValue("newer", "value", "20"));
+            underTest.add(SERVICE_ID, new KeyValue("older", "value", "10"));
+
+            underTest.touch(SERVICE_ID, "older");
+
+            assertThat(underTest.eldest().getKey(), is("older"));
+        }
+
+        @Test
+        void whenEntryIsUpdated_thenNewCreationTimeIsUsed() {
+            underTest.add(SERVICE_ID, new KeyValue("first", "value", "10"));
+            underTest.add(SERVICE_ID, new KeyValue("second", "value", "20"));
+
+            underTest.update(SERVICE_ID, new KeyValue("first", "value", "30"));
+
+            assertThat(underTest.eldest().getKey(), is("second"));
+        }
+
+        @Test
+        void whenCreationTimeIsNotNumeric_thenEntryIsStillIndexed() {
+            underTest.add(SERVICE_ID, new KeyValue("key", "value", "invalid"));
+
+            assertThat(underTest.eldest().getKey(), is("key"));
+        }
+    }
+
+    @Nested
+    class GivenLeastRecentlyUsed {
+        private final EvictionIndex underTest = EvictionIndex.leastRecentlyUsed();
+
+        @Test
+        void whenEntryIsRead_thenItIsMovedToTheEnd() {
+            underTest.add(SERVICE_ID, new KeyValue("first", "value"));
+            underTest.add(SERVICE_ID, new KeyValue("second", "value"));
+
+            underTest.touch(SERVICE_ID, "first");
+
+            assertThat(underTest.eldest().getKey(), is("second"));
+        }
+    }
+
+    @Nested
+    class GivenLeastFrequentlyUsed {
+        private final EvictionIndex underTest = EvictionIndex.leastFrequentlyUsed();
+
+        @Test
+        void whenEntryIsReadMoreOften_thenTheOtherIsEvicted() {
+            underTest.add(SERVICE_ID, new KeyValue("first", "value"));
+            underTest.add(SERVICE_ID, new KeyValue("second", "value"));
+
+            underTest.touch(SERVICE_ID, "first");
+            underTest.touch(SERVICE_ID, "first");
+            underTest.touch(SERVICE_ID, "second");
+
+            assertThat(underTest.eldest().getKey(), is("second"));
+        }
+    }
+
+    @Nested
+    class WhenRemoving {
+        private final EvictionIndex underTest = EvictionIndex.leastRecentlyUsed();
+
+        @Test
+        void givenSingleEntry_thenIndexIsEmpty() {
+            underTest.add(SERVICE_ID, new KeyValue("key", "value"));
+
+            underTest.remove(SERVICE_ID, "key");
+
+            assertThat(underTest.size(), is(0));
+            assertThat(underTest.eldest(), is(nullValue()));
+        }
+
+        @Test
+        void givenService_thenOnlyItsEntriesAreRemoved() {
+            underTest.add(SERVICE_ID, new KeyValue("key1", "value"));
+            underTest.add(SERVICE_ID, new KeyValue("key2", "value"));
+            underTest.add("other", new KeyValue("key1", "value"));
+
+            underTest.removeService(SERVICE_ID);
+
+            assertThat(underTest.size(), is(1));
+            assertThat(underTest.eldest().getServiceId(), is("other"));
+        }
+    }
+}
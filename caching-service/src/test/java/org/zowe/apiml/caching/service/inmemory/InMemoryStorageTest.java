@@ -10,6 +10,7 @@
 
 package org.zowe.apiml.caching.service.inmemory;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -21,8 +22,13 @@ import org.zowe.apiml.caching.service.inmemory.config.InMemoryConfig;
 import org.zowe.apiml.message.core.MessageService;
 import org.zowe.apiml.message.log.ApimlLogger;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
@@ -106,6 +112,39 @@ class InMemoryStorageTest {
                 underTest.read(serviceId, oldestKey);
             });
         }
+
+        @Test
+        void givenTheStorageIsFullAndStrategyIsRemoveLeastRecentlyUsed_thenTheLeastRecentlyReadIsEvicted() {
+            GeneralConfig generalConfig = new GeneralConfig();
+            generalConfig.setEvictionStrategy(Strategies.REMOVE_LEAST_RECENTLY_USED.getKey());
+            config = new InMemoryConfig(generalConfig);
+            config.getGeneralConfig().setMaxDataSize(2);
+
+            underTest = new InMemoryStorage(config, testingStorage, ApimlLogger.empty());
+            underTest.create(serviceId, new KeyValue("first", "value"));
+            underTest.create(serviceId, new KeyValue("second", "value"));
+            underTest.read(serviceId, "first");
+            underTest.create(serviceId, new KeyValue("third", "value"));
+
+            assertThat(underTest.read(serviceId, "first").getKey(), is("first"));
+            assertThrows(StorageException.class, () -> {
+                underTest.read(serviceId, "second");
+            });
+        }
+
+        @Test
+        void givenEntriesWereDeleted_thenTheirSpaceIsReused() {
+            config.getGeneralConfig().setMaxDataSize(1);
+            underTest.create(serviceId, new KeyValue("first", "value"));
+            underTest.delete(serviceId, "first");
+
+            underTest.create(serviceId, new KeyValue("second", "value"));
+            underTest.deleteForService(serviceId);
+
+            KeyValue third = new KeyValue("third", "value");
+            underTest.create(serviceId, third);
+            assertThat(underTest.read(serviceId, "third"), is(third));
+        }
     }
 
 
@@ -217,6 +256,252 @@ class InMemoryStorageTest {
         }
     }
 
+    @Nested
+    class WhenValueIsUpserted {
+        @Test
+        void givenNoExistingValue_thenItIsCreated() {
+            underTest.upsert(serviceId, new KeyValue("key", "value"));
+
+            assertThat(testingStorage.get(serviceId).get("key").getValue(), is("value"));
+        }
+
+        @Test
+        void givenExistingValue_thenItIsReplacedWithoutTakingMoreSpace() {
+            config.getGeneralConfig().setMaxDataSize(1);
+            underTest.upsert(serviceId, new KeyValue("key", "value"));
+
+            underTest.upsert(serviceId, new KeyValue("key", "updated"));
+
+            assertThat(testingStorage.get(serviceId).get("key").getValue(), is("updated"));
+            KeyValue wontFit = new KeyValue("other", "value");
+            assertThrows(StorageException.class, () -> underTest.upsert(serviceId, wontFit));
+        }
+    }
+
+    @Nested
+    class WhenBatchIsProcessed {
+        @Test
+        void givenNewAndExistingKeys_thenAllAreStored() {
+            underTest.create(serviceId, new KeyValue("existing", "original"));
+
+            underTest.upsertAll(serviceId, Arrays.asList(new KeyValue("existing", "updated"), new KeyValue("new", "value")));
+
+            assertThat(testingStorage.get(serviceId).get("existing").getValue(), is("updated"));
+            assertThat(testingStorage.get(serviceId).get("new").getValue(), is("value"));
+        }
+
+        @Test
+        void givenTheStorageIsFullAndStrategyIsReject_thenOnlyNewKeysAreRejected() {
+            config.getGeneralConfig().setMaxDataSize(1);
+            underTest.create(serviceId, new KeyValue("existing", "original"));
+
+            underTest.upsertAll(serviceId, Arrays.asList(new KeyValue("existing", "updated")));
+            List<KeyValue> wontFit = Arrays.asList(new KeyValue("new", "value"));
+            assertThrows(StorageException.class, () -> underTest.upsertAll(serviceId, wontFit));
+        }
+
+        @Test
+        void givenSomeKeysAreMissing_thenOnlyExistingAreRead() {
+            underTest.create(serviceId, new KeyValue("key1", "value1"));
+            underTest.create(serviceId, new KeyValue("key2", "value2"));
+
+            Map<String, KeyValue> result = underTest.readAll(serviceId, Arrays.asList("key1", "missing"));
+
+            assertThat(result.size(), is(1));
+            assertThat(result.get("key1").getValue(), is("value1"));
+        }
+
+        @Test
+        void givenUnknownService_thenNothingIsReadOrDeleted() {
+            assertThat(underTest.readAll("unknown", Arrays.asList("key")).isEmpty(), is(true));
+            assertThat(underTest.deleteAll("unknown", Arrays.asList("key")).isEmpty(), is(true));
+        }
+
+        @Test
+        void givenKeysToDelete_thenTheyAreRemovedAndTheSpaceIsReleased() {
+            config.getGeneralConfig().setMaxDataSize(2);
+            underTest.create(serviceId, new KeyValue("key1", "value1"));
+            underTest.create(serviceId, new KeyValue("key2", "value2"));
+
+            Map<String, KeyValue> result = underTest.deleteAll(serviceId, Arrays.asList("key1", "key2", "missing"));
+
+            assertThat(result.size(), is(2));
+            assertThat(testingStorage.get(serviceId).isEmpty(), is(true));
+            underTest.create(serviceId, new KeyValue("key3", "value3"));
+        }
+    }
+
+    @Nested
+    class WhenEntryHasExpired {
+        private KeyValue expired;
+
+        @BeforeEach
+        void setUp() {
+            expired = new KeyValue("key", "value");
+            expired.setExpiresAt(System.currentTimeMillis() - 1);
+            underTest.create(serviceId, expired);
+        }
+
+        @Test
+        void thenItIsNotRead() {
+            assertThrows(StorageException.class, () -> {
+                underTest.read(serviceId, "key");
+            });
+            assertThat(testingStorage.get(serviceId).containsKey("key"), is(false));
+        }
+
+        @Test
+        void thenItIsNotReturnedForService() {
+            assertThat(underTest.readForService(serviceId).isEmpty(), is(true));
+        }
+
+        @Test
+        void thenItCannotBeUpdated() {
+            KeyValue keyValue = new KeyValue("key", "updated");
+            assertThrows(StorageException.class, () -> {
+                underTest.update(serviceId, keyValue);
+            });
+        }
+
+        @Test
+        void thenTheKeyCanBeCreatedAgain() {
+            KeyValue keyValue = new KeyValue("key", "new");
+            underTest.create(serviceId, keyValue);
+
+            assertThat(underTest.read(serviceId, "key"), is(keyValue));
+        }
+
+        @Test
+        void whenRemovingExpired_thenItIsRemoved() {
+            underTest.removeExpired(serviceId, "key");
+
+            assertThat(testingStorage.get(serviceId).isEmpty(), is(true));
+        }
+
+        @Test
+        void whenRemovingValidEntry_thenItIsKept() {
+            KeyValue valid = new KeyValue("valid", "value");
+            valid.setExpiresAt(System.currentTimeMillis() + 60_000);
+            underTest.create(serviceId, valid);
+
+            underTest.removeExpired(serviceId, "valid");
+
+            assertThat(underTest.read(serviceId, "valid"), is(valid));
+        }
+    }
+
+    @Nested
+    class WhenAccessedConcurrently {
+        private static final int THREADS = 8;
+        private static final int KEYS_PER_THREAD = 500;
+
+        private ExecutorService executor;
+
+        @BeforeEach
+        void setUp() {
+            testingStorage = new ConcurrentHashMap<>();
+            config.getGeneralConfig().setMaxDataSize(THREADS * KEYS_PER_THREAD);
+            underTest = new InMemoryStorage(config, testingStorage, ApimlLogger.empty());
+            executor = Executors.newFixedThreadPool(THREADS);
+        }
+
+        @AfterEach
+        void tearDown() {
+            executor.shutdownNow();
+        }
+
+        @Test
+        void givenDistinctKeysForSameService_thenAllAreStored() throws Exception {
+            runConcurrently(thread -> {
+                for (int i = 0; i < KEYS_PER_THREAD; i++) {
+                    underTest.create(serviceId, new KeyValue("key-" + thread + "-" + i, "value"));
+                }
+            });
+
+            assertThat(underTest.readForService(serviceId).size(), is(THREADS * KEYS_PER_THREAD));
+        }
+
+        @Test
+        void givenSameKeyCreatedByAllThreads_thenExactlyOneSucceeds() throws Exception {
+            AtomicInteger created = new AtomicInteger();
+            AtomicInteger duplicates = new AtomicInteger();
+            runConcurrently(thread -> {
+                try {
+                    underTest.create(serviceId, new KeyValue("key", "value-" + thread));
+                    created.incrementAndGet();
+                } catch (StorageException e) {
+                    duplicates.incrementAndGet();
+                }
+            });
+
+            assertThat(created.get(), is(1));
+            assertThat(duplicates.get(), is(THREADS - 1));
+        }
+
+        @Test
+        void givenCreatesUpdatesAndDeletes_thenStorageStaysConsistent() throws Exception {
+            runConcurrently(thread -> {
+                for (int i = 0; i < KEYS_PER_THREAD; i++) {
+                    String key = "key-" + thread + "-" + i;
+                    underTest.create(serviceId, new KeyValue(key, "value"));
+                    underTest.update(serviceId, new KeyValue(key, "updated"));
+                    if (i % 2 == 0) {
+                        underTest.delete(serviceId, key);
+                    }
+                }
+            });
+
+            Map<String, KeyValue> result = underTest.readForService(serviceId);
+            assertThat(result.size(), is(THREADS * KEYS_PER_THREAD / 2));
+            result.values().forEach(keyValue -> assertThat(keyValue.getValue(), is("updated")));
+        }
+
+        @Test
+        void givenServiceIsDeletedWhileCreating_thenNoSpaceIsLeaked() throws Exception {
+            int maxDataSize = THREADS * KEYS_PER_THREAD;
+            runConcurrently(thread -> {
+                for (int i = 0; i < KEYS_PER_THREAD; i++) {
+                    if (thread == 0) {
+                        underTest.deleteForService(serviceId);
+                    } else {
+                        underTest.create(serviceId, new KeyValue("key-" + thread + "-" + i, "value"));
+                    }
+                }
+            });
+            underTest.deleteForService(serviceId);
+
+            // the whole capacity is free again, and not more than that
+            for (int i = 0; i < maxDataSize; i++) {
+                underTest.create(serviceId, new KeyValue("key-" + i, "value"));
+            }
+            KeyValue overLimit = new KeyValue("over-limit", "value");
+            assertThrows(StorageException.class, () -> underTest.create(serviceId, overLimit));
+        }
+
+        private void runConcurrently(IntConsumerWithException task) throws Exception {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int threadId = thread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.accept(threadId);
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface IntConsumerWithException {
+        void accept(int value) throws Exception;
+    }
+
     @Nested
     class WhenTryingToStoreToken {
         @Test
@@ -20,9 +20,10 @@ import java.util.concurrent.ConcurrentHashMap;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 
-class RemoveOldestStrategyTest {
-    private RemoveOldestStrategy underTest;
+class IndexedEvictionStrategyTest {
+    private IndexedEvictionStrategy underTest;
     private Map<String, KeyValue> dataForStorage;
+    private EvictionIndex index;
 
     @BeforeEach
     void setUp() {
@@ -38,13 +39,28 @@ class RemoveOldestStrategyTest {
         dataForStorage.put("key1", keyValue1);
         dataForStorage.put("key2", keyValue2);
 
-        underTest = new RemoveOldestStrategy(storage);
+        index = EvictionIndex.oldestFirst();
+        index.add("test-service", keyValue2);
+        index.add("test-service", keyValue1);
+
+        underTest = new IndexedEvictionStrategy(index, (serviceId, key) -> storage.get(serviceId).remove(key));
     }
 
     @Test
     void removeOldest() {
-        underTest.evict("key3");
+        assertThat(underTest.evict("key3"), is(true));
 
         assertThat(dataForStorage.containsKey("key1"), is(false));
+        assertThat(dataForStorage.containsKey("key2"), is(true));
+        assertThat(index.size(), is(1));
+    }
+
+    @Test
+    void givenEmptyIndex_thenNothingIsRemoved() {
+        index.removeService("test-service");
+
+        assertThat(underTest.evict("key3"), is(false));
+
+        assertThat(dataForStorage.size(), is(2));
     }
 }
@@ -26,6 +26,8 @@ import org.zowe.apiml.caching.service.redis.exceptions.RedisEntryException;
 import org.zowe.apiml.caching.service.redis.exceptions.RedisOutOfMemoryException;
 import org.zowe.apiml.caching.service.redis.exceptions.RetryableRedisException;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -130,15 +132,15 @@ class RedisOperatorTest {
         private RedisFuture<Boolean> setFuture;
 
         @Mock
-        private RedisFuture<Boolean> existsFuture;
+        private RedisFuture<String> existingFuture;
 
         @Test
         void givenExistingEntry_thenUpdateEntry() throws ExecutionException, InterruptedException, RedisOutOfMemoryException {
             when(redisCommands.hset(any(), any(), any())).thenReturn(setFuture);
             when(setFuture.get()).thenReturn(false);
 
-            when(redisCommands.hexists(any(), any())).thenReturn(existsFuture);
-            when(existsFuture.get()).thenReturn(true);
+            when(redisCommands.hget(any(), any())).thenReturn(existingFuture);
+            when(existingFuture.get()).thenReturn(VALID_SERIALIZED_ENTRY);
 
             boolean result = underTest.update(REDIS_ENTRY);
             assertTrue(result);
@@ -149,8 +151,8 @@ class RedisOperatorTest {
             when(redisCommands.hset(any(), any(), any())).thenReturn(setFuture);
             when(setFuture.get()).thenReturn(true);
 
-            when(redisCommands.hexists(any(), any())).thenReturn(existsFuture);
-            when(existsFuture.get()).thenReturn(true);
+            when(redisCommands.hget(any(), any())).thenReturn(existingFuture);
+            when(existingFuture.get()).thenReturn(VALID_SERIALIZED_ENTRY);
 
             boolean result = underTest.update(REDIS_ENTRY);
             assertFalse(result);
@@ -158,8 +160,17 @@ class RedisOperatorTest {
 
         @Test
         void givenNotExistingEntry_thenDontUpdateEntry() throws ExecutionException, InterruptedException, RedisOutOfMemoryException {
-            when(redisCommands.hexists(any(), any())).thenReturn(existsFuture);
-            when(existsFuture.get()).thenReturn(false);
+            when(redisCommands.hget(any(), any())).thenReturn(existingFuture);
+            when(existingFuture.get()).thenReturn(null);
+
+            boolean result = underTest.update(REDIS_ENTRY);
+            assertFalse(result);
+        }
+
+        @Test
+        void givenExpiredEntry_thenDontUpdateEntry() throws ExecutionException, InterruptedException, RedisOutOfMemoryException {
+            when(redisCommands.hget(any(), any())).thenReturn(existingFuture);
+            when(existingFuture.get()).thenReturn("{\"key\":\"key\",\"value\":\"value\",\"expiresAt\":1}");
 
             boolean result = underTest.update(REDIS_ENTRY);
             assertFalse(result);
@@ -170,24 +181,24 @@ class RedisOperatorTest {
             when(redisCommands.hset(any(), any(), any())).thenReturn(setFuture);
             when(setFuture.get()).thenThrow(new ExecutionException(new RedisCommandExecutionException("maxmemory")));
 
-            when(redisCommands.hexists(any(), any())).thenReturn(existsFuture);
-            when(existsFuture.get()).thenReturn(true);
+            when(redisCommands.hget(any(), any())).thenReturn(existingFuture);
+            when(existingFuture.get()).thenReturn(VALID_SERIALIZED_ENTRY);
 
             assertThrows(RedisOutOfMemoryException.class, () -> underTest.update(REDIS_ENTRY));
         }
 
         @Test
         void givenInterruptedException_thenThrowRetryException() throws ExecutionException, InterruptedException {
-            when(redisCommands.hexists(any(), any())).thenReturn(existsFuture);
-            when(existsFuture.get()).thenThrow(new InterruptedException());
+            when(redisCommands.hget(any(), any())).thenReturn(existingFuture);
+            when(existingFuture.get()).thenThrow(new InterruptedException());
 
             assertThrows(RetryableRedisException.class, () -> underTest.update(REDIS_ENTRY));
         }
 
         @Test
         void givenExecutionException_thenThrowRetryException() throws ExecutionException, InterruptedException {
-            when(redisCommands.hexists(any(), any())).thenReturn(existsFuture);
-            when(existsFuture.get()).thenThrow(new ExecutionException(new Exception()));
+            when(redisCommands.hget(any(), any())).thenReturn(existingFuture);
+            when(existingFuture.get()).thenThrow(new ExecutionException(new Exception()));
 
             assertThrows(RetryableRedisException.class, () -> underTest.update(REDIS_ENTRY));
         }
@@ -199,8 +210,8 @@ class RedisOperatorTest {
             when(entry.getEntry()).thenReturn(KEY_VALUE);
             when(entry.getEntryAsString()).thenThrow(new RedisEntryException("error"));
 
-            when(redisCommands.hexists(any(), any())).thenReturn(existsFuture);
-            when(existsFuture.get()).thenReturn(true);
+            when(redisCommands.hget(any(), any())).thenReturn(existingFuture);
+            when(existingFuture.get()).thenReturn(VALID_SERIALIZED_ENTRY);
 
             boolean result = underTest.update(entry);
             assertFalse(result);
@@ -260,6 +271,90 @@ class RedisOperatorTest {
         }
     }
 
+    @Nested
+    class whenUpserting {
+
+        @Mock
+        private RedisFuture<Boolean> future;
+
+        @Test
+        void givenEntry_thenStoreItWithoutCheckingExistence() throws ExecutionException, InterruptedException, RedisOutOfMemoryException {
+            when(redisCommands.hset(any(), any(), any())).thenReturn(future);
+            when(future.get()).thenReturn(false);
+
+            assertTrue(underTest.upsert(REDIS_ENTRY));
+            verify(redisCommands, never()).hget(any(), any());
+        }
+
+        @Test
+        void givenRedisOutOfMemory_thenThrowOutOfMemoryException() throws ExecutionException, InterruptedException {
+            when(redisCommands.hset(any(), any(), any())).thenReturn(future);
+            when(future.get()).thenThrow(new ExecutionException(new RedisCommandExecutionException("maxmemory")));
+
+            assertThrows(RedisOutOfMemoryException.class, () -> underTest.upsert(REDIS_ENTRY));
+        }
+    }
+
+    @Nested
+    class whenProcessingBatch {
+        private final List<String> keys = Arrays.asList(KEY, "missing");
+
+        @Mock
+        private RedisFuture<List<io.lettuce.core.KeyValue<String, String>>> existingFuture;
+
+        @Mock
+        private RedisFuture<Long> countFuture;
+
+        @Test
+        void givenExistingAndMissingKeys_thenReturnExistingEntries() throws ExecutionException, InterruptedException {
+            when(redisCommands.hmget(SERVICE_ID, KEY, "missing")).thenReturn(existingFuture);
+            when(existingFuture.get()).thenReturn(Arrays.asList(
+                io.lettuce.core.KeyValue.just(KEY, VALID_SERIALIZED_ENTRY), io.lettuce.core.KeyValue.empty("missing")));
+
+            List<RedisEntry> result = underTest.getAll(SERVICE_ID, keys);
+            assertThat(result.size(), is(1));
+            assertThat(result.get(0).getEntry(), is(KEY_VALUE));
+        }
+
+        @Test
+        void givenExecutionExceptionOnRead_thenThrowRetryException() throws ExecutionException, InterruptedException {
+            when(redisCommands.hmget(SERVICE_ID, KEY, "missing")).thenReturn(existingFuture);
+            when(existingFuture.get()).thenThrow(new ExecutionException(new Exception()));
+
+            assertThrows(RetryableRedisException.class, () -> underTest.getAll(SERVICE_ID, keys));
+        }
+
+        @Test
+        void givenEntries_thenStoreThemInSingleCommand() throws ExecutionException, InterruptedException, RedisOutOfMemoryException {
+            when(redisCommands.hset(eq(SERVICE_ID), anyMap())).thenReturn(countFuture);
+            when(countFuture.get()).thenReturn(1L);
+
+            assertTrue(underTest.upsertAll(SERVICE_ID, Collections.singletonList(REDIS_ENTRY)));
+            verify(redisCommands, times(1)).hset(eq(SERVICE_ID), anyMap());
+        }
+
+        @Test
+        void givenRedisOutOfMemory_thenThrowOutOfMemoryException() throws ExecutionException, InterruptedException {
+            when(redisCommands.hset(eq(SERVICE_ID), anyMap())).thenReturn(countFuture);
+            when(countFuture.get()).thenThrow(new ExecutionException(new RedisCommandExecutionException("maxmemory")));
+
+            List<RedisEntry> entries = Collections.singletonList(REDIS_ENTRY);
+            assertThrows(RedisOutOfMemoryException.class, () -> underTest.upsertAll(SERVICE_ID, entries));
+        }
+
+        @Test
+        void givenKeysToDelete_thenReturnDeletedEntries() throws ExecutionException, InterruptedException {
+            when(redisCommands.hmget(SERVICE_ID, KEY, "missing")).thenReturn(existingFuture);
+            when(redisCommands.hdel(SERVICE_ID, KEY, "missing")).thenReturn(countFuture);
+            when(existingFuture.get()).thenReturn(Collections.singletonList(io.lettuce.core.KeyValue.just(KEY, VALID_SERIALIZED_ENTRY)));
+            when(countFuture.get()).thenReturn(1L);
+
+            List<RedisEntry> result = underTest.deleteAll(SERVICE_ID, keys);
+            assertThat(result.size(), is(1));
+            assertThat(result.get(0).getEntry(), is(KEY_VALUE));
+        }
+    }
+
     @Nested
     class whenGettingAllEntries {
 
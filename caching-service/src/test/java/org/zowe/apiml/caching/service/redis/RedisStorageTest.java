@@ -19,6 +19,7 @@ import org.zowe.apiml.caching.service.StorageException;
 import org.zowe.apiml.caching.service.redis.exceptions.RedisOutOfMemoryException;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -138,6 +139,70 @@ public class RedisStorageTest {
         }
     }
 
+    @Nested
+    class whenUpsert {
+        @Test
+        void givenSuccessfulStore_thenReturnEntry() throws RedisOutOfMemoryException {
+            when(redisOperator.upsert(any())).thenReturn(true);
+            KeyValue result = underTest.upsert(SERVICE_ID, KEY_VALUE);
+            assertThat(result, is(KEY_VALUE));
+        }
+
+        @Test
+        void givenOutOfMemory_thenThrowInsufficientStorage() throws RedisOutOfMemoryException {
+            when(redisOperator.upsert(any())).thenThrow(new RedisOutOfMemoryException(new Exception()));
+            StorageException e = assertThrows(StorageException.class, () -> underTest.upsert(SERVICE_ID, KEY_VALUE));
+            assertThat(e.getKey(), is(Messages.INSUFFICIENT_STORAGE.getKey()));
+        }
+    }
+
+    @Nested
+    class whenBatch {
+        private final List<String> keys = Collections.singletonList(KEY);
+
+        @Test
+        void givenExistingKeys_thenReturnEntries() {
+            when(redisOperator.getAll(SERVICE_ID, keys)).thenReturn(Collections.singletonList(REDIS_ENTRY));
+
+            Map<String, KeyValue> result = underTest.readAll(SERVICE_ID, keys);
+            assertThat(result, is(Collections.singletonMap(KEY, KEY_VALUE)));
+        }
+
+        @Test
+        void givenExpiredEntry_thenItIsNotReturned() {
+            KeyValue expired = new KeyValue(KEY, VALUE);
+            expired.setExpiresAt(1L);
+            when(redisOperator.deleteAll(SERVICE_ID, keys)).thenReturn(Collections.singletonList(new RedisEntry(SERVICE_ID, expired)));
+
+            Map<String, KeyValue> result = underTest.deleteAll(SERVICE_ID, keys);
+            assertThat(result.size(), is(0));
+        }
+
+        @Test
+        void givenNoKeys_thenRedisIsNotCalled() {
+            assertThat(underTest.readAll(SERVICE_ID, Collections.emptyList()).size(), is(0));
+            assertThat(underTest.upsertAll(SERVICE_ID, Collections.emptyList()).size(), is(0));
+            verifyNoInteractions(redisOperator);
+        }
+
+        @Test
+        void givenEntries_thenStoreThem() throws RedisOutOfMemoryException {
+            when(redisOperator.upsertAll(any(), any())).thenReturn(true);
+
+            List<KeyValue> result = underTest.upsertAll(SERVICE_ID, Collections.singletonList(KEY_VALUE));
+            assertThat(result, is(Collections.singletonList(KEY_VALUE)));
+        }
+
+        @Test
+        void givenOutOfMemory_thenThrowInsufficientStorage() throws RedisOutOfMemoryException {
+            when(redisOperator.upsertAll(any(), any())).thenThrow(new RedisOutOfMemoryException(new Exception()));
+
+            List<KeyValue> toStore = Collections.singletonList(KEY_VALUE);
+            StorageException e = assertThrows(StorageException.class, () -> underTest.upsertAll(SERVICE_ID, toStore));
+            assertThat(e.getKey(), is(Messages.INSUFFICIENT_STORAGE.getKey()));
+        }
+    }
+
     @Nested
     class whenReadForService {
         @Test
@@ -59,10 +59,22 @@ class RemoveOldestStrategyTest {
         void givenThereAreNoItems_thenNothingIsRemoved() throws ZFileException {
             when(file.readBytes(any())).thenReturn(Optional.empty());
 
-            underTest.evict("new-key");
+            assertThat(underTest.evict("new-key"), is(false));
             verify(file, times(0)).delete(recordArgumentCaptor.capture());
         }
 
+        @Test
+        void givenTheItemCannotBeDeleted_thenNothingIsRemoved() throws ZFileException, VsamRecordException {
+            KeyValue record1 = new KeyValue("key-1", "value-1", "1");
+            record1.setServiceId(VALID_SERVICE_ID);
+
+            VsamRecord fullRecord1 = new VsamRecord(vsamConfiguration, VALID_SERVICE_ID, record1);
+            when(file.readBytes(any())).thenReturn(Optional.of(fullRecord1.getBytes()));
+            when(file.delete(any())).thenReturn(Optional.empty());
+
+            assertThat(underTest.evict("new-key"), is(false));
+        }
+
         @Test
         void givenThereIsOneItem_thenItIsRemoved() throws ZFileException, VsamRecordException {
             KeyValue record1 = new KeyValue("key-1", "value-1", "1");
@@ -72,7 +84,7 @@ class RemoveOldestStrategyTest {
             when(file.readBytes(any())).thenReturn(Optional.of(fullRecord1.getBytes()));
             when(file.delete(any())).thenReturn(Optional.of(fullRecord1));
 
-            underTest.evict("new-key");
+            assertThat(underTest.evict("new-key"), is(true));
             verify(file).delete(recordArgumentCaptor.capture());
 
             VsamRecord deleted = recordArgumentCaptor.getValue();
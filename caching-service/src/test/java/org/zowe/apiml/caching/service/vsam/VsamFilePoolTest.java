@@ -0,0 +1,181 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.vsam;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.service.vsam.config.VsamConfig;
+import org.zowe.apiml.message.log.ApimlLogger;
+import org.zowe.apiml.zfile.ZFile;
+import org.zowe.apiml.zfile.ZFileException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class VsamFilePoolTest {
+    private final ApimlLogger apimlLogger = ApimlLogger.empty();
+
+    private VsamConfig vsamConfig;
+    private VsamFilePool underTest;
+    private int openedFiles;
+
+    @BeforeEach
+    void setUp() {
+        vsamConfig = DefaultVsamConfiguration.defaultConfiguration();
+        vsamConfig.setReadFiles(2);
+        vsamConfig.setWriteFiles(1);
+        vsamConfig.setMaxFileAgeMillis(60_000);
+        vsamConfig.setLeaseTimeoutMillis(10);
+
+        openedFiles = 0;
+        underTest = new VsamFilePool(vsamConfig, apimlLogger, options -> {
+            openedFiles++;
+            return zFileProducer(mock(ZFile.class));
+        });
+    }
+
+    private ZFileProducer zFileProducer(ZFile zFile) {
+        try {
+            ZFileProducer producer = mock(ZFileProducer.class);
+            when(producer.openZfile()).thenReturn(zFile);
+            return producer;
+        } catch (VsamRecordException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private VsamFile lease(VsamConfig.VsamOptions options) {
+        return underTest.newVsamFile(vsamConfig, options, apimlLogger);
+    }
+
+    @Nested
+    class WhenFileIsReturned {
+        @Test
+        void givenReadFile_thenItIsReusedWithoutOpening() {
+            VsamFile first = lease(VsamConfig.VsamOptions.READ);
+            first.close();
+            VsamFile second = lease(VsamConfig.VsamOptions.READ);
+
+            assertThat(second, is(sameInstance(first)));
+            assertThat(openedFiles, is(1));
+        }
+
+        @Test
+        void givenWriteFile_thenIdleReadFilesAreReopened() {
+            VsamFile read = lease(VsamConfig.VsamOptions.READ);
+            read.close();
+
+            lease(VsamConfig.VsamOptions.WRITE).close();
+
+            assertThat(lease(VsamConfig.VsamOptions.READ), is(not(sameInstance(read))));
+            assertThat(openedFiles, is(3));
+        }
+
+        @Test
+        void givenWriteFile_thenItIsReused() {
+            VsamFile first = lease(VsamConfig.VsamOptions.WRITE);
+            first.close();
+
+            assertThat(lease(VsamConfig.VsamOptions.WRITE), is(sameInstance(first)));
+        }
+
+        @Test
+        void givenFileIsClosedTwice_thenItIsReturnedOnce() {
+            VsamFile file = lease(VsamConfig.VsamOptions.READ);
+            file.close();
+            file.close();
+
+            assertThat(underTest.idleFiles(VsamConfig.VsamOptions.READ), is(1));
+        }
+
+        @Test
+        void givenFileIsTooOld_thenItIsClosed() throws ZFileException {
+            vsamConfig.setMaxFileAgeMillis(0);
+            ZFile zFile = mock(ZFile.class);
+            underTest = new VsamFilePool(vsamConfig, apimlLogger, options -> zFileProducer(zFile));
+
+            lease(VsamConfig.VsamOptions.READ).close();
+
+            verify(zFile).close();
+            assertThat(underTest.idleFiles(VsamConfig.VsamOptions.READ), is(0));
+        }
+    }
+
+    @Nested
+    class WhenOperationFails {
+        @Test
+        void givenZFileError_thenFileIsNotReused() throws ZFileException {
+            ZFile zFile = mock(ZFile.class);
+            when(zFile.locate(any(), anyInt())).thenThrow(new ZFileException("", "", "", 0, 0, 0, new byte[]{}, 0, 0, 0, 0, 0));
+            underTest = new VsamFilePool(vsamConfig, apimlLogger, options -> zFileProducer(zFile));
+
+            VsamFile file = lease(VsamConfig.VsamOptions.WRITE);
+            VsamRecord vsamRec = new VsamRecord(vsamConfig, "service", new KeyValue("key", "value"));
+            assertThrows(RetryableVsamException.class, () -> file.read(vsamRec));
+            file.close();
+
+            verify(zFile).close();
+            assertThat(underTest.idleFiles(VsamConfig.VsamOptions.WRITE), is(0));
+        }
+    }
+
+    @Nested
+    class WhenAllFilesAreLeased {
+        @Test
+        void thenRetryableExceptionIsThrown() {
+            lease(VsamConfig.VsamOptions.WRITE);
+
+            assertThrows(RetryableVsamException.class, () -> lease(VsamConfig.VsamOptions.WRITE));
+        }
+
+        @Test
+        void givenFileIsReturned_thenItCanBeLeased() {
+            lease(VsamConfig.VsamOptions.READ);
+            VsamFile second = lease(VsamConfig.VsamOptions.READ);
+            second.close();
+
+            assertThat(lease(VsamConfig.VsamOptions.READ), is(sameInstance(second)));
+        }
+    }
+
+    @Nested
+    class WhenPoolIsClosed {
+        @Test
+        void thenIdleFilesAreClosed() throws ZFileException {
+            ZFile zFile = mock(ZFile.class);
+            underTest = new VsamFilePool(vsamConfig, apimlLogger, options -> zFileProducer(zFile));
+            lease(VsamConfig.VsamOptions.READ).close();
+
+            underTest.close();
+
+            verify(zFile).close();
+            assertThrows(IllegalStateException.class, () -> lease(VsamConfig.VsamOptions.READ));
+        }
+
+        @Test
+        void givenLeasedFile_thenItIsClosedOnReturn() throws ZFileException {
+            ZFile zFile = mock(ZFile.class);
+            underTest = new VsamFilePool(vsamConfig, apimlLogger, options -> zFileProducer(zFile));
+            VsamFile file = lease(VsamConfig.VsamOptions.READ);
+
+            underTest.close();
+            file.close();
+
+            verify(zFile).close();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.vsam;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.*;
+
+class VsamRecordCounterTest {
+    private final AtomicLong now = new AtomicLong(1000);
+    private VsamRecordCounter underTest;
+    private VsamFile file;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new VsamRecordCounter(100, now::get);
+        file = mock(VsamFile.class);
+        when(file.countAllRecords()).thenReturn(10);
+    }
+
+    @Test
+    void givenKnownCount_thenFileIsNotRead() {
+        underTest.get(file);
+        underTest.add(2);
+        underTest.add(-1);
+
+        assertThat(underTest.get(file), is(11));
+        verify(file, times(1)).countAllRecords();
+    }
+
+    @Test
+    void givenRefreshIntervalPassed_thenRecordsAreCountedAgain() {
+        underTest.get(file);
+        underTest.add(5);
+        now.addAndGet(100);
+
+        assertThat(underTest.get(file), is(10));
+        verify(file, times(2)).countAllRecords();
+    }
+
+    @Test
+    void givenInvalidatedCount_thenRecordsAreCountedAgain() {
+        underTest.get(file);
+        underTest.invalidate();
+
+        underTest.get(file);
+
+        verify(file, times(2)).countAllRecords();
+    }
+
+    @Test
+    void givenMoreRemovedThanCounted_thenCountIsNotNegative() {
+        underTest.get(file);
+        underTest.add(-20);
+
+        assertThat(underTest.get(file), is(0));
+    }
+}
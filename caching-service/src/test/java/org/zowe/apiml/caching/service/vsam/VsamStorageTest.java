@@ -14,7 +14,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.zowe.apiml.caching.config.GeneralConfig;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.service.EvictionStrategy;
 import org.zowe.apiml.caching.service.RejectStrategy;
 import org.zowe.apiml.caching.service.StorageException;
 import org.zowe.apiml.caching.service.Strategies;
@@ -22,6 +24,7 @@ import org.zowe.apiml.caching.service.vsam.config.VsamConfig;
 import org.zowe.apiml.message.log.ApimlLogger;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -72,6 +75,86 @@ class VsamStorageTest {
         assertThrows(IllegalArgumentException.class, () -> new VsamStorage(vsamConfig, initializer, apimlLogger, evictionStrategyProducer));
     }
 
+    @Nested
+    class WhenItemIsUpserted {
+        @Test
+        void givenExistingRecord_thenItIsUpdatedWithoutCounting() {
+            KeyValue record = new KeyValue("key-1", "value-1", "1");
+            VsamFile returnedFile = mock(VsamFile.class);
+            when(returnedFile.update(any())).thenAnswer(invocation -> Optional.of(invocation.getArgument(0)));
+            when(producer.newVsamFile(any(), any(), any())).thenReturn(returnedFile);
+
+            KeyValue result = underTest.upsert(VALID_SERVICE_ID, record);
+            assertThat(result, is(record));
+            verify(returnedFile, never()).countAllRecords();
+            verify(returnedFile, never()).create(any());
+        }
+
+        @Test
+        void givenNewRecord_thenItIsCreated() {
+            KeyValue record = new KeyValue("key-1", "value-1", "1");
+            VsamFile returnedFile = mock(VsamFile.class);
+            when(returnedFile.countAllRecords()).thenReturn(60);
+            when(returnedFile.create(any())).thenAnswer(invocation -> Optional.of(invocation.getArgument(0)));
+            when(producer.newVsamFile(any(), any(), any())).thenReturn(returnedFile);
+
+            KeyValue result = underTest.upsert(VALID_SERVICE_ID, record);
+            assertThat(result, is(record));
+        }
+    }
+
+    @Nested
+    class WhenBatchIsProcessed {
+        private VsamFile returnedFile;
+
+        @BeforeEach
+        void setUp() {
+            returnedFile = mock(VsamFile.class);
+            when(producer.newVsamFile(any(), any(), any())).thenReturn(returnedFile);
+        }
+
+        @Test
+        void givenExistingAndNewKeys_thenAllAreStoredUsingOneFile() {
+            KeyValue existing = new KeyValue("existing", "value", "1");
+            KeyValue created = new KeyValue("created", "value", "1");
+            when(returnedFile.countAllRecords()).thenReturn(60);
+            when(returnedFile.update(any())).thenAnswer(invocation -> {
+                VsamRecord vsamRec = invocation.getArgument(0);
+                return "existing".equals(vsamRec.getKeyValue().getKey()) ? Optional.of(vsamRec) : Optional.empty();
+            });
+            when(returnedFile.create(any())).thenAnswer(invocation -> Optional.of(invocation.getArgument(0)));
+
+            List<KeyValue> result = underTest.upsertAll(VALID_SERVICE_ID, Arrays.asList(existing, created));
+            assertThat(result.size(), is(2));
+            verify(returnedFile, times(1)).create(any());
+            verify(producer, times(1)).newVsamFile(any(), any(), any());
+        }
+
+        @Test
+        void givenTheSizeWasExceeded_thenNewKeysAreRejected() {
+            when(returnedFile.countAllRecords()).thenReturn(200);
+            List<KeyValue> toStore = Arrays.asList(new KeyValue("created", "value", "1"));
+
+            assertThrows(StorageException.class, () -> underTest.upsertAll(VALID_SERVICE_ID, toStore));
+        }
+
+        @Test
+        void givenKeys_thenExistingRecordsAreReadAndDeleted() {
+            KeyValue record = new KeyValue("key-1", "value-1", "1");
+            Optional<VsamRecord> found = Optional.of(new VsamRecord(vsamConfiguration, VALID_SERVICE_ID, record));
+            when(returnedFile.read(any())).thenAnswer(invocation ->
+                "key-1".equals(((VsamRecord) invocation.getArgument(0)).getKeyValue().getKey()) ? found : Optional.empty());
+            when(returnedFile.delete(any())).thenReturn(found);
+
+            Map<String, KeyValue> read = underTest.readAll(VALID_SERVICE_ID, Arrays.asList("key-1", "missing"));
+            assertThat(read.size(), is(1));
+            assertThat(read.get("key-1"), is(record));
+
+            Map<String, KeyValue> deleted = underTest.deleteAll(VALID_SERVICE_ID, Arrays.asList("key-1"));
+            assertThat(deleted.get("key-1"), is(record));
+        }
+    }
+
     @Nested
     class WhenItemIsCreated {
         @Test
@@ -115,6 +198,55 @@ class VsamStorageTest {
                 underTest.create(VALID_SERVICE_ID, record);
             });
         }
+
+        @Test
+        void givenCountIsKnown_thenRecordsAreNotCountedAgain() {
+            vsamConfiguration.setRecordCountRefreshMillis(60_000);
+            EvictionStrategyProducer evictionStrategyProducer = mock(EvictionStrategyProducer.class);
+            when(evictionStrategyProducer.evictionStrategy(any())).thenReturn(new RejectStrategy(apimlLogger));
+            underTest = new VsamStorage(vsamConfiguration, mock(VsamInitializer.class), producer, apimlLogger, evictionStrategyProducer);
+
+            VsamFile returnedFile = mock(VsamFile.class);
+            when(returnedFile.countAllRecords()).thenReturn(99);
+            when(returnedFile.create(any())).thenAnswer(invocation -> Optional.of(invocation.getArgument(0)));
+            when(producer.newVsamFile(any(), any(), any())).thenReturn(returnedFile);
+
+            underTest.create(VALID_SERVICE_ID, new KeyValue("key-1", "value-1", "1"));
+            KeyValue second = new KeyValue("key-2", "value-2", "1");
+            assertThrows(StorageException.class, () -> underTest.create(VALID_SERVICE_ID, second));
+
+            verify(returnedFile, times(1)).countAllRecords();
+        }
+
+        @Test
+        void givenStrategyRemovesRecord_thenCountIsKeptAtLimit() {
+            assertThat(countAfterEvictingCreate(true), is(100));
+        }
+
+        @Test
+        void givenStrategyFailsToRemoveRecord_thenCountIsNotDecreased() {
+            assertThat(countAfterEvictingCreate(false), is(101));
+        }
+
+        private int countAfterEvictingCreate(boolean evicted) {
+            vsamConfiguration.setRecordCountRefreshMillis(60_000);
+            EvictionStrategy strategy = mock(EvictionStrategy.class);
+            when(strategy.evict(any())).thenReturn(evicted);
+            EvictionStrategyProducer evictionStrategyProducer = mock(EvictionStrategyProducer.class);
+            when(evictionStrategyProducer.evictionStrategy(any())).thenReturn(strategy);
+            underTest = new VsamStorage(vsamConfiguration, mock(VsamInitializer.class), producer, apimlLogger, evictionStrategyProducer);
+
+            VsamFile returnedFile = mock(VsamFile.class);
+            when(returnedFile.countAllRecords()).thenReturn(100);
+            when(returnedFile.create(any())).thenAnswer(invocation -> Optional.of(invocation.getArgument(0)));
+            when(producer.newVsamFile(any(), any(), any())).thenReturn(returnedFile);
+
+            underTest.create(VALID_SERVICE_ID, new KeyValue("key-1", "value-1", "1"));
+
+            verify(strategy).evict("key-1");
+            VsamRecordCounter recordCounter = (VsamRecordCounter) ReflectionTestUtils.getField(underTest, "recordCounter");
+            return recordCounter.get(returnedFile);
+        }
     }
 
     @Nested
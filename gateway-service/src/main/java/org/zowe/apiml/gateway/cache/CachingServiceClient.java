@@ -12,7 +12,9 @@ package org.zowe.apiml.gateway.cache;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
@@ -23,7 +25,12 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 
 /**
@@ -42,6 +49,7 @@ public class CachingServiceClient {
     private static final String CACHING_API_PATH = "/cachingservice/api/v1/cache"; //NOSONAR parametrization provided by @Value annotation
     @Value("${apiml.cachingServiceClient.list.apiPath}")
     private static final String CACHING_LIST_API_PATH = "/cachingservice/api/v1/cache-list/"; //NOSONAR parametrization provided by @Value annotation
+    private static final String CACHING_BATCH_API_PATH = CACHING_API_PATH + "/batch";
 
     private static final HttpHeaders defaultHeaders = new HttpHeaders();
 
@@ -107,6 +115,33 @@ public class CachingServiceClient {
         }
     }
 
+    /**
+     * Reads the changes of the map since the given epoch and sequence number. If the caching service doesn't know the
+     * changes anymore, the whole map is returned and {@link MapChanges#isFull()} is set.
+     *
+     * @param mapKey the map key
+     * @param epoch  epoch from the previous response, null for the first request
+     * @param since  sequence number from the previous response, 0 for the first request
+     * @return changed and removed items of the map
+     * @throws CachingServiceClientException when http response from caching is not 2xx, such as connect exception
+     */
+    public MapChanges readMapChanges(String mapKey, String epoch, long since) throws CachingServiceClientException {
+        String url = gatewayProtocolHostPort + CACHING_LIST_API_PATH + mapKey + "/changes?since=" + since;
+        if (epoch != null) {
+            url += "&epoch=" + epoch;
+        }
+        try {
+            ResponseEntity<MapChanges> response = restTemplate.exchange(url,
+                HttpMethod.GET, new HttpEntity<>(null, defaultHeaders), MapChanges.class);
+            if (response != null && response.hasBody()) { //NOSONAR tests return null
+                return response.getBody();
+            }
+            throw new CachingServiceClientException("Unable to read changes of the map " + mapKey + ", caused by response from caching service has no body");
+        } catch (RestClientException e) {
+            throw new CachingServiceClientException("Unable to read changes of the map " + mapKey + ", caused by: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Evict the non-relevant invalidated tokens by deleting the entries in the specified map
      *
@@ -168,6 +203,21 @@ public class CachingServiceClient {
         }
     }
 
+    /**
+     * Creates or updates {@link KeyValue} in Caching Service in a single request
+     *
+     * @param kv {@link KeyValue} to store
+     * @throws CachingServiceClientException when http response from caching is not 2xx, such as connect exception or
+     *                                       404 key not found in cache from caching service not supporting the upsert
+     */
+    public void upsert(KeyValue kv) throws CachingServiceClientException {
+        try {
+            restTemplate.exchange(gatewayProtocolHostPort + CACHING_API_PATH + "?upsert=true", HttpMethod.PUT, new HttpEntity<>(kv, defaultHeaders), String.class);
+        } catch (RestClientException e) {
+            throw new CachingServiceClientException("Unable to upsert keyValue: " + kv.toString() + ", caused by: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Deletes {@link KeyValue} from Caching Service
      *
@@ -182,6 +232,70 @@ public class CachingServiceClient {
         }
     }
 
+    /**
+     * Reads multiple {@link KeyValue} from Caching Service in a single request
+     *
+     * @param keys Keys to read
+     * @return Map of the found {@link KeyValue} by their keys, keys missing in the cache are not part of the map
+     * @throws CachingServiceClientException when http response from caching is not 2xx, such as connect exception
+     */
+    public Map<String, KeyValue> readAll(Collection<String> keys) throws CachingServiceClientException {
+        try {
+            ParameterizedTypeReference<Map<String, KeyValue>> responseType =
+                new ParameterizedTypeReference<Map<String, KeyValue>>() {
+                };
+            ResponseEntity<Map<String, KeyValue>> response = restTemplate.exchange(gatewayProtocolHostPort + CACHING_BATCH_API_PATH + "/read", HttpMethod.POST, new HttpEntity<>(keys, defaultHeaders), responseType);
+            if (response != null && response.hasBody()) { //NOSONAR tests return null
+                return response.getBody();
+            }
+            return Collections.emptyMap();
+        } catch (RestClientException e) {
+            throw new CachingServiceClientException("Unable to read keys: " + keys + ", caused by: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Creates or updates multiple {@link KeyValue} in Caching Service in a single request
+     *
+     * @param kvs {@link KeyValue} entries to store
+     * @throws CachingServiceClientException when http response from caching is not 2xx, such as connect exception
+     */
+    public void upsertAll(Collection<KeyValue> kvs) throws CachingServiceClientException {
+        try {
+            restTemplate.exchange(gatewayProtocolHostPort + CACHING_BATCH_API_PATH, HttpMethod.POST, new HttpEntity<>(kvs, defaultHeaders), String.class);
+        } catch (RestClientException e) {
+            throw new CachingServiceClientException("Unable to store keyValues: " + kvs + ", caused by: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Deletes multiple {@link KeyValue} from Caching Service in a single request. Keys missing in the cache are ignored.
+     *
+     * @param keys Keys to delete
+     * @throws CachingServiceClientException when http response from caching is not 2xx, such as connect exception
+     */
+    public void deleteAll(Collection<String> keys) throws CachingServiceClientException {
+        try {
+            restTemplate.exchange(gatewayProtocolHostPort + CACHING_BATCH_API_PATH + "/delete", HttpMethod.POST, new HttpEntity<>(keys, defaultHeaders), String.class);
+        } catch (RestClientException e) {
+            throw new CachingServiceClientException("Unable to delete keys: " + keys + ", caused by: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Changes of a map in caching service since an epoch and sequence number
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MapChanges {
+        private String epoch;
+        private long sequence;
+        private boolean full;
+        private Map<String, String> changed = new HashMap<>();
+        private Set<String> removed = new HashSet<>();
+    }
+
     /**
      * Data POJO that represents entry in caching service
      */
@@ -15,90 +15,148 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpStatus;
 import org.springframework.web.client.HttpClientErrorException;
 import org.zowe.apiml.gateway.ribbon.loadbalancer.model.LoadBalancerCacheRecord;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Cache for storing Load Balancer related information. The initial goal was to support user based instance load
  * balancing
  *
- * Supports optional CachingServiceClient inject through constructor, which gives acts as remote cache. Remote cache
- * entries have preference to local ones.
+ * Supports optional CachingServiceClient inject through constructor, which gives acts as remote cache. The local cache
+ * is bounded and serves as a near cache of the remote one. A record read from or written to the remote cache is served
+ * locally for at most remoteRefreshMillis, afterwards the remote cache is asked again, so the remote entries still have
+ * preference to local ones up to this staleness. A record missing in the remote cache is remembered the same way.
+ * When the remote cache cannot be read, it is not asked again for remoteFailureBackoffMillis and the local cache is used
+ * meanwhile. Writes and deletions are propagated to the remote cache asynchronously so they do not delay the routing.
  */
-@Getter
 @Slf4j
 public class LoadBalancerCache {
+    public static final int DEFAULT_MAX_SIZE = 10_000;
+    public static final long DEFAULT_REMOTE_REFRESH_MILLIS = 1_000;
+    public static final long DEFAULT_REMOTE_FAILURE_BACKOFF_MILLIS = 5_000;
+    private static final int WRITE_BEHIND_QUEUE_SIZE = 1_000;
+
+    @Getter
     private final Map<String, LoadBalancerCacheRecord> localCache;
+    @Getter
     private final CachingServiceClient remoteCache;
+    private final Map<String, Long> remoteVerifiedAt;
+    private final Executor writeBehindExecutor;
+    private final long remoteRefreshMillis;
+    private final long remoteFailureBackoffMillis;
     private final ObjectMapper mapper = new ObjectMapper();
 
+    private volatile long remoteFailedAt;
+
     public static final String LOAD_BALANCER_KEY_PREFIX = "lb.";
 
     public LoadBalancerCache(CachingServiceClient cachingServiceClient) {
+        this(cachingServiceClient, DEFAULT_MAX_SIZE, DEFAULT_REMOTE_REFRESH_MILLIS);
+    }
+
+    public LoadBalancerCache(CachingServiceClient cachingServiceClient, int maxSize, long remoteRefreshMillis) {
+        this(cachingServiceClient, writeBehindExecutor(), maxSize, remoteRefreshMillis, DEFAULT_REMOTE_FAILURE_BACKOFF_MILLIS);
+    }
+
+    LoadBalancerCache(CachingServiceClient cachingServiceClient, Executor writeBehindExecutor, int maxSize,
+                      long remoteRefreshMillis, long remoteFailureBackoffMillis) {
         this.remoteCache = cachingServiceClient;
-        localCache = new ConcurrentHashMap<>();
+        this.writeBehindExecutor = writeBehindExecutor;
+        this.remoteRefreshMillis = remoteRefreshMillis;
+        this.remoteFailureBackoffMillis = remoteFailureBackoffMillis;
+        localCache = boundedMap(maxSize);
+        remoteVerifiedAt = boundedMap(maxSize);
         mapper.registerModule(new JavaTimeModule());
     }
 
+    private static <V> Map<String, V> boundedMap(int maxSize) {
+        return Collections.synchronizedMap(new LinkedHashMap<String, V>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    private static Executor writeBehindExecutor() {
+        // single thread keeps the order of the updates, when the remote cache is too slow the oldest updates are dropped
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(WRITE_BEHIND_QUEUE_SIZE),
+            runnable -> {
+                Thread thread = new Thread(runnable, "load-balancer-cache-write-behind");
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.DiscardOldestPolicy()
+        );
+    }
+
     /**
      * Store information about instance the user is balanced towards.
-     * If there is already existing record, it will be updated
+     * If there is already existing record, it will be updated. The record is stored to the local cache at once, the
+     * remote cache is updated asynchronously and its failures are only logged.
      *
      * @param user     User being routed towards southbound service
      * @param service  Service towards which is the user routed
      * @param loadBalancerCacheRecord  Object containing the selected instance and its creation time
-     * @return True if storing succeeded, otherwise false
      */
-    public boolean store(String user, String service, LoadBalancerCacheRecord loadBalancerCacheRecord) {
+    public void store(String user, String service, LoadBalancerCacheRecord loadBalancerCacheRecord) {
+        String key = getKey(user, service);
+        localCache.put(key, loadBalancerCacheRecord);
+        log.debug("Stored record to local cache for user: {}, service: {}, record: {}", user, service, loadBalancerCacheRecord);
         if (remoteCache != null) {
-            storeToRemoteCache(user, service, loadBalancerCacheRecord);
+            markVerified(key);
+            writeBehind(() -> storeToRemoteCache(user, service, loadBalancerCacheRecord));
         }
-        localCache.put(getKey(user, service), loadBalancerCacheRecord);
-        log.debug("Stored record to local cache for user: {}, service: {}, record: {}", user, service, loadBalancerCacheRecord);
-        return true;
     }
 
     private void storeToRemoteCache(String user, String service, LoadBalancerCacheRecord loadBalancerCacheRecord) {
         try {
-        String serializedRecord = mapper.writeValueAsString(loadBalancerCacheRecord);
-        CachingServiceClient.KeyValue toStore = new CachingServiceClient.KeyValue(getKey(user, service), serializedRecord);
-            createToRemoteCache(user, service, loadBalancerCacheRecord, toStore);
+            String serializedRecord = mapper.writeValueAsString(loadBalancerCacheRecord);
+            upsertToRemoteCache(new CachingServiceClient.KeyValue(getKey(user, service), serializedRecord));
+            log.debug("Stored record to remote cache for user: {}, service: {}, record: {}", user, service, loadBalancerCacheRecord);
         } catch (JsonProcessingException e) {
             log.debug("Failed to serialize record for user: {}, service: {}, record {},  with exception: {}", user, service, loadBalancerCacheRecord, e);
+        } catch (CachingServiceClientException e) {
+            log.debug("Failed to store record for user: {}, service: {}, record {}, with exception: {}", user, service, loadBalancerCacheRecord, e);
         }
     }
 
-    private void createToRemoteCache(String user, String service, LoadBalancerCacheRecord loadBalancerCacheRecord, CachingServiceClient.KeyValue toStore) {
+    /**
+     * The caching service without the support of the upsert answers 404 for a missing key, the record is created then.
+     * If another gateway created it meanwhile, it is updated.
+     */
+    private void upsertToRemoteCache(CachingServiceClient.KeyValue kv) {
         try {
-        remoteCache.create(toStore);
-        log.debug("Created record to remote cache for user: {}, service: {}, record: {}", user, service, loadBalancerCacheRecord);
-        } catch (CachingServiceClientException createException) {
-            if (isCausedByCacheConflict(createException)) {
-                updateToRemoteCache(user, service, loadBalancerCacheRecord, toStore);
-            } else {
-                log.debug("Failed to create record for user: {}, service: {}, record {}, with exception: {}", user, service, loadBalancerCacheRecord, createException);
+            remoteCache.upsert(kv);
+            return;
+        } catch (CachingServiceClientException e) {
+            if (!(e.getCause() instanceof HttpClientErrorException.NotFound)) {
+                throw e;
             }
         }
-    }
 
-    private void updateToRemoteCache(String user, String service, LoadBalancerCacheRecord loadBalancerCacheRecord, CachingServiceClient.KeyValue toStore) {
         try {
-            remoteCache.update(toStore);
-            log.debug("Updated record to remote cache for user: {}, service: {}, record: {}", user, service, loadBalancerCacheRecord);
-        } catch (CachingServiceClientException updateException) {
-            log.debug("Failed to update record for user: {}, service: {}, record {}, with exception: {}", user, service, loadBalancerCacheRecord, updateException);
+            remoteCache.create(kv);
+        } catch (CachingServiceClientException e) {
+            if (!(e.getCause() instanceof HttpClientErrorException.Conflict)) {
+                throw e;
+            }
+            remoteCache.update(kv);
         }
     }
 
-    private boolean isCausedByCacheConflict(CachingServiceClientException e) {
-        return e.getCause() instanceof HttpClientErrorException &&
-            ((HttpClientErrorException) e.getCause()).getStatusCode().equals(HttpStatus.CONFLICT);
-    }
-
     /**
      * Retrieve information about selected instance for combination of User and Service.
      *
@@ -107,21 +165,28 @@ public class LoadBalancerCache {
      * @return Retrieved record containing the instance to use for this user and its creation time.
      */
     public LoadBalancerCacheRecord retrieve(String user, String service) {
-        if (remoteCache != null) {
+        String key = getKey(user, service);
+        if (remoteCache != null && !isVerified(key) && !isRemoteBackingOff()) {
             try {
-                CachingServiceClient.KeyValue kv = remoteCache.read(getKey(user, service));
-                if (kv != null) {
-                    LoadBalancerCacheRecord loadBalancerCacheRecord = mapper.readValue(kv.getValue(), LoadBalancerCacheRecord.class);
-                    log.debug("Retrieved record from remote cache for user: {}, service: {}, record: {}", user, service, loadBalancerCacheRecord);
-                    return loadBalancerCacheRecord;
-                }
+                CachingServiceClient.KeyValue kv = remoteCache.read(key);
+                LoadBalancerCacheRecord loadBalancerCacheRecord = mapper.readValue(kv.getValue(), LoadBalancerCacheRecord.class);
+                localCache.put(key, loadBalancerCacheRecord);
+                markVerified(key);
+                log.debug("Retrieved record from remote cache for user: {}, service: {}, record: {}", user, service, loadBalancerCacheRecord);
+                return loadBalancerCacheRecord;
             } catch (CachingServiceClientException e) {
-                log.debug("Failed to retrieve record for user: {}, service: {}, with exception: {}", user, service, e);
+                if (e.getCause() instanceof HttpClientErrorException.NotFound) {
+                    markVerified(key);
+                    log.debug("Record not found in remote cache for user: {}, service: {}", user, service);
+                } else {
+                    remoteFailedAt = System.currentTimeMillis();
+                    log.debug("Failed to retrieve record for user: {}, service: {}, with exception: {}", user, service, e);
+                }
             } catch (JsonProcessingException e) {
                 log.debug("Failed to deserialize record for user: {}, service: {}, with exception: {}", user, service, e);
             }
         }
-        LoadBalancerCacheRecord loadBalancerCacheRecord = localCache.get(getKey(user, service));
+        LoadBalancerCacheRecord loadBalancerCacheRecord = localCache.get(key);
         log.debug("Retrieved record from local cache for user: {}, service: {}, record: {}", user, service, loadBalancerCacheRecord);
         return loadBalancerCacheRecord;
     }
@@ -133,16 +198,44 @@ public class LoadBalancerCache {
      * @param service Service towards which is the user routed
      */
     public void delete(String user, String service) {
+        String key = getKey(user, service);
+        localCache.remove(key);
+        log.debug("Deleted record from local cache for user: {}, service: {}", user, service);
         if (remoteCache != null) {
-            try {
-                remoteCache.delete(getKey(user, service));
-                log.debug("Deleted record from remote cache for user: {}, service: {}", user, service);
-            } catch (CachingServiceClientException e) {
-                log.debug("Failed to deleted record from remote cache for user: {}, service: {}, with exception: {}", user, service, e);
-            }
+            markVerified(key);
+            writeBehind(() -> deleteFromRemoteCache(user, service));
         }
-        localCache.remove(getKey(user, service));
-        log.debug("Deleted record from local cache for user: {}, service: {}", user, service);
+    }
+
+    private void deleteFromRemoteCache(String user, String service) {
+        try {
+            remoteCache.delete(getKey(user, service));
+            log.debug("Deleted record from remote cache for user: {}, service: {}", user, service);
+        } catch (CachingServiceClientException e) {
+            log.debug("Failed to deleted record from remote cache for user: {}, service: {}, with exception: {}", user, service, e);
+        }
+    }
+
+    private void writeBehind(Runnable update) {
+        try {
+            writeBehindExecutor.execute(update);
+        } catch (RejectedExecutionException e) {
+            log.debug("Remote cache update was rejected: {}", e.getMessage());
+        }
+    }
+
+    private boolean isVerified(String key) {
+        Long verifiedAt = remoteVerifiedAt.get(key);
+        return verifiedAt != null && System.currentTimeMillis() - verifiedAt < remoteRefreshMillis;
+    }
+
+    private boolean isRemoteBackingOff() {
+        long failedAt = remoteFailedAt;
+        return failedAt != 0 && System.currentTimeMillis() - failedAt < remoteFailureBackoffMillis;
+    }
+
+    private void markVerified(String key) {
+        remoteVerifiedAt.put(key, System.currentTimeMillis());
     }
 
     private String getKey(String user, String service) {
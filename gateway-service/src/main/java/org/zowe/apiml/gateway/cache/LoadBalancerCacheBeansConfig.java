@@ -12,6 +12,7 @@ package org.zowe.apiml.gateway.cache;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -27,6 +28,12 @@ public class LoadBalancerCacheBeansConfig {
 
     private final GatewayConfigProperties gatewayConfigProperties;
 
+    @Value("${apiml.loadBalancer.cache.maxSize:" + LoadBalancerCache.DEFAULT_MAX_SIZE + "}")
+    private int maxSize;
+
+    @Value("${apiml.loadBalancer.cache.remoteRefreshMillis:" + LoadBalancerCache.DEFAULT_REMOTE_REFRESH_MILLIS + "}")
+    private long remoteRefreshMillis;
+
     @Bean
     public CachingServiceClient cachingServiceClient(@Qualifier("restTemplateWithKeystore") RestTemplate restTemplate) {
         String gatewayUri = String.format("%s://%s", gatewayConfigProperties.getScheme(), gatewayConfigProperties.getHostname());
@@ -36,12 +43,12 @@ public class LoadBalancerCacheBeansConfig {
     @Bean
     @ConditionalOnProperty(name = "apiml.loadBalancer.distribute", havingValue = "true")
     public LoadBalancerCache loadBalancerCacheWithRemoteCache(CachingServiceClient cachingServiceClient) {
-        return new LoadBalancerCache(cachingServiceClient);
+        return new LoadBalancerCache(cachingServiceClient, maxSize, remoteRefreshMillis);
     }
 
     @Bean
     @ConditionalOnProperty(name = "apiml.loadBalancer.distribute", havingValue = "false", matchIfMissing = true)
     public LoadBalancerCache loadBalancerCacheOnlyLocalCache() {
-        return new LoadBalancerCache(null);
+        return new LoadBalancerCache(null, maxSize, remoteRefreshMillis);
     }
 }
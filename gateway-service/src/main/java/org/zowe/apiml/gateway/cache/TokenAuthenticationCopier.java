@@ -0,0 +1,38 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.cache;
+
+import org.ehcache.impl.copy.ReadWriteCopier;
+import org.zowe.apiml.security.common.token.TokenAuthentication;
+
+/**
+ * Copier of {@link TokenAuthentication} for the ehcache. The cached object is mutable (i.e. the flag authenticated),
+ * so the callers cannot share one instance, but a copy of the few fields is much cheaper than the Java serialization
+ * used by {@link org.ehcache.impl.copy.SerializingCopier}. It matters, because the validation of JWT tokens is
+ * cached and it is called for nearly each request.
+ *
+ * The copier is referenced from ehcache.xml, so it has to have a public constructor without arguments.
+ */
+public class TokenAuthenticationCopier extends ReadWriteCopier<TokenAuthentication> {
+
+    @Override
+    public TokenAuthentication copy(TokenAuthentication original) {
+        if (original == null) {
+            return null;
+        }
+
+        TokenAuthentication copy = new TokenAuthentication(original.getPrincipal(), original.getCredentials());
+        copy.setAuthenticated(original.isAuthenticated());
+        copy.setDetails(original.getDetails());
+        return copy;
+    }
+
+}
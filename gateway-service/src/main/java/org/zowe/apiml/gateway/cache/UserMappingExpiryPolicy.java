@@ -0,0 +1,46 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.cache;
+
+import org.ehcache.expiry.ExpiryPolicy;
+import org.springframework.cache.support.NullValue;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Expiration of the cached results of the identity mappers. A successful mapping is kept for {@link #MAPPED_TTL}.
+ * A missing mapping is stored by Spring as {@link NullValue} and kept only for {@link #NOT_MAPPED_TTL}, so a newly
+ * created mapping is used shortly, while a client without mapping still cannot flood the mapper with requests.
+ *
+ * The policy is referenced from ehcache.xml, so it has to have a public constructor without arguments.
+ */
+public class UserMappingExpiryPolicy implements ExpiryPolicy<Object, Object> {
+
+    public static final Duration MAPPED_TTL = Duration.ofMinutes(10);
+    public static final Duration NOT_MAPPED_TTL = Duration.ofSeconds(30);
+
+    @Override
+    public Duration getExpiryForCreation(Object key, Object value) {
+        return value instanceof NullValue ? NOT_MAPPED_TTL : MAPPED_TTL;
+    }
+
+    @Override
+    public Duration getExpiryForAccess(Object key, Supplier<?> value) {
+        return null;
+    }
+
+    @Override
+    public Duration getExpiryForUpdate(Object key, Supplier<?> oldValue, Object newValue) {
+        return getExpiryForCreation(key, newValue);
+    }
+
+}
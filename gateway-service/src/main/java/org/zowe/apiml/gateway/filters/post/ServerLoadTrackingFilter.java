@@ -0,0 +1,44 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.filters.post;
+
+import com.netflix.zuul.context.RequestContext;
+import lombok.RequiredArgsConstructor;
+import org.zowe.apiml.gateway.ribbon.loadbalancer.ServerLoadTracker;
+
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.SEND_RESPONSE_FILTER_ORDER;
+
+/**
+ * This post filter finishes tracking of the request routed by a load balancing strategy which takes the load of the
+ * instances into account. It runs also for the failed requests.
+ */
+@RequiredArgsConstructor
+public class ServerLoadTrackingFilter extends PostZuulFilter {
+
+    private final ServerLoadTracker tracker;
+
+    @Override
+    public int filterOrder() {
+        return SEND_RESPONSE_FILTER_ORDER - 2;
+    }
+
+    @Override
+    public boolean shouldFilter() {
+        return tracker.isTracked(RequestContext.getCurrentContext());
+    }
+
+    @Override
+    @SuppressWarnings("squid:S3516") // We always have to return null
+    public Object run() {
+        tracker.finish(RequestContext.getCurrentContext());
+        return null;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.filters.pre;
+
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Negotiation of the content coding by the header Accept-Encoding with the quality values (RFC 7231, section 5.3.4).
+ */
+final class AcceptEncoding {
+
+    private static final String WILDCARD = "*";
+
+    private AcceptEncoding() {
+    }
+
+    /**
+     * Choose the content coding with the highest quality for the client. The codings with the same quality are chosen
+     * in the order preferred by the service. The codings with the quality 0 are not acceptable, the wildcard applies to
+     * the codings not listed in the header.
+     *
+     * @param header    value of the header Accept-Encoding
+     * @param preferred codings supported by the service in the order of its preference
+     * @param available codings the gateway is able to produce
+     * @return the chosen coding or null if there is no acceptable one
+     */
+    static String negotiate(String header, List<String> preferred, Set<String> available) {
+        Map<String, Double> qualities = parse(header);
+        Double wildcard = qualities.get(WILDCARD);
+
+        String selected = null;
+        double selectedQuality = 0;
+        for (String encoding : preferred) {
+            if (!available.contains(encoding)) {
+                continue;
+            }
+
+            Double quality = qualities.getOrDefault(encoding, wildcard);
+            if (quality != null && quality > selectedQuality) {
+                selected = encoding;
+                selectedQuality = quality;
+            }
+        }
+        return selected;
+    }
+
+    static Map<String, Double> parse(String header) {
+        Map<String, Double> qualities = new HashMap<>();
+        for (String item : header.split(",")) {
+            String[] parts = item.split(";");
+            String encoding = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (encoding.isEmpty()) {
+                continue;
+            }
+
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+                    quality = NumberUtils.toDouble(parameter.substring(2).trim(), 0);
+                }
+            }
+            qualities.put(encoding, quality);
+        }
+        return qualities;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.filters.pre;
+
+import org.zowe.apiml.gzip.GZipResponseUtils;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Target of the compressed response. The compressed data are buffered until they reach bufferThreshold, so the small
+ * responses can be sent with Content-Length. The bigger responses are streamed in chunks, the buffered data are sent
+ * with the headers as soon as the threshold is exceeded.
+ */
+class CompressedResponseOutputStream extends OutputStream {
+
+    private final HttpServletResponse response;
+    private final int bufferThreshold;
+    private final String encoding;
+
+    private ByteArrayOutputStream buffer;
+    private boolean streaming;
+    private boolean discarding;
+
+    CompressedResponseOutputStream(HttpServletResponse response, int bufferThreshold, String encoding) {
+        this.response = response;
+        this.bufferThreshold = bufferThreshold;
+        this.encoding = encoding;
+        this.buffer = new ByteArrayOutputStream(Math.min(bufferThreshold, 1024));
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (discarding) {
+            return;
+        }
+
+        if (!streaming && buffer.size() + len > bufferThreshold) {
+            startStreaming();
+            if (discarding) {
+                return;
+            }
+        }
+
+        if (streaming) {
+            response.getOutputStream().write(b, off, len);
+        } else {
+            buffer.write(b, off, len);
+        }
+    }
+
+    private void startStreaming() throws IOException {
+        if (response.isCommitted()) {
+            // the response was already sent by the service, i.e. an error
+            discarding = true;
+            buffer = null;
+            return;
+        }
+
+        GZipResponseUtils.addContentEncodingHeader(response, encoding);
+        // the length of the compressed content is not known, the response is chunked
+        response.setContentLengthLong(-1);
+        buffer.writeTo(response.getOutputStream());
+        buffer = null;
+        streaming = true;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (streaming) {
+            response.getOutputStream().flush();
+        }
+    }
+
+    @Override
+    public void close() {
+        // the response stream is closed by the container
+    }
+
+    /**
+     * @return true if the response was already sent in the chunks, false if the whole response is in the buffer
+     */
+    boolean isStreaming() {
+        return streaming || discarding;
+    }
+
+    int size() {
+        return buffer == null ? 0 : buffer.size();
+    }
+
+    /**
+     * Write the buffered response without copying of the buffer.
+     */
+    void writeBufferTo(OutputStream outputStream) throws IOException {
+        buffer.writeTo(outputStream);
+    }
+}
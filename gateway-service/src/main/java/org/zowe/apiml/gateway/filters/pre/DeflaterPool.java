@@ -0,0 +1,50 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.filters.pre;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * Bounded pool of deflaters used for the compression of the responses. Creating of the deflater allocates
+ * native memory, which is released only by {@link Deflater#end()} or by the garbage collection.
+ */
+class DeflaterPool {
+
+    private final BlockingQueue<Deflater> deflaters;
+    private final boolean nowrap;
+
+    /**
+     * @param size   maximum number of idle deflaters
+     * @param nowrap true for the raw deflate data (used in gzip), false for the zlib format
+     */
+    DeflaterPool(int size, boolean nowrap) {
+        this.deflaters = new ArrayBlockingQueue<>(size);
+        this.nowrap = nowrap;
+    }
+
+    Deflater acquire() {
+        Deflater deflater = deflaters.poll();
+        return deflater != null ? deflater : new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap);
+    }
+
+    void release(Deflater deflater) {
+        deflater.reset();
+        if (!deflaters.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    int size() {
+        return deflaters.size();
+    }
+}
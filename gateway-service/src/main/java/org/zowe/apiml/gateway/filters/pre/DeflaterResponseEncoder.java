@@ -0,0 +1,64 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.filters.pre;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Encoders of the content codings gzip and deflate provided by the JDK.
+ */
+class DeflaterResponseEncoder implements ResponseEncoder {
+
+    static final String GZIP = "gzip";
+    static final String DEFLATE = "deflate";
+
+    // deflaters are shared by all the requests, the pool keeps only the idle ones
+    private static final int POOL_SIZE = 64;
+
+    private final String name;
+    private final boolean gzip;
+    private final DeflaterPool pool;
+
+    private DeflaterResponseEncoder(String name, boolean gzip) {
+        this.name = name;
+        this.gzip = gzip;
+        this.pool = new DeflaterPool(POOL_SIZE, gzip);
+    }
+
+    static DeflaterResponseEncoder gzip() {
+        return new DeflaterResponseEncoder(GZIP, true);
+    }
+
+    static DeflaterResponseEncoder deflate() {
+        return new DeflaterResponseEncoder(DEFLATE, false);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public OutputStream encode(OutputStream target) throws IOException {
+        return gzip ? PooledDeflaterOutputStream.gzip(target, pool) : PooledDeflaterOutputStream.deflate(target, pool);
+    }
+
+    @Override
+    public void release(OutputStream encoded) {
+        ((PooledDeflaterOutputStream) encoded).release();
+    }
+
+    @Override
+    public String toString() {
+        return "DeflaterResponseEncoder (" + name + ")";
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.filters.pre;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Stream in front of the encoder counting the written data. The flush is propagated to the encoder only if at least
+ * flushThreshold bytes were written since the last flush. Otherwise, frequent flushes of the small chunks would harm
+ * the compression ratio.
+ */
+class EncodingOutputStream extends FilterOutputStream {
+
+    private final int flushThreshold;
+    private long size;
+    private long unflushed;
+
+    EncodingOutputStream(OutputStream encoder, int flushThreshold) {
+        super(encoder);
+        this.flushThreshold = flushThreshold;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        size++;
+        unflushed++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        size += len;
+        unflushed += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (unflushed >= flushThreshold) {
+            out.flush();
+            unflushed = 0;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * @return number of the bytes before the encoding
+     */
+    long getSize() {
+        return size;
+    }
+}
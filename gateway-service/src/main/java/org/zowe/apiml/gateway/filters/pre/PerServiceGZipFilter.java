@@ -10,12 +10,18 @@
 
 package org.zowe.apiml.gateway.filters.pre;
 
+import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Component;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.zowe.apiml.gateway.security.service.ServiceCacheEvict;
 import org.zowe.apiml.gzip.GZipResponseUtils;
 import org.zowe.apiml.gzip.GZipResponseWrapper;
 
@@ -23,35 +29,90 @@ import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Optional;
-import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * This filter will wrap the response object in GZipResponseWrapper for future compression. Once the response is
  * retrieved from service, it will be written to the GZipOutputStream. It will also add the Content-Encoding header.
+ * <p>
+ * The content coding is negotiated by the quality values in the Accept-Encoding header, gzip and deflate are
+ * available by default and other codings can be added as {@link ResponseEncoder} beans.
+ * <p>
+ * The compressed response is buffered only up to bufferThreshold and sent with Content-Length. Bigger responses are
+ * streamed with chunked transfer encoding as they are compressed.
+ * <p>
+ * All the responses of the compressed routes get {@code Vary: Accept-Encoding}, whether they are compressed or not.
  */
 @Component
-@RequiredArgsConstructor
-public class PerServiceGZipFilter extends OncePerRequestFilter {
+public class PerServiceGZipFilter extends OncePerRequestFilter implements ServiceCacheEvict {
 
     private final DiscoveryClient discoveryClient;
+    private final Map<String, ResponseEncoder> encoders = new LinkedHashMap<>();
+    private final Map<String, CompressionRoutes> routesByService = new ConcurrentHashMap<>();
+
+    @Value("${apiml.gateway.compression.bufferThreshold:65536}")
+    private int bufferThreshold = 65536;
+
+    @Value("${apiml.gateway.compression.flushThreshold:8192}")
+    private int flushThreshold = 8192;
+
+    public PerServiceGZipFilter(DiscoveryClient discoveryClient) {
+        this(discoveryClient, Collections.emptyList());
+    }
+
+    /**
+     * @param additionalEncoders encoders of other content codings than gzip and deflate, they can also replace the
+     *                           default ones
+     */
+    @Autowired
+    public PerServiceGZipFilter(DiscoveryClient discoveryClient, ObjectProvider<ResponseEncoder> additionalEncoders) {
+        this(discoveryClient, additionalEncoders.orderedStream().collect(Collectors.toList()));
+    }
+
+    PerServiceGZipFilter(DiscoveryClient discoveryClient, List<ResponseEncoder> additionalEncoders) {
+        this.discoveryClient = discoveryClient;
+        Stream.concat(Stream.of(DeflaterResponseEncoder.gzip(), DeflaterResponseEncoder.deflate()), additionalEncoders.stream())
+            .forEach(encoder -> encoders.put(encoder.getName().toLowerCase(Locale.ROOT), encoder));
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
-        if (requiresCompression(request)) {
-            final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
-            final GZIPOutputStream compressedStream = new GZIPOutputStream(compressed);
+        CompressionRoutes routes = getCompressionRoutes(request);
+        if (routes != null) {
+            // the coding depends on Accept-Encoding, the shared caches must not serve the response to other clients
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+
+        ResponseEncoder encoder = selectEncoder(request, routes);
+        if (encoder != null) {
+            final CompressedResponseOutputStream compressed = new CompressedResponseOutputStream(response, bufferThreshold, encoder.getName());
+            final OutputStream encodedStream = encoder.encode(compressed);
+            final EncodingOutputStream compressedStream = new EncodingOutputStream(encodedStream, flushThreshold);
 
             final GZipResponseWrapper gzipWrapper = new GZipResponseWrapper(response, compressedStream);
             gzipWrapper.setDisableFlushBuffer(true);
-            filterChain.doFilter(request, gzipWrapper);
-            gzipWrapper.flush();
-            compressedStream.close();
-            if (response.isCommitted()) {
+            boolean finished = false;
+            try {
+                filterChain.doFilter(request, gzipWrapper);
+                gzipWrapper.flush();
+                compressedStream.close();
+                finished = true;
+            } finally {
+                if (!finished) {
+                    encoder.release(encodedStream);
+                }
+            }
+            if (compressed.isStreaming() || response.isCommitted()) {
                 return;
             }
 
@@ -62,8 +123,7 @@ public class PerServiceGZipFilter extends OncePerRequestFilter {
                     return;
                 default:
             }
-            byte[] compressedBytes = compressed.toByteArray();
-            boolean shouldGzippedBodyBeZero = GZipResponseUtils.shouldGzippedBodyBeZero(compressedBytes);
+            boolean shouldGzippedBodyBeZero = compressedStream.getSize() == 0;
             boolean shouldBodyBeZero = GZipResponseUtils.shouldBodyBeZero(gzipWrapper.getStatus());
             if (shouldGzippedBodyBeZero || shouldBodyBeZero) {
                 // No reason to add GZIP headers or write body if no content was written or status code specifies no
@@ -73,11 +133,11 @@ public class PerServiceGZipFilter extends OncePerRequestFilter {
             }
 
             // Write the zipped body
-            GZipResponseUtils.addGzipHeader(response);
+            GZipResponseUtils.addContentEncodingHeader(response, encoder.getName());
 
-            response.setContentLength(compressedBytes.length);
+            response.setContentLength(compressed.size());
 
-            response.getOutputStream().write(compressedBytes);
+            compressed.writeBufferTo(response.getOutputStream());
 
         } else {
             filterChain.doFilter(request, response);
@@ -93,64 +153,155 @@ public class PerServiceGZipFilter extends OncePerRequestFilter {
      * @param request The request to verify
      */
     boolean requiresCompression(HttpServletRequest request) {
+        return selectEncoder(request) != null;
+    }
+
+    /**
+     * Negotiate the content coding acceptable by the client and configured for the service in the metadata
+     * `apiml.response.compressEncodings` (gzip by default).
+     *
+     * @param request The request to verify
+     * @return the encoder to use or null if the response should not be compressed
+     */
+    ResponseEncoder selectEncoder(HttpServletRequest request) {
+        if (request.getHeader(HttpHeaders.ACCEPT_ENCODING) == null) {
+            return null;
+        }
+        return selectEncoder(request, getCompressionRoutes(request));
+    }
+
+    private ResponseEncoder selectEncoder(HttpServletRequest request, CompressionRoutes routes) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null || routes == null) {
+            return null;
+        }
+
+        String encoding = AcceptEncoding.negotiate(acceptEncoding, routes.encodings, encoders.keySet());
+        return encoding == null ? null : encoders.get(encoding);
+    }
+
+    /**
+     * @return the compression routes of the service if the request URI is one of them, otherwise null
+     */
+    private CompressionRoutes getCompressionRoutes(HttpServletRequest request) {
         String requestUri = request.getRequestURI();
-        boolean acceptsCompression = requestAcceptsCompression(request);
-        Optional<ServiceInstance> validInstance = getInstanceInfoForUri(requestUri);
-        if (!validInstance.isPresent()) {
-            return false;
+        String serviceId = getServiceId(requestUri);
+        if (serviceId == null) {
+            return null;
         }
-        boolean serviceRequestsCompression = serviceOnRouteRequestsCompression(validInstance.get(), requestUri);
 
-        return acceptsCompression && serviceRequestsCompression;
+        CompressionRoutes routes = getCompressionRoutes(serviceId);
+        return routes.matches(requestUri) ? routes : null;
     }
 
-    // Verify non versioned APIs
-    Optional<ServiceInstance> getInstanceInfoForUri(String requestUri) {
-        // Compress only if there is valid instance with relevant metadata.
-        String[] uriParts = requestUri.split("/");
-        List<ServiceInstance> instances;
-        if (uriParts.length < 2) {
-            return Optional.empty();
+    // Verify non versioned APIs, the service is the first part of the URI
+    String getServiceId(String requestUri) {
+        int start = requestUri.indexOf('/') + 1;
+        if (start == 0) {
+            return null;
         }
 
-        instances = discoveryClient.getInstances(uriParts[1]);
+        int end = requestUri.indexOf('/', start);
+        String serviceId = end < 0 ? requestUri.substring(start) : requestUri.substring(start, end);
+        return serviceId.isEmpty() ? null : serviceId;
+    }
+
+    /**
+     * The routes are read from the metadata of the first instance once and kept until the service is changed in the
+     * discovery service. Services without any instance are not cached. The routes are read and cached atomically, the
+     * concurrent requests of the service share a single read.
+     */
+    CompressionRoutes getCompressionRoutes(String serviceId) {
+        CompressionRoutes routes = routesByService.computeIfAbsent(serviceId, this::readCompressionRoutes);
+        return routes != null ? routes : CompressionRoutes.NONE;
+    }
+
+    private CompressionRoutes readCompressionRoutes(String serviceId) {
+        // Compress only if there is valid instance with relevant metadata.
+        List<ServiceInstance> instances = discoveryClient.getInstances(serviceId);
         if (instances == null || instances.isEmpty()) {
-            return Optional.empty();
+            return null;
         }
+        return CompressionRoutes.of(instances.get(0).getMetadata());
+    }
 
-        return Optional.of(instances.get(0));
+    @Override
+    public void evictCacheService(String serviceId) {
+        routesByService.keySet().removeIf(cachedServiceId -> cachedServiceId.equalsIgnoreCase(serviceId));
     }
 
-    boolean requestAcceptsCompression(HttpServletRequest request) {
-        String encodingHeader = request.getHeader("Accept-Encoding");
-        if (encodingHeader == null) {
-            return false;
-        } else return encodingHeader.contains("gzip");
+    @Override
+    public void evictCacheAllService() {
+        routesByService.clear();
     }
 
-    boolean serviceOnRouteRequestsCompression(ServiceInstance instance, String requestUri) {
-        Map<String, String> metadata = instance.getMetadata();
-        boolean allowCompressionForService = "true".equals(metadata.get("apiml.response.compress"));
-        if (!allowCompressionForService) {
-            return false;
+    /**
+     * Routes of the service which should be compressed and the content codings in the order of preference, prepared
+     * from the metadata `apiml.response.compress`, `apiml.response.compressRoutes` and
+     * `apiml.response.compressEncodings`.
+     */
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    static class CompressionRoutes {
+        static final CompressionRoutes NONE = new CompressionRoutes(false, null, Collections.emptyList());
+        private static final List<String> DEFAULT_ENCODINGS = Collections.singletonList(DeflaterResponseEncoder.GZIP);
+
+        private static final AntPathMatcher MATCHER = new AntPathMatcher();
+
+        private final boolean compress;
+        // null means all the routes
+        private final String[] patterns;
+        private final List<String> encodings;
+
+        static CompressionRoutes of(Map<String, String> metadata) {
+            boolean allowCompressionForService = "true".equals(metadata.get("apiml.response.compress"));
+            if (!allowCompressionForService) {
+                return NONE;
+            }
+
+            List<String> encodings = getEncodings(metadata.get("apiml.response.compressEncodings"));
+            String routesToCompress = metadata.get("apiml.response.compressRoutes");
+            if (routesToCompress == null) {
+                return new CompressionRoutes(true, null, encodings);
+            }
+
+            String[] patterns = routesToCompress.split(",");
+            for (int i = 0; i < patterns.length; i++) {
+                if (!patterns[i].startsWith("/")) {
+                    patterns[i] = "/" + patterns[i];
+                }
+            }
+            return new CompressionRoutes(true, patterns, encodings);
         }
 
-        String routesToCompress = metadata.get("apiml.response.compressRoutes");
-        if (routesToCompress == null) {
-            return true;
+        private static List<String> getEncodings(String encodings) {
+            if (encodings == null || encodings.trim().isEmpty()) {
+                return DEFAULT_ENCODINGS;
+            }
+
+            List<String> output = new ArrayList<>();
+            for (String encoding : encodings.split(",")) {
+                if (!encoding.trim().isEmpty()) {
+                    output.add(encoding.trim().toLowerCase(Locale.ROOT));
+                }
+            }
+            return output;
         }
 
-        String[] setOfRoutesToMatch = routesToCompress.split(",");
-        AntPathMatcher matcher = new AntPathMatcher();
-        for (String pattern: setOfRoutesToMatch) {
-            if (!pattern.startsWith("/")) {
-                pattern = "/" + pattern;
+        boolean matches(String requestUri) {
+            if (!compress) {
+                return false;
             }
-            if (matcher.match(pattern, requestUri)) {
+
+            if (patterns == null) {
                 return true;
             }
-        }
 
-        return false;
+            for (String pattern : patterns) {
+                if (MATCHER.match(pattern, requestUri)) {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
 }
@@ -0,0 +1,116 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.filters.pre;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Deflate stream using the deflater from the {@link DeflaterPool}. The data are written either in the gzip format
+ * (RFC 1952) or in the zlib format (RFC 1950) used by the HTTP content coding deflate. The deflater is returned to
+ * the pool once the stream is closed or released.
+ */
+class PooledDeflaterOutputStream extends DeflaterOutputStream {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    private final DeflaterPool pool;
+    // checksum of the gzip trailer, null for the zlib format which contains its own checksum
+    private final CRC32 crc;
+    private long size;
+    private boolean finished;
+    private boolean released;
+
+    private PooledDeflaterOutputStream(OutputStream out, DeflaterPool pool, boolean gzip) throws IOException {
+        super(out, pool.acquire(), BUFFER_SIZE, true);
+        this.pool = pool;
+        this.crc = gzip ? new CRC32() : null;
+        if (gzip) {
+            out.write(GZIP_HEADER);
+        }
+    }
+
+    /**
+     * @param pool pool of the deflaters without the zlib wrapping
+     */
+    static PooledDeflaterOutputStream gzip(OutputStream out, DeflaterPool pool) throws IOException {
+        return new PooledDeflaterOutputStream(out, pool, true);
+    }
+
+    /**
+     * @param pool pool of the deflaters with the zlib wrapping
+     */
+    static PooledDeflaterOutputStream deflate(OutputStream out, DeflaterPool pool) throws IOException {
+        return new PooledDeflaterOutputStream(out, pool, false);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (released) {
+            throw new IOException("The stream was already released");
+        }
+
+        super.write(b, off, len);
+        if (crc != null) {
+            crc.update(b, off, len);
+        }
+        size += len;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+
+        super.finish();
+        if (crc != null) {
+            writeInt((int) crc.getValue());
+            writeInt((int) size);
+        }
+        finished = true;
+    }
+
+    private void writeInt(int value) throws IOException {
+        out.write(value & 0xff);
+        out.write((value >> 8) & 0xff);
+        out.write((value >> 16) & 0xff);
+        out.write((value >> 24) & 0xff);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (released) {
+            return;
+        }
+
+        try {
+            finish();
+            out.close();
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Return the deflater to the pool without finishing the stream, i.e. when the request failed.
+     */
+    void release() {
+        if (!released) {
+            released = true;
+            pool.release(def);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.filters.pre;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Content coding of the responses compressed by {@link PerServiceGZipFilter}. The gzip and deflate codings are always
+ * available, other codings (i.e. br or zstd) can be added as beans implementing this interface.
+ */
+public interface ResponseEncoder {
+
+    /**
+     * @return the content coding as used in the headers Accept-Encoding and Content-Encoding, in lower case
+     */
+    String getName();
+
+    /**
+     * Create the stream encoding the data into the target. Closing of the stream finishes the encoding.
+     *
+     * @param target stream for the encoded data
+     * @return stream for the data to encode
+     */
+    OutputStream encode(OutputStream target) throws IOException;
+
+    /**
+     * Free the resources of the stream which was not closed, i.e. when the request failed. The encoded data must not
+     * be finished.
+     *
+     * @param encoded stream created by this encoder
+     */
+    default void release(OutputStream encoded) {
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Meters of one proxied connection, see {@link ConnectionMetrics}. The counters are registered once per connection,
+ * so recording of a message does not look up the meters.
+ */
+public class ConnectionMeter {
+
+    private final ConnectionMetrics metrics;
+    private final Tags tags;
+    private final AtomicInteger active;
+    private final long openedAt = System.nanoTime();
+
+    private final Counter messagesToService;
+    private final Counter bytesToService;
+    private final Counter messagesToClient;
+    private final Counter bytesToClient;
+
+    private final AtomicBoolean handshakeRecorded = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    ConnectionMeter(ConnectionMetrics metrics, Tags tags, AtomicInteger active) {
+        this.metrics = metrics;
+        this.tags = tags;
+        this.active = active;
+        this.messagesToService = metrics.counter(ConnectionMetrics.MESSAGES, tags, ConnectionMetrics.TO_SERVICE);
+        this.bytesToService = metrics.counter(ConnectionMetrics.BYTES, tags, ConnectionMetrics.TO_SERVICE);
+        this.messagesToClient = metrics.counter(ConnectionMetrics.MESSAGES, tags, ConnectionMetrics.TO_CLIENT);
+        this.bytesToClient = metrics.counter(ConnectionMetrics.BYTES, tags, ConnectionMetrics.TO_CLIENT);
+    }
+
+    /**
+     * Record the time since the connection was opened as the handshake with the service. Only the first call counts.
+     */
+    public void handshakeFinished(boolean success) {
+        if (!handshakeRecorded.get() && handshakeRecorded.compareAndSet(false, true)) {
+            metrics.recordHandshake(tags, System.nanoTime() - openedAt, success);
+        }
+    }
+
+    public void messageToService(long bytes) {
+        messagesToService.increment();
+        bytesToService.increment(bytes);
+    }
+
+    public void messageToClient(long bytes) {
+        messagesToClient.increment();
+        bytesToClient.increment(bytes);
+    }
+
+    /**
+     * Record closing of the connection. Only the first call counts, so the connection could be closed from more places.
+     */
+    public void closed(String reason) {
+        if (closed.compareAndSet(false, true)) {
+            active.decrementAndGet();
+            metrics.recordClose(tags, reason);
+        }
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer instrumentation of the long-lived proxied connections (WebSocket and Server-Sent Events). The meters
+ * are tagged by the protocol and the service:
+ * <ul>
+ *     <li>{@value #ACTIVE} - number of the open connections</li>
+ *     <li>{@value #HANDSHAKE} - time to open the connection to the service, tagged by the outcome</li>
+ *     <li>{@value #MESSAGES} and {@value #BYTES} - transferred data, tagged by the direction</li>
+ *     <li>{@value #CLOSED} - closed connections, tagged by the reason</li>
+ * </ul>
+ */
+@Component
+public class ConnectionMetrics {
+
+    public static final String WEBSOCKET = "websocket";
+    public static final String SSE = "sse";
+
+    static final String ACTIVE = "apiml.gateway.connections.active";
+    static final String HANDSHAKE = "apiml.gateway.connections.handshake";
+    static final String MESSAGES = "apiml.gateway.connections.messages";
+    static final String BYTES = "apiml.gateway.connections.bytes";
+    static final String CLOSED = "apiml.gateway.connections.closed";
+
+    static final String TO_SERVICE = "toService";
+    static final String TO_CLIENT = "toClient";
+
+    /**
+     * Metrics which are not recorded anywhere, for the components created without the instrumentation.
+     */
+    public static final ConnectionMetrics NONE = new ConnectionMetrics(new CompositeMeterRegistry());
+
+    private final MeterRegistry registry;
+    private final Map<Tags, AtomicInteger> activeConnections = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ConnectionMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Register a new connection. The returned meter has to be closed once the connection is closed.
+     *
+     * @param protocol  {@link #WEBSOCKET} or {@link #SSE}
+     * @param serviceId service the connection is routed to
+     */
+    public ConnectionMeter open(String protocol, String serviceId) {
+        Tags tags = Tags.of("protocol", protocol, "service", String.valueOf(serviceId).toLowerCase(Locale.ROOT));
+        AtomicInteger active = activeConnections.computeIfAbsent(tags, key -> registry.gauge(ACTIVE, key, new AtomicInteger()));
+        active.incrementAndGet();
+        return new ConnectionMeter(this, tags, active);
+    }
+
+    Counter counter(String name, Tags tags, String direction) {
+        return Counter.builder(name)
+            .tags(tags.and("direction", direction))
+            .register(registry);
+    }
+
+    void recordHandshake(Tags tags, long nanos, boolean success) {
+        Timer.builder(HANDSHAKE)
+            .tags(tags.and("outcome", success ? "success" : "failure"))
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordClose(Tags tags, String reason) {
+        registry.counter(CLOSED, tags.and("reason", reason)).increment();
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.zowe.apiml.security.common.auth.saf.SafResourceAccessCaching;
+import org.zowe.apiml.security.common.auth.saf.SafResourceAccessVerifying;
+
+/**
+ * Publishes the statistics of the cache of SAF resource decisions with the same names as the other caches use. It is
+ * used only if the cache is enabled (see {@code apiml.security.authorization.cache.enabled}).
+ */
+@Component
+@RequiredArgsConstructor
+public class SafResourceAccessMetrics implements MeterBinder {
+
+    static final String CACHE_NAME = "safResourceAccess";
+
+    private final ObjectProvider<SafResourceAccessVerifying> safResourceAccessVerifying;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        SafResourceAccessVerifying verifying = safResourceAccessVerifying.getIfAvailable();
+        if (!(verifying instanceof SafResourceAccessCaching)) {
+            return;
+        }
+
+        SafResourceAccessCaching caching = (SafResourceAccessCaching) verifying;
+        Tags tags = Tags.of("cache", CACHE_NAME);
+        FunctionCounter.builder("cache.gets", caching, SafResourceAccessCaching::getHitCount)
+            .tags(tags.and("result", "hit"))
+            .description("The number of times cache lookup methods have returned a cached value.")
+            .register(registry);
+        FunctionCounter.builder("cache.gets", caching, SafResourceAccessCaching::getMissCount)
+            .tags(tags.and("result", "miss"))
+            .description("The number of times cache lookup methods have returned an uncached value.")
+            .register(registry);
+        FunctionCounter.builder("cache.evictions", caching, SafResourceAccessCaching::getEvictionCount)
+            .tags(tags)
+            .description("The number of times the cache was evicted.")
+            .register(registry);
+        Gauge.builder("cache.size", caching, SafResourceAccessCaching::getSize)
+            .tags(tags)
+            .description("The approximate number of entries in this cache.")
+            .register(registry);
+    }
+
+}
@@ -19,9 +19,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.zowe.apiml.gateway.context.ConfigurableNamedContextFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 import static java.util.Comparator.comparing;
 
@@ -36,6 +40,9 @@ public class LoadBalancerRuleAdapter extends ClientConfigEnabledRoundRobinRule {
     private InstanceInfo instanceInfo;
     private ConfigurableNamedContextFactory<?> configurableNamedContextFactory;
     private Map<String, RequestAwarePredicate> predicateMap;
+    private RequestAwarePredicate[] predicates = new RequestAwarePredicate[0];
+    private ServerSelector selector;
+    private volatile ServerSnapshot snapshot;
 
     // used zuul's implementation of round-robin server selection
     private AvailabilityPredicate availabilityPredicate;
@@ -50,6 +57,8 @@ public class LoadBalancerRuleAdapter extends ClientConfigEnabledRoundRobinRule {
 
     public LoadBalancerRuleAdapter(InstanceInfo instanceInfo, ConfigurableNamedContextFactory<?> configurableNamedContextFactory, IClientConfig config) {
         this.predicateMap = configurableNamedContextFactory.getInstances(instanceInfo.getAppName(), RequestAwarePredicate.class);
+        this.predicates = predicateMap.values().toArray(new RequestAwarePredicate[0]);
+        this.selector = configurableNamedContextFactory.getInstance(instanceInfo.getAppName(), ServerSelector.class);
 
         this.instanceInfo = instanceInfo;
         this.configurableNamedContextFactory = configurableNamedContextFactory;
@@ -66,25 +75,13 @@ public class LoadBalancerRuleAdapter extends ClientConfigEnabledRoundRobinRule {
         log.debug("Choosing server: {}", key);
         ILoadBalancer lb = getLoadBalancer();
         LoadBalancingContext ctx = new LoadBalancingContext(instanceInfo.getAppName(), instanceInfo);
-        List<Server> allServers = new ArrayList<>(lb.getAllServers());
-        allServers.sort(comparing(Server::isReadyToServe).reversed().thenComparing(Server::getId)); // the original list is in the random order
-        log.debug("Path: {}, List of servers from LoadBalancer: {}", ctx.getPath() ,allServers);
-        for (RequestAwarePredicate predicate : predicateMap.values()) {
-            log.debug("Running predicate: {}, list of servers: {}", allServers, predicate);
-            allServers = allServers.stream()
-                .map(server -> {
-                    if (server instanceof DiscoveryEnabledServer) {
-                        return (DiscoveryEnabledServer) server;
-                    } else {
-                        throw new IllegalStateException("Supplied Server is not instance of DiscoveryEnabledServer class");
-                    }
-                })
-                .filter(server -> predicate.apply(ctx, server))
-                .collect(Collectors.toList());
-            log.debug("List of servers after predicate: {}", allServers);
+        ServerSnapshot snapshot = getSnapshot(lb.getAllServers());
+        if (log.isDebugEnabled()) {
+            log.debug("Path: {}, List of servers from LoadBalancer: {}", ctx.getPath(), snapshot.sorted);
         }
-        log.debug("Running Zuul predicates");
-        Optional<Server> server = zuulPredicate.chooseRoundRobinAfterFiltering(allServers, key); //NOSONAR following zuul's api
+        List<Server> eligibleServers = filter(ctx, snapshot);
+        log.debug("Running Zuul predicates on servers: {}", eligibleServers);
+        Optional<Server> server = select(ctx, eligibleServers, key);
         if (server.isPresent()) {
             log.debug("Selected server: {}", server.get());
             return server.get();
@@ -94,12 +91,136 @@ public class LoadBalancerRuleAdapter extends ClientConfigEnabledRoundRobinRule {
         }
     }
 
+    /**
+     * Without a selector the server is chosen by zuul's round-robin. Otherwise the selector chooses from the servers
+     * considered available by zuul.
+     */
+    private Optional<Server> select(LoadBalancingContext ctx, List<Server> eligibleServers, Object key) { //NOSONAR following zuul's api
+        if (selector == null) {
+            return zuulPredicate.chooseRoundRobinAfterFiltering(eligibleServers, key);
+        }
+
+        List<Server> availableServers = zuulPredicate.getEligibleServers(eligibleServers, key);
+        if (availableServers.isEmpty()) {
+            return Optional.absent();
+        }
+        log.debug("Running selector: {}", selector);
+        return Optional.fromNullable(selector.choose(ctx, availableServers));
+    }
+
+    /**
+     * Apply all the predicates to each server in a single pass. The sorted snapshot is returned as it is when no server
+     * is filtered out, otherwise only one list of the remaining servers is created.
+     */
+    private List<Server> filter(LoadBalancingContext ctx, ServerSnapshot snapshot) {
+        if (predicates.length == 0) {
+            return snapshot.sorted;
+        }
+
+        List<Server> servers = snapshot.sorted;
+        List<Server> eligibleServers = null;
+        for (int i = 0; i < servers.size(); i++) {
+            boolean eligible = isEligible(ctx, servers.get(i));
+            if (eligible && eligibleServers != null) {
+                eligibleServers.add(servers.get(i));
+            } else if (!eligible && eligibleServers == null) {
+                eligibleServers = new ArrayList<>(servers.subList(0, i));
+            }
+        }
+        return eligibleServers == null ? servers : eligibleServers;
+    }
+
+    private boolean isEligible(LoadBalancingContext ctx, Server server) {
+        if (!(server instanceof DiscoveryEnabledServer)) {
+            throw new IllegalStateException("Supplied Server is not instance of DiscoveryEnabledServer class");
+        }
+
+        for (RequestAwarePredicate predicate : predicates) {
+            if (!predicate.apply(ctx, (DiscoveryEnabledServer) server)) {
+                log.debug("Server {} was filtered out by predicate: {}", server, predicate);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The servers are sorted only when the list from the load balancer or the state of its servers changed since the
+     * last call. The selector is notified about the servers which left the load balancer then.
+     */
+    private ServerSnapshot getSnapshot(List<Server> servers) {
+        ServerSnapshot previous = snapshot;
+        if (previous != null && previous.matches(servers)) {
+            return previous;
+        }
+
+        ServerSnapshot current = new ServerSnapshot(servers);
+        snapshot = current;
+        if (previous != null && selector != null) {
+            Set<String> removed = previous.removedIn(current);
+            if (!removed.isEmpty()) {
+                log.debug("Servers removed from the load balancer: {}", removed);
+                selector.serversRemoved(removed);
+            }
+        }
+        return current;
+    }
+
     @Override
     public String toString() {
         return "LoadBalancerRuleAdapter{" +
             "info=" + instanceInfo +
             ", predicateFactory=" + configurableNamedContextFactory +
             ", predicates=" + predicateMap +
+            ", selector=" + selector +
             '}';
     }
+
+    /**
+     * Servers from the load balancer sorted by their readiness and id. The original list is in the random order.
+     */
+    private static final class ServerSnapshot {
+        private static final Comparator<Server> ORDER = comparing(Server::isReadyToServe).reversed().thenComparing(Server::getId);
+
+        private final Server[] servers;
+        private final boolean[] readyToServe;
+        private final List<Server> sorted;
+
+        ServerSnapshot(List<Server> servers) {
+            this.servers = servers.toArray(new Server[0]);
+            this.readyToServe = new boolean[this.servers.length];
+            for (int i = 0; i < this.servers.length; i++) {
+                readyToServe[i] = this.servers[i].isReadyToServe();
+            }
+
+            Server[] copy = this.servers.clone();
+            Arrays.sort(copy, ORDER);
+            this.sorted = Collections.unmodifiableList(Arrays.asList(copy));
+        }
+
+        Set<String> removedIn(ServerSnapshot current) {
+            Set<String> removed = new HashSet<>();
+            for (Server server : servers) {
+                removed.add(server.getId());
+            }
+            for (Server server : current.servers) {
+                removed.remove(server.getId());
+            }
+            return removed;
+        }
+
+        boolean matches(List<Server> current) {
+            if (current.size() != servers.length) {
+                return false;
+            }
+
+            for (int i = 0; i < servers.length; i++) {
+                Server server = current.get(i);
+                if (server != servers[i] || server.isReadyToServe() != readyToServe[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 }
@@ -17,6 +17,9 @@ import org.springframework.context.annotation.Configuration;
 import org.zowe.apiml.gateway.cache.LoadBalancerCache;
 import org.zowe.apiml.gateway.ribbon.loadbalancer.predicate.AuthenticationBasedPredicate;
 import org.zowe.apiml.gateway.ribbon.loadbalancer.predicate.RequestHeaderPredicate;
+import org.zowe.apiml.gateway.ribbon.loadbalancer.selector.LeastOutstandingRequestsSelector;
+import org.zowe.apiml.gateway.ribbon.loadbalancer.selector.PeakEwmaSelector;
+import org.zowe.apiml.gateway.ribbon.loadbalancer.selector.WeightedRoundRobinSelector;
 import org.zowe.apiml.gateway.security.service.AuthenticationService;
 import org.zowe.apiml.gateway.security.service.RequestAuthenticationService;
 
@@ -24,6 +27,9 @@ import org.zowe.apiml.gateway.security.service.RequestAuthenticationService;
  * This class configures the load balancer's composition in terms of what predicates will be
  * active and when.
  *
+ * The predicates are selected by the metadata `apiml.lb.type`. The instance is chosen from the remaining ones by
+ * round-robin, or by the {@link ServerSelector} selected by the metadata `apiml.lb.strategy`.
+ *
  * The predicates are constructed in per-serviceId Named Context where the service's metadata are
  * available in the environment, all metadata keys are prefixed with `instance.metadata.`.
  *
@@ -50,4 +56,22 @@ public class LoadBalancingPredicatesRibbonConfig {
             expirationTime
         );
     }
+
+    @Bean
+    @ConditionalOnProperty(name = "instance.metadata.apiml.lb.strategy", havingValue = "weightedRoundRobin")
+    public ServerSelector weightedRoundRobinSelector() {
+        return new WeightedRoundRobinSelector();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "instance.metadata.apiml.lb.strategy", havingValue = "leastOutstandingRequests")
+    public ServerSelector leastOutstandingRequestsSelector(ServerLoadTracker tracker) {
+        return new LeastOutstandingRequestsSelector(tracker);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "instance.metadata.apiml.lb.strategy", havingValue = "peakEwma")
+    public ServerSelector peakEwmaSelector(ServerLoadTracker tracker) {
+        return new PeakEwmaSelector(tracker);
+    }
 }
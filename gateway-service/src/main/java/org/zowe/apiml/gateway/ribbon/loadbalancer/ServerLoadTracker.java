@@ -0,0 +1,154 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.ribbon.loadbalancer;
+
+import com.netflix.loadbalancer.Server;
+import com.netflix.zuul.context.RequestContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.netflix.zuul.filters.support.FilterConstants;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps the number of outstanding requests and the peak-EWMA of the latency of each server. The tracking of a request
+ * starts when a load balancing strategy routes it to a server and finishes in the post filter, or when the request is
+ * retried on another server.
+ * <p>
+ * Only the requests routed by Zuul are tracked. The other users of the load balancer, such as the WebSocket and SSE
+ * proxies, do not run the post filters, so their requests would stay outstanding forever.
+ */
+@Component
+public class ServerLoadTracker {
+    static final String TRACKED_REQUEST_KEY = "apimlLoadBalancerTrackedRequest";
+
+    // cost of a server which has requests in progress but its latency is not known yet
+    private static final double PENALTY = (double) (Long.MAX_VALUE >> 16);
+
+    private final Map<String, ServerLoad> loads = new ConcurrentHashMap<>();
+    private final long decayNanos;
+    private final LongSupplier nanoClock;
+
+    @Autowired
+    public ServerLoadTracker(@Value("${apiml.loadBalancer.ewmaDecayMillis:10000}") long decayMillis) {
+        this(decayMillis, System::nanoTime);
+    }
+
+    public ServerLoadTracker(long decayMillis, LongSupplier nanoClock) {
+        this.decayNanos = TimeUnit.MILLISECONDS.toNanos(decayMillis);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Start tracking of the request routed to the server. The previous attempt of the same request is finished.
+     * Nothing happens if the request is not routed by Zuul.
+     */
+    public void start(RequestContext requestContext, Server server) {
+        finish(requestContext);
+        if (!isZuulRequest(requestContext)) {
+            return;
+        }
+
+        ServerLoad load = loads.computeIfAbsent(server.getId(), id -> new ServerLoad(nanoClock.getAsLong()));
+        load.outstanding.incrementAndGet();
+        requestContext.put(TRACKED_REQUEST_KEY, new TrackedRequest(load, nanoClock.getAsLong()));
+    }
+
+    private boolean isZuulRequest(RequestContext requestContext) {
+        return requestContext.getZuulEngineRan() && requestContext.get(FilterConstants.SERVICE_ID_KEY) != null;
+    }
+
+    public boolean isTracked(RequestContext requestContext) {
+        return requestContext.get(TRACKED_REQUEST_KEY) instanceof TrackedRequest;
+    }
+
+    /**
+     * Finish tracking of the request and record its latency. Nothing happens if the request is not tracked.
+     */
+    public void finish(RequestContext requestContext) {
+        Object tracked = requestContext.remove(TRACKED_REQUEST_KEY);
+        if (tracked instanceof TrackedRequest) {
+            TrackedRequest request = (TrackedRequest) tracked;
+            long now = nanoClock.getAsLong();
+            request.load.outstanding.decrementAndGet();
+            request.load.observe(now - request.startNanos, now, decayNanos);
+        }
+    }
+
+    /**
+     * Forget the servers which left the load balancer. The requests in progress on them are finished as usual.
+     */
+    public void remove(Collection<String> serverIds) {
+        loads.keySet().removeAll(serverIds);
+    }
+
+    public int getOutstandingRequests(Server server) {
+        ServerLoad load = loads.get(server.getId());
+        return load == null ? 0 : load.outstanding.get();
+    }
+
+    /**
+     * The cost is the decayed peak-EWMA of the latency multiplied by the number of outstanding requests plus one. The
+     * latency of an idle server decays towards zero, so slow servers are probed again after some time.
+     */
+    public double getCost(Server server) {
+        ServerLoad load = loads.get(server.getId());
+        if (load == null) {
+            return 0;
+        }
+
+        int outstanding = load.outstanding.get();
+        double latency = load.observe(0, nanoClock.getAsLong(), decayNanos);
+        if (latency == 0 && outstanding > 0) {
+            return PENALTY + outstanding;
+        }
+        return latency * (outstanding + 1);
+    }
+
+    @RequiredArgsConstructor
+    private static class TrackedRequest {
+        private final ServerLoad load;
+        private final long startNanos;
+    }
+
+    private static class ServerLoad {
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private double ewma;
+        private long stamp;
+
+        ServerLoad(long stamp) {
+            this.stamp = stamp;
+        }
+
+        /**
+         * Peak sensitive EWMA, the higher latency is taken immediately and the lower one is averaged with the decay
+         * depending on the time since the last observation.
+         */
+        synchronized double observe(long latency, long now, long decayNanos) {
+            long elapsed = Math.max(0, now - stamp);
+            stamp = Math.max(stamp, now);
+            if (latency > ewma) {
+                ewma = latency;
+            } else {
+                double weight = decayNanos <= 0 ? 0 : Math.exp(-(double) elapsed / decayNanos);
+                ewma = ewma * weight + latency * (1 - weight);
+            }
+            return ewma;
+        }
+    }
+}
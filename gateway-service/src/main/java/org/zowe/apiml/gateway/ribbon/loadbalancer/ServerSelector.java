@@ -0,0 +1,41 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.ribbon.loadbalancer;
+
+import com.netflix.loadbalancer.Server;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Strategy choosing one server from the servers which passed all {@link RequestAwarePredicate}s. See
+ * {@link LoadBalancerRuleAdapter} how the selector is used. If no selector is defined for the service, the servers are
+ * chosen by round-robin.
+ */
+public interface ServerSelector {
+
+    /**
+     * @param context context of the request being load balanced
+     * @param servers available servers, never empty
+     * @return the chosen server
+     */
+    Server choose(LoadBalancingContext context, List<Server> servers);
+
+    /**
+     * Called when some servers left the load balancer, the selector can drop their state.
+     *
+     * @param serverIds ids of the servers which are not in the load balancer anymore, never empty
+     */
+    default void serversRemoved(Set<String> serverIds) {
+        // no state by default
+    }
+
+}
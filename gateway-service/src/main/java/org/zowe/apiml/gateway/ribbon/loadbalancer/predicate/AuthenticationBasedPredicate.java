@@ -13,6 +13,7 @@ package org.zowe.apiml.gateway.ribbon.loadbalancer.predicate;
 import com.netflix.niws.loadbalancer.DiscoveryEnabledServer;
 import com.netflix.zuul.context.RequestContext;
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.zowe.apiml.gateway.cache.LoadBalancerCache;
 import org.zowe.apiml.gateway.ribbon.loadbalancer.LoadBalancingContext;
@@ -30,7 +31,7 @@ import static org.springframework.cloud.netflix.zuul.filters.support.FilterConst
  * Based on the authentication information decide which instance should be used.
  * If the user is authenticated and already has routing information stored in cache, use the information.
  * <p>
- * There is also terrible overhead as this happens for all instance ids.
+ * The preference is resolved once per request and shared by the evaluation of all the instances.
  */
 @RequiredArgsConstructor
 @Slf4j
@@ -39,6 +40,8 @@ public class AuthenticationBasedPredicate extends RequestAwarePredicate {
     private final LoadBalancerCache cache;
     private final int expirationTime;
 
+    static final String PREFERENCE_KEY_PREFIX = "apimlLoadBalancerPreference.";
+
     @Override
     public boolean apply(LoadBalancingContext context, DiscoveryEnabledServer server) {
         RequestContext requestContext = context.getRequestContext();
@@ -49,27 +52,52 @@ public class AuthenticationBasedPredicate extends RequestAwarePredicate {
             return true;
         }
 
+        Preference preference = getPreference(requestContext, serviceId);
+        if (preference.getInstanceId() == null) {
+            log.debug("No preference exists, not filtering instance: {}", instanceId);
+            return true;
+        }
+
+        return server.getInstanceInfo().getInstanceId().equalsIgnoreCase(preference.getInstanceId());
+    }
+
+    /**
+     * The predicate is evaluated for each instance of the service, but the preference is the same for all of them.
+     * The preference is resolved once and remembered in the request context for the rest of the request.
+     */
+    private Preference getPreference(RequestContext requestContext, String serviceId) {
+        String key = PREFERENCE_KEY_PREFIX + serviceId;
+        Object preference = requestContext.get(key);
+        if (preference instanceof Preference) {
+            return (Preference) preference;
+        }
+
+        Preference resolved = resolvePreference(requestContext, serviceId);
+        requestContext.put(key, resolved);
+        return resolved;
+    }
+
+    private Preference resolvePreference(RequestContext requestContext, String serviceId) {
         Optional<String> authenticatedUser = authenticationService.getPrincipalFromRequest(requestContext.getRequest());
 
         if (!authenticatedUser.isPresent()) {
-            log.debug("No authentication present on request, not filtering instance: {}", instanceId);
-            return true;
+            log.debug("No authentication present on request, not filtering instances of service: {}", serviceId);
+            return Preference.NONE;
         }
 
         String username = authenticatedUser.get();
         LoadBalancerCacheRecord loadBalancerCacheRecord = cache.retrieve(username, serviceId);
         if (loadBalancerCacheRecord == null || loadBalancerCacheRecord.getInstanceId() == null) {
-            log.debug("No preference exists, not filtering instance: {}", instanceId);
-            return true;
+            return Preference.NONE;
         }
 
         if (isTooOld(loadBalancerCacheRecord.getCreationTime())) {
             cache.delete(username, serviceId);
-            log.debug("Expired preference exists and was deleted. not filtering instance: {}", instanceId);
-            return true;
+            log.debug("Expired preference exists and was deleted, not filtering instances of service: {}", serviceId);
+            return Preference.NONE;
         }
 
-        return server.getInstanceInfo().getInstanceId().equalsIgnoreCase(loadBalancerCacheRecord.getInstanceId());
+        return new Preference(loadBalancerCacheRecord.getInstanceId());
     }
 
     @Override
@@ -81,4 +109,14 @@ public class AuthenticationBasedPredicate extends RequestAwarePredicate {
         LocalDateTime now = LocalDateTime.now().minus(expirationTime, ChronoUnit.HOURS);
         return now.isAfter(cachedDate);
     }
+
+    /**
+     * Resolved preference of the instance, the request context does not allow to store null values.
+     */
+    @Value
+    static class Preference {
+        static final Preference NONE = new Preference(null);
+
+        String instanceId;
+    }
 }
@@ -0,0 +1,62 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.ribbon.loadbalancer.selector;
+
+import com.netflix.loadbalancer.Server;
+import lombok.RequiredArgsConstructor;
+import org.zowe.apiml.gateway.ribbon.loadbalancer.LoadBalancingContext;
+import org.zowe.apiml.gateway.ribbon.loadbalancer.ServerLoadTracker;
+import org.zowe.apiml.gateway.ribbon.loadbalancer.ServerSelector;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Choose the instance with the lowest number of requests in progress. The search starts each time on another instance,
+ * so the instances with the same load are used in round-robin.
+ */
+@RequiredArgsConstructor
+public class LeastOutstandingRequestsSelector implements ServerSelector {
+
+    private final ServerLoadTracker tracker;
+    private final AtomicInteger offset = new AtomicInteger();
+
+    @Override
+    public Server choose(LoadBalancingContext context, List<Server> servers) {
+        int size = servers.size();
+        int start = Math.floorMod(offset.getAndIncrement(), size);
+
+        Server selected = null;
+        int selectedLoad = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            Server server = servers.get((start + i) % size);
+            int load = tracker.getOutstandingRequests(server);
+            if (load < selectedLoad) {
+                selected = server;
+                selectedLoad = load;
+            }
+        }
+
+        tracker.start(context.getRequestContext(), selected);
+        return selected;
+    }
+
+    @Override
+    public void serversRemoved(Set<String> serverIds) {
+        tracker.remove(serverIds);
+    }
+
+    @Override
+    public String toString() {
+        return "LeastOutstandingRequestsSelector";
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.ribbon.loadbalancer.selector;
+
+import com.netflix.loadbalancer.Server;
+import lombok.RequiredArgsConstructor;
+import org.zowe.apiml.gateway.ribbon.loadbalancer.LoadBalancingContext;
+import org.zowe.apiml.gateway.ribbon.loadbalancer.ServerLoadTracker;
+import org.zowe.apiml.gateway.ribbon.loadbalancer.ServerSelector;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Choose the instance with the lowest cost, the peak-EWMA of its latency multiplied by the requests in progress. See
+ * {@link ServerLoadTracker#getCost(Server)}. The search starts each time on another instance, so the instances with
+ * the same cost are used in round-robin.
+ */
+@RequiredArgsConstructor
+public class PeakEwmaSelector implements ServerSelector {
+
+    private final ServerLoadTracker tracker;
+    private final AtomicInteger offset = new AtomicInteger();
+
+    @Override
+    public Server choose(LoadBalancingContext context, List<Server> servers) {
+        int size = servers.size();
+        int start = Math.floorMod(offset.getAndIncrement(), size);
+
+        Server selected = null;
+        double selectedCost = Double.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            Server server = servers.get((start + i) % size);
+            double cost = tracker.getCost(server);
+            if (cost < selectedCost) {
+                selected = server;
+                selectedCost = cost;
+            }
+        }
+
+        tracker.start(context.getRequestContext(), selected);
+        return selected;
+    }
+
+    @Override
+    public void serversRemoved(Set<String> serverIds) {
+        tracker.remove(serverIds);
+    }
+
+    @Override
+    public String toString() {
+        return "PeakEwmaSelector";
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.ribbon.loadbalancer.selector;
+
+import com.netflix.loadbalancer.Server;
+import com.netflix.niws.loadbalancer.DiscoveryEnabledServer;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.zowe.apiml.gateway.ribbon.loadbalancer.LoadBalancingContext;
+import org.zowe.apiml.gateway.ribbon.loadbalancer.ServerSelector;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Smooth weighted round-robin. Each instance gets the share of the requests given by its weight in the metadata
+ * {@code apiml.lb.weight}, instances without valid weight have the weight 1. The requests are interleaved, an instance
+ * with the weight 3 does not get three requests in a row if there are other instances.
+ * <p>
+ * The state of an instance is kept while the instance is filtered out by the predicates, it is dropped once the
+ * instance leaves the load balancer.
+ */
+public class WeightedRoundRobinSelector implements ServerSelector {
+
+    public static final String WEIGHT_KEY = "apiml.lb.weight";
+    private static final int DEFAULT_WEIGHT = 1;
+
+    private final Map<String, Long> currentWeights = new HashMap<>();
+
+    @Override
+    public synchronized Server choose(LoadBalancingContext context, List<Server> servers) {
+        long total = 0;
+        Server selected = null;
+        long selectedWeight = Long.MIN_VALUE;
+        for (Server server : servers) {
+            int weight = getWeight(server);
+            long currentWeight = currentWeights.getOrDefault(server.getId(), 0L) + weight;
+            currentWeights.put(server.getId(), currentWeight);
+            total += weight;
+            if (currentWeight > selectedWeight) {
+                selected = server;
+                selectedWeight = currentWeight;
+            }
+        }
+
+        if (selected != null) {
+            currentWeights.put(selected.getId(), selectedWeight - total);
+        }
+        return selected;
+    }
+
+    @Override
+    public synchronized void serversRemoved(Set<String> serverIds) {
+        currentWeights.keySet().removeAll(serverIds);
+    }
+
+    static int getWeight(Server server) {
+        if (!(server instanceof DiscoveryEnabledServer)) {
+            return DEFAULT_WEIGHT;
+        }
+
+        Map<String, String> metadata = ((DiscoveryEnabledServer) server).getInstanceInfo().getMetadata();
+        int weight = metadata == null ? DEFAULT_WEIGHT : NumberUtils.toInt(metadata.get(WEIGHT_KEY), DEFAULT_WEIGHT);
+        return weight > 0 ? weight : DEFAULT_WEIGHT;
+    }
+
+    @Override
+    public String toString() {
+        return "WeightedRoundRobinSelector (" + WEIGHT_KEY + ")";
+    }
+}
@@ -18,6 +18,7 @@ import org.springframework.context.annotation.Configuration;
 import org.zowe.apiml.gateway.cache.LoadBalancerCache;
 import org.zowe.apiml.gateway.filters.post.*;
 import org.zowe.apiml.gateway.filters.pre.*;
+import org.zowe.apiml.gateway.ribbon.loadbalancer.ServerLoadTracker;
 import org.zowe.apiml.gateway.security.service.AuthenticationService;
 import org.zowe.apiml.gateway.security.service.RequestAuthenticationService;
 import org.zowe.apiml.message.core.MessageService;
@@ -75,4 +76,9 @@ public class FilterConfig {
                                                                              LoadBalancerCache cache) {
         return new PostStoreLoadBalancerCacheFilter(new RequestAuthenticationService(authenticationService), cache);
     }
+
+    @Bean
+    public ServerLoadTrackingFilter serverLoadTrackingFilter(ServerLoadTracker tracker) {
+        return new ServerLoadTrackingFilter(tracker);
+    }
 }
@@ -12,6 +12,7 @@ package org.zowe.apiml.gateway.security.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -55,6 +56,8 @@ import org.zowe.apiml.gateway.security.service.schema.source.AuthSourceService;
 import org.zowe.apiml.gateway.security.ticket.SuccessfulTicketHandler;
 import org.zowe.apiml.gateway.services.ServicesInfoController;
 import org.zowe.apiml.gateway.zaas.ZaasAuthenticationFilter;
+import org.zowe.apiml.security.common.auth.saf.SafResourceAccessCaching;
+import org.zowe.apiml.security.common.auth.saf.SafResourceAccessVerifying;
 import org.zowe.apiml.security.common.config.AuthConfigurationProperties;
 import org.zowe.apiml.security.common.config.CertificateAuthenticationProvider;
 import org.zowe.apiml.security.common.config.HandlerInitializer;
@@ -108,6 +111,7 @@ public class NewSecurityConfiguration {
     private final X509AuthenticationProvider x509AuthenticationProvider;
     private final AuthSourceService authSourceService;
     private final AuthExceptionHandler authExceptionHandler;
+    private final ObjectProvider<SafResourceAccessVerifying> safResourceAccessVerifyingProvider;
 
     @Value("${server.attls.enabled:false}")
     private boolean isAttlsEnabled;
@@ -147,6 +151,7 @@ public class NewSecurityConfiguration {
                                         authConfigurationProperties.getGatewayLogoutEndpointOldFormat())
                         , HttpMethod.POST.name()))
                         .addLogoutHandler(logoutHandler())
+                        .addLogoutHandler(safResourceAccessLogoutHandler())
                         .logoutSuccessHandler(new HttpStatusReturningLogoutSuccessHandler(HttpStatus.NO_CONTENT)))
 
                 .authenticationProvider(compoundAuthProvider) // for authenticating credentials
@@ -188,6 +193,14 @@ public class NewSecurityConfiguration {
             FailedAuthenticationHandler failure = handlerInitializer.getAuthenticationFailureHandler();
             return new JWTLogoutHandler(authenticationService, failure);
         }
+
+        private LogoutHandler safResourceAccessLogoutHandler() {
+            SafResourceAccessVerifying safResourceAccessVerifying = safResourceAccessVerifyingProvider.getIfAvailable();
+            if (safResourceAccessVerifying instanceof SafResourceAccessCaching) {
+                return new SafResourceAccessLogoutHandler(authenticationService, (SafResourceAccessCaching) safResourceAccessVerifying);
+            }
+            return (request, response, authentication) -> { };
+        }
     }
 
     /**
@@ -0,0 +1,46 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.security.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.logout.LogoutHandler;
+import org.zowe.apiml.gateway.security.service.AuthenticationService;
+import org.zowe.apiml.security.common.auth.saf.SafResourceAccessCaching;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Removes the cached decisions about SAF resources of the user who is logging out. The token was already invalidated
+ * by {@link JWTLogoutHandler}, here it is used just to find out the user.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class SafResourceAccessLogoutHandler implements LogoutHandler {
+
+    private final AuthenticationService authenticationService;
+    private final SafResourceAccessCaching safResourceAccessCaching;
+
+    @Override
+    public void logout(HttpServletRequest request, HttpServletResponse response, Authentication authentication) {
+        authenticationService.getJwtTokenFromRequest(request).ifPresent(token -> {
+            try {
+                safResourceAccessCaching.evict(authenticationService.parseJwtToken(token).getUserId());
+            } catch (RuntimeException e) {
+                // the decisions expire in a short time anyway
+                log.debug("Cached SAF decisions were not evicted on logout: {}", e.getMessage());
+            }
+        });
+    }
+
+}
@@ -21,10 +21,12 @@ import org.apache.http.client.methods.HttpPost;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.message.BasicHeader;
 import org.apache.http.util.EntityUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.zowe.apiml.gateway.security.mapping.model.MapperResponse;
-import org.zowe.apiml.gateway.security.service.TokenCreationService;
 import org.zowe.apiml.security.common.config.AuthConfigurationProperties;
 
 import javax.validation.constraints.NotNull;
@@ -32,9 +34,13 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
 
 /**
  * Common implementation of an external mapper to call identity mapping API in the ZSS on mainframe.
+ * <p>
+ * The mapped user ids, including a missing mapping, are cached in the cache of {@link #getCacheName()}. A failure of
+ * the external mapper is not cached, so the next request calls the mapper again.
  */
 @Slf4j
 @RequiredArgsConstructor
@@ -43,25 +49,63 @@ public abstract class ExternalMapper {
     private final String mapperUrl;
     private final String mapperUser;
     private final CloseableHttpClient httpClientProxy;
-    private final TokenCreationService tokenCreationService;
+    private final ServiceTokenHolder serviceTokenHolder;
     private final AuthConfigurationProperties authConfigurationProperties;
 
     protected static final ObjectMapper objectMapper = new ObjectMapper();
 
+    // null if the results are not cached
+    private Cache cache;
+
+    @Autowired(required = false)
+    void setCacheManager(CacheManager cacheManager) {
+        this.cache = cacheManager.getCache(getCacheName());
+    }
+
+    /**
+     * @return name of the cache of the mapped user ids
+     */
+    protected abstract String getCacheName();
+
+    /**
+     * Get the user id of the key. Concurrent requests with the same key wait for a single call of the mapping.
+     *
+     * @param key     key of the cached user id, the result is not cached if it is null
+     * @param mapping call of the external mapper, it throws {@link MappingFailedException} if the mapper failed
+     * @return the user id or null if there is no mapping or the mapper failed
+     */
+    protected String mapCached(Object key, Supplier<String> mapping) {
+        try {
+            if ((cache != null) && (key != null)) {
+                return cache.get(key, mapping::get);
+            }
+            return mapping.get();
+        } catch (MappingFailedException | Cache.ValueRetrievalException e) {
+            log.debug("The external identity mapper failed, the result is not cached: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Call the external mapper.
+     *
+     * @return the response of the mapper or null if the mapper returned no content
+     * @throws MappingFailedException if the mapper is not configured, cannot be reached or returned an error
+     */
     MapperResponse callExternalMapper(@NotNull HttpEntity payload) {
         if (StringUtils.isBlank(mapperUrl)) {
             log.warn("Configuration error: External identity mapper URL is not set.");
-            return null;
+            throw new MappingFailedException("External identity mapper URL is not set", null);
         }
         if (StringUtils.isBlank(mapperUser)) {
             log.warn("Configuration error: External identity mapper user is not set.");
-            return null;
+            throw new MappingFailedException("External identity mapper user is not set", null);
         }
         try {
             HttpPost httpPost = new HttpPost(new URI(mapperUrl));
             httpPost.setEntity(payload);
 
-            String jwtToken = tokenCreationService.createJwtTokenWithoutCredentials(mapperUser);
+            String jwtToken = serviceTokenHolder.getToken(mapperUser);
             httpPost.setHeader(new BasicHeader("Cookie", authConfigurationProperties.getCookieProperties().getCookieName() + "=" + jwtToken));
             httpPost.setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
             log.debug("Executing request against external identity mapper API: {}", httpPost);
@@ -73,9 +117,13 @@ public abstract class ExternalMapper {
             if (httpResponse.getEntity() != null) {
                 response = EntityUtils.toString(httpResponse.getEntity(), StandardCharsets.UTF_8);
             }
+            if (statusCode == HttpStatus.SC_UNAUTHORIZED) {
+                // the token could be invalidated meanwhile, the next call will use a new one
+                serviceTokenHolder.evict(mapperUser);
+            }
             if (statusCode < HttpStatus.SC_OK || statusCode >= HttpStatus.SC_MULTIPLE_CHOICES) {
                 log.warn("Unexpected response from the external identity mapper. Status: {} body: {}", statusCode, response);
-                return null;
+                throw new MappingFailedException("Unexpected response from the external identity mapper, status: " + statusCode, null);
             }
             log.debug("External identity mapper API returned: {}", response);
             if (StringUtils.isNotEmpty(response)) {
@@ -83,11 +131,24 @@ public abstract class ExternalMapper {
             }
         } catch (IOException e) {
             log.warn("Error occurred while communicating with external identity mapper", e);
+            throw new MappingFailedException("Error occurred while communicating with external identity mapper", e);
         } catch (URISyntaxException e) {
             log.warn("Configuration error: Failed to construct the external identity mapper URI.", e);
+            throw new MappingFailedException("Failed to construct the external identity mapper URI", e);
         }
 
         return null;
     }
 
+    /**
+     * The external mapper could not be called or it returned an error, it is different from a missing mapping.
+     */
+    static class MappingFailedException extends RuntimeException {
+        private static final long serialVersionUID = -6185024153870262415L;
+
+        MappingFailedException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
 }
@@ -19,7 +19,6 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Component;
 import org.zowe.apiml.gateway.security.mapping.model.MapperResponse;
 import org.zowe.apiml.gateway.security.mapping.model.OIDCRequest;
-import org.zowe.apiml.gateway.security.service.TokenCreationService;
 import org.zowe.apiml.gateway.security.service.schema.source.AuthSource;
 import org.zowe.apiml.gateway.security.service.schema.source.OIDCAuthSource;
 import org.zowe.apiml.message.core.MessageType;
@@ -36,6 +35,8 @@ import static org.zowe.apiml.gateway.security.mapping.model.MapperResponse.OIDC_
 @ConditionalOnExpression("'${apiml.security.oidc.enabled:false}' == 'true' && '${apiml.security.useInternalMapper:false}' == 'false'")
 public class OIDCExternalMapper extends ExternalMapper implements AuthenticationMapper {
 
+    public static final String CACHE_OIDC_MAPPING = "oidcMapping";
+
     @Value("${apiml.security.oidc.registry:}")
     protected String registry;
 
@@ -55,11 +56,22 @@ public class OIDCExternalMapper extends ExternalMapper implements Authentication
     public OIDCExternalMapper(@Value("${apiml.security.oidc.identityMapperUrl:}") String mapperUrl,
                               @Value("${apiml.security.oidc.identityMapperUser:}") String mapperUser,
                               CloseableHttpClient httpClientProxy,
-                              TokenCreationService tokenCreationService,
+                              ServiceTokenHolder serviceTokenHolder,
                               AuthConfigurationProperties authConfigurationProperties) {
-        super(mapperUrl, mapperUser, httpClientProxy, tokenCreationService, authConfigurationProperties);
+        super(mapperUrl, mapperUser, httpClientProxy, serviceTokenHolder, authConfigurationProperties);
     }
 
+    /**
+     * Maps the distributed ID from the OIDC token to the mainframe user id.
+     * <p>
+     * The result, including a missing mapping, is cached by the distributed ID. The registry is the same for all calls
+     * of this instance, so it is not a part of the key. Concurrent requests of the same user wait for a single call of
+     * the external mapper. A failure of the mapper is not cached.
+     *
+     * @param authSource OIDC token with the distributed ID to get mapping for.
+     * @return the user id or null if there is no mapping or the mapper failed
+     */
+    @Override
     public String mapToMainframeUserId(AuthSource authSource) {
         if (isConfigError) {
             apimlLog.log("org.zowe.apiml.security.common.OIDCConfigError");
@@ -78,6 +90,10 @@ public class OIDCExternalMapper extends ExternalMapper implements Authentication
                     " properly configured.");
             return null;
         }
+        return mapCached(distributedId, () -> mapDistributedId(distributedId));
+    }
+
+    private String mapDistributedId(String distributedId) {
         OIDCRequest oidcRequest = new OIDCRequest(distributedId, registry);
         try {
             StringEntity payload = new StringEntity(objectMapper.writeValueAsString(oidcRequest));
@@ -101,4 +117,9 @@ public class OIDCExternalMapper extends ExternalMapper implements Authentication
         return null;
     }
 
+    @Override
+    protected String getCacheName() {
+        return CACHE_OIDC_MAPPING;
+    }
+
 }
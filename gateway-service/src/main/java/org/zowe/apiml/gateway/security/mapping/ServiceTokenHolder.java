@@ -0,0 +1,130 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.security.mapping;
+
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.zowe.apiml.gateway.security.service.TokenCreationService;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+import static org.zowe.apiml.gateway.security.service.JwtUtils.getJwtClaims;
+
+/**
+ * Holder of the tokens the gateway uses to call the external identity mappers on behalf of the technical users.
+ * <p>
+ * Signing a token is expensive, so the token is created once and reused until it comes close to the expiration.
+ * Once the token enters the refresh window, the first caller creates a new one while the other callers still use
+ * the old token, which is valid until its expiration. The refresh window is the configured time before expiration,
+ * but at most one half of the remaining lifetime of the token.
+ */
+@Slf4j
+@Component
+public class ServiceTokenHolder {
+
+    private final TokenCreationService tokenCreationService;
+    private final LongSupplier clock;
+    private final Map<String, Token> tokens = new ConcurrentHashMap<>();
+
+    @Value("${apiml.security.mapper.tokenRefreshBeforeExpirationSeconds:300}")
+    private long refreshBeforeExpirationSeconds = 300;
+
+    @Autowired
+    public ServiceTokenHolder(TokenCreationService tokenCreationService) {
+        this(tokenCreationService, System::currentTimeMillis);
+    }
+
+    ServiceTokenHolder(TokenCreationService tokenCreationService, LongSupplier clock) {
+        this.tokenCreationService = tokenCreationService;
+        this.clock = clock;
+    }
+
+    /**
+     * Return valid token of the user. The token is created only if there is no cached one or it should be refreshed.
+     *
+     * @param user technical user to get token for
+     * @return token of the user
+     */
+    public String getToken(String user) {
+        long now = clock.getAsLong();
+        Token token = tokens.get(user);
+        if (token != null) {
+            if (now < token.refreshAt) {
+                return token.jwt;
+            }
+            if (now < token.expiresAt && !token.refreshing.compareAndSet(false, true)) {
+                // another thread is already creating the new token
+                return token.jwt;
+            }
+        }
+
+        return refresh(user, now);
+    }
+
+    /**
+     * Forget the token of the user, i.e. when the external service rejected it.
+     *
+     * @param user technical user to remove token of
+     */
+    public void evict(String user) {
+        tokens.remove(user);
+    }
+
+    private String refresh(String user, long now) {
+        String jwt;
+        try {
+            jwt = tokenCreationService.createJwtTokenWithoutCredentials(user);
+        } catch (RuntimeException e) {
+            Token token = tokens.get(user);
+            if (token != null) {
+                token.refreshing.set(false);
+            }
+            throw e;
+        }
+
+        Date expiration = getExpiration(jwt);
+        if (expiration == null) {
+            tokens.remove(user);
+        } else {
+            long lifetime = Math.max(0, expiration.getTime() - now);
+            long refreshBefore = Math.min(refreshBeforeExpirationSeconds * 1000, lifetime / 2);
+            tokens.put(user, new Token(jwt, expiration.getTime() - refreshBefore, expiration.getTime()));
+        }
+        return jwt;
+    }
+
+    private Date getExpiration(String jwt) {
+        try {
+            Claims claims = getJwtClaims(jwt);
+            return claims.getExpiration();
+        } catch (RuntimeException e) {
+            log.debug("The expiration of the token cannot be read, the token is not reused: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Token {
+        private final String jwt;
+        private final long refreshAt;
+        private final long expiresAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+    }
+
+}
@@ -11,6 +11,7 @@
 package org.zowe.apiml.gateway.security.mapping;
 
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpEntity;
 import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
@@ -18,7 +19,6 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Component;
 import org.zowe.apiml.gateway.security.mapping.model.MapperResponse;
-import org.zowe.apiml.gateway.security.service.TokenCreationService;
 import org.zowe.apiml.gateway.security.service.schema.source.AuthSource;
 import org.zowe.apiml.gateway.security.service.schema.source.X509AuthSource;
 import org.zowe.apiml.security.common.config.AuthConfigurationProperties;
@@ -38,34 +38,31 @@ import java.security.cert.X509Certificate;
 )
 public class X509ExternalMapper extends ExternalMapper implements AuthenticationMapper {
 
+    public static final String CACHE_X509_MAPPING = "x509Mapping";
+
     public X509ExternalMapper(@Value("${apiml.security.x509.externalMapperUrl:}") String mapperUrl,
                               @Value("${apiml.security.x509.externalMapperUser:}") String mapperUser,
                               CloseableHttpClient httpClientProxy,
-                              TokenCreationService tokenCreationService,
+                              ServiceTokenHolder serviceTokenHolder,
                               AuthConfigurationProperties authConfigurationProperties) {
-        super(mapperUrl, mapperUser, httpClientProxy, tokenCreationService, authConfigurationProperties);
+        super(mapperUrl, mapperUser, httpClientProxy, serviceTokenHolder, authConfigurationProperties);
     }
 
     /**
      * Maps certificate to the mainframe user id.
+     * <p>
+     * The result, including a missing mapping, is cached by the fingerprint of the certificate. Concurrent requests
+     * with the same certificate wait for a single call of the external mapper. A failure of the mapper is not cached.
      *
      * @param authSource Certificate to get mapping for.
-     * @return the user id or null if there is either no mapping or problem with certificate
+     * @return the user id or null if there is either no mapping or problem with certificate or the mapper
      */
     @Override
     public String mapToMainframeUserId(AuthSource authSource) {
         if (authSource instanceof X509AuthSource) {
             X509Certificate certificate = (X509Certificate) authSource.getRawSource();
             if (certificate != null) {
-                try {
-                    HttpEntity payload = new ByteArrayEntity(certificate.getEncoded());
-                    MapperResponse mapperResponse = callExternalMapper(payload);
-                    if (mapperResponse != null) {
-                        return mapperResponse.getUserId().trim();
-                    }
-                } catch (CertificateEncodingException e) {
-                    log.error("Can`t get encoded data from certificate", e);
-                }
+                return mapCached(((X509AuthSource) authSource).getFingerprint(), () -> mapCertificate(certificate));
             } else {
                 log.warn("No certificate found in the authentication source.");
             }
@@ -75,4 +72,23 @@ public class X509ExternalMapper extends ExternalMapper implements Authentication
         return null;
     }
 
+    private String mapCertificate(X509Certificate certificate) {
+        try {
+            HttpEntity payload = new ByteArrayEntity(certificate.getEncoded());
+            MapperResponse mapperResponse = callExternalMapper(payload);
+            if (mapperResponse != null) {
+                // the mapper answers with a blank user id when there is no mapping
+                return StringUtils.trimToNull(mapperResponse.getUserId());
+            }
+        } catch (CertificateEncodingException e) {
+            log.error("Can`t get encoded data from certificate", e);
+        }
+        return null;
+    }
+
+    @Override
+    protected String getCacheName() {
+        return CACHE_X509_MAPPING;
+    }
+
 }
@@ -14,10 +14,7 @@ import com.netflix.appinfo.InstanceInfo;
 import com.netflix.discovery.EurekaClient;
 import com.netflix.discovery.shared.Application;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwt;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.impl.DefaultClaims;
-import io.jsonwebtoken.impl.DefaultJwsHeader;
 import io.jsonwebtoken.security.SignatureException;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
@@ -51,7 +48,6 @@ import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import java.util.*;
 
-import static org.zowe.apiml.gateway.security.service.JwtUtils.getJwtClaims;
 import static org.zowe.apiml.gateway.security.service.JwtUtils.handleJwtParserException;
 import static org.zowe.apiml.gateway.security.service.zosmf.ZosmfService.TokenType.JWT;
 import static org.zowe.apiml.gateway.security.service.zosmf.ZosmfService.TokenType.LTPA;
@@ -85,6 +81,12 @@ public class AuthenticationService {
     // to force calling inside methods with aspects - ie. ehCache aspect
     private AuthenticationService meAsProxy;
 
+    // the same token is usually parsed several times during a request, see ClaimsCache
+    private final ClaimsCache unverifiedClaims = new ClaimsCache();
+    @SuppressWarnings("java:S5659") // It is checking the signature securely - https://github.com/zowe/api-layer/issues/3191
+    private final SigningKeyParser signatureParser = new SigningKeyParser((parser, jwt) -> (Claims) parser.parse(jwt).getBody());
+    private final SigningKeyParser localTokenParser = new SigningKeyParser((parser, jwt) -> parser.parseClaimsJws(jwt).getBody());
+
     @PostConstruct
     public void afterPropertiesSet() {
         meAsProxy = applicationContext.getBean(AuthenticationService.class);
@@ -130,15 +132,9 @@ public class AuthenticationService {
             .signWith(jwtSecurityInitializer.getJwtSecret(), jwtSecurityInitializer.getSignatureAlgorithm()).compact();
     }
 
-    @SuppressWarnings("java:S5659") // It is checking the signature securely - https://github.com/zowe/api-layer/issues/3191
     public QueryResponse parseJwtWithSignature(String jwt) throws SignatureException {
         try {
-            Jwt<DefaultJwsHeader, DefaultClaims> parsedJwt = Jwts.parserBuilder()
-                .setSigningKey(jwtSecurityInitializer.getJwtSecret())
-                .build()
-                .parse(jwt);
-
-            return parseQueryResponse(parsedJwt.getBody());
+            return parseQueryResponse(signatureParser.parse(jwtSecurityInitializer.getJwtSecret(), jwt));
         } catch (RuntimeException exception) {
             throw handleJwtParserException(exception);
         }
@@ -228,11 +224,7 @@ public class AuthenticationService {
 
     private Claims validateAndParseLocalJwtToken(String jwtToken) {
         try {
-            return Jwts.parserBuilder()
-                .setSigningKey(jwtSecurityInitializer.getJwtPublicKey())
-                .build()
-                .parseClaimsJws(jwtToken)
-                .getBody();
+            return localTokenParser.parse(jwtSecurityInitializer.getJwtPublicKey(), jwtToken);
         } catch (RuntimeException exception) {
             throw handleJwtParserException(exception);
         }
@@ -343,7 +335,7 @@ public class AuthenticationService {
      * @return the query response
      */
     public QueryResponse parseJwtToken(String jwtToken) {
-        Claims claims = getJwtClaims(jwtToken);
+        Claims claims = unverifiedClaims.get(jwtToken, JwtUtils::getJwtClaims);
         return parseQueryResponse(claims);
     }
 
@@ -370,7 +362,7 @@ public class AuthenticationService {
      * @return AuthSource.Origin value based on the iss token claim.
      */
     public AuthSource.Origin getTokenOrigin(String jwtToken) {
-        Claims claims = getJwtClaims(jwtToken);
+        Claims claims = unverifiedClaims.get(jwtToken, JwtUtils::getJwtClaims);
         QueryResponse.Source source = QueryResponse.Source.valueByIssuer(claims.getIssuer());
         return AuthSource.Origin.valueByTokenSource(source);
     }
@@ -394,7 +386,7 @@ public class AuthenticationService {
      * @throws TokenNotValidException if the JWT token is not valid
      */
     public String getLtpaToken(String jwtToken) {
-        Claims claims = getJwtClaims(jwtToken);
+        Claims claims = unverifiedClaims.get(jwtToken, JwtUtils::getJwtClaims);
 
         return claims.get(LTPA_CLAIM_NAME, String.class);
     }
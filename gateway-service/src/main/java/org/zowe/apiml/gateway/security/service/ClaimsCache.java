@@ -0,0 +1,96 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.security.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.jsonwebtoken.Claims;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Short-lived cache of the parsed claims of JWT tokens. The same token is usually parsed several times while one
+ * request is processed and also by the following requests of the same client.
+ * <p>
+ * The key is the digest of the token, so the cache does not hold the tokens themselves. Only the successfully parsed
+ * claims are stored. The claims could stay in the cache after the token expires, therefore an expired token is always
+ * parsed again to get the same error as without the cache. The cached claims are shared, the callers must not
+ * modify them.
+ */
+class ClaimsCache {
+
+    static final long MAX_SIZE = 10_000;
+    static final Duration TTL = Duration.ofSeconds(30);
+
+    private final Cache<String, Claims> cache;
+    private final LongSupplier clock;
+
+    ClaimsCache() {
+        this(MAX_SIZE, TTL, Ticker.systemTicker(), System::currentTimeMillis);
+    }
+
+    ClaimsCache(long maxSize, Duration ttl, Ticker ticker, LongSupplier clock) {
+        this.clock = clock;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttl)
+            .ticker(ticker)
+            .build();
+    }
+
+    /**
+     * Return the claims of the token from the cache or parse them with the parser.
+     *
+     * @param jwt    the JWT token
+     * @param parser parser of the token, it can throw an exception if the token is not valid
+     * @return the claims of the token
+     */
+    Claims get(String jwt, Function<String, Claims> parser) {
+        if (jwt == null) {
+            return parser.apply(null);
+        }
+
+        String key = digest(jwt);
+        Claims claims = cache.get(key, k -> parser.apply(jwt));
+        if (isExpired(claims)) {
+            cache.invalidate(key);
+            return parser.apply(jwt);
+        }
+        return claims;
+    }
+
+    void clear() {
+        cache.invalidateAll();
+    }
+
+    private boolean isExpired(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return expiration != null && expiration.getTime() <= clock.getAsLong();
+    }
+
+    private static String digest(String jwt) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(jwt.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+}
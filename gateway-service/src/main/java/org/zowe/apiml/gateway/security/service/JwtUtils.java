@@ -13,6 +13,7 @@ package org.zowe.apiml.gateway.security.service;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import lombok.experimental.UtilityClass;
 import lombok.extern.slf4j.Slf4j;
@@ -25,6 +26,9 @@ public class JwtUtils {
 
     private static final String TOKEN_IS_NOT_VALID_DUE_TO = "Token is not valid due to: {}.";
 
+    // the parser is immutable and thread-safe
+    private static final JwtParser UNSIGNED_PARSER = Jwts.parserBuilder().build();
+
     public static Claims getJwtClaims(String jwt) {
         /*
          * Removes signature, because we don't have key to verify z/OS tokens, and we just need to read claim.
@@ -33,10 +37,7 @@ public class JwtUtils {
         String withoutSign = removeJwtSign(jwt);
 
         try {
-            return Jwts.parserBuilder()
-                    .build()
-                    .parseClaimsJwt(withoutSign)
-                    .getBody();
+            return UNSIGNED_PARSER.parseClaimsJwt(withoutSign).getBody();
         } catch (RuntimeException exception) {
             throw handleJwtParserException(exception);
         }
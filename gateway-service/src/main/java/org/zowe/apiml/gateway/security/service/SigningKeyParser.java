@@ -0,0 +1,58 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.security.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import lombok.RequiredArgsConstructor;
+
+import java.security.Key;
+import java.util.function.BiFunction;
+
+/**
+ * Parser of the JWT tokens verified by one key. The {@link JwtParser} is immutable and thread-safe, so it is built
+ * once and reused. The verified claims are kept in {@link ClaimsCache}. Once the key changes, the parser is built
+ * again and the claims verified by the previous key are forgotten.
+ */
+@RequiredArgsConstructor
+class SigningKeyParser {
+
+    private final BiFunction<JwtParser, String, Claims> operation;
+
+    private volatile State state;
+
+    /**
+     * Verify the token and return its claims. The exceptions of the JWT library are not translated.
+     *
+     * @param key key to verify the signature
+     * @param jwt the JWT token
+     * @return the verified claims
+     */
+    Claims parse(Key key, String jwt) {
+        State current = state;
+        if (current == null || current.key != key) {
+            current = new State(key, Jwts.parserBuilder().setSigningKey(key).build(), new ClaimsCache());
+            state = current;
+        }
+
+        JwtParser parser = current.parser;
+        return current.claims.get(jwt, token -> operation.apply(parser, token));
+    }
+
+    @RequiredArgsConstructor
+    private static class State {
+        private final Key key;
+        private final JwtParser parser;
+        private final ClaimsCache claims;
+    }
+
+}
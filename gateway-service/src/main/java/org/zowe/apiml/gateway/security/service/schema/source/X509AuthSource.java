@@ -11,7 +11,11 @@
 package org.zowe.apiml.gateway.security.service.schema.source;
 
 import java.io.Serializable;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
+import java.util.Base64;
 import java.util.Date;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -31,6 +35,12 @@ public class X509AuthSource implements AuthSource {
     @EqualsAndHashCode.Include
     private final X509Certificate source;
 
+    /**
+     * SHA-256 fingerprint of the certificate, null if the certificate cannot be encoded
+     */
+    @Getter(lazy = true)
+    private final String fingerprint = computeFingerprint();
+
     @Override
     public X509Certificate getRawSource() {
         return source;
@@ -41,6 +51,18 @@ public class X509AuthSource implements AuthSource {
         return AuthSourceType.CLIENT_CERT;
     }
 
+    private String computeFingerprint() {
+        if (source == null) {
+            return null;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(source.getEncoded());
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (CertificateEncodingException | NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
     @RequiredArgsConstructor
     @Getter
     @EqualsAndHashCode
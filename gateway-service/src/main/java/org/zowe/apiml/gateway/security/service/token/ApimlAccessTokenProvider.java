@@ -15,6 +15,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.zowe.apiml.gateway.cache.CachingServiceClient;
 import org.zowe.apiml.gateway.cache.CachingServiceClientException;
@@ -29,11 +30,7 @@ import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -49,7 +46,11 @@ public class ApimlAccessTokenProvider implements AccessTokenProvider {
     @Qualifier("oidcJwkMapper")
     private final ObjectMapper objectMapper;
 
+    @Value("${apiml.security.personalAccessToken.invalidationMaxStalenessMillis:1000}")
+    private long invalidationMaxStalenessMillis;
+
     private byte[] salt;
+    private volatile InvalidationSnapshot invalidationSnapshot;
 
     public void invalidateToken(String token) throws CachingServiceClientException, JsonProcessingException {
         String hashedValue = getHash(token);
@@ -61,6 +62,7 @@ public class ApimlAccessTokenProvider implements AccessTokenProvider {
 
         String json = objectMapper.writeValueAsString(container);
         cachingServiceClient.appendList(INVALID_TOKENS_KEY, new CachingServiceClient.KeyValue(hashedValue, json));
+        resetInvalidationSnapshot();
     }
 
     public void invalidateAllTokensForUser(String userId, long timestamp) throws CachingServiceClientException {
@@ -69,6 +71,7 @@ public class ApimlAccessTokenProvider implements AccessTokenProvider {
             timestamp = System.currentTimeMillis();
         }
         cachingServiceClient.appendList(INVALID_USERS_KEY, new CachingServiceClient.KeyValue(hashedUserId, Long.toString(timestamp)));
+        resetInvalidationSnapshot();
     }
 
     public void invalidateAllTokensForService(String serviceId, long timestamp) throws CachingServiceClientException {
@@ -77,64 +80,56 @@ public class ApimlAccessTokenProvider implements AccessTokenProvider {
             timestamp = System.currentTimeMillis();
         }
         cachingServiceClient.appendList(INVALID_SCOPES_KEY, new CachingServiceClient.KeyValue(hashedServiceId, Long.toString(timestamp)));
+        resetInvalidationSnapshot();
     }
 
     public boolean isInvalidated(String token) throws CachingServiceClientException {
         QueryResponse parsedToken = authenticationService.parseJwtWithSignature(token);
-        String hashedToken = getHash(token);
-        String hashedUserId = getHash(parsedToken.getUserId());
-        List<String> hashedServiceIds = parsedToken.getScopes().stream().map(this::getHash).collect(Collectors.toList());
-
-        Map<String, Map<String, String>> cacheMap = cachingServiceClient.readAllMaps();
-        if (cacheMap != null && !cacheMap.isEmpty()) {
-            Map<String, String> invalidTokens = cacheMap.get(INVALID_TOKENS_KEY);
-            Map<String, String> invalidUsers = cacheMap.get(INVALID_USERS_KEY);
-            Map<String, String> invalidScopes = cacheMap.get(INVALID_SCOPES_KEY);
-            Optional<Boolean> isInvalidated = checkInvalidToken(invalidTokens, hashedToken);
-            if (!isInvalidated.isPresent()) {
-                isInvalidated = checkRule(invalidUsers, hashedUserId, parsedToken);
-            }
-            for (String hashedServiceId : hashedServiceIds) {
-                if (!isInvalidated.isPresent()) {
-                    isInvalidated = checkRule(invalidScopes, hashedServiceId, parsedToken);
-                } else {
-                    break;
-                }
-            }
-            if (isInvalidated.isPresent()) {
-                return isInvalidated.get();
+        long creation = parsedToken.getCreation().getTime();
+
+        InvalidationSnapshot snapshot = getInvalidationSnapshot();
+        if (snapshot.isTokenInvalidated(getHash(token)) || snapshot.isUserInvalidated(getHash(parsedToken.getUserId()), creation)) {
+            return true;
+        }
+        for (String scope : parsedToken.getScopes()) {
+            if (snapshot.isScopeInvalidated(getHash(scope), creation)) {
+                return true;
             }
         }
         return false;
     }
 
-    private Optional<Boolean> checkInvalidToken(Map<String, String> invalidTokens, String tokenId) {
-        if (invalidTokens != null && !invalidTokens.isEmpty() && invalidTokens.containsKey(tokenId)) {
-            String s = invalidTokens.get(tokenId);
-            try {
-                AccessTokenContainer c = objectMapper.readValue(s, AccessTokenContainer.class);
-                return Optional.of(c != null);
-            } catch (JsonProcessingException e) {
-                log.error("Not able to parse invalidToken json value.", e);
-            }
+    /**
+     * Return the local copy of the invalidations. The changes are loaded from the Caching Service when it is older than
+     * the configured staleness. The invalidations done through this instance are visible immediately.
+     */
+    InvalidationSnapshot getInvalidationSnapshot() throws CachingServiceClientException {
+        InvalidationSnapshot snapshot = invalidationSnapshot;
+        if (isFresh(snapshot)) {
+            return snapshot;
         }
-        return Optional.empty();
-    }
-
-    private Optional<Boolean> checkRule(Map<String, String> tokenRules, String ruleId, QueryResponse parsedToken) {
-        if (tokenRules != null && !tokenRules.isEmpty() && tokenRules.containsKey(ruleId)) {
-            String timestampStr = tokenRules.get(ruleId);
-            try {
-                long timestamp = Long.parseLong(timestampStr);
-                boolean result = parsedToken.getCreation().getTime() < timestamp;
-                if (result) {
-                    return Optional.of(true);
-                }
-            } catch (NumberFormatException e) {
-                log.error("Not able to convert timestamp value to number.", e);
+
+        synchronized (this) {
+            if (invalidationSnapshot == null) {
+                invalidationSnapshot = new InvalidationSnapshot(objectMapper);
             }
+            snapshot = invalidationSnapshot;
+            if (!isFresh(snapshot)) {
+                snapshot.refresh(cachingServiceClient, System.currentTimeMillis());
+            }
+            return snapshot;
+        }
+    }
+
+    private boolean isFresh(InvalidationSnapshot snapshot) {
+        return snapshot != null && System.currentTimeMillis() - snapshot.getRefreshedAt() < invalidationMaxStalenessMillis;
+    }
+
+    // synchronized with the refresh, a running refresh could miss the change and mark the snapshot as fresh afterwards
+    private synchronized void resetInvalidationSnapshot() {
+        if (invalidationSnapshot != null) {
+            invalidationSnapshot.markStale();
         }
-        return Optional.empty();
     }
 
     public void evictNonRelevantTokensAndRules() {
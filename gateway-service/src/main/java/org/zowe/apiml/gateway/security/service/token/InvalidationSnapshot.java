@@ -0,0 +1,144 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.security.service.token;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.zowe.apiml.gateway.cache.CachingServiceClient;
+import org.zowe.apiml.gateway.cache.CachingServiceClientException;
+import org.zowe.apiml.models.AccessTokenContainer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Local copy of the invalidated personal access tokens and the invalidation rules, loaded from the Caching Service.
+ * The values are parsed once when they arrive, so the check of a token is just a lookup of its hash.
+ * <p>
+ * The first refresh loads the whole maps, the following ones apply only the changes since the previous refresh. The
+ * Caching Service sends the whole map again when it does not know the changes anymore.
+ */
+@Slf4j
+class InvalidationSnapshot {
+    private final ParsedMap<Boolean> invalidTokens;
+    private final ParsedMap<Long> invalidUsers;
+    private final ParsedMap<Long> invalidScopes;
+    @Getter
+    private volatile long refreshedAt;
+
+    InvalidationSnapshot(ObjectMapper objectMapper) {
+        invalidTokens = new ParsedMap<>(ApimlAccessTokenProvider.INVALID_TOKENS_KEY, json -> parseToken(json, objectMapper));
+        invalidUsers = new ParsedMap<>(ApimlAccessTokenProvider.INVALID_USERS_KEY, InvalidationSnapshot::parseRule);
+        invalidScopes = new ParsedMap<>(ApimlAccessTokenProvider.INVALID_SCOPES_KEY, InvalidationSnapshot::parseRule);
+    }
+
+    /**
+     * Apply the changes made in the Caching Service since the previous refresh. The refreshes must not run concurrently,
+     * the checks can run during the refresh.
+     *
+     * @param cachingServiceClient client to read the changes
+     * @param now                  time of the refresh
+     */
+    void refresh(CachingServiceClient cachingServiceClient, long now) throws CachingServiceClientException {
+        invalidTokens.refresh(cachingServiceClient);
+        invalidUsers.refresh(cachingServiceClient);
+        invalidScopes.refresh(cachingServiceClient);
+        refreshedAt = now;
+    }
+
+    /**
+     * The next check refreshes the snapshot.
+     */
+    void markStale() {
+        refreshedAt = 0;
+    }
+
+    boolean isTokenInvalidated(String hashedToken) {
+        return invalidTokens.values.containsKey(hashedToken);
+    }
+
+    boolean isUserInvalidated(String hashedUserId, long creation) {
+        return isCreatedBefore(invalidUsers.values, hashedUserId, creation);
+    }
+
+    boolean isScopeInvalidated(String hashedServiceId, long creation) {
+        return isCreatedBefore(invalidScopes.values, hashedServiceId, creation);
+    }
+
+    private static boolean isCreatedBefore(Map<String, Long> rules, String ruleId, long creation) {
+        Long timestamp = rules.get(ruleId);
+        return timestamp != null && creation < timestamp;
+    }
+
+    private static Boolean parseToken(String json, ObjectMapper objectMapper) {
+        try {
+            return objectMapper.readValue(json, AccessTokenContainer.class) != null ? Boolean.TRUE : null;
+        } catch (JsonProcessingException e) {
+            log.error("Not able to parse invalidToken json value.", e);
+            return null;
+        }
+    }
+
+    private static Long parseRule(String timestamp) {
+        try {
+            return Long.parseLong(timestamp);
+        } catch (NumberFormatException e) {
+            log.error("Not able to convert timestamp value to number.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Parsed values of one map with the position of the last applied change. Items with invalid values are skipped.
+     */
+    @RequiredArgsConstructor
+    private static class ParsedMap<V> {
+        private final String mapKey;
+        private final Function<String, V> parser;
+        private final Map<String, V> values = new ConcurrentHashMap<>();
+
+        private String epoch;
+        private long sequence;
+
+        void refresh(CachingServiceClient cachingServiceClient) throws CachingServiceClientException {
+            CachingServiceClient.MapChanges changes = cachingServiceClient.readMapChanges(mapKey, epoch, sequence);
+            if (changes.isFull()) {
+                Map<String, V> parsed = new HashMap<>();
+                changes.getChanged().forEach((key, value) -> {
+                    V parsedValue = parser.apply(value);
+                    if (parsedValue != null) {
+                        parsed.put(key, parsedValue);
+                    }
+                });
+                // the new items are added before the old ones are removed, the checks never see an empty map
+                values.putAll(parsed);
+                values.keySet().retainAll(parsed.keySet());
+            } else {
+                changes.getChanged().forEach((key, value) -> {
+                    V parsedValue = parser.apply(value);
+                    if (parsedValue == null) {
+                        values.remove(key);
+                    } else {
+                        values.put(key, parsedValue);
+                    }
+                });
+                changes.getRemoved().forEach(values::remove);
+            }
+            epoch = changes.getEpoch();
+            sequence = changes.getSequence();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.sse;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.ssl.ClientAuth;
+import io.netty.handler.ssl.JdkSslContext;
+import io.netty.handler.ssl.SslContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import java.time.Duration;
+
+/**
+ * Configuration of the client used to proxy the Server-Sent Events. All the streams share one connection pool and
+ * the SSL context of the gateway, so the connections and TLS sessions to the services are reused.
+ */
+@Slf4j
+@Configuration
+public class ServerSentEventConfig {
+
+    public static final String SSE_WEB_CLIENT = "sseWebClient";
+
+    @Value("${apiml.gateway.sse.maxConnections:500}")
+    private int maxConnections = 500;
+
+    @Value("${apiml.gateway.sse.pendingAcquireTimeoutMillis:10000}")
+    private long pendingAcquireTimeoutMillis = 10_000;
+
+    @Value("${apiml.gateway.sse.maxIdleTimeMillis:60000}")
+    private long maxIdleTimeMillis = 60_000;
+
+    @Value("${apiml.gateway.sse.connectTimeoutMillis:10000}")
+    private int connectTimeoutMillis = 10_000;
+
+    @Value("${apiml.security.ssl.verifySslCertificatesOfServices:true}")
+    private boolean verifySslCertificatesOfServices = true;
+
+    @Value("${apiml.security.ssl.nonStrictVerifySslCertificatesOfServices:false}")
+    private boolean nonStrictVerifySslCertificatesOfServices;
+
+    @Bean(SSE_WEB_CLIENT)
+    public WebClient sseWebClient(@Qualifier("secureSslContext") SSLContext secureSslContext) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("sse")
+            .maxConnections(maxConnections)
+            .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMillis))
+            .maxIdleTime(Duration.ofMillis(maxIdleTimeMillis))
+            .build();
+
+        SslContext sslContext = new JdkSslContext(secureSslContext, true, ClientAuth.NONE);
+        boolean verifyHostname = verifySslCertificatesOfServices && !nonStrictVerifySslCertificatesOfServices;
+        log.debug("Creating client for Server-Sent Events with maximum {} connections, hostname verification: {}", maxConnections, verifyHostname);
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMillis)
+            .secure(sslContextSpec -> {
+                sslContextSpec.sslContext(sslContext);
+                if (!verifyHostname) {
+                    sslContextSpec.handlerConfigurator(sslHandler -> disableHostnameVerification(sslHandler.engine()));
+                }
+            });
+
+        return WebClient.builder()
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .build();
+    }
+
+    private static void disableHostnameVerification(SSLEngine engine) {
+        SSLParameters sslParameters = engine.getSSLParameters();
+        sslParameters.setEndpointIdentificationAlgorithm(null);
+        engine.setSSLParameters(sslParameters);
+    }
+
+}
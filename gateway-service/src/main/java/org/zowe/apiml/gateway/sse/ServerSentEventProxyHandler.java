@@ -10,10 +10,13 @@
 
 package org.zowe.apiml.gateway.sse;
 
+import com.google.common.base.Utf8;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.client.ServiceInstance;
-import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Component;
@@ -21,13 +24,17 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.zowe.apiml.gateway.metrics.ConnectionMeter;
+import org.zowe.apiml.gateway.metrics.ConnectionMetrics;
 import org.zowe.apiml.message.core.Message;
 import org.zowe.apiml.message.core.MessageService;
 import org.zowe.apiml.product.routing.RoutedService;
 import org.zowe.apiml.product.routing.RoutedServices;
 import org.zowe.apiml.product.routing.RoutedServicesUser;
 import org.zowe.apiml.util.UrlUtils;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -43,14 +50,23 @@ import java.util.function.Consumer;
 @Controller
 @Component("ServerSentEventProxyHandler")
 public class ServerSentEventProxyHandler implements RoutedServicesUser {
-    private final DiscoveryClient discovery;
+    private final LoadBalancerClient loadBalancerClient;
     private final MessageService messageService;
+    private final WebClient webClient;
+    private final ConnectionMetrics connectionMetrics;
     private final Map<String, RoutedServices> routedServicesMap = new ConcurrentHashMap<>();
 
+    // number of the events requested from the service in advance of sending them to the client
+    @Value("${apiml.gateway.sse.prefetch:32}")
+    private int prefetch = 32;
+
     @Autowired
-    public ServerSentEventProxyHandler(DiscoveryClient discovery, MessageService messageService) {
-        this.discovery = discovery;
+    public ServerSentEventProxyHandler(LoadBalancerClient loadBalancerClient, MessageService messageService,
+                                       @Qualifier(ServerSentEventConfig.SSE_WEB_CLIENT) WebClient webClient, ConnectionMetrics connectionMetrics) {
+        this.loadBalancerClient = loadBalancerClient;
         this.messageService = messageService;
+        this.webClient = webClient;
+        this.connectionMetrics = connectionMetrics;
     }
 
     @GetMapping({"/sse/**","/*/sse/**"})
@@ -88,11 +104,38 @@ public class ServerSentEventProxyHandler implements RoutedServicesUser {
         }
 
         String targetUrl = getTargetUrl(serviceInstance, routedService.getServiceUrl(), path, request.getQueryString());
-        getSseStream(targetUrl).subscribe(consumer(emitter), emitter::completeWithError, emitter::complete);
+        ConnectionMeter meter = connectionMetrics.open(ConnectionMetrics.SSE, serviceId);
+        forward(getSseStream(targetUrl, meter), emitter, meter);
 
         return emitter;
     }
 
+    /**
+     * Send the events to the client. The events are sent outside the event loop of the client and only the prefetched
+     * amount is requested from the service, so a slow client slows down reading of the stream instead of buffering it.
+     * The stream is cancelled once the emitter is completed, i.e. the client disconnects.
+     */
+    // package protected for unit testing
+    Disposable forward(Flux<ServerSentEvent<String>> stream, SseEmitter emitter, ConnectionMeter meter) {
+        Disposable subscription = stream
+            .doOnNext(event -> meter.messageToClient(event.data() == null ? 0 : Utf8.encodedLength(event.data())))
+            .publishOn(Schedulers.boundedElastic(), prefetch)
+            .subscribe(consumer(emitter), emitter::completeWithError, emitter::complete);
+        emitter.onCompletion(() -> {
+            subscription.dispose();
+            meter.closed("completed");
+        });
+        emitter.onTimeout(() -> {
+            subscription.dispose();
+            meter.closed("timeout");
+        });
+        emitter.onError(error -> {
+            subscription.dispose();
+            meter.closed("error");
+        });
+        return subscription;
+    }
+
     // package protected for unit testing
     Consumer<ServerSentEvent<String>> consumer(SseEmitter emitter) {
         return content -> {
@@ -104,15 +147,26 @@ public class ServerSentEventProxyHandler implements RoutedServicesUser {
         };
     }
 
+    /**
+     * Open the stream of the service. The handshake is measured once the response status arrives, a status other than
+     * 2xx and an error before the response are measured as a failure.
+     */
     // package protected for unit testing
-    Flux<ServerSentEvent<String>> getSseStream(String sseStreamUrl) {
-        WebClient client = WebClient.create(sseStreamUrl);
+    Flux<ServerSentEvent<String>> getSseStream(String sseStreamUrl, ConnectionMeter meter) {
         ParameterizedTypeReference<ServerSentEvent<String>> type
             = new ParameterizedTypeReference<ServerSentEvent<String>>() {
         };
-        return client.get()
-            .retrieve()
-            .bodyToFlux(type);
+        return webClient.get()
+            .uri(sseStreamUrl)
+            .exchangeToFlux(response -> {
+                boolean success = response.statusCode().is2xxSuccessful();
+                meter.handshakeFinished(success);
+                if (!success) {
+                    return response.createException().flatMapMany(Flux::error);
+                }
+                return response.bodyToFlux(type);
+            })
+            .doOnError(error -> meter.handshakeFinished(false));
     }
 
     private List<String> getUriParts(String uri) {
@@ -132,8 +186,7 @@ public class ServerSentEventProxyHandler implements RoutedServicesUser {
     }
 
     private ServiceInstance findServiceInstance(String serviceId) {
-        List<ServiceInstance> serviceInstances = this.discovery.getInstances(serviceId);
-        return serviceInstances.isEmpty() ? null : serviceInstances.get(0);
+        return loadBalancerClient.choose(serviceId);
     }
 
     private String getTargetUrl(ServiceInstance serviceInstance, String serviceUrl, String path, String queryParameterString) {
@@ -0,0 +1,285 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.ws;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Session sending the messages asynchronously through a bounded queue, see {@link WebSocketFlowControl}. Only one
+ * message of the session is sent at a time, in the order they were queued.
+ */
+@Slf4j
+public class FlowControlledWebSocketSession extends WebSocketSessionDecorator {
+
+    static final CloseStatus QUEUE_OVERFLOW = CloseStatus.POLICY_VIOLATION.withReason("Too many messages waiting to be sent");
+    static final CloseStatus SEND_REJECTED = CloseStatus.SERVICE_OVERLOAD.withReason("Too many sessions waiting to send messages");
+
+    private final WebSocketFlowControl flowControl;
+
+    // guarded by this
+    private final Deque<QueuedMessage> queue = new ArrayDeque<>();
+    private long queuedBytes;
+    private boolean draining;
+    private boolean closed;
+    // status of the close requested while the messages were still queued
+    private CloseStatus pendingClose;
+
+    private final AtomicLong sentMessages = new AtomicLong();
+    private final AtomicLong droppedMessages = new AtomicLong();
+    private final AtomicLong totalSendLatencyNanos = new AtomicLong();
+    private final AtomicLong maxSendLatencyNanos = new AtomicLong();
+
+    FlowControlledWebSocketSession(WebSocketSession delegate, WebSocketFlowControl flowControl) {
+        super(delegate);
+        this.flowControl = flowControl;
+    }
+
+    /**
+     * Queue the message. The method returns once the message is queued, not when it is sent. If the queue is full,
+     * the overflow policy is applied.
+     *
+     * @throws IOException if the session is closed or it was closed because of the overflow
+     */
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        QueuedMessage queuedMessage = new QueuedMessage(message, message.getPayloadLength(), System.nanoTime());
+        boolean startDrain = false;
+        boolean overflow = false;
+        synchronized (this) {
+            checkOpen();
+            if (!queue.isEmpty() && (queuedBytes + queuedMessage.size > flowControl.getHighWatermark()) && !handleOverflow()) {
+                overflow = true;
+            } else {
+                queue.add(queuedMessage);
+                queuedBytes += queuedMessage.size;
+                startDrain = !draining;
+                draining = true;
+            }
+        }
+
+        if (overflow) {
+            closeOnOverflow();
+            throw new IOException("Too many messages waiting to be sent to the WebSocket session " + getId());
+        }
+        if (startDrain) {
+            startDrain();
+        }
+    }
+
+    /**
+     * @return true if the message can be queued, false if the session has to be closed
+     */
+    private boolean handleOverflow() throws IOException {
+        switch (flowControl.getPolicy()) {
+            case BLOCK:
+                return awaitLowWatermark();
+            case DROP_OLDEST:
+                while (!queue.isEmpty() && (queuedBytes > flowControl.getLowWatermark())) {
+                    queuedBytes -= queue.poll().size;
+                    droppedMessages.incrementAndGet();
+                }
+                return true;
+            case CLOSE:
+            default:
+                return false;
+        }
+    }
+
+    private boolean awaitLowWatermark() throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flowControl.getBlockTimeoutMillis());
+        try {
+            while (queuedBytes > flowControl.getLowWatermark()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                checkOpen();
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting to send to the WebSocket session " + getId(), e);
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed || (pendingClose != null)) {
+            throw new IOException("The WebSocket session " + getId() + " is closed");
+        }
+    }
+
+    private void startDrain() {
+        try {
+            flowControl.getExecutor().execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            log.debug("Cannot send messages to the WebSocket session {}: {}", getId(), e.getMessage());
+            discard();
+            closeQuietly(SEND_REJECTED);
+        }
+    }
+
+    /**
+     * Send a batch of the queued messages. If more messages remain, the drain is submitted again, so the thread is
+     * released to the other waiting sessions meanwhile.
+     */
+    private void drain() {
+        int budget = flowControl.getDrainBatchSize();
+        QueuedMessage queuedMessage;
+        while ((queuedMessage = poll()) != null) {
+            try {
+                getDelegate().sendMessage(queuedMessage.message);
+            } catch (IOException | RuntimeException e) {
+                log.debug("Error sending WebSocket message to the session {}: {}", getId(), e.getMessage());
+                discard();
+                closeQuietly(CloseStatus.SESSION_NOT_RELIABLE);
+                return;
+            }
+            recordLatency(System.nanoTime() - queuedMessage.queuedAt);
+            if (--budget == 0) {
+                // the session is still draining, the next task polls the rest or finishes the drain
+                startDrain();
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the next message to send or null if the queue is empty, the requested close is done in such case
+     */
+    private QueuedMessage poll() {
+        CloseStatus closeStatus;
+        synchronized (this) {
+            QueuedMessage queuedMessage = closed ? null : queue.poll();
+            if (queuedMessage != null) {
+                queuedBytes -= queuedMessage.size;
+                if (queuedBytes <= flowControl.getLowWatermark()) {
+                    notifyAll();
+                }
+                return queuedMessage;
+            }
+
+            draining = false;
+            closeStatus = closed ? null : pendingClose;
+            if (closeStatus != null) {
+                closed = true;
+            }
+        }
+
+        if (closeStatus != null) {
+            closeQuietly(closeStatus);
+        }
+        return null;
+    }
+
+    private void recordLatency(long latencyNanos) {
+        sentMessages.incrementAndGet();
+        totalSendLatencyNanos.addAndGet(latencyNanos);
+        maxSendLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+    }
+
+    private synchronized void discard() {
+        closed = true;
+        draining = false;
+        droppedMessages.addAndGet(queue.size());
+        queue.clear();
+        queuedBytes = 0;
+        notifyAll();
+    }
+
+    private void closeOnOverflow() {
+        log.debug("The send queue of the WebSocket session {} is full, closing it", getId());
+        discard();
+        closeQuietly(QUEUE_OVERFLOW);
+    }
+
+    private void closeQuietly(CloseStatus status) {
+        try {
+            if (getDelegate().isOpen()) {
+                getDelegate().close(status);
+            }
+        } catch (IOException e) {
+            log.debug("Error closing WebSocket session {}: {}", getId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        close(CloseStatus.NORMAL);
+    }
+
+    /**
+     * Close the session once all the queued messages are sent.
+     */
+    @Override
+    public void close(CloseStatus status) throws IOException {
+        synchronized (this) {
+            if (closed || (pendingClose != null)) {
+                return;
+            }
+            if (draining) {
+                pendingClose = status;
+                notifyAll();
+                return;
+            }
+            closed = true;
+        }
+        super.close(status);
+    }
+
+    public synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    public synchronized long getQueuedBytes() {
+        return queuedBytes;
+    }
+
+    public long getSentMessages() {
+        return sentMessages.get();
+    }
+
+    public long getDroppedMessages() {
+        return droppedMessages.get();
+    }
+
+    /**
+     * @return average time between queueing and sending of the message in milliseconds
+     */
+    public double getAverageSendLatencyMillis() {
+        long sent = sentMessages.get();
+        return sent == 0 ? 0 : totalSendLatencyNanos.get() / (sent * 1_000_000.0);
+    }
+
+    public double getMaxSendLatencyMillis() {
+        return maxSendLatencyNanos.get() / 1_000_000.0;
+    }
+
+    @RequiredArgsConstructor
+    private static class QueuedMessage {
+        private final WebSocketMessage<?> message;
+        private final int size;
+        private final long queuedAt;
+    }
+
+}
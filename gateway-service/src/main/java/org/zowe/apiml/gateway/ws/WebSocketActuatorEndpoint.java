@@ -47,9 +47,28 @@ public class WebSocketActuatorEndpoint {
             map.put("serviceUrl", currentSession.getClientUri());
             map.put("serviceSessionId", currentSession.getClientId());
 
+            addQueueMetrics(map, "client", currentSession.getServerSendQueue());
+            addQueueMetrics(map, "service", currentSession.getClientSendQueue());
+
             result.add(map);
         }
 
         return result;
     }
+
+    /**
+     * Add the metrics of the queue sending the messages to the client or to the service, if there is any.
+     */
+    private void addQueueMetrics(Map<String, String> map, String direction, FlowControlledWebSocketSession queue) {
+        if (queue == null) {
+            return;
+        }
+
+        map.put(direction + "QueueDepth", String.valueOf(queue.getQueueDepth()));
+        map.put(direction + "QueuedBytes", String.valueOf(queue.getQueuedBytes()));
+        map.put(direction + "SentMessages", String.valueOf(queue.getSentMessages()));
+        map.put(direction + "DroppedMessages", String.valueOf(queue.getDroppedMessages()));
+        map.put(direction + "AverageSendLatencyMillis", String.valueOf(queue.getAverageSendLatencyMillis()));
+        map.put(direction + "MaxSendLatencyMillis", String.valueOf(queue.getMaxSendLatencyMillis()));
+    }
 }
@@ -0,0 +1,143 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.ws;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Settings of the flow control of the proxied WebSocket messages. Each direction of the routed session has its own
+ * bounded send queue, which is drained by a shared executor, so the thread receiving the messages is not blocked by
+ * a slow consumer.
+ *
+ * The executor is bounded. At most maxSendThreads sessions are sent to at the same time, further sessions with queued
+ * messages wait for a free thread up to maxWaitingSessions. A session that does not fit is closed with the status
+ * 1013 (try again later). A thread sends at most drainBatchSize messages of a session before it serves the next
+ * waiting session, so busy sessions cannot hold all the threads.
+ *
+ * Once the queued bytes exceed the high watermark, the overflow policy is applied. The low watermark is the level
+ * the queue has to drop to before a blocked producer can continue, or to which the oldest messages are dropped.
+ */
+@Component
+@Getter
+@Slf4j
+public class WebSocketFlowControl {
+
+    public enum OverflowPolicy {
+
+        /**
+         * The producer waits until the queue drops to the low watermark. If it takes longer than the block timeout,
+         * the session is closed with the status 1008.
+         */
+        BLOCK,
+
+        /**
+         * The oldest queued messages are dropped until the queue drops to the low watermark.
+         */
+        DROP_OLDEST,
+
+        /**
+         * The session is closed with the status 1008 (policy violation).
+         */
+        CLOSE
+
+    }
+
+    static final int DEFAULT_DRAIN_BATCH_SIZE = 32;
+
+    private final long highWatermark;
+    private final long lowWatermark;
+    private final OverflowPolicy policy;
+    private final long blockTimeoutMillis;
+    private final int drainBatchSize;
+    private final Executor executor;
+
+    @Autowired
+    public WebSocketFlowControl(
+        @Value("${server.webSocket.flowControl.highWatermark:1048576}") long highWatermark,
+        @Value("${server.webSocket.flowControl.lowWatermark:262144}") long lowWatermark,
+        @Value("${server.webSocket.flowControl.policy:BLOCK}") OverflowPolicy policy,
+        @Value("${server.webSocket.flowControl.blockTimeoutMillis:10000}") long blockTimeoutMillis,
+        @Value("${server.webSocket.flowControl.maxSendThreads:50}") int maxSendThreads,
+        @Value("${server.webSocket.flowControl.maxWaitingSessions:1000}") int maxWaitingSessions,
+        @Value("${server.webSocket.flowControl.drainBatchSize:32}") int drainBatchSize
+    ) {
+        this(highWatermark, lowWatermark, policy, blockTimeoutMillis, drainBatchSize, createExecutor(maxSendThreads, maxWaitingSessions));
+    }
+
+    WebSocketFlowControl(long highWatermark, long lowWatermark, OverflowPolicy policy, long blockTimeoutMillis, Executor executor) {
+        this(highWatermark, lowWatermark, policy, blockTimeoutMillis, DEFAULT_DRAIN_BATCH_SIZE, executor);
+    }
+
+    WebSocketFlowControl(long highWatermark, long lowWatermark, OverflowPolicy policy, long blockTimeoutMillis, int drainBatchSize,
+                         Executor executor) {
+        if (lowWatermark > highWatermark) {
+            throw new IllegalArgumentException("The low watermark cannot be higher than the high watermark");
+        }
+        if (drainBatchSize < 1) {
+            throw new IllegalArgumentException("The drain batch size has to be positive");
+        }
+
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+        this.policy = policy;
+        this.blockTimeoutMillis = blockTimeoutMillis;
+        this.drainBatchSize = drainBatchSize;
+        this.executor = executor;
+    }
+
+    /**
+     * The sending is blocking, so each thread serves one session at a time. The rejected tasks are not run by the
+     * caller, the session is closed instead, see {@link FlowControlledWebSocketSession}.
+     */
+    static ThreadPoolExecutor createExecutor(int maxSendThreads, int maxWaitingSessions) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxSendThreads, maxSendThreads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(maxWaitingSessions),
+            runnable -> {
+                Thread thread = new Thread(runnable, "websocket-send-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * @return the session sending the messages through a bounded queue
+     */
+    public FlowControlledWebSocketSession decorate(WebSocketSession session) {
+        return new FlowControlledWebSocketSession(session, this);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        log.debug("Stopping the sending of WebSocket messages");
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdownNow();
+        }
+    }
+
+}
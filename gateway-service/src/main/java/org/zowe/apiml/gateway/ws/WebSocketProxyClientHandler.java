@@ -18,6 +18,8 @@ import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.zowe.apiml.gateway.metrics.ConnectionMeter;
+import org.zowe.apiml.gateway.metrics.ConnectionMetrics;
 
 import java.util.concurrent.TimeoutException;
 
@@ -27,14 +29,21 @@ import java.util.concurrent.TimeoutException;
 @Slf4j
 public class WebSocketProxyClientHandler extends AbstractWebSocketHandler {
     private final WebSocketSession webSocketServerSession;
+    private final ConnectionMeter meter;
 
     public WebSocketProxyClientHandler(WebSocketSession webSocketServerSession) {
+        this(webSocketServerSession, ConnectionMetrics.NONE.open(ConnectionMetrics.WEBSOCKET, null));
+    }
+
+    public WebSocketProxyClientHandler(WebSocketSession webSocketServerSession, ConnectionMeter meter) {
         this.webSocketServerSession = webSocketServerSession;
+        this.meter = meter;
     }
 
     @Override
     public void handleMessage(WebSocketSession session, WebSocketMessage<?> webSocketMessage) throws Exception {
         log.debug("handleMessage(session={},message={})", session, webSocketMessage);
+        meter.messageToClient(webSocketMessage.getPayloadLength());
         webSocketServerSession.sendMessage(webSocketMessage);
     }
 
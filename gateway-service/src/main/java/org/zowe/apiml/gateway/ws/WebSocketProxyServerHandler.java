@@ -15,26 +15,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
-import org.springframework.context.ApplicationContext;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.SubProtocolCapable;
 import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.zowe.apiml.gateway.metrics.ConnectionMetrics;
 import org.zowe.apiml.product.routing.RoutedService;
 import org.zowe.apiml.product.routing.RoutedServices;
 import org.zowe.apiml.product.routing.RoutedServicesUser;
 
-import javax.annotation.PostConstruct;
 import javax.inject.Singleton;
 import java.io.IOException;
 import java.net.URI;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -61,24 +57,18 @@ public class WebSocketProxyServerHandler extends AbstractWebSocketHandler implem
     private final WebSocketClientFactory webSocketClientFactory;
     private static final String SEPARATOR = "/";
     private final LoadBalancerClient lbCLient;
-    private ApplicationContext context;
-    private WebSocketProxyServerHandler meAsProxy;
 
     @Autowired
-    public WebSocketProxyServerHandler(WebSocketClientFactory webSocketClientFactory, LoadBalancerClient lbCLient, ApplicationContext context) {
+    public WebSocketProxyServerHandler(WebSocketClientFactory webSocketClientFactory, LoadBalancerClient lbCLient, WebSocketFlowControl flowControl,
+                                       ConnectionMetrics connectionMetrics, @Value("${server.webSocket.maxPendingMessages:100}") int maxPendingMessages,
+                                       @Value("${server.webSocket.handshakeTimeoutMillis:30000}") long handshakeTimeoutMillis) {
         this.webSocketClientFactory = webSocketClientFactory;
         this.routedSessions = new ConcurrentHashMap<>();  // Default
-        this.webSocketRoutedSessionFactory = new WebSocketRoutedSessionFactoryImpl();
+        this.webSocketRoutedSessionFactory = new WebSocketRoutedSessionFactoryImpl(maxPendingMessages, handshakeTimeoutMillis, flowControl, connectionMetrics);
         this.lbCLient = lbCLient;
-        this.context = context;
         log.debug("Creating WebSocketProxyServerHandler {} ", this);
     }
 
-    @PostConstruct
-    private void initBean() {
-        meAsProxy = context.getBean(WebSocketProxyServerHandler.class);
-    }
-
     public WebSocketProxyServerHandler(WebSocketClientFactory webSocketClientFactory,
                                        Map<String, WebSocketRoutedSession> routedSessions, WebSocketRoutedSessionFactory webSocketRoutedSessionFactory, LoadBalancerClient lbCLient) {
         this.webSocketClientFactory = webSocketClientFactory;
@@ -137,18 +127,21 @@ public class WebSocketProxyServerHandler extends AbstractWebSocketHandler implem
         }
 
         try {
-            meAsProxy.openConn(serviceId, service, webSocketSession, path);
+            openConn(serviceId, service, webSocketSession, path);
         } catch (WebSocketProxyError e) {
             log.debug("Error opening WebSocket connection to: {}, {}", service.getServiceUrl(), e.getMessage());
             webSocketSession.close(CloseStatus.NOT_ACCEPTABLE.withReason(e.getMessage()));
         }
     }
 
-    @Retryable(value = WebSocketProxyError.class, backoff = @Backoff(value = 1000))
+    /**
+     * Start routing of the session to an instance of the service. The handshake with the instance is asynchronous,
+     * so the calling thread is not blocked by a slow or unavailable service.
+     */
     void openConn(String serviceId, RoutedService service, WebSocketSession webSocketSession, String path) throws IOException {
         ServiceInstance serviceInstance = this.lbCLient.choose(serviceId);
         if (serviceInstance != null) {
-            openWebSocketConnection(service, serviceInstance, serviceInstance, path, webSocketSession);
+            openWebSocketConnection(serviceId, service, serviceInstance, serviceInstance, path, webSocketSession);
         } else {
             closeWebSocket(webSocketSession, CloseStatus.SERVICE_RESTARTED,
                 String.format("Requested service %s does not have available instance", serviceId));
@@ -173,30 +166,25 @@ public class WebSocketProxyServerHandler extends AbstractWebSocketHandler implem
         return uriParts;
     }
 
-    private void openWebSocketConnection(RoutedService service, ServiceInstance serviceInstance, Object uri,
+    private void openWebSocketConnection(String serviceId, RoutedService service, ServiceInstance serviceInstance, Object uri,
                                          String path, WebSocketSession webSocketSession) {
         String serviceUrl = service.getServiceUrl();
         String targetUrl = getTargetUrl(serviceUrl, serviceInstance, path);
 
         log.debug(String.format("Opening routed WebSocket session from %s to %s with %s by %s", uri.toString(), targetUrl, webSocketClientFactory, this));
 
-        WebSocketRoutedSession session = webSocketRoutedSessionFactory.session(webSocketSession, targetUrl, webSocketClientFactory);
+        // the failed handshake is retried with the instance chosen again, the failing one could be gone meanwhile
+        WebSocketRoutedSession session = webSocketRoutedSessionFactory.session(webSocketSession, serviceId, targetUrl, () -> {
+            ServiceInstance nextInstance = lbCLient.choose(serviceId);
+            return nextInstance != null ? getTargetUrl(serviceUrl, nextInstance, path) : null;
+        }, webSocketClientFactory);
         routedSessions.put(webSocketSession.getId(), session);
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
-        // if the browser closes the session, close the GWs client one as well.
-        Optional.ofNullable(routedSessions.get(session.getId()))
-            .map(WebSocketRoutedSession::getWebSocketClientSession)
-            .ifPresent(clientSession -> {
-                try {
-                    clientSession.close(status);
-                } catch (IOException e) {
-                    log.debug("Error closing WebSocket client connection {}: {}", clientSession.getId(), e.getMessage());
-                }
-            });
-        routedSessions.remove(session.getId());
+        // if the browser closes the session, close the GWs client one as well (or cancel its pending handshake).
+        close(routedSessions.remove(session.getId()), status);
     }
 
     private void close(WebSocketRoutedSession webSocketRoutedSession, CloseStatus status) {
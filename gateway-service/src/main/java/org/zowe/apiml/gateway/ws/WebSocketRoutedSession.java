@@ -11,40 +11,153 @@
 package org.zowe.apiml.gateway.ws;
 
 import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jetty.websocket.api.CloseException;
 import org.eclipse.jetty.websocket.api.UpgradeException;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
 import org.springframework.util.concurrent.ListenableFuture;
 import org.springframework.web.socket.*;
 import org.springframework.web.socket.client.jetty.JettyWebSocketClient;
+import org.zowe.apiml.gateway.metrics.ConnectionMeter;
+import org.zowe.apiml.gateway.metrics.ConnectionMetrics;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.URI;
-import java.util.concurrent.ExecutionException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Represents a connection in the proxying chain, establishes 'client' to
  * 'server' communication with the next server, with a
  * {@link WebSocketProxyClientHandler} to copy data from the 'client' to the
  * supplied 'server' session.
+ *
+ * The handshake with the next server is asynchronous. Until it is finished, the session is pending and the messages
+ * from the 'server' session are buffered up to the given limit. If the handshake fails before the service answered the
+ * upgrade request, it is retried after a delay up to {@link #MAX_CONNECT_ATTEMPTS} times in total, each time with the
+ * URL given by the supplier, which can choose another instance of the service. Once the handshake fails for good, the
+ * 'server' session is closed with the status derived from the failure. If the handshake is not finished within the
+ * handshake timeout, it is cancelled and the 'server' session is closed with the status 1011.
  */
 @Slf4j
 public class WebSocketRoutedSession {
-    private static final int DEFAULT_TIMEOUT = 30000;
+    static final int DEFAULT_MAX_PENDING_MESSAGES = 100;
+    static final long DEFAULT_HANDSHAKE_TIMEOUT_MILLIS = 30000;
+    static final CloseStatus HANDSHAKE_TIMEOUT_STATUS = CloseStatus.SERVER_ERROR.withReason("Handshake with WebSocket service timed out");
+    static final CloseStatus NO_INSTANCE_STATUS = CloseStatus.SERVICE_RESTARTED.withReason("WebSocket service does not have available instance");
+    static final int MAX_CONNECT_ATTEMPTS = 3;
+    static final long CONNECT_RETRY_DELAY_MILLIS = 1000;
+
+    private static final ScheduledExecutorService HANDSHAKE_TIMEOUTS = createHandshakeScheduler();
 
-    private final WebSocketSession webSocketClientSession;
     private final WebSocketSession webSocketServerSession;
+    // the session used to send the messages from the service to the client, it could apply the flow control
+    private final WebSocketSession webSocketServerSender;
+    private final WebSocketFlowControl flowControl;
+    private final ConnectionMeter meter;
+    // URL of the instance for the next attempt of the handshake, null if there is no available instance
+    private final Supplier<String> targetUrls;
+    private final WebSocketClientFactory webSocketClientFactory;
+    private final int maxPendingMessages;
+    private final long handshakeTimeoutMillis;
+    private final ScheduledExecutorService timeoutScheduler;
+    // messages received before the handshake was finished, guarded by this
+    private final Queue<WebSocketMessage<?>> pendingMessages = new ArrayDeque<>();
+
+    private volatile String targetUrl;
+    private volatile WebSocketSession webSocketClientSession;
+    private ListenableFuture<WebSocketSession> futureSession;
+    private ScheduledFuture<?> handshakeTimeout;
+    private ScheduledFuture<?> connectRetry;
+    private int connectAttempts;
+    private CloseStatus closeStatus;
 
     public WebSocketRoutedSession(WebSocketSession webSocketServerSession, String targetUrl, WebSocketClientFactory webSocketClientFactory) {
+        this(webSocketServerSession, targetUrl, webSocketClientFactory, DEFAULT_MAX_PENDING_MESSAGES);
+    }
+
+    public WebSocketRoutedSession(WebSocketSession webSocketServerSession, String targetUrl, WebSocketClientFactory webSocketClientFactory, int maxPendingMessages) {
+        this(webSocketServerSession, targetUrl, webSocketClientFactory, maxPendingMessages, null,
+            ConnectionMetrics.NONE.open(ConnectionMetrics.WEBSOCKET, null));
+    }
+
+    /**
+     * @param flowControl settings of the send queues of both directions, null to send the messages synchronously
+     * @param meter       meters of the connection, it is closed together with the session
+     */
+    public WebSocketRoutedSession(WebSocketSession webSocketServerSession, String targetUrl, WebSocketClientFactory webSocketClientFactory,
+                                  int maxPendingMessages, WebSocketFlowControl flowControl, ConnectionMeter meter) {
+        this(webSocketServerSession, targetUrl, webSocketClientFactory, maxPendingMessages, DEFAULT_HANDSHAKE_TIMEOUT_MILLIS, flowControl, meter);
+    }
+
+    /**
+     * @param handshakeTimeoutMillis time to finish the handshake with the next server, 0 or less to wait without limit
+     * @param flowControl            settings of the send queues of both directions, null to send the messages synchronously
+     * @param meter                  meters of the connection, it is closed together with the session
+     */
+    public WebSocketRoutedSession(WebSocketSession webSocketServerSession, String targetUrl, WebSocketClientFactory webSocketClientFactory,
+                                  int maxPendingMessages, long handshakeTimeoutMillis, WebSocketFlowControl flowControl, ConnectionMeter meter) {
+        this(webSocketServerSession, targetUrl, () -> targetUrl, webSocketClientFactory, maxPendingMessages, handshakeTimeoutMillis,
+            flowControl, meter);
+    }
+
+    /**
+     * @param targetUrl  URL of the first attempt of the handshake
+     * @param targetUrls URL of the instance for the retried handshake, null if the service has no available instance
+     */
+    public WebSocketRoutedSession(WebSocketSession webSocketServerSession, String targetUrl, Supplier<String> targetUrls,
+                                  WebSocketClientFactory webSocketClientFactory, int maxPendingMessages, long handshakeTimeoutMillis,
+                                  WebSocketFlowControl flowControl, ConnectionMeter meter) {
+        this(webSocketServerSession, targetUrl, targetUrls, webSocketClientFactory, maxPendingMessages, handshakeTimeoutMillis,
+            HANDSHAKE_TIMEOUTS, flowControl, meter);
+    }
+
+    WebSocketRoutedSession(WebSocketSession webSocketServerSession, String targetUrl, Supplier<String> targetUrls,
+                           WebSocketClientFactory webSocketClientFactory, int maxPendingMessages, long handshakeTimeoutMillis,
+                           ScheduledExecutorService timeoutScheduler, WebSocketFlowControl flowControl, ConnectionMeter meter) {
         this.webSocketServerSession = webSocketServerSession;
-        this.webSocketClientSession = createWebSocketClientSession(webSocketServerSession, targetUrl, webSocketClientFactory);
+        this.flowControl = flowControl;
+        this.meter = meter;
+        this.webSocketServerSender = decorate(webSocketServerSession);
+        this.targetUrl = targetUrl;
+        this.targetUrls = targetUrls;
+        this.webSocketClientFactory = webSocketClientFactory;
+        this.maxPendingMessages = maxPendingMessages;
+        this.handshakeTimeoutMillis = handshakeTimeoutMillis;
+        this.timeoutScheduler = timeoutScheduler;
+        connect();
     }
 
     public WebSocketRoutedSession(WebSocketSession webSocketServerSession, WebSocketSession webSocketClientSession) {
         this.webSocketClientSession = webSocketClientSession;
         this.webSocketServerSession = webSocketServerSession;
+        this.webSocketServerSender = webSocketServerSession;
+        this.flowControl = null;
+        this.meter = ConnectionMetrics.NONE.open(ConnectionMetrics.WEBSOCKET, null);
+        this.targetUrl = null;
+        this.targetUrls = null;
+        this.webSocketClientFactory = null;
+        this.maxPendingMessages = 0;
+        this.handshakeTimeoutMillis = 0;
+        this.timeoutScheduler = null;
+    }
+
+    private static ScheduledExecutorService createHandshakeScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "websocket-handshake-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // most of the timeouts are cancelled, do not keep them in the queue until they would expire
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
     }
 
     private WebSocketHttpHeaders getWebSocketHttpHeaders(WebSocketSession webSocketServerSession) {
@@ -58,6 +171,9 @@ public class WebSocketRoutedSession {
         return headers;
     }
 
+    /**
+     * @return the session to the next server or null if the handshake was not finished yet
+     */
     public WebSocketSession getWebSocketClientSession() {
         return webSocketClientSession;
     }
@@ -66,44 +182,233 @@ public class WebSocketRoutedSession {
         return webSocketServerSession;
     }
 
-    private WebSocketSession createWebSocketClientSession(WebSocketSession webSocketServerSession, String targetUrl, WebSocketClientFactory webSocketClientFactory) {
+    private WebSocketSession decorate(WebSocketSession session) {
+        return flowControl != null ? flowControl.decorate(session) : session;
+    }
+
+    /**
+     * @return queue of the messages sent to the client or null if there is no flow control
+     */
+    public FlowControlledWebSocketSession getServerSendQueue() {
+        return asSendQueue(webSocketServerSender);
+    }
+
+    /**
+     * @return queue of the messages sent to the service or null if there is no flow control or no session yet
+     */
+    public FlowControlledWebSocketSession getClientSendQueue() {
+        return asSendQueue(webSocketClientSession);
+    }
+
+    private static FlowControlledWebSocketSession asSendQueue(WebSocketSession session) {
+        return (session instanceof FlowControlledWebSocketSession) ? (FlowControlledWebSocketSession) session : null;
+    }
+
+    public boolean isPending() {
+        return webSocketClientSession == null;
+    }
+
+    /**
+     * Start the handshake with the next server. The method does not wait for the result, only the errors raised before
+     * the handshake is sent are thrown.
+     */
+    private void connect() {
         try {
             JettyWebSocketClient client = webSocketClientFactory.getClientInstance();
             URI targetURI = new URI(targetUrl);
             WebSocketHttpHeaders headers = getWebSocketHttpHeaders(webSocketServerSession);
-            ListenableFuture<WebSocketSession> futureSession = client
-                .doHandshake(new WebSocketProxyClientHandler(webSocketServerSession), headers, targetURI);
-            return futureSession.get(DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS);
+            ListenableFuture<WebSocketSession> future = client
+                .doHandshake(new WebSocketProxyClientHandler(webSocketServerSender, meter), headers, targetURI);
+            synchronized (this) {
+                connectAttempts++;
+                futureSession = future;
+                if (handshakeTimeoutMillis > 0) {
+                    handshakeTimeout = timeoutScheduler.schedule(this::onHandshakeTimeout, handshakeTimeoutMillis, TimeUnit.MILLISECONDS);
+                }
+            }
+            future.addCallback(this::onConnected, this::onConnectionFailed);
         } catch (IllegalStateException e) {
-            throw webSocketProxyException(targetUrl, e, webSocketServerSession, true);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw webSocketProxyException(targetUrl, e, webSocketServerSession, false);
-        } catch (ExecutionException e) {
-            throw handleExecutionException(targetUrl, e, webSocketServerSession, false);
+            throw connectionFailed(e, true);
         } catch (Exception e) {
-            throw webSocketProxyException(targetUrl, e, webSocketServerSession, false);
+            throw connectionFailed(e, false);
         }
     }
 
-    private WebSocketProxyError handleExecutionException(String targetUrl, ExecutionException cause, WebSocketSession webSocketServerSession, boolean logError) {
-        if (cause.getCause() != null && cause.getCause().getCause() instanceof UpgradeException) {
-            UpgradeException upgradeException = (UpgradeException) cause.getCause().getCause();
-            if (upgradeException.getResponseStatusCode() == HttpStatus.UNAUTHORIZED.value()) {
-                String message = "Invalid login credentials";
-                if (logError) {
-                    log.debug(message);
+    private WebSocketProxyError connectionFailed(Exception cause, boolean logError) {
+        meter.handshakeFinished(false);
+        meter.closed("handshakeError");
+        return webSocketProxyException(cause, logError);
+    }
+
+    void onConnected(WebSocketSession clientSession) {
+        synchronized (this) {
+            cancelHandshakeTimeout();
+        }
+
+        WebSocketSession clientSender = decorate(clientSession);
+        try {
+            // the buffered messages are sent outside the lock, the flow control could block the sending for a while,
+            // new messages are buffered until the buffer is empty to keep their order
+            List<WebSocketMessage<?>> batch;
+            while ((batch = takePendingMessages(clientSender)) != null) {
+                for (WebSocketMessage<?> message : batch) {
+                    clientSender.sendMessage(message);
                 }
-                return new WebSocketProxyError(message, cause, webSocketServerSession);
-            } else {
-                return webSocketProxyException(targetUrl, cause, webSocketServerSession, logError);
             }
-        } else {
-            return webSocketProxyException(targetUrl, cause, webSocketServerSession, logError);
+        } catch (IOException e) {
+            log.debug("Error sending buffered WebSocket messages to {}: {}", targetUrl, e.getMessage());
+            synchronized (this) {
+                if (closeStatus == null) {
+                    closeStatus = CloseStatus.SESSION_NOT_RELIABLE;
+                }
+                pendingMessages.clear();
+            }
+        }
+
+        if (webSocketClientSession == null) {
+            // the session was closed or broken meanwhile
+            closeQuietly(clientSession, closeStatus);
+            closeQuietly(webSocketServerSession, closeStatus);
         }
     }
 
-    private WebSocketProxyError webSocketProxyException(String targetUrl, Exception cause, WebSocketSession webSocketServerSession, boolean logError) {
+    /**
+     * @return the buffered messages or null if there are none, the session is open then, or it was closed meanwhile
+     */
+    private synchronized List<WebSocketMessage<?>> takePendingMessages(WebSocketSession clientSender) {
+        if (closeStatus != null) {
+            return null;
+        }
+        if (pendingMessages.isEmpty()) {
+            webSocketClientSession = clientSender;
+            meter.handshakeFinished(true);
+            return null;
+        }
+
+        List<WebSocketMessage<?>> batch = new ArrayList<>(pendingMessages);
+        pendingMessages.clear();
+        return batch;
+    }
+
+    void onConnectionFailed(Throwable cause) {
+        synchronized (this) {
+            cancelHandshakeTimeout();
+            if (closeStatus != null) {
+                return;
+            }
+            if ((connectAttempts < MAX_CONNECT_ATTEMPTS) && isRetriable(cause)) {
+                log.debug("Error opening session to WebSocket service at {}, the handshake will be retried: {}", targetUrl, cause.getMessage());
+                connectRetry = timeoutScheduler.schedule(this::reconnect, CONNECT_RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+                return;
+            }
+        }
+
+        log.debug("Error opening session to WebSocket service at {}: {}", targetUrl, cause.getMessage());
+        closeOnHandshakeFailure(getCloseStatus(cause));
+    }
+
+    /**
+     * Retry the handshake, possibly with another instance. It runs on the scheduler, so the instance is chosen and the
+     * handshake is started outside the lock.
+     */
+    void reconnect() {
+        synchronized (this) {
+            connectRetry = null;
+            if (closeStatus != null) {
+                return;
+            }
+        }
+
+        String nextTargetUrl = targetUrls.get();
+        if (nextTargetUrl == null) {
+            log.debug("There is no available instance to retry the handshake with WebSocket service at {}", targetUrl);
+            closeOnHandshakeFailure(NO_INSTANCE_STATUS);
+            return;
+        }
+
+        targetUrl = nextTargetUrl;
+        try {
+            connect();
+        } catch (WebSocketProxyError e) {
+            // the failure is already measured
+            synchronized (this) {
+                if (closeStatus != null) {
+                    return;
+                }
+                closeStatus = CloseStatus.NOT_ACCEPTABLE.withReason(e.getMessage());
+                pendingMessages.clear();
+            }
+            closeQuietly(webSocketServerSession, closeStatus);
+        }
+    }
+
+    private void closeOnHandshakeFailure(CloseStatus status) {
+        synchronized (this) {
+            if (closeStatus != null) {
+                return;
+            }
+            closeStatus = status;
+            pendingMessages.clear();
+        }
+        meter.handshakeFinished(false);
+        closeQuietly(webSocketServerSession, status);
+    }
+
+    /**
+     * The handshake is not retried once the service answered the upgrade request, unless it failed on the side of the
+     * service, another instance could succeed then.
+     */
+    private boolean isRetriable(Throwable cause) {
+        for (Throwable t = cause; t != null; t = t.getCause()) {
+            if (t instanceof UpgradeException) {
+                return ((UpgradeException) t).getResponseStatusCode() >= 500;
+            }
+            if (t instanceof CloseException) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void onHandshakeTimeout() {
+        ListenableFuture<WebSocketSession> pendingHandshake;
+        synchronized (this) {
+            if ((webSocketClientSession != null) || (closeStatus != null)) {
+                return;
+            }
+            closeStatus = HANDSHAKE_TIMEOUT_STATUS;
+            pendingMessages.clear();
+            pendingHandshake = futureSession;
+        }
+        pendingHandshake.cancel(true);
+        meter.handshakeFinished(false);
+
+        log.debug("Handshake with WebSocket service at {} was not finished within {} ms", targetUrl, handshakeTimeoutMillis);
+        closeQuietly(webSocketServerSession, closeStatus);
+    }
+
+    // guarded by this
+    private void cancelHandshakeTimeout() {
+        if (handshakeTimeout != null) {
+            handshakeTimeout.cancel(false);
+            handshakeTimeout = null;
+        }
+        if (connectRetry != null) {
+            connectRetry.cancel(false);
+            connectRetry = null;
+        }
+    }
+
+    private CloseStatus getCloseStatus(Throwable cause) {
+        for (Throwable t = cause; t != null; t = t.getCause()) {
+            if ((t instanceof UpgradeException) || (t instanceof CloseException)) {
+                return WebSocketProxyClientHandler.getCloseStatusByError(t);
+            }
+        }
+        return CloseStatus.NOT_ACCEPTABLE.withReason(webSocketProxyException(cause, false).getMessage());
+    }
+
+    private WebSocketProxyError webSocketProxyException(Throwable cause, boolean logError) {
         String message = String.format("Error opening session to WebSocket service at %s: %s", targetUrl, cause.getMessage());
         if (logError) {
             log.debug(message);
@@ -111,14 +416,70 @@ public class WebSocketRoutedSession {
         return new WebSocketProxyError(message, cause, webSocketServerSession);
     }
 
+    private void closeQuietly(WebSocketSession session, CloseStatus status) {
+        try {
+            if (session.isOpen()) {
+                session.close(status);
+            }
+        } catch (IOException e) {
+            log.debug("Error closing WebSocket session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Send the message to the next server. If the handshake was not finished yet, the message is buffered.
+     *
+     * @throws IOException if the message cannot be sent or the buffer is full
+     */
     public void sendMessageToServer(WebSocketMessage<?> webSocketMessage) throws IOException {
         log.debug("sendMessageToServer(session={},message={})", webSocketClientSession, webSocketMessage);
+        meter.messageToService(webSocketMessage.getPayloadLength());
+        if (webSocketClientSession == null && bufferMessage(webSocketMessage)) {
+            return;
+        }
         webSocketClientSession.sendMessage(webSocketMessage);
     }
 
+    private synchronized boolean bufferMessage(WebSocketMessage<?> webSocketMessage) throws IOException {
+        if (webSocketClientSession != null) {
+            return false;
+        }
+
+        if (closeStatus != null) {
+            throw new IOException("The session to WebSocket service at " + targetUrl + " is closed");
+        }
+        if (pendingMessages.size() >= maxPendingMessages) {
+            throw new IOException("Too many messages waiting for the session to WebSocket service at " + targetUrl);
+        }
+        pendingMessages.add(webSocketMessage);
+        return true;
+    }
+
+    /**
+     * Close the session to the next server. A pending handshake is cancelled.
+     */
     public void close(CloseStatus status) throws IOException {
-        if (webSocketClientSession.isOpen()) {
-            webSocketClientSession.close(status);
+        meter.closed(String.valueOf(status.getCode()));
+        ListenableFuture<WebSocketSession> pendingHandshake = null;
+        synchronized (this) {
+            if (webSocketClientSession == null) {
+                if (closeStatus == null) {
+                    closeStatus = status;
+                    pendingMessages.clear();
+                    pendingHandshake = futureSession;
+                    cancelHandshakeTimeout();
+                }
+            }
+        }
+
+        if (pendingHandshake != null) {
+            pendingHandshake.cancel(true);
+            return;
+        }
+
+        WebSocketSession clientSession = webSocketClientSession;
+        if (clientSession != null && clientSession.isOpen()) {
+            clientSession.close(status);
         }
     }
 
@@ -141,7 +502,12 @@ public class WebSocketRoutedSession {
     }
 
     public String getClientUri() {
-        URI uri = getWebSocketClientSession().getUri();
+        WebSocketSession clientSession = getWebSocketClientSession();
+        if (clientSession == null) {
+            return null;
+        }
+
+        URI uri = clientSession.getUri();
         if (uri != null) {
             return uri.toString();
         }
@@ -150,6 +516,7 @@ public class WebSocketRoutedSession {
     }
 
     public String getClientId() {
-        return getWebSocketClientSession().getId();
+        WebSocketSession clientSession = getWebSocketClientSession();
+        return clientSession != null ? clientSession.getId() : null;
     }
 }
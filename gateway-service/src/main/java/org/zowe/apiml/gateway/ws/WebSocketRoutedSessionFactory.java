@@ -12,6 +12,8 @@ package org.zowe.apiml.gateway.ws;
 
 import org.springframework.web.socket.WebSocketSession;
 
+import java.util.function.Supplier;
+
 public interface WebSocketRoutedSessionFactory {
     /**
      * Create valid client websocket session based on the existing session, target Url and SSL Context.
@@ -21,4 +23,30 @@ public interface WebSocketRoutedSessionFactory {
      * @return Valid routed session handling the client session
      */
     WebSocketRoutedSession session(WebSocketSession webSocketSession, String targetUrl, WebSocketClientFactory webSocketClientFactory);
+
+    /**
+     * Create valid client websocket session routed to the given service.
+     * @param webSocketSession Valid Server side WebSocket Session.
+     * @param serviceId Id of the service the session is routed to
+     * @param targetUrl Full websocket URL towards the server
+     * @param webSocketClientFactory Factory producing the current SSL Context.
+     * @return Valid routed session handling the client session
+     */
+    default WebSocketRoutedSession session(WebSocketSession webSocketSession, String serviceId, String targetUrl, WebSocketClientFactory webSocketClientFactory) {
+        return session(webSocketSession, targetUrl, webSocketClientFactory);
+    }
+
+    /**
+     * Create valid client websocket session routed to the given service, the failed handshake is retried.
+     * @param webSocketSession Valid Server side WebSocket Session.
+     * @param serviceId Id of the service the session is routed to
+     * @param targetUrl Full websocket URL towards the server
+     * @param targetUrls Full websocket URL towards the server to retry the handshake with, null if there is no instance
+     * @param webSocketClientFactory Factory producing the current SSL Context.
+     * @return Valid routed session handling the client session
+     */
+    default WebSocketRoutedSession session(WebSocketSession webSocketSession, String serviceId, String targetUrl, Supplier<String> targetUrls,
+                                           WebSocketClientFactory webSocketClientFactory) {
+        return session(webSocketSession, serviceId, targetUrl, webSocketClientFactory);
+    }
 }
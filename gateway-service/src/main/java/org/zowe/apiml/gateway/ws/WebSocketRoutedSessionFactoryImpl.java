@@ -11,13 +11,52 @@
 package org.zowe.apiml.gateway.ws;
 
 import org.springframework.web.socket.WebSocketSession;
+import org.zowe.apiml.gateway.metrics.ConnectionMetrics;
+
+import java.util.function.Supplier;
 
 /**
  * Default implementation. Provides the WebSocketRoutedSession the same way as before.
  */
 public class WebSocketRoutedSessionFactoryImpl implements WebSocketRoutedSessionFactory {
+    private final int maxPendingMessages;
+    private final long handshakeTimeoutMillis;
+    private final WebSocketFlowControl flowControl;
+    private final ConnectionMetrics connectionMetrics;
+
+    public WebSocketRoutedSessionFactoryImpl() {
+        this(WebSocketRoutedSession.DEFAULT_MAX_PENDING_MESSAGES, WebSocketRoutedSession.DEFAULT_HANDSHAKE_TIMEOUT_MILLIS, null,
+            ConnectionMetrics.NONE);
+    }
+
+    /**
+     * @param maxPendingMessages     maximum number of messages buffered until the handshake with the service is finished
+     * @param handshakeTimeoutMillis time to finish the handshake with the service, 0 or less to wait without limit
+     * @param flowControl            settings of the send queues, null to send the messages synchronously
+     * @param connectionMetrics      instrumentation of the routed sessions
+     */
+    public WebSocketRoutedSessionFactoryImpl(int maxPendingMessages, long handshakeTimeoutMillis, WebSocketFlowControl flowControl,
+                                             ConnectionMetrics connectionMetrics) {
+        this.maxPendingMessages = maxPendingMessages;
+        this.handshakeTimeoutMillis = handshakeTimeoutMillis;
+        this.flowControl = flowControl;
+        this.connectionMetrics = connectionMetrics;
+    }
+
     @Override
     public WebSocketRoutedSession session(WebSocketSession webSocketSession, String targetUrl, WebSocketClientFactory webSocketClientFactory) {
-        return new WebSocketRoutedSession(webSocketSession, targetUrl, webSocketClientFactory);
+        return session(webSocketSession, null, targetUrl, webSocketClientFactory);
+    }
+
+    @Override
+    public WebSocketRoutedSession session(WebSocketSession webSocketSession, String serviceId, String targetUrl, WebSocketClientFactory webSocketClientFactory) {
+        return session(webSocketSession, serviceId, targetUrl, () -> targetUrl, webSocketClientFactory);
+    }
+
+    @Override
+    public WebSocketRoutedSession session(WebSocketSession webSocketSession, String serviceId, String targetUrl, Supplier<String> targetUrls,
+                                          WebSocketClientFactory webSocketClientFactory) {
+        return new WebSocketRoutedSession(webSocketSession, targetUrl, targetUrls, webSocketClientFactory, maxPendingMessages, handshakeTimeoutMillis,
+            flowControl, connectionMetrics.open(ConnectionMetrics.WEBSOCKET, serviceId));
     }
 }
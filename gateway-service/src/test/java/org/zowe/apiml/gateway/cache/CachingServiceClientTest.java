@@ -24,7 +24,10 @@ import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.zowe.apiml.models.AccessTokenContainer;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -75,6 +78,22 @@ class CachingServiceClientTest {
         }
     }
 
+    @Nested
+    class givenUpsertOperation {
+        @Test
+        void upsertWithoutProblem() {
+            CachingServiceClient.KeyValue kv = new CachingServiceClient.KeyValue("Britney", "Spears");
+            assertDoesNotThrow(() -> underTest.upsert(kv));
+            verify(restTemplate).exchange(urlBase + "?upsert=true", HttpMethod.PUT, new HttpEntity<>(kv, CachingServiceClient.getDefaultHeaders()), String.class);
+        }
+
+        @Test
+        void upsertWithExceptionFromRestTemplateThrowsDefined() {
+            doThrow(new RestClientException("oops")).when(restTemplate).exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class), eq(String.class));
+            assertThrows(CachingServiceClientException.class, () -> underTest.upsert(new CachingServiceClient.KeyValue("Britney", "Spears")));
+        }
+    }
+
     @Nested
     class givenReadOperation {
 
@@ -123,6 +142,49 @@ class CachingServiceClientTest {
         }
     }
 
+    @Nested
+    class givenBatchOperations {
+        private final List<String> keys = Arrays.asList("Britney", "Stevie");
+
+        @Test
+        void upsertAllWithoutProblem() {
+            List<CachingServiceClient.KeyValue> kvs = Collections.singletonList(new CachingServiceClient.KeyValue("Britney", "Spears"));
+            assertDoesNotThrow(() -> underTest.upsertAll(kvs));
+            verify(restTemplate).exchange(urlBase + "/batch", HttpMethod.POST, new HttpEntity<>(kvs, CachingServiceClient.getDefaultHeaders()), String.class);
+        }
+
+        @Test
+        void readAllWithoutProblem() throws CachingServiceClientException {
+            Map<String, CachingServiceClient.KeyValue> body = Collections.singletonMap("Britney", new CachingServiceClient.KeyValue("Britney", "Spears"));
+            ResponseEntity<Map<String, CachingServiceClient.KeyValue>> responseEntity = mock(ResponseEntity.class);
+            doReturn(true).when(responseEntity).hasBody();
+            doReturn(body).when(responseEntity).getBody();
+            doReturn(responseEntity).when(restTemplate).exchange(eq(urlBase + "/batch/read"), eq(HttpMethod.POST), any(HttpEntity.class), any(ParameterizedTypeReference.class));
+
+            assertThat(underTest.readAll(keys), is(body));
+        }
+
+        @Test
+        void readAllWithNullResponse_thenReturnEmptyMap() throws CachingServiceClientException {
+            assertThat(underTest.readAll(keys).isEmpty(), is(true));
+        }
+
+        @Test
+        void deleteAllWithoutProblem() {
+            assertDoesNotThrow(() -> underTest.deleteAll(keys));
+            verify(restTemplate).exchange(urlBase + "/batch/delete", HttpMethod.POST, new HttpEntity<>(keys, CachingServiceClient.getDefaultHeaders()), String.class);
+        }
+
+        @Test
+        void batchWithExceptionFromRestTemplateThrowsDefined() {
+            doThrow(new RestClientException("oops")).when(restTemplate).exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class), eq(String.class));
+            doThrow(new RestClientException("oops")).when(restTemplate).exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class), any(ParameterizedTypeReference.class));
+            assertThrows(CachingServiceClientException.class, () -> underTest.upsertAll(Collections.emptyList()));
+            assertThrows(CachingServiceClientException.class, () -> underTest.readAll(keys));
+            assertThrows(CachingServiceClientException.class, () -> underTest.deleteAll(keys));
+        }
+    }
+
     @Nested
     class GivenAppendListTest {
         ResponseEntity<Map<String, Map<String, String>>> response;
@@ -176,6 +238,37 @@ class CachingServiceClientTest {
         }
     }
 
+    @Nested
+    class GivenMapChangesTest {
+        String url = "https://localhost:10010/cachingservice/api/v1/cache-list/invalidTokens/changes?since=5";
+
+        @Test
+        void whenClientReturnsBody_thenItIsReturned() throws CachingServiceClientException {
+            CachingServiceClient.MapChanges changes = new CachingServiceClient.MapChanges("epoch", 7, false, Collections.singletonMap("key", "value"), Collections.singleton("removed"));
+            when(restTemplate.exchange(url + "&epoch=epoch", HttpMethod.GET, new HttpEntity<>(null, CachingServiceClient.getDefaultHeaders()), CachingServiceClient.MapChanges.class))
+                .thenReturn(new ResponseEntity<>(changes, HttpStatus.OK));
+
+            assertEquals(changes, underTest.readMapChanges("invalidTokens", "epoch", 5));
+        }
+
+        @Test
+        void whenEpochIsNotKnown_thenItIsNotSent() throws CachingServiceClientException {
+            CachingServiceClient.MapChanges changes = new CachingServiceClient.MapChanges("epoch", 7, true, Collections.emptyMap(), Collections.emptySet());
+            when(restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(null, CachingServiceClient.getDefaultHeaders()), CachingServiceClient.MapChanges.class))
+                .thenReturn(new ResponseEntity<>(changes, HttpStatus.OK));
+
+            assertEquals(changes, underTest.readMapChanges("invalidTokens", null, 5));
+        }
+
+        @Test
+        void whenClientFails_thenTranslateException() {
+            when(restTemplate.exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class), eq(CachingServiceClient.MapChanges.class)))
+                .thenThrow(new RestClientException("error"));
+
+            assertThrows(CachingServiceClientException.class, () -> underTest.readMapChanges("invalidTokens", "epoch", 5));
+        }
+    }
+
     @Test
     void whenClientThrowsException_thenTranslateException() {
         when(restTemplate.exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class), eq(String.class))).thenThrow(new RestClientException("error"));
@@ -17,8 +17,12 @@ import org.junit.jupiter.api.*;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.zowe.apiml.gateway.ribbon.loadbalancer.model.LoadBalancerCacheRecord;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -66,10 +70,12 @@ public class LoadBalancerCacheTest {
         CachingServiceClient cachingServiceClient = mock(CachingServiceClient.class);
         LoadBalancerCache underTest;
         private LoadBalancerCacheRecord record = new LoadBalancerCacheRecord("instanceid");;
+        private CachingServiceClientException notFound = new CachingServiceClientException("Unable to read key",
+            HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", new HttpHeaders(), null, null));
 
         @BeforeEach
         void setUp() {
-           underTest = new LoadBalancerCache(cachingServiceClient);
+           underTest = new LoadBalancerCache(cachingServiceClient, Runnable::run, 10, 0, 0);
         }
 
         @Nested
@@ -79,24 +85,43 @@ public class LoadBalancerCacheTest {
             void storageHappensToLocalAndRemoteCache() throws CachingServiceClientException, JsonProcessingException {
                 underTest.store("user", "serviceid", record);
                 String serializedRecord = mapper.writeValueAsString(record);
-                verify(cachingServiceClient).create(new CachingServiceClient.KeyValue(keyPrefix + "user:serviceid", serializedRecord));
+                verify(cachingServiceClient).upsert(new CachingServiceClient.KeyValue(keyPrefix + "user:serviceid", serializedRecord));
                 assertThat(underTest.getLocalCache().containsKey(keyPrefix + "user:serviceid"), is(true));
             }
 
             @Test
-            void storageHappensToRemoteEvenForConflict() throws CachingServiceClientException, JsonProcessingException {
-                HttpClientErrorException clientErrorException = HttpClientErrorException.create(HttpStatus.CONFLICT, "", new HttpHeaders(), null, null);
-                CachingServiceClientException e = new CachingServiceClientException("oops", clientErrorException);
-                doThrow(e).when(cachingServiceClient).create(any());
-                String serializedRecord = mapper.writeValueAsString(record);
+            void storageUsesSingleRequestForExistingRecord() throws CachingServiceClientException {
+                underTest.store("user", "serviceid", record);
+                underTest.store("user", "serviceid", record);
+
+                verify(cachingServiceClient, times(2)).upsert(any());
+                verify(cachingServiceClient, never()).create(any());
+                verify(cachingServiceClient, never()).update(any());
+            }
+
+            @Test
+            void storageFallsBackToCreateWhenUpsertIsNotSupported() throws CachingServiceClientException {
+                doThrow(notFound).when(cachingServiceClient).upsert(any());
+                underTest.store("user", "serviceid", record);
+
+                verify(cachingServiceClient).create(any());
+                verify(cachingServiceClient, never()).update(any());
+            }
 
+            @Test
+            void storageUpdatesRecordCreatedMeanwhileWhenUpsertIsNotSupported() throws CachingServiceClientException {
+                doThrow(notFound).when(cachingServiceClient).upsert(any());
+                doThrow(new CachingServiceClientException("Unable to create keyValue",
+                    HttpClientErrorException.create(HttpStatus.CONFLICT, "Conflict", new HttpHeaders(), null, null)))
+                    .when(cachingServiceClient).create(any());
                 underTest.store("user", "serviceid", record);
-                verify(cachingServiceClient).update(new CachingServiceClient.KeyValue(keyPrefix + "user:serviceid", serializedRecord));
+
+                verify(cachingServiceClient).update(any());
             }
 
             @Test
             void storageFailsToRemoteCacheAndStoresLocal() throws CachingServiceClientException {
-                doThrow(CachingServiceClientException.class).when(cachingServiceClient).create(any());
+                doThrow(CachingServiceClientException.class).when(cachingServiceClient).upsert(any());
                 underTest.store("user", "serviceid", record);
                 assertThat(underTest.getLocalCache().containsKey(keyPrefix + "user:serviceid"), is(true));
             }
@@ -120,6 +145,136 @@ public class LoadBalancerCacheTest {
                 assertThat(retrievedRecord.getInstanceId(), is("Batman"));
             }
 
+            @Test
+            void givenUnknownRecord_whenRetrievingRepeatedly_thenRemoteIsReadEachTime() throws CachingServiceClientException {
+                doThrow(notFound).when(cachingServiceClient).read(keyPrefix + "user:serviceid");
+
+                assertThat(underTest.retrieve("user", "serviceid"), is(nullValue()));
+                assertThat(underTest.retrieve("user", "serviceid"), is(nullValue()));
+
+                verify(cachingServiceClient, times(2)).read(keyPrefix + "user:serviceid");
+            }
+
+        }
+
+        @Nested
+        class GivenRemoteRefreshInterval {
+            @BeforeEach
+            void setUp() {
+                underTest = new LoadBalancerCache(cachingServiceClient, Runnable::run, 2, 60_000, 0);
+            }
+
+            @Test
+            void whenRecordWasReadRecently_thenLocalCopyIsUsed() throws CachingServiceClientException, JsonProcessingException {
+                doReturn(new CachingServiceClient.KeyValue(keyPrefix + "user:serviceid", mapper.writeValueAsString(record)))
+                    .when(cachingServiceClient).read(keyPrefix + "user:serviceid");
+
+                assertThat(underTest.retrieve("user", "serviceid").getInstanceId(), is("instanceid"));
+                assertThat(underTest.retrieve("user", "serviceid").getInstanceId(), is("instanceid"));
+
+                verify(cachingServiceClient, times(1)).read(any());
+            }
+
+            @Test
+            void whenRecordWasStored_thenRemoteIsNotRead() throws CachingServiceClientException {
+                underTest.store("user", "serviceid", record);
+
+                assertThat(underTest.retrieve("user", "serviceid").getInstanceId(), is("instanceid"));
+                verify(cachingServiceClient, never()).read(any());
+            }
+
+            @Test
+            void whenRecordIsMissingInRemote_thenMissIsRemembered() throws CachingServiceClientException {
+                doThrow(notFound).when(cachingServiceClient).read(keyPrefix + "user:serviceid");
+
+                assertThat(underTest.retrieve("user", "serviceid"), is(nullValue()));
+                assertThat(underTest.retrieve("user", "serviceid"), is(nullValue()));
+
+                verify(cachingServiceClient, times(1)).read(any());
+            }
+
+            @Test
+            void whenRemoteReadFails_thenRemoteIsAskedAgain() throws CachingServiceClientException {
+                doThrow(CachingServiceClientException.class).when(cachingServiceClient).read(any());
+
+                underTest.retrieve("user", "serviceid");
+                underTest.retrieve("user", "serviceid");
+
+                verify(cachingServiceClient, times(2)).read(any());
+            }
+
+            @Test
+            void whenMoreRecordsThanMaximumAreStored_thenTheLeastRecentlyUsedIsEvicted() {
+                underTest.store("first", "serviceid", record);
+                underTest.store("second", "serviceid", record);
+                underTest.retrieve("first", "serviceid");
+                underTest.store("third", "serviceid", record);
+
+                assertThat(underTest.getLocalCache().size(), is(2));
+                assertThat(underTest.getLocalCache().containsKey(keyPrefix + "first:serviceid"), is(true));
+                assertThat(underTest.getLocalCache().containsKey(keyPrefix + "second:serviceid"), is(false));
+            }
+        }
+
+        @Nested
+        class GivenFailureBackoff {
+            @BeforeEach
+            void setUp() {
+                underTest = new LoadBalancerCache(cachingServiceClient, Runnable::run, 10, 0, 60_000);
+            }
+
+            @Test
+            void whenRemoteReadFails_thenLocalCacheIsUsedWithoutAskingRemote() throws CachingServiceClientException {
+                doThrow(new CachingServiceClientException("Unable to read key", new ResourceAccessException("Connection refused")))
+                    .when(cachingServiceClient).read(any());
+                underTest.getLocalCache().put(keyPrefix + "user:serviceid", record);
+
+                assertThat(underTest.retrieve("user", "serviceid").getInstanceId(), is("instanceid"));
+                assertThat(underTest.retrieve("user", "serviceid").getInstanceId(), is("instanceid"));
+                assertThat(underTest.retrieve("other", "serviceid"), is(nullValue()));
+
+                verify(cachingServiceClient, times(1)).read(any());
+            }
+
+            @Test
+            void whenRecordIsMissingInRemote_thenRemoteIsNotBackingOff() throws CachingServiceClientException {
+                doThrow(notFound).when(cachingServiceClient).read(any());
+
+                underTest.retrieve("user", "serviceid");
+                underTest.retrieve("other", "serviceid");
+
+                verify(cachingServiceClient, times(2)).read(any());
+            }
+        }
+
+        @Nested
+        class GivenAsynchronousWrites {
+            List<Runnable> pending = new ArrayList<>();
+
+            @BeforeEach
+            void setUp() {
+                underTest = new LoadBalancerCache(cachingServiceClient, pending::add, 10, 0, 0);
+            }
+
+            @Test
+            void whenRecordIsStored_thenRemoteIsUpdatedLater() throws CachingServiceClientException {
+                underTest.store("user", "serviceid", record);
+
+                assertThat(underTest.getLocalCache().containsKey(keyPrefix + "user:serviceid"), is(true));
+                verify(cachingServiceClient, never()).upsert(any());
+
+                pending.forEach(Runnable::run);
+                verify(cachingServiceClient).upsert(any());
+            }
+
+            @Test
+            void whenRecordIsDeleted_thenRemoteIsDeletedLater() throws CachingServiceClientException {
+                underTest.delete("user", "serviceid");
+                verify(cachingServiceClient, never()).delete(any());
+
+                pending.forEach(Runnable::run);
+                verify(cachingServiceClient).delete(keyPrefix + "user:serviceid");
+            }
         }
 
         @Nested
@@ -0,0 +1,50 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.cache;
+
+import org.junit.jupiter.api.Test;
+import org.zowe.apiml.security.common.token.TokenAuthentication;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenAuthenticationCopierTest {
+
+    private final TokenAuthenticationCopier underTest = new TokenAuthenticationCopier();
+
+    @Test
+    void givenAuthentication_thenCopyHasSameValues() {
+        TokenAuthentication original = TokenAuthentication.createAuthenticated("user", "token");
+        original.setDetails("details");
+
+        TokenAuthentication copy = underTest.copyForRead(original);
+
+        assertNotSame(original, copy);
+        assertEquals("user", copy.getPrincipal());
+        assertEquals("token", copy.getCredentials());
+        assertTrue(copy.isAuthenticated());
+        assertEquals("details", copy.getDetails());
+    }
+
+    @Test
+    void givenCopy_whenItIsChanged_thenOriginalIsNotAffected() {
+        TokenAuthentication original = TokenAuthentication.createAuthenticated("user", "token");
+
+        underTest.copyForWrite(original).setAuthenticated(false);
+
+        assertTrue(original.isAuthenticated());
+    }
+
+    @Test
+    void givenNull_thenNullIsReturned() {
+        assertNull(underTest.copyForRead(null));
+    }
+
+}
@@ -0,0 +1,40 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NullValue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class UserMappingExpiryPolicyTest {
+
+    private final UserMappingExpiryPolicy underTest = new UserMappingExpiryPolicy();
+
+    @Test
+    void givenMappedUser_thenLongerTtlIsUsed() {
+        assertEquals(UserMappingExpiryPolicy.MAPPED_TTL, underTest.getExpiryForCreation("key", "USER"));
+        assertEquals(UserMappingExpiryPolicy.MAPPED_TTL, underTest.getExpiryForUpdate("key", () -> NullValue.INSTANCE, "USER"));
+    }
+
+    @Test
+    void givenMissingMapping_thenShorterTtlIsUsed() {
+        assertEquals(UserMappingExpiryPolicy.NOT_MAPPED_TTL, underTest.getExpiryForCreation("key", NullValue.INSTANCE));
+        assertEquals(UserMappingExpiryPolicy.NOT_MAPPED_TTL, underTest.getExpiryForUpdate("key", () -> "USER", NullValue.INSTANCE));
+    }
+
+    @Test
+    void givenAccess_thenExpirationIsNotChanged() {
+        assertNull(underTest.getExpiryForAccess("key", () -> "USER"));
+    }
+
+}
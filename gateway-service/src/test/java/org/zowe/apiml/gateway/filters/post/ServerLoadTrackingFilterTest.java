@@ -0,0 +1,58 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.filters.post;
+
+import com.netflix.loadbalancer.Server;
+import com.netflix.zuul.context.RequestContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.zowe.apiml.gateway.ribbon.loadbalancer.ServerLoadTracker;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.POST_TYPE;
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.SEND_RESPONSE_FILTER_ORDER;
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.SERVICE_ID_KEY;
+
+class ServerLoadTrackingFilterTest {
+    private final ServerLoadTracker tracker = new ServerLoadTracker(1000);
+    private final ServerLoadTrackingFilter underTest = new ServerLoadTrackingFilter(tracker);
+    private final Server server = new Server("host", 10010);
+
+    @BeforeEach
+    void setUp() {
+        RequestContext.getCurrentContext().clear();
+    }
+
+    @Test
+    void verifyFilterProperties() {
+        assertThat(underTest.filterOrder(), is(SEND_RESPONSE_FILTER_ORDER - 2));
+        assertThat(underTest.filterType(), is(POST_TYPE));
+    }
+
+    @Test
+    void givenNotTrackedRequest_thenFilterIsSkipped() {
+        assertThat(underTest.shouldFilter(), is(false));
+    }
+
+    @Test
+    void givenTrackedRequest_thenTrackingIsFinished() {
+        RequestContext.getCurrentContext().setZuulEngineRan();
+        RequestContext.getCurrentContext().set(SERVICE_ID_KEY, "service");
+        tracker.start(RequestContext.getCurrentContext(), server);
+        assertThat(underTest.shouldFilter(), is(true));
+
+        underTest.run();
+
+        assertThat(tracker.getOutstandingRequests(server), is(0));
+        assertThat(underTest.shouldFilter(), is(false));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.filters.pre;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AcceptEncodingTest {
+    private static final Set<String> AVAILABLE = new HashSet<>(Arrays.asList("gzip", "deflate", "br"));
+    private static final List<String> PREFERRED = Arrays.asList("br", "gzip", "deflate");
+
+    @Nested
+    class WhenNegotiating {
+        @Test
+        void givenQualities_thenTheHighestIsChosen() {
+            assertEquals("deflate", AcceptEncoding.negotiate("gzip;q=0.5, deflate;q=0.8, br;q=0.1", PREFERRED, AVAILABLE));
+        }
+
+        @Test
+        void givenSameQualities_thenServicePreferenceIsUsed() {
+            assertEquals("br", AcceptEncoding.negotiate("deflate, gzip, br", PREFERRED, AVAILABLE));
+        }
+
+        @Test
+        void givenZeroQuality_thenCodingIsNotAcceptable() {
+            assertNull(AcceptEncoding.negotiate("gzip;q=0", Arrays.asList("gzip"), AVAILABLE));
+        }
+
+        @Test
+        void givenWildcard_thenItAppliesToUnlistedCodings() {
+            assertEquals("gzip", AcceptEncoding.negotiate("br;q=0, *;q=0.5", PREFERRED, AVAILABLE));
+        }
+
+        @Test
+        void givenCodingIsNotAvailable_thenItIsSkipped() {
+            assertEquals("gzip", AcceptEncoding.negotiate("zstd, gzip;q=0.1", Arrays.asList("zstd", "gzip"), AVAILABLE));
+        }
+
+        @Test
+        void givenOnlyUnknownCodings_thenNothingIsChosen() {
+            assertNull(AcceptEncoding.negotiate("identity, compress", PREFERRED, AVAILABLE));
+        }
+    }
+
+    @Nested
+    class WhenParsing {
+        @Test
+        void givenParametersWithoutQuality_thenQualityIsOne() {
+            assertEquals(1.0, AcceptEncoding.parse("gzip;bz").get("gzip"));
+        }
+
+        @Test
+        void givenInvalidQuality_thenCodingIsNotAcceptable() {
+            assertEquals(0.0, AcceptEncoding.parse("GZIP; Q=abc").get("gzip"));
+        }
+    }
+}
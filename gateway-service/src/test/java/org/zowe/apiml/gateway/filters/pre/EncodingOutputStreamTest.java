@@ -0,0 +1,51 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.filters.pre;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class EncodingOutputStreamTest {
+    private final OutputStream encoder = mock(OutputStream.class);
+    private final EncodingOutputStream underTest = new EncodingOutputStream(encoder, 100);
+
+    @Test
+    void givenLessDataThanThreshold_thenFlushIsIgnored() throws IOException {
+        underTest.write(new byte[50]);
+        underTest.flush();
+
+        verify(encoder, never()).flush();
+    }
+
+    @Test
+    void givenMoreDataThanThreshold_thenFlushIsPropagated() throws IOException {
+        underTest.write(new byte[50]);
+        underTest.write(new byte[60], 0, 50);
+        underTest.flush();
+        underTest.flush();
+
+        verify(encoder, times(1)).flush();
+    }
+
+    @Test
+    void whenWriting_thenDataAreCounted() throws IOException {
+        underTest.write(new byte[50], 10, 20);
+        underTest.write(1);
+
+        assertEquals(21, underTest.getSize());
+        verify(encoder).write(any(byte[].class), eq(10), eq(20));
+    }
+}
@@ -17,19 +17,22 @@ import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.zowe.apiml.gzip.GZipResponseWrapper;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
 
 class PerServiceGZipFilterTest {
 
@@ -95,6 +98,7 @@ class PerServiceGZipFilterTest {
                         gzipWrapper.getOutputStream().flush();
                     });
                     assertEquals("gzip", response.getHeader("Content-Encoding"));
+                    assertEquals("Accept-Encoding", response.getHeader("Vary"));
                 }
 
                 @Test
@@ -106,6 +110,93 @@ class PerServiceGZipFilterTest {
                         gzipWrapper.setStatus(204);
                     });
                     assertNull(response.getHeader("Content-Encoding"));
+                    assertEquals("Accept-Encoding", response.getHeader("Vary"));
+                }
+            }
+
+            @Nested
+            class OnBigResponse {
+                // random text does not compress too much
+                private final String body = new Random(42).ints(20_000, 'a', 'z' + 1)
+                    .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append)
+                    .toString();
+
+                @BeforeEach
+                void setup() {
+                    when(discoveryClient.getInstances(SERVICE_WITH_COMPRESSION)).thenReturn(instances);
+                    filter = new PerServiceGZipFilter(discoveryClient);
+                    ReflectionTestUtils.setField(filter, "bufferThreshold", 64);
+                    ReflectionTestUtils.setField(filter, "flushThreshold", 16);
+                    request.setRequestURI(url);
+                }
+
+                @Test
+                void whenResponseIsBiggerThanThreshold_thenItIsStreamed() throws ServletException, IOException {
+                    MockHttpServletResponse response = new MockHttpServletResponse();
+
+                    filter.doFilterInternal(request, response, (request, response1) -> {
+                        response1.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+                        response1.getOutputStream().flush();
+                        assertTrue(response.getContentAsByteArray().length > 0);
+                    });
+
+                    assertEquals("gzip", response.getHeader("Content-Encoding"));
+                    assertEquals(body, PooledDeflaterOutputStreamTest.decompress(response.getContentAsByteArray()));
+                }
+
+                @Test
+                void whenResponseIsSmallerThanThreshold_thenContentLengthIsSet() throws ServletException, IOException {
+                    MockHttpServletResponse response = new MockHttpServletResponse();
+
+                    filter.doFilterInternal(request, response, (request, response1) ->
+                        response1.getOutputStream().write("Hello".getBytes(StandardCharsets.UTF_8)));
+
+                    assertEquals("gzip", response.getHeader("Content-Encoding"));
+                    assertEquals(response.getContentAsByteArray().length, response.getContentLength());
+                    assertEquals("Hello", PooledDeflaterOutputStreamTest.decompress(response.getContentAsByteArray()));
+                }
+
+                @Test
+                void whenStatusIsNotModified_thenContentIsNotCompressed() throws ServletException, IOException {
+                    MockHttpServletResponse response = new MockHttpServletResponse();
+
+                    filter.doFilterInternal(request, response, (request, response1) ->
+                        ((GZipResponseWrapper) response1).setStatus(304));
+
+                    assertNull(response.getHeader("Content-Encoding"));
+                    assertEquals(0, response.getContentAsByteArray().length);
+                }
+
+                @Test
+                void whenStatusIsResetContent_thenContentIsNotCompressed() throws ServletException, IOException {
+                    MockHttpServletResponse response = new MockHttpServletResponse();
+
+                    filter.doFilterInternal(request, response, (request, response1) ->
+                        ((GZipResponseWrapper) response1).setStatus(205));
+
+                    assertNull(response.getHeader("Content-Encoding"));
+                }
+
+                @Test
+                void whenResponseIsCommittedByService_thenBodyIsNotWritten() throws ServletException, IOException {
+                    MockHttpServletResponse response = new MockHttpServletResponse();
+
+                    filter.doFilterInternal(request, response, (request, response1) -> {
+                        response.setCommitted(true);
+                        response1.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+                    });
+
+                    assertNull(response.getHeader("Content-Encoding"));
+                    assertEquals(0, response.getContentAsByteArray().length);
+                }
+
+                @Test
+                void whenServiceFails_thenExceptionIsPropagated() {
+                    MockHttpServletResponse response = new MockHttpServletResponse();
+
+                    assertThrows(IOException.class, () -> filter.doFilterInternal(request, response, (request, response1) -> {
+                        throw new IOException("failure");
+                    }));
                 }
             }
 
@@ -154,6 +245,7 @@ class PerServiceGZipFilterTest {
                         response1.getOutputStream().flush();
                     });
                     assertThat(response.getHeader("Content-Encoding"), is(nullValue()));
+                    assertThat(response.getHeader("Vary"), is(nullValue()));
                 }
             }
         }
@@ -193,6 +285,158 @@ class PerServiceGZipFilterTest {
                 assertNotEquals(GZipResponseWrapper.class, response1.getClass()));
 
         }
+
+        @Test
+        void givenCompressedRoute_thenResponseVariesByAcceptEncoding() throws IOException, ServletException {
+            request.setRequestURI("/" + SERVICE_WITH_COMPRESSION + "/api/v1");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            filter.doFilterInternal(request, response, (request, response1) -> {
+                assertNotEquals(GZipResponseWrapper.class, response1.getClass());
+                response1.getOutputStream().write("Hello worlds".getBytes());
+            });
+            assertNull(response.getHeader("Content-Encoding"));
+            assertEquals("Accept-Encoding", response.getHeader("Vary"));
+        }
+    }
+
+    @Nested
+    class WhenNegotiatingEncoding {
+        @BeforeEach
+        void setUp() {
+            request.setRequestURI("/" + SERVICE_WITH_COMPRESSION + "/api/v1");
+            when(discoveryClient.getInstances(SERVICE_WITH_COMPRESSION)).thenReturn(instances);
+        }
+
+        @Test
+        void givenServicePrefersDeflate_thenDeflateIsUsed() throws ServletException, IOException {
+            metadata.put("apiml.response.compressEncodings", "deflate, gzip");
+            request.addHeader("Accept-Encoding", "gzip, deflate");
+            filter = new PerServiceGZipFilter(discoveryClient);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            filter.doFilterInternal(request, response, (request, response1) ->
+                response1.getOutputStream().write("Hello worlds".getBytes(StandardCharsets.UTF_8)));
+
+            assertEquals("deflate", response.getHeader("Content-Encoding"));
+            assertEquals("Accept-Encoding", response.getHeader("Vary"));
+            assertEquals("Hello worlds", PooledDeflaterOutputStreamTest.inflate(response.getContentAsByteArray()));
+        }
+
+        @Test
+        void givenClientPrefersGzip_thenGzipIsUsed() {
+            metadata.put("apiml.response.compressEncodings", "deflate,gzip");
+            request.addHeader("Accept-Encoding", "gzip;q=1.0, deflate;q=0.5");
+            filter = new PerServiceGZipFilter(discoveryClient);
+
+            assertEquals("gzip", filter.selectEncoder(request).getName());
+        }
+
+        @Test
+        void givenServiceDoesNotConfigureEncodings_thenOnlyGzipIsUsed() {
+            request.addHeader("Accept-Encoding", "deflate");
+            filter = new PerServiceGZipFilter(discoveryClient);
+
+            assertFalse(filter.requiresCompression(request));
+        }
+
+        @Test
+        void givenAdditionalEncoder_thenItCanBeUsed() throws ServletException, IOException {
+            ResponseEncoder identity = new ResponseEncoder() {
+                @Override
+                public String getName() {
+                    return "test";
+                }
+
+                @Override
+                public OutputStream encode(OutputStream target) {
+                    return target;
+                }
+            };
+            metadata.put("apiml.response.compressEncodings", "test");
+            request.addHeader("Accept-Encoding", "TEST");
+            filter = new PerServiceGZipFilter(discoveryClient, Collections.singletonList(identity));
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            filter.doFilterInternal(request, response, (request, response1) ->
+                response1.getOutputStream().write("Hello worlds".getBytes(StandardCharsets.UTF_8)));
+
+            assertEquals("test", response.getHeader("Content-Encoding"));
+            assertEquals("Hello worlds", response.getContentAsString());
+        }
+    }
+
+    @Nested
+    class WhenCachingRoutes {
+        @BeforeEach
+        void setUp() {
+            request.addHeader("Accept-Encoding", "gzip");
+            request.setRequestURI("/" + SERVICE_WITH_COMPRESSION + "/api/v1/compressed");
+            metadata.put("apiml.response.compressRoutes", "/**/compressed");
+            when(discoveryClient.getInstances(SERVICE_WITH_COMPRESSION)).thenReturn(instances);
+            filter = new PerServiceGZipFilter(discoveryClient);
+        }
+
+        @Test
+        void givenRepeatedRequests_thenDiscoveryIsAskedOnce() {
+            assertTrue(filter.requiresCompression(request));
+            assertTrue(filter.requiresCompression(request));
+
+            verify(discoveryClient, times(1)).getInstances(SERVICE_WITH_COMPRESSION);
+        }
+
+        @Test
+        void givenServiceIsEvicted_thenNewMetadataAreUsed() {
+            assertTrue(filter.requiresCompression(request));
+
+            metadata.put("apiml.response.compressRoutes", "/**/other");
+            filter.evictCacheService(SERVICE_WITH_COMPRESSION.toUpperCase());
+
+            assertFalse(filter.requiresCompression(request));
+        }
+
+        @Test
+        void givenAllServicesAreEvicted_thenNewMetadataAreUsed() {
+            assertTrue(filter.requiresCompression(request));
+
+            metadata.put("apiml.response.compress", "false");
+            filter.evictCacheAllService();
+
+            assertFalse(filter.requiresCompression(request));
+        }
+
+        @Test
+        void givenServiceWithoutInstance_thenItIsNotCached() {
+            request.setRequestURI("/unknown/api/v1");
+
+            assertFalse(filter.requiresCompression(request));
+            assertFalse(filter.requiresCompression(request));
+
+            verify(discoveryClient, times(2)).getInstances("unknown");
+        }
+
+        @Test
+        void givenClientDoesNotAcceptCompression_thenDiscoveryIsNotAsked() {
+            MockHttpServletRequest plainRequest = new MockHttpServletRequest();
+            plainRequest.setRequestURI("/" + SERVICE_WITH_COMPRESSION + "/api/v1/compressed");
+
+            assertFalse(filter.requiresCompression(plainRequest));
+            verify(discoveryClient, never()).getInstances(any());
+        }
+    }
+
+    @Nested
+    class WhenParsingServiceId {
+        @Test
+        void thenTheFirstPartOfUriIsUsed() {
+            filter = new PerServiceGZipFilter(discoveryClient);
+
+            assertEquals(SERVICE_WITH_COMPRESSION, filter.getServiceId("/" + SERVICE_WITH_COMPRESSION + "/api/v1"));
+            assertEquals(SERVICE_WITH_COMPRESSION, filter.getServiceId("/" + SERVICE_WITH_COMPRESSION));
+            assertNull(filter.getServiceId("/"));
+            assertNull(filter.getServiceId("//api"));
+            assertNull(filter.getServiceId(""));
+        }
     }
 
     @Test
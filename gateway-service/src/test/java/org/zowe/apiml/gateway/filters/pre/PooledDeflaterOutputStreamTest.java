@@ -0,0 +1,143 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.filters.pre;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledDeflaterOutputStreamTest {
+
+    private final ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+    @Nested
+    class GivenGzipFormat {
+        private final DeflaterPool pool = new DeflaterPool(2, true);
+
+        @Test
+        void whenClosed_thenDataAreCompressedAndDeflaterIsReturned() throws IOException {
+            PooledDeflaterOutputStream underTest = PooledDeflaterOutputStream.gzip(target, pool);
+            underTest.write("Hello worlds".getBytes(StandardCharsets.UTF_8));
+            underTest.close();
+
+            assertEquals("Hello worlds", decompress(target.toByteArray()));
+            assertEquals(1, pool.size());
+        }
+
+        @Test
+        void givenIdleDeflaterInPool_thenStreamUsesItAndReturnsIt() throws IOException {
+            Deflater pooled = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            pool.release(pooled);
+
+            PooledDeflaterOutputStream underTest = PooledDeflaterOutputStream.gzip(target, pool);
+            assertEquals(0, pool.size());
+            underTest.write("Hello worlds".getBytes(StandardCharsets.UTF_8));
+            underTest.close();
+
+            assertEquals("Hello worlds", decompress(target.toByteArray()));
+            assertSame(pooled, pool.acquire());
+        }
+
+        @Test
+        void givenReusedDeflater_thenDataAreCompressed() throws IOException {
+            PooledDeflaterOutputStream first = PooledDeflaterOutputStream.gzip(new ByteArrayOutputStream(), pool);
+            first.write("first".getBytes(StandardCharsets.UTF_8));
+            first.close();
+
+            PooledDeflaterOutputStream second = PooledDeflaterOutputStream.gzip(target, pool);
+            second.write("second".getBytes(StandardCharsets.UTF_8));
+            second.close();
+
+            assertEquals("second", decompress(target.toByteArray()));
+            assertEquals(1, pool.size());
+        }
+
+        @Test
+        void givenFlushedData_thenTheyCanBeDecompressedBeforeClosing() throws IOException {
+            PooledDeflaterOutputStream underTest = PooledDeflaterOutputStream.gzip(target, pool);
+            underTest.write("Hello".getBytes(StandardCharsets.UTF_8));
+            underTest.flush();
+
+            assertEquals("Hello", read(new GZIPInputStream(new ByteArrayInputStream(target.toByteArray())), 5));
+            underTest.release();
+        }
+    }
+
+    @Nested
+    class GivenZlibFormat {
+        private final DeflaterPool pool = new DeflaterPool(2, false);
+
+        @Test
+        void whenClosed_thenDataAreCompressed() throws IOException {
+            PooledDeflaterOutputStream underTest = PooledDeflaterOutputStream.deflate(target, pool);
+            underTest.write("Hello worlds".getBytes(StandardCharsets.UTF_8));
+            underTest.close();
+
+            assertEquals("Hello worlds", inflate(target.toByteArray()));
+            assertEquals(1, pool.size());
+        }
+    }
+
+    @Nested
+    class WhenReleased {
+        private final DeflaterPool pool = new DeflaterPool(2, true);
+
+        @Test
+        void givenNotClosedStream_thenDeflaterIsReturned() throws IOException {
+            PooledDeflaterOutputStream underTest = PooledDeflaterOutputStream.gzip(target, pool);
+            underTest.write("unfinished".getBytes(StandardCharsets.UTF_8));
+            underTest.release();
+
+            assertEquals(1, pool.size());
+            assertThrows(IOException.class, () -> underTest.write(1));
+        }
+
+        @Test
+        void givenClosedTwice_thenDeflaterIsReturnedOnce() throws IOException {
+            PooledDeflaterOutputStream underTest = PooledDeflaterOutputStream.gzip(target, pool);
+            underTest.close();
+            underTest.close();
+            underTest.release();
+
+            assertEquals(1, pool.size());
+        }
+    }
+
+    static String decompress(byte[] compressed) throws IOException {
+        return read(new GZIPInputStream(new ByteArrayInputStream(compressed)), Integer.MAX_VALUE);
+    }
+
+    static String inflate(byte[] compressed) throws IOException {
+        return read(new InflaterInputStream(new ByteArrayInputStream(compressed)), Integer.MAX_VALUE);
+    }
+
+    private static String read(InputStream compressed, int limit) throws IOException {
+        try (InputStream inputStream = compressed) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while (outputStream.size() < limit && (read = inputStream.read(buffer, 0, Math.min(buffer.length, limit - outputStream.size()))) > 0) {
+                outputStream.write(buffer, 0, read);
+            }
+            return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionMetricsTest {
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final ConnectionMetrics underTest = new ConnectionMetrics(registry);
+
+    private double active(String serviceId) {
+        return registry.get(ConnectionMetrics.ACTIVE)
+            .tag("protocol", ConnectionMetrics.WEBSOCKET)
+            .tag("service", serviceId)
+            .gauge().value();
+    }
+
+    @Nested
+    class WhenConnectionIsOpened {
+        @Test
+        void thenActiveConnectionsAreCountedPerService() {
+            underTest.open(ConnectionMetrics.WEBSOCKET, "Service1");
+            underTest.open(ConnectionMetrics.WEBSOCKET, "service1");
+            underTest.open(ConnectionMetrics.WEBSOCKET, "service2");
+
+            assertEquals(2, active("service1"));
+            assertEquals(1, active("service2"));
+        }
+
+        @Test
+        void givenHandshakeIsReportedTwice_thenItIsRecordedOnce() {
+            ConnectionMeter meter = underTest.open(ConnectionMetrics.WEBSOCKET, "service");
+
+            meter.handshakeFinished(true);
+            meter.handshakeFinished(false);
+
+            assertEquals(1, registry.get(ConnectionMetrics.HANDSHAKE).tag("outcome", "success").timer().count());
+            assertTrue(registry.find(ConnectionMetrics.HANDSHAKE).tag("outcome", "failure").timers().isEmpty());
+        }
+
+        @Test
+        void thenMessagesAreCountedPerDirection() {
+            ConnectionMeter meter = underTest.open(ConnectionMetrics.WEBSOCKET, "service");
+
+            meter.messageToService(10);
+            meter.messageToService(20);
+            meter.messageToClient(5);
+
+            assertEquals(2, registry.get(ConnectionMetrics.MESSAGES).tag("direction", ConnectionMetrics.TO_SERVICE).counter().count());
+            assertEquals(30, registry.get(ConnectionMetrics.BYTES).tag("direction", ConnectionMetrics.TO_SERVICE).counter().count());
+            assertEquals(1, registry.get(ConnectionMetrics.MESSAGES).tag("direction", ConnectionMetrics.TO_CLIENT).counter().count());
+            assertEquals(5, registry.get(ConnectionMetrics.BYTES).tag("direction", ConnectionMetrics.TO_CLIENT).counter().count());
+        }
+    }
+
+    @Nested
+    class WhenConnectionIsClosed {
+        @Test
+        void thenReasonIsRecordedAndActiveConnectionIsReleased() {
+            ConnectionMeter meter = underTest.open(ConnectionMetrics.WEBSOCKET, "service");
+            assertFalse(meter.isClosed());
+
+            meter.closed("1000");
+
+            assertTrue(meter.isClosed());
+            assertEquals(0, active("service"));
+            assertEquals(1, registry.get(ConnectionMetrics.CLOSED).tag("reason", "1000").counter().count());
+        }
+
+        @Test
+        void givenCloseIsReportedTwice_thenItIsRecordedOnce() {
+            ConnectionMeter meter = underTest.open(ConnectionMetrics.WEBSOCKET, "service");
+            underTest.open(ConnectionMetrics.WEBSOCKET, "service");
+
+            meter.closed("1000");
+            meter.closed("1001");
+
+            assertEquals(1, active("service"));
+            assertEquals(1, registry.get(ConnectionMetrics.CLOSED).counter().count());
+        }
+    }
+}
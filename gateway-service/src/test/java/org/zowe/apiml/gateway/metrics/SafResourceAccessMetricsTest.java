@@ -0,0 +1,64 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.zowe.apiml.security.common.auth.saf.SafResourceAccessCaching;
+import org.zowe.apiml.security.common.auth.saf.SafResourceAccessVerifying;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SafResourceAccessMetricsTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    @SuppressWarnings("unchecked")
+    private void bind(SafResourceAccessVerifying safResourceAccessVerifying) {
+        ObjectProvider<SafResourceAccessVerifying> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(safResourceAccessVerifying);
+        new SafResourceAccessMetrics(provider).bindTo(registry);
+    }
+
+    @Test
+    void givenCachingProvider_thenStatisticsArePublished() {
+        SafResourceAccessVerifying delegate = mock(SafResourceAccessVerifying.class);
+        when(delegate.hasSafResourceAccess(any(), any(), any(), any())).thenReturn(true);
+        SafResourceAccessCaching caching = new SafResourceAccessCaching(delegate, 100, Duration.ofSeconds(30), Duration.ofSeconds(10));
+        bind(caching);
+
+        Authentication authentication = new UsernamePasswordAuthenticationToken("USER", "password");
+        caching.hasSafResourceAccess(authentication, "ZOWE", "APIML.RESOURCE", "READ");
+        caching.hasSafResourceAccess(authentication, "ZOWE", "APIML.RESOURCE", "READ");
+
+        assertEquals(1, registry.get("cache.gets").tag("cache", SafResourceAccessMetrics.CACHE_NAME).tag("result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tag("cache", SafResourceAccessMetrics.CACHE_NAME).tag("result", "miss").functionCounter().count());
+        assertEquals(1, registry.get("cache.size").tag("cache", SafResourceAccessMetrics.CACHE_NAME).gauge().value());
+    }
+
+    @Test
+    void givenProviderWithoutCache_thenNothingIsPublished() {
+        bind(mock(SafResourceAccessVerifying.class));
+
+        assertTrue(registry.getMeters().isEmpty());
+    }
+
+}
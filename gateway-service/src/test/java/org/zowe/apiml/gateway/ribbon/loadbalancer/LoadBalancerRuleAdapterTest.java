@@ -107,6 +107,128 @@ class LoadBalancerRuleAdapterTest {
             underTest.setLoadBalancer(lb);
             assertNull(underTest.choose("key"));
         }
+
+        @Test
+        void givenServerIsFilteredOut_thenOtherPredicatesAreNotApplied() {
+            predicateMap = new LinkedHashMap<>();
+            predicateMap.put("predicate", requestAwarePredicate);
+            predicateMap.put("predicate1", requestAwarePredicate1);
+            when(configurableNamedContextFactory.getInstances(any(), any())).thenReturn(predicateMap);
+            when(requestAwarePredicate.apply(any(), eq(server))).thenReturn(false);
+            when(requestAwarePredicate.apply(any(), eq(server1))).thenReturn(true);
+            when(requestAwarePredicate1.apply(any(), any())).thenReturn(true);
+            when(lb.getAllServers()).thenReturn(Arrays.asList(server, server1));
+
+            LoadBalancerRuleAdapter underTest = new LoadBalancerRuleAdapter(instanceInfo, configurableNamedContextFactory, null);
+            underTest.setLoadBalancer(lb);
+
+            assertSame(server1, underTest.choose("key"));
+            verify(requestAwarePredicate1, never()).apply(any(), eq(server));
+            verify(requestAwarePredicate1, times(1)).apply(any(), eq(server1));
+        }
+
+        @Test
+        void whenServerListChanges_thenNewServersAreConsidered() {
+            DiscoveryEnabledServer newServer = createServer("new");
+            predicateMap.remove("predicate1");
+            when(configurableNamedContextFactory.getInstances(any(), any())).thenReturn(predicateMap);
+            when(requestAwarePredicate.apply(any(), any())).thenReturn(false);
+            when(requestAwarePredicate.apply(any(), eq(newServer))).thenReturn(true);
+
+            LoadBalancerRuleAdapter underTest = new LoadBalancerRuleAdapter(instanceInfo, configurableNamedContextFactory, null);
+            underTest.setLoadBalancer(lb);
+
+            when(lb.getAllServers()).thenReturn(Arrays.asList(server, server1));
+            assertNull(underTest.choose("key"));
+
+            when(lb.getAllServers()).thenReturn(Arrays.asList(server, newServer, server1));
+            assertSame(newServer, underTest.choose("key"));
+        }
+
+        @Test
+        void whenServerIsNotReady_thenItIsOrderedLast() {
+            DiscoveryEnabledServer first = createServer("a-first");
+            DiscoveryEnabledServer second = createServer("b-second");
+            List<List<Server>> orders = new ArrayList<>();
+            predicateMap.clear();
+            predicateMap.put("recording", new RequestAwarePredicate() {
+                @Override
+                public boolean apply(LoadBalancingContext context, DiscoveryEnabledServer server) {
+                    orders.get(orders.size() - 1).add(server);
+                    return true;
+                }
+
+                @Override
+                public String toString() {
+                    return "RecordingPredicate";
+                }
+            });
+            when(configurableNamedContextFactory.getInstances(any(), any())).thenReturn(predicateMap);
+            when(lb.getAllServers()).thenReturn(Arrays.asList(second, first));
+
+            LoadBalancerRuleAdapter underTest = new LoadBalancerRuleAdapter(instanceInfo, configurableNamedContextFactory, null);
+            underTest.setLoadBalancer(lb);
+
+            orders.add(new ArrayList<>());
+            underTest.choose("key");
+            first.setReadyToServe(false);
+            orders.add(new ArrayList<>());
+            underTest.choose("key");
+
+            assertEquals(Arrays.asList(first, second), orders.get(0));
+            assertEquals(Arrays.asList(second, first), orders.get(1));
+        }
+    }
+
+    @Nested
+    class GivenSelector {
+        @Test
+        void serverIsChosenBySelector() {
+            ConfigurableNamedContextFactory<NamedContextFactory.Specification> configurableNamedContextFactory = mock(ConfigurableNamedContextFactory.class);
+            ServerSelector selector = mock(ServerSelector.class);
+            when(configurableNamedContextFactory.getInstance(any(), eq(ServerSelector.class))).thenReturn(selector);
+            when(selector.choose(any(), any())).thenReturn(server1);
+            when(lb.getAllServers()).thenReturn(Arrays.asList(server1, server));
+
+            LoadBalancerRuleAdapter underTest = new LoadBalancerRuleAdapter(mock(InstanceInfo.class), configurableNamedContextFactory, null);
+            underTest.setLoadBalancer(lb);
+
+            assertSame(server1, underTest.choose("key"));
+            verify(selector).choose(any(), eq(Arrays.asList(server, server1)));
+        }
+
+        @Test
+        void givenNoServer_thenSelectorIsNotCalled() {
+            ConfigurableNamedContextFactory<NamedContextFactory.Specification> configurableNamedContextFactory = mock(ConfigurableNamedContextFactory.class);
+            ServerSelector selector = mock(ServerSelector.class);
+            when(configurableNamedContextFactory.getInstance(any(), eq(ServerSelector.class))).thenReturn(selector);
+            when(lb.getAllServers()).thenReturn(Collections.emptyList());
+
+            LoadBalancerRuleAdapter underTest = new LoadBalancerRuleAdapter(mock(InstanceInfo.class), configurableNamedContextFactory, null);
+            underTest.setLoadBalancer(lb);
+
+            assertNull(underTest.choose("key"));
+            verify(selector, never()).choose(any(), any());
+        }
+
+        @Test
+        void whenServerLeavesLoadBalancer_thenSelectorIsNotified() {
+            ConfigurableNamedContextFactory<NamedContextFactory.Specification> configurableNamedContextFactory = mock(ConfigurableNamedContextFactory.class);
+            ServerSelector selector = mock(ServerSelector.class);
+            when(configurableNamedContextFactory.getInstance(any(), eq(ServerSelector.class))).thenReturn(selector);
+            when(selector.choose(any(), any())).thenReturn(server1);
+
+            LoadBalancerRuleAdapter underTest = new LoadBalancerRuleAdapter(mock(InstanceInfo.class), configurableNamedContextFactory, null);
+            underTest.setLoadBalancer(lb);
+
+            when(lb.getAllServers()).thenReturn(Arrays.asList(server1, server));
+            underTest.choose("key");
+            verify(selector, never()).serversRemoved(any());
+
+            when(lb.getAllServers()).thenReturn(Collections.singletonList(server1));
+            underTest.choose("key");
+            verify(selector).serversRemoved(Collections.singleton(server.getId()));
+        }
     }
 
     @Nested
@@ -0,0 +1,151 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.ribbon.loadbalancer;
+
+import com.netflix.loadbalancer.Server;
+import com.netflix.zuul.context.RequestContext;
+import org.springframework.cloud.netflix.zuul.filters.support.FilterConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class ServerLoadTrackerTest {
+    private static final long DECAY_MILLIS = 1000;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final Server server = new Server("host", 10010);
+    private ServerLoadTracker underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new ServerLoadTracker(DECAY_MILLIS, clock::get);
+    }
+
+    static RequestContext zuulContext() {
+        RequestContext requestContext = new RequestContext();
+        requestContext.setZuulEngineRan();
+        requestContext.set(FilterConstants.SERVICE_ID_KEY, "service");
+        return requestContext;
+    }
+
+    @Nested
+    class WhenTrackingRequests {
+        @Test
+        void givenStartedRequest_thenItIsOutstandingUntilFinished() {
+            RequestContext requestContext = zuulContext();
+
+            underTest.start(requestContext, server);
+            assertThat(underTest.isTracked(requestContext), is(true));
+            assertThat(underTest.getOutstandingRequests(server), is(1));
+
+            underTest.finish(requestContext);
+            assertThat(underTest.isTracked(requestContext), is(false));
+            assertThat(underTest.getOutstandingRequests(server), is(0));
+        }
+
+        @Test
+        void givenRetriedRequest_thenPreviousAttemptIsFinished() {
+            RequestContext requestContext = zuulContext();
+            Server other = new Server("other", 10010);
+
+            underTest.start(requestContext, server);
+            underTest.start(requestContext, other);
+
+            assertThat(underTest.getOutstandingRequests(server), is(0));
+            assertThat(underTest.getOutstandingRequests(other), is(1));
+        }
+
+        @Test
+        void givenServerIsRemoved_thenItsLoadIsForgotten() {
+            RequestContext requestContext = zuulContext();
+            underTest.start(requestContext, server);
+
+            underTest.remove(Collections.singleton(server.getId()));
+            assertThat(underTest.getOutstandingRequests(server), is(0));
+
+            underTest.finish(requestContext);
+            assertThat(underTest.getOutstandingRequests(server), is(0));
+        }
+
+        @Test
+        void givenRequestNotRoutedByZuul_thenItIsNotTracked() {
+            RequestContext requestContext = new RequestContext();
+
+            underTest.start(requestContext, server);
+
+            assertThat(underTest.isTracked(requestContext), is(false));
+            assertThat(underTest.getOutstandingRequests(server), is(0));
+        }
+
+        @Test
+        void givenNotTrackedRequest_whenFinishing_thenNothingHappens() {
+            underTest.finish(zuulContext());
+
+            assertThat(underTest.getOutstandingRequests(server), is(0));
+        }
+    }
+
+    @Nested
+    class WhenComputingCost {
+        @Test
+        void givenUnknownServer_thenCostIsZero() {
+            assertThat(underTest.getCost(server), is(0.0));
+        }
+
+        @Test
+        void givenOutstandingRequestWithoutLatency_thenCostIsPenalty() {
+            underTest.start(zuulContext(), server);
+
+            assertThat(underTest.getCost(server), is(greaterThan((double) TimeUnit.HOURS.toNanos(1))));
+        }
+
+        @Test
+        void givenLowerLatencyAfterPeak_thenPeakIsKept() {
+            request(100);
+            request(10);
+
+            assertThat(underTest.getCost(server), is(greaterThan((double) TimeUnit.MILLISECONDS.toNanos(90))));
+        }
+
+        @Test
+        void givenIdleServer_thenLatencyDecays() {
+            request(100);
+
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(DECAY_MILLIS * 5));
+
+            assertThat(underTest.getCost(server), is(lessThan((double) TimeUnit.MILLISECONDS.toNanos(1))));
+        }
+
+        @Test
+        void givenOutstandingRequests_thenCostGrows() {
+            request(100);
+            double idleCost = underTest.getCost(server);
+
+            underTest.start(zuulContext(), server);
+
+            assertThat(underTest.getCost(server), is(closeTo(idleCost * 2, idleCost * 0.01)));
+        }
+
+        private void request(long latencyMillis) {
+            RequestContext requestContext = zuulContext();
+            underTest.start(requestContext, server);
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+            underTest.finish(requestContext);
+        }
+    }
+}
@@ -27,6 +27,8 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.SERVICE_ID_KEY;
 
@@ -161,6 +163,50 @@ class AuthenticationBasedPredicateTest {
         }
     }
 
+    @Nested
+    class GivenMoreInstances {
+        @BeforeEach
+        void setUp() {
+            requestContext = new RequestContext();
+            requestContext.set(SERVICE_ID_KEY, SERVICE_ID);
+            when(context.getRequestContext()).thenReturn(requestContext);
+            when(authenticationService.getPrincipalFromRequest(any())).thenReturn(Optional.of(VALID_USER));
+            when(cache.retrieve(VALID_USER, SERVICE_ID)).thenReturn(new LoadBalancerCacheRecord(VALID_INSTANCE));
+        }
+
+        @Test
+        void whenFiltering_thenPreferenceIsResolvedOncePerRequest() {
+            assertThat(underTest.apply(context, discoveryEnabledServer("first")), is(false));
+            assertThat(underTest.apply(context, discoveryEnabledServer(VALID_INSTANCE)), is(true));
+            assertThat(underTest.apply(context, discoveryEnabledServer("third")), is(false));
+
+            verify(authenticationService, times(1)).getPrincipalFromRequest(any());
+            verify(cache, times(1)).retrieve(VALID_USER, SERVICE_ID);
+        }
+
+        @Test
+        void whenThereIsNoPreference_thenTheMissingPreferenceIsRemembered() {
+            when(cache.retrieve(VALID_USER, SERVICE_ID)).thenReturn(null);
+
+            assertThat(underTest.apply(context, discoveryEnabledServer("first")), is(true));
+            assertThat(underTest.apply(context, discoveryEnabledServer("second")), is(true));
+
+            verify(cache, times(1)).retrieve(VALID_USER, SERVICE_ID);
+        }
+
+        @Test
+        void whenPreferenceIsOld_thenItIsDeletedOnlyOnce() {
+            when(cache.retrieve(VALID_USER, SERVICE_ID)).thenReturn(
+                new LoadBalancerCacheRecord(VALID_INSTANCE, LocalDateTime.now().minus(10, ChronoUnit.HOURS))
+            );
+
+            assertThat(underTest.apply(context, discoveryEnabledServer("first")), is(true));
+            assertThat(underTest.apply(context, discoveryEnabledServer("second")), is(true));
+
+            verify(cache, times(1)).delete(VALID_USER, SERVICE_ID);
+        }
+    }
+
     private DiscoveryEnabledServer discoveryEnabledServer(String instanceId) {
         DiscoveryEnabledServer server = mock(DiscoveryEnabledServer.class);
         InstanceInfo info = mock(InstanceInfo.class);
@@ -0,0 +1,73 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.ribbon.loadbalancer.selector;
+
+import com.netflix.loadbalancer.Server;
+import com.netflix.zuul.context.RequestContext;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.zowe.apiml.gateway.ribbon.loadbalancer.LoadBalancingContext;
+
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PeakEwmaSelectorTest {
+
+    @Nested
+    class GivenSkewedCluster {
+        private final SkewedCluster cluster = new SkewedCluster();
+        private final Server fast = cluster.add("fast", 1);
+        private final Server slow = cluster.add("slow", 10);
+
+        @Test
+        void whenRoutingRequests_thenSlowInstanceIsAvoided() {
+            cluster.run(new PeakEwmaSelector(cluster.tracker), 100);
+
+            assertThat(cluster.count(fast), is(greaterThanOrEqualTo(95)));
+            assertThat(cluster.count(slow), is(both(greaterThan(0)).and(lessThanOrEqualTo(5))));
+        }
+    }
+
+    @Nested
+    class GivenEqualCluster {
+        private final SkewedCluster cluster = new SkewedCluster();
+        private final Server first = cluster.add("first", 1);
+        private final Server second = cluster.add("second", 1);
+
+        @Test
+        void whenRoutingRequests_thenBothInstancesAreUsed() {
+            cluster.run(new PeakEwmaSelector(cluster.tracker), 100);
+
+            assertThat(cluster.count(first), is(greaterThan(0)));
+            assertThat(cluster.count(second), is(greaterThan(0)));
+        }
+    }
+
+    @Nested
+    class GivenRequestNotRoutedByZuul {
+        private final SkewedCluster cluster = new SkewedCluster();
+        private final Server server = cluster.add("server", 1);
+
+        @Test
+        void whenChoosing_thenNoLoadIsRecorded() {
+            LoadBalancingContext context = mock(LoadBalancingContext.class);
+            when(context.getRequestContext()).thenReturn(new RequestContext());
+
+            assertThat(new PeakEwmaSelector(cluster.tracker).choose(context, Collections.singletonList(server)), is(server));
+            assertThat(cluster.tracker.getOutstandingRequests(server), is(0));
+            assertThat(cluster.tracker.getCost(server), is(0.0));
+        }
+    }
+}
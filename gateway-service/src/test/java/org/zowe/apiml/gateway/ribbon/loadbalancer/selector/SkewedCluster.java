@@ -0,0 +1,80 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.ribbon.loadbalancer.selector;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.loadbalancer.Server;
+import com.netflix.niws.loadbalancer.DiscoveryEnabledServer;
+import com.netflix.zuul.context.RequestContext;
+import org.springframework.cloud.netflix.zuul.filters.support.FilterConstants;
+import org.zowe.apiml.gateway.ribbon.loadbalancer.LoadBalancingContext;
+import org.zowe.apiml.gateway.ribbon.loadbalancer.ServerLoadTracker;
+import org.zowe.apiml.gateway.ribbon.loadbalancer.ServerSelector;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Stub cluster of instances with different latencies. Every tick one request arrives, the requests finish after the
+ * latency of the instance they were routed to.
+ */
+class SkewedCluster {
+    static final long TICK_MILLIS = 10;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<Server, Integer> latencyInTicks = new LinkedHashMap<>();
+    private final Map<Server, Integer> counts = new HashMap<>();
+
+    final ServerLoadTracker tracker = new ServerLoadTracker(10_000, clock::get);
+
+    static DiscoveryEnabledServer server(String name, Map<String, String> metadata) {
+        InstanceInfo instanceInfo = InstanceInfo.Builder.newBuilder()
+            .setAppName("service")
+            .setInstanceId(name)
+            .setHostName(name)
+            .setMetadata(metadata)
+            .build();
+        return new DiscoveryEnabledServer(instanceInfo, false);
+    }
+
+    Server add(String name, int latencyInTicks) {
+        Server server = server(name, new HashMap<>());
+        this.latencyInTicks.put(server, latencyInTicks);
+        return server;
+    }
+
+    void run(ServerSelector selector, int requests) {
+        List<Server> servers = new ArrayList<>(latencyInTicks.keySet());
+        Map<Integer, List<RequestContext>> finishing = new HashMap<>();
+        for (int tick = 0; tick < requests; tick++) {
+            clock.set(TimeUnit.MILLISECONDS.toNanos(tick * TICK_MILLIS));
+            finishing.getOrDefault(tick, Collections.emptyList()).forEach(tracker::finish);
+
+            RequestContext requestContext = new RequestContext();
+            requestContext.setZuulEngineRan();
+            requestContext.set(FilterConstants.SERVICE_ID_KEY, "service");
+            LoadBalancingContext context = mock(LoadBalancingContext.class);
+            when(context.getRequestContext()).thenReturn(requestContext);
+
+            Server selected = selector.choose(context, servers);
+            counts.merge(selected, 1, Integer::sum);
+            finishing.computeIfAbsent(tick + latencyInTicks.get(selected), t -> new ArrayList<>()).add(requestContext);
+        }
+    }
+
+    int count(Server server) {
+        return counts.getOrDefault(server, 0);
+    }
+}
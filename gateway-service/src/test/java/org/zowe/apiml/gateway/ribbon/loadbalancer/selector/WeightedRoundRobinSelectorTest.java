@@ -0,0 +1,97 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.ribbon.loadbalancer.selector;
+
+import com.netflix.loadbalancer.Server;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.zowe.apiml.gateway.ribbon.loadbalancer.LoadBalancingContext;
+
+import java.util.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.zowe.apiml.gateway.ribbon.loadbalancer.selector.WeightedRoundRobinSelector.WEIGHT_KEY;
+
+class WeightedRoundRobinSelectorTest {
+    private final WeightedRoundRobinSelector underTest = new WeightedRoundRobinSelector();
+    private final LoadBalancingContext context = mock(LoadBalancingContext.class);
+
+    private final Server heavy = SkewedCluster.server("heavy", Collections.singletonMap(WEIGHT_KEY, "3"));
+    private final Server light = SkewedCluster.server("light", Collections.singletonMap(WEIGHT_KEY, "1"));
+    private final Server noWeight = SkewedCluster.server("noWeight", new HashMap<>());
+
+    @Nested
+    class GivenDifferentWeights {
+        private final List<Server> servers = Arrays.asList(heavy, light, noWeight);
+
+        @Test
+        void whenChoosing_thenRequestsAreInterleaved() {
+            List<Server> chosen = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                chosen.add(underTest.choose(context, servers));
+            }
+
+            assertThat(chosen, contains(heavy, light, heavy, noWeight, heavy));
+        }
+
+        @Test
+        void whenChoosingRepeatedly_thenRequestsAreSplitByWeight() {
+            Map<Server, Integer> counts = new HashMap<>();
+            for (int i = 0; i < 500; i++) {
+                counts.merge(underTest.choose(context, servers), 1, Integer::sum);
+            }
+
+            assertThat(counts.get(heavy), is(300));
+            assertThat(counts.get(light), is(100));
+            assertThat(counts.get(noWeight), is(100));
+        }
+
+        @Test
+        void whenServerIsFilteredOut_thenItsStateIsKept() {
+            underTest.choose(context, servers);
+            assertThat(underTest.choose(context, Collections.singletonList(light)), is(light));
+
+            // heavy was chosen recently, so the others catch up first
+            assertThat(underTest.choose(context, servers), is(light));
+        }
+
+        @Test
+        void whenServerLeavesLoadBalancer_thenItsStateIsDropped() {
+            assertThat(underTest.choose(context, servers), is(heavy));
+
+            underTest.serversRemoved(Collections.singleton(heavy.getId()));
+
+            assertThat(underTest.choose(context, servers), is(heavy));
+        }
+
+        @Test
+        void whenServerIsRemoved_thenTheOthersAreStillUsed() {
+            underTest.choose(context, servers);
+
+            List<Server> remaining = Arrays.asList(light, noWeight);
+            assertThat(underTest.choose(context, remaining), is(light));
+            assertThat(underTest.choose(context, remaining), is(noWeight));
+        }
+    }
+
+    @Nested
+    class GivenInvalidWeight {
+        @Test
+        void thenDefaultWeightIsUsed() {
+            assertThat(WeightedRoundRobinSelector.getWeight(SkewedCluster.server("a", Collections.singletonMap(WEIGHT_KEY, "abc"))), is(1));
+            assertThat(WeightedRoundRobinSelector.getWeight(SkewedCluster.server("b", Collections.singletonMap(WEIGHT_KEY, "0"))), is(1));
+            assertThat(WeightedRoundRobinSelector.getWeight(new Server("host", 80)), is(1));
+        }
+    }
+}
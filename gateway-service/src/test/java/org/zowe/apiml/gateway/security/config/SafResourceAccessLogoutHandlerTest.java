@@ -0,0 +1,71 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.security.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.zowe.apiml.gateway.security.service.AuthenticationService;
+import org.zowe.apiml.security.common.auth.saf.SafResourceAccessCaching;
+import org.zowe.apiml.security.common.token.QueryResponse;
+import org.zowe.apiml.security.common.token.TokenNotValidException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.Mockito.*;
+
+class SafResourceAccessLogoutHandlerTest {
+    private static final String TOKEN = "apimlToken";
+
+    private final HttpServletRequest request = mock(HttpServletRequest.class);
+    private final HttpServletResponse response = mock(HttpServletResponse.class);
+    private final AuthenticationService authenticationService = mock(AuthenticationService.class);
+    private final SafResourceAccessCaching safResourceAccessCaching = mock(SafResourceAccessCaching.class);
+
+    private final SafResourceAccessLogoutHandler handler = new SafResourceAccessLogoutHandler(authenticationService, safResourceAccessCaching);
+
+    @BeforeEach
+    void setup() {
+        when(authenticationService.getJwtTokenFromRequest(request)).thenReturn(Optional.of(TOKEN));
+    }
+
+    @Test
+    void givenToken_whenLogout_thenDecisionsOfTheUserAreEvicted() {
+        when(authenticationService.parseJwtToken(TOKEN)).thenReturn(new QueryResponse(
+            "domain", "USER", new Date(), new Date(), "APIML", Collections.emptyList(), QueryResponse.Source.ZOWE
+        ));
+
+        handler.logout(request, response, null);
+
+        verify(safResourceAccessCaching).evict("USER");
+    }
+
+    @Test
+    void givenNoToken_whenLogout_thenNothingIsEvicted() {
+        when(authenticationService.getJwtTokenFromRequest(request)).thenReturn(Optional.empty());
+
+        handler.logout(request, response, null);
+
+        verifyNoInteractions(safResourceAccessCaching);
+    }
+
+    @Test
+    void givenInvalidToken_whenLogout_thenErrorIsIgnored() {
+        when(authenticationService.parseJwtToken(TOKEN)).thenThrow(new TokenNotValidException("Token is not valid."));
+
+        assertDoesNotThrow(() -> handler.logout(request, response, null));
+        verifyNoInteractions(safResourceAccessCaching);
+    }
+}
@@ -10,6 +10,7 @@
 
 package org.zowe.apiml.gateway.security.mapping;
 
+import io.jsonwebtoken.Jwts;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpStatus;
 import org.apache.http.StatusLine;
@@ -29,6 +30,7 @@ import org.zowe.apiml.security.common.config.AuthConfigurationProperties;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.Date;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -39,7 +41,12 @@ class ExternalMapperTest {
 
     class TestExternalMapper extends ExternalMapper {
         public TestExternalMapper(String mapperUrl, String mapperUser, CloseableHttpClient httpClientProxy, TokenCreationService tokenCreationService) {
-            super(mapperUrl, mapperUser, httpClientProxy, tokenCreationService, authConfigurationProperties);
+            super(mapperUrl, mapperUser, httpClientProxy, new ServiceTokenHolder(tokenCreationService), authConfigurationProperties);
+        }
+
+        @Override
+        protected String getCacheName() {
+            return "testMapping";
         }
     }
 
@@ -126,10 +133,26 @@ class ExternalMapperTest {
                 when(statusLine.getStatusCode()).thenReturn(HttpStatus.SC_BAD_REQUEST);
             }
             @Test
-            void thenResponseIsNull() {
+            void thenMappingFails() {
                 HttpEntity payload = new BasicHttpEntity();
-                MapperResponse response = mapper.callExternalMapper(payload);
-                assertNull(response);
+                assertThrows(ExternalMapper.MappingFailedException.class, () -> mapper.callExternalMapper(payload));
+            }
+        }
+
+        @Nested
+        class WhenStatusCode401 {
+            @BeforeEach
+            void setup() {
+                String jwt = Jwts.builder().setSubject("mapper_user").setExpiration(new Date(System.currentTimeMillis() + 3600_000)).compact();
+                when(tokenCreationService.createJwtTokenWithoutCredentials(anyString())).thenReturn(jwt);
+                when(statusLine.getStatusCode()).thenReturn(HttpStatus.SC_UNAUTHORIZED);
+            }
+            @Test
+            void thenTokenIsCreatedAgain() {
+                HttpEntity payload = new BasicHttpEntity();
+                assertThrows(ExternalMapper.MappingFailedException.class, () -> mapper.callExternalMapper(payload));
+                assertThrows(ExternalMapper.MappingFailedException.class, () -> mapper.callExternalMapper(payload));
+                verify(tokenCreationService, times(2)).createJwtTokenWithoutCredentials("mapper_user");
             }
         }
 
@@ -140,10 +163,9 @@ class ExternalMapperTest {
                 when(statusLine.getStatusCode()).thenReturn(HttpStatus.SC_PROCESSING);
             }
             @Test
-            void thenResponseIsNull() {
+            void thenMappingFails() {
                 HttpEntity payload = new BasicHttpEntity();
-                MapperResponse response = mapper.callExternalMapper(payload);
-                assertNull(response);
+                assertThrows(ExternalMapper.MappingFailedException.class, () -> mapper.callExternalMapper(payload));
             }
         }
 
@@ -154,10 +176,9 @@ class ExternalMapperTest {
                 when(httpResponse.getStatusLine()).thenReturn(null);
             }
             @Test
-            void thenResponseIsNull() {
+            void thenMappingFails() {
                 HttpEntity payload = new BasicHttpEntity();
-                MapperResponse response = mapper.callExternalMapper(payload);
-                assertNull(response);
+                assertThrows(ExternalMapper.MappingFailedException.class, () -> mapper.callExternalMapper(payload));
             }
         }
 
@@ -168,10 +189,9 @@ class ExternalMapperTest {
                 when(responseEntity.getContent()).thenReturn(new ByteArrayInputStream("invalid content".getBytes()));
             }
             @Test
-            void thenResponseIsNull() {
+            void thenMappingFails() {
                 HttpEntity payload = new BasicHttpEntity();
-                MapperResponse response = mapper.callExternalMapper(payload);
-                assertNull(response);
+                assertThrows(ExternalMapper.MappingFailedException.class, () -> mapper.callExternalMapper(payload));
             }
         }
 
@@ -197,22 +217,20 @@ class ExternalMapperTest {
         @ValueSource(strings = {"%", "https:\\\\"})
         @NullSource
         @EmptySource
-        void whenMapperUrlInvalid_thenResponseIsNull(String url) {
+        void whenMapperUrlInvalid_thenMappingFails(String url) {
             mapper = new TestExternalMapper(url, "mapper_user", closeableHttpClient, tokenCreationService);
             HttpEntity payload = new BasicHttpEntity();
-            MapperResponse response = mapper.callExternalMapper(payload);
-            assertNull(response);
+            assertThrows(ExternalMapper.MappingFailedException.class, () -> mapper.callExternalMapper(payload));
             verify(tokenCreationService, times(0)).createJwtTokenWithoutCredentials(anyString());
         }
 
         @ParameterizedTest
         @NullSource
         @EmptySource
-        void whenMapperUserInvalid_thenResponseIsNull(String user) {
+        void whenMapperUserInvalid_thenMappingFails(String user) {
             mapper = new TestExternalMapper("http://localhost/test", user, closeableHttpClient, tokenCreationService);
             HttpEntity payload = new BasicHttpEntity();
-            MapperResponse response = mapper.callExternalMapper(payload);
-            assertNull(response);
+            assertThrows(ExternalMapper.MappingFailedException.class, () -> mapper.callExternalMapper(payload));
             verify(tokenCreationService, times(0)).createJwtTokenWithoutCredentials(anyString());
         }
     }
@@ -87,7 +87,7 @@ class OIDCExternalMapperTest {
     void setup() {
         authSource = new OIDCAuthSource("OIDC_access_token");
         authSource.setDistributedId("distributed_ID");
-        oidcExternalMapper = new OIDCExternalMapper("https://domain.com/mapper", "mapper_user", httpClient, tokenCreationService, authConfigurationProperties);
+        oidcExternalMapper = new OIDCExternalMapper("https://domain.com/mapper", "mapper_user", httpClient, new ServiceTokenHolder(tokenCreationService), authConfigurationProperties);
         oidcExternalMapper.registry = "test_registry";
 
         responseEntity = new BasicHttpEntity();
@@ -139,6 +139,25 @@ class OIDCExternalMapperTest {
         }
     }
 
+    @Nested
+    class GivenMapperError {
+
+        @BeforeEach
+        void setup() throws IOException {
+            CloseableHttpResponse response = mock(CloseableHttpResponse.class);
+            StatusLine responseStatusLine = mock(StatusLine.class);
+            when(responseStatusLine.getStatusCode()).thenReturn(HttpStatus.SC_INTERNAL_SERVER_ERROR);
+            when(response.getStatusLine()).thenReturn(responseStatusLine);
+            when(httpClient.execute(any())).thenReturn(response);
+        }
+
+        @Test
+        void thenNullIsReturned() {
+            String userId = oidcExternalMapper.mapToMainframeUserId(authSource);
+            assertNull(userId);
+        }
+    }
+
     @Nested
     class GivenConfigurationErrors {
 
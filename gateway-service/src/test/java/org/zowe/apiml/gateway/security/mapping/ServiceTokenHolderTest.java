@@ -0,0 +1,127 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.security.mapping;
+
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.zowe.apiml.gateway.security.service.TokenCreationService;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+class ServiceTokenHolderTest {
+
+    private static final String USER = "mapper_user";
+    private static final long HOUR = 3600_000;
+
+    // the claims are parsed with the validation of expiration, so the test clock starts at the real time
+    private final long start = System.currentTimeMillis();
+    private final AtomicLong now = new AtomicLong(start);
+    private final TokenCreationService tokenCreationService = mock(TokenCreationService.class);
+    private final ServiceTokenHolder underTest = new ServiceTokenHolder(tokenCreationService, now::get);
+
+    private String jwt(long expiration) {
+        return Jwts.builder().setSubject(USER).setExpiration(new Date(expiration)).compact() + "signature";
+    }
+
+    @Nested
+    class GivenValidToken {
+        private final String first = jwt(start + 8 * HOUR);
+        private final String second = jwt(start + 16 * HOUR);
+
+        @BeforeEach
+        void setup() {
+            when(tokenCreationService.createJwtTokenWithoutCredentials(USER)).thenReturn(first, second);
+        }
+
+        @Test
+        void whenTokenIsRequestedAgain_thenItIsNotSignedAgain() {
+            assertEquals(first, underTest.getToken(USER));
+            now.addAndGet(HOUR);
+            assertEquals(first, underTest.getToken(USER));
+
+            verify(tokenCreationService, times(1)).createJwtTokenWithoutCredentials(USER);
+        }
+
+        @Test
+        void whenTokenIsCloseToExpiration_thenItIsRefreshed() {
+            assertEquals(first, underTest.getToken(USER));
+            now.addAndGet(8 * HOUR - 60_000);
+
+            assertEquals(second, underTest.getToken(USER));
+            assertEquals(second, underTest.getToken(USER));
+            verify(tokenCreationService, times(2)).createJwtTokenWithoutCredentials(USER);
+        }
+
+        @Test
+        void whenTokenIsEvicted_thenNewOneIsCreated() {
+            assertEquals(first, underTest.getToken(USER));
+            underTest.evict(USER);
+
+            assertEquals(second, underTest.getToken(USER));
+        }
+    }
+
+    @Nested
+    class GivenShortLivedToken {
+        @Test
+        void thenItIsRefreshedInTheSecondHalfOfItsLifetime() {
+            String first = jwt(start + 120_000);
+            String second = jwt(start + 240_000);
+            when(tokenCreationService.createJwtTokenWithoutCredentials(USER)).thenReturn(first, second);
+
+            assertEquals(first, underTest.getToken(USER));
+            now.addAndGet(59_000);
+            assertEquals(first, underTest.getToken(USER));
+            now.addAndGet(2_000);
+            assertEquals(second, underTest.getToken(USER));
+        }
+    }
+
+    @Nested
+    class GivenTokenWithoutExpiration {
+        @Test
+        void thenItIsNotReused() {
+            when(tokenCreationService.createJwtTokenWithoutCredentials(USER)).thenReturn("notJwt");
+
+            underTest.getToken(USER);
+            underTest.getToken(USER);
+
+            verify(tokenCreationService, times(2)).createJwtTokenWithoutCredentials(USER);
+        }
+    }
+
+    @Nested
+    class GivenFailingRefresh {
+        @Test
+        void thenErrorIsThrownAndTokenIsRefreshedNextTime() {
+            String first = jwt(start + HOUR);
+            String second = jwt(start + 2 * HOUR);
+            when(tokenCreationService.createJwtTokenWithoutCredentials(USER))
+                .thenReturn(first)
+                .thenThrow(new IllegalStateException("z/OSMF is not available"))
+                .thenReturn(second);
+
+            underTest.getToken(USER);
+            now.addAndGet(HOUR - 10_000);
+
+            assertThrows(IllegalStateException.class, () -> underTest.getToken(USER));
+            assertEquals(second, underTest.getToken(USER));
+        }
+    }
+
+}
@@ -14,8 +14,16 @@ import org.apache.http.impl.client.CloseableHttpClient;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.AopTestUtils;
+import org.zowe.apiml.gateway.config.CacheConfig;
 import org.zowe.apiml.gateway.security.mapping.model.MapperResponse;
-import org.zowe.apiml.gateway.security.service.TokenCreationService;
 import org.zowe.apiml.gateway.security.service.schema.source.AuthSource;
 import org.zowe.apiml.gateway.security.service.schema.source.JwtAuthSource;
 import org.zowe.apiml.gateway.security.service.schema.source.X509AuthSource;
@@ -23,6 +31,7 @@ import org.zowe.apiml.security.common.config.AuthConfigurationProperties;
 
 import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
+import java.util.Objects;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -40,7 +49,7 @@ class X509ExternalMapperTest {
         x509Certificate = mock(X509Certificate.class);
         when(x509Certificate.getEncoded()).thenReturn(new byte[2]);
         x509AuthSource = new X509AuthSource(x509Certificate);
-        x509ExternalMapper = spy(new X509ExternalMapper("https://domain.com/mapper", "mapper_user", mock(CloseableHttpClient.class), mock(TokenCreationService.class), mock(AuthConfigurationProperties.class)));
+        x509ExternalMapper = spy(new X509ExternalMapper("https://domain.com/mapper", "mapper_user", mock(CloseableHttpClient.class), mock(ServiceTokenHolder.class), mock(AuthConfigurationProperties.class)));
     }
 
     @Nested
@@ -56,6 +65,19 @@ class X509ExternalMapperTest {
         }
     }
 
+    @Nested
+    class GivenBlankUserIdInMapperResponse {
+        @BeforeEach
+        void setup() {
+            doReturn(new MapperResponse("  ", 0, 0 ,0 ,0)).when(x509ExternalMapper).callExternalMapper(any());
+        }
+        @Test
+        void thenNullReturned() {
+            String userId = x509ExternalMapper.mapToMainframeUserId(x509AuthSource);
+            assertNull(userId);
+        }
+    }
+
     @Nested
     class GivenNullMapperResponse {
         @BeforeEach
@@ -69,6 +91,19 @@ class X509ExternalMapperTest {
         }
     }
 
+    @Nested
+    class GivenFailingMapper {
+        @BeforeEach
+        void setup() {
+            doThrow(new ExternalMapper.MappingFailedException("Service unavailable", null)).when(x509ExternalMapper).callExternalMapper(any());
+        }
+        @Test
+        void thenNullReturned() {
+            String userId = x509ExternalMapper.mapToMainframeUserId(x509AuthSource);
+            assertNull(userId);
+        }
+    }
+
     @Nested
     class GivenUnsupportedAuthSource {
         AuthSource anotherSource;
@@ -95,4 +130,79 @@ class X509ExternalMapperTest {
             assertNull(userId);
         }
     }
+
+    @Nested
+    @ExtendWith(SpringExtension.class)
+    @ContextConfiguration(classes = {
+        CacheConfig.class,
+        MapperContext.class
+    })
+    class GivenCache {
+        @Autowired
+        private AuthenticationMapper cachedMapper;
+
+        @Autowired
+        private CacheManager cacheManager;
+
+        private X509ExternalMapper target;
+
+        @BeforeEach
+        void setup() {
+            Objects.requireNonNull(cacheManager.getCache(X509ExternalMapper.CACHE_X509_MAPPING)).clear();
+            target = AopTestUtils.getUltimateTargetObject(cachedMapper);
+            reset(target);
+        }
+
+        @Test
+        void whenSameCertificateIsMapped_thenMapperIsCalledOnce() {
+            doReturn(new MapperResponse("ZOSUSER", 0, 0 ,0 ,0)).when(target).callExternalMapper(any());
+
+            assertEquals("ZOSUSER", cachedMapper.mapToMainframeUserId(x509AuthSource));
+            assertEquals("ZOSUSER", cachedMapper.mapToMainframeUserId(new X509AuthSource(x509Certificate)));
+
+            verify(target, times(1)).callExternalMapper(any());
+        }
+
+        @Test
+        void whenMappingIsMissing_thenItIsCachedToo() {
+            doReturn(null).when(target).callExternalMapper(any());
+
+            assertNull(cachedMapper.mapToMainframeUserId(x509AuthSource));
+            assertNull(cachedMapper.mapToMainframeUserId(x509AuthSource));
+
+            verify(target, times(1)).callExternalMapper(any());
+        }
+
+        @Test
+        void whenMapperFails_thenFailureIsNotCached() {
+            doThrow(new ExternalMapper.MappingFailedException("Unauthorized", null)).when(target).callExternalMapper(any());
+
+            assertNull(cachedMapper.mapToMainframeUserId(x509AuthSource));
+            assertNull(cachedMapper.mapToMainframeUserId(x509AuthSource));
+            verify(target, times(2)).callExternalMapper(any());
+
+            doReturn(new MapperResponse("ZOSUSER", 0, 0 ,0 ,0)).when(target).callExternalMapper(any());
+            assertEquals("ZOSUSER", cachedMapper.mapToMainframeUserId(x509AuthSource));
+        }
+
+        @Test
+        void whenDifferentCertificatesAreMapped_thenMapperIsCalledForEach() throws CertificateEncodingException {
+            X509Certificate otherCertificate = mock(X509Certificate.class);
+            when(otherCertificate.getEncoded()).thenReturn(new byte[] {1, 2});
+            doReturn(new MapperResponse("ZOSUSER", 0, 0 ,0 ,0)).when(target).callExternalMapper(any());
+
+            cachedMapper.mapToMainframeUserId(x509AuthSource);
+            cachedMapper.mapToMainframeUserId(new X509AuthSource(otherCertificate));
+
+            verify(target, times(2)).callExternalMapper(any());
+        }
+    }
+
+    @Configuration
+    static class MapperContext {
+        @Bean
+        public X509ExternalMapper x509ExternalMapper() {
+            return spy(new X509ExternalMapper("https://domain.com/mapper", "mapper_user", mock(CloseableHttpClient.class), mock(ServiceTokenHolder.class), mock(AuthConfigurationProperties.class)));
+        }
+    }
 }
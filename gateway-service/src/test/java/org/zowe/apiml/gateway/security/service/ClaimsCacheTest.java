@@ -0,0 +1,140 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.security.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.impl.DefaultClaims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClaimsCacheTest {
+
+    private static final String TOKEN = "header.payload.signature";
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicLong millis = new AtomicLong(1_000_000);
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private ClaimsCache underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new ClaimsCache(10, Duration.ofSeconds(30), nanos::get, millis::get);
+    }
+
+    private Function<String, Claims> parser(long expiration) {
+        return jwt -> {
+            calls.incrementAndGet();
+            Claims claims = new DefaultClaims();
+            claims.setSubject(jwt);
+            claims.setExpiration(new Date(expiration));
+            return claims;
+        };
+    }
+
+    @Nested
+    class GivenValidToken {
+
+        @Test
+        void whenParsedTwice_thenParserIsCalledOnce() {
+            Claims first = underTest.get(TOKEN, parser(2_000_000));
+            Claims second = underTest.get(TOKEN, parser(2_000_000));
+
+            assertSame(first, second);
+            assertEquals(TOKEN, second.getSubject());
+            assertEquals(1, calls.get());
+        }
+
+        @Test
+        void whenDifferentTokens_thenEachIsParsed() {
+            underTest.get(TOKEN, parser(2_000_000));
+            underTest.get(TOKEN + "2", parser(2_000_000));
+
+            assertEquals(2, calls.get());
+        }
+
+        @Test
+        void whenTtlPasses_thenTokenIsParsedAgain() {
+            underTest.get(TOKEN, parser(2_000_000));
+            nanos.addAndGet(Duration.ofSeconds(31).toNanos());
+            underTest.get(TOKEN, parser(2_000_000));
+
+            assertEquals(2, calls.get());
+        }
+
+        @Test
+        void whenCacheIsCleared_thenTokenIsParsedAgain() {
+            underTest.get(TOKEN, parser(2_000_000));
+            underTest.clear();
+            underTest.get(TOKEN, parser(2_000_000));
+
+            assertEquals(2, calls.get());
+        }
+
+    }
+
+    @Nested
+    class GivenExpiredToken {
+
+        @Test
+        void whenTokenExpiresInCache_thenParserIsCalledAgain() {
+            underTest.get(TOKEN, parser(1_500_000));
+            millis.set(1_500_000);
+
+            Function<String, Claims> failing = jwt -> {
+                calls.incrementAndGet();
+                throw new IllegalStateException("expired");
+            };
+            assertThrows(IllegalStateException.class, () -> underTest.get(TOKEN, failing));
+            assertEquals(2, calls.get());
+        }
+
+    }
+
+    @Nested
+    class GivenInvalidToken {
+
+        @Test
+        void whenParsingFails_thenResultIsNotCached() {
+            Function<String, Claims> failing = jwt -> {
+                calls.incrementAndGet();
+                throw new MalformedJwtException("invalid");
+            };
+
+            assertThrows(MalformedJwtException.class, () -> underTest.get(TOKEN, failing));
+            assertThrows(MalformedJwtException.class, () -> underTest.get(TOKEN, failing));
+            assertEquals(2, calls.get());
+        }
+
+        @Test
+        void whenTokenIsNull_thenParserDecides() {
+            Function<String, Claims> failing = jwt -> {
+                calls.incrementAndGet();
+                throw new IllegalArgumentException("null");
+            };
+
+            assertThrows(IllegalArgumentException.class, () -> underTest.get(null, failing));
+            assertEquals(1, calls.get());
+        }
+
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.security.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.zowe.apiml.security.SecurityUtils;
+
+import java.security.KeyPair;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SigningKeyParserTest {
+
+    private static final KeyPair KEY_PAIR = SecurityUtils.generateKeyPair("RSA", 2048);
+    private static final KeyPair OTHER_KEY_PAIR = SecurityUtils.generateKeyPair("RSA", 2048);
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final SigningKeyParser underTest = new SigningKeyParser((parser, jwt) -> {
+        calls.incrementAndGet();
+        return parser.parseClaimsJws(jwt).getBody();
+    });
+
+    private static String token(KeyPair keyPair) {
+        return Jwts.builder()
+            .setSubject("user")
+            .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+            .signWith(keyPair.getPrivate(), SignatureAlgorithm.RS256)
+            .compact();
+    }
+
+    @Nested
+    class GivenSameKey {
+
+        @Test
+        void whenTokenIsParsedTwice_thenItIsVerifiedOnce() {
+            String jwt = token(KEY_PAIR);
+
+            Claims first = underTest.parse(KEY_PAIR.getPublic(), jwt);
+            Claims second = underTest.parse(KEY_PAIR.getPublic(), jwt);
+
+            assertEquals("user", first.getSubject());
+            assertSame(first, second);
+            assertEquals(1, calls.get());
+        }
+
+        @Test
+        void whenTokenIsSignedByOtherKey_thenExceptionIsThrown() {
+            String jwt = token(OTHER_KEY_PAIR);
+
+            assertThrows(JwtException.class, () -> underTest.parse(KEY_PAIR.getPublic(), jwt));
+        }
+
+    }
+
+    @Nested
+    class GivenKeyChange {
+
+        @Test
+        void whenTokenIsParsedAgain_thenItIsVerifiedWithTheNewKey() {
+            String jwt = token(KEY_PAIR);
+            underTest.parse(KEY_PAIR.getPublic(), jwt);
+
+            assertThrows(JwtException.class, () -> underTest.parse(OTHER_KEY_PAIR.getPublic(), jwt));
+            assertEquals(2, calls.get());
+        }
+
+    }
+
+}
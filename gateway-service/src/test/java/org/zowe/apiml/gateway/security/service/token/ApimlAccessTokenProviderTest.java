@@ -19,6 +19,7 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.zowe.apiml.gateway.cache.CachingServiceClient;
 import org.zowe.apiml.gateway.cache.CachingServiceClientException;
 import org.zowe.apiml.gateway.security.service.AuthenticationService;
@@ -30,6 +31,7 @@ import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -54,6 +56,13 @@ class ApimlAccessTokenProviderTest {
         accessTokenProvider = new ApimlAccessTokenProvider(cachingServiceClient, as, new ObjectMapper().registerModule(new JavaTimeModule()));
     }
 
+    private void givenCachedMaps(Map<String, Map<String, String>> cacheMap) {
+        when(cachingServiceClient.readMapChanges(anyString(), any(), anyLong())).thenAnswer(invocation -> {
+            Map<String, String> map = cacheMap.getOrDefault(invocation.<String>getArgument(0), Collections.emptyMap());
+            return new CachingServiceClient.MapChanges("epoch", 1, true, new HashMap<>(map), new HashSet<>());
+        });
+    }
+
     @BeforeAll
     static void initTokens() {
         HashSet<String> scopes = new HashSet<>();
@@ -109,7 +118,7 @@ class ApimlAccessTokenProviderTest {
         invalidTokens.put(tokenHash, s);
         Map<String, Map<String, String>> cacheMap = new HashMap<>();
         cacheMap.put(ApimlAccessTokenProvider.INVALID_TOKENS_KEY, invalidTokens);
-        when(cachingServiceClient.readAllMaps()).thenReturn(cacheMap);
+        givenCachedMaps(cacheMap);
         assertTrue(accessTokenProvider.isInvalidated(TOKEN_WITHOUT_SCOPES));
     }
 
@@ -135,7 +144,7 @@ class ApimlAccessTokenProviderTest {
         invalidTokens.put(tokenHash, s);
         Map<String, Map<String, String>> cacheMap = new HashMap<>();
         cacheMap.put(ApimlAccessTokenProvider.INVALID_TOKENS_KEY, invalidTokens);
-        when(cachingServiceClient.readAllMaps()).thenReturn(cacheMap);
+        givenCachedMaps(cacheMap);
 
         assertFalse(accessTokenProvider.isInvalidated(differentToken));
     }
@@ -149,7 +158,7 @@ class ApimlAccessTokenProviderTest {
         invalidUsers.put(userId, String.valueOf(System.currentTimeMillis()));
         Map<String, Map<String, String>> cacheMap = new HashMap<>();
         cacheMap.put(ApimlAccessTokenProvider.INVALID_USERS_KEY, invalidUsers);
-        when(cachingServiceClient.readAllMaps()).thenReturn(cacheMap);
+        givenCachedMaps(cacheMap);
         assertTrue(accessTokenProvider.isInvalidated(TOKEN_WITHOUT_SCOPES));
     }
 
@@ -162,7 +171,7 @@ class ApimlAccessTokenProviderTest {
         invalidScopes.put(serviceId, String.valueOf(System.currentTimeMillis()));
         Map<String, Map<String, String>> cacheMap = new HashMap<>();
         cacheMap.put(ApimlAccessTokenProvider.INVALID_SCOPES_KEY, invalidScopes);
-        when(cachingServiceClient.readAllMaps()).thenReturn(cacheMap);
+        givenCachedMaps(cacheMap);
         assertTrue(accessTokenProvider.isInvalidated(SCOPED_TOKEN));
     }
 
@@ -202,6 +211,70 @@ class ApimlAccessTokenProviderTest {
         assertFalse(accessTokenProvider.isValidForScopes(TOKEN_WITHOUT_SCOPES, scope));
     }
 
+    @Nested
+    class GivenInvalidationsAreCachedLocally {
+        Map<String, Map<String, String>> cacheMap;
+
+        @BeforeEach
+        void setUp() {
+            ReflectionTestUtils.setField(accessTokenProvider, "invalidationMaxStalenessMillis", 60_000L);
+            when(as.parseJwtWithSignature(TOKEN_WITHOUT_SCOPES)).thenReturn(queryResponseWithoutScopes);
+            cacheMap = new HashMap<>();
+            givenCachedMaps(cacheMap);
+        }
+
+        @Test
+        void whenTokenIsCheckedAgain_thenCachingServiceIsNotCalled() {
+            assertFalse(accessTokenProvider.isInvalidated(TOKEN_WITHOUT_SCOPES));
+            assertFalse(accessTokenProvider.isInvalidated(TOKEN_WITHOUT_SCOPES));
+
+            verify(cachingServiceClient, times(1)).readMapChanges(eq(ApimlAccessTokenProvider.INVALID_USERS_KEY), any(), anyLong());
+        }
+
+        @Test
+        void whenUserIsInvalidatedOnThisInstance_thenInvalidationsAreLoadedAgain() {
+            assertFalse(accessTokenProvider.isInvalidated(TOKEN_WITHOUT_SCOPES));
+
+            accessTokenProvider.invalidateAllTokensForUser("user", System.currentTimeMillis());
+            cacheMap.put(ApimlAccessTokenProvider.INVALID_USERS_KEY,
+                Collections.singletonMap(accessTokenProvider.getHash("user"), String.valueOf(System.currentTimeMillis())));
+
+            assertTrue(accessTokenProvider.isInvalidated(TOKEN_WITHOUT_SCOPES));
+            verify(cachingServiceClient, times(2)).readMapChanges(eq(ApimlAccessTokenProvider.INVALID_USERS_KEY), any(), anyLong());
+        }
+
+        @Test
+        void whenRuleIsRemoved_thenOnlyTheChangeIsLoaded() {
+            ReflectionTestUtils.setField(accessTokenProvider, "invalidationMaxStalenessMillis", 0L);
+            String hashedUserId = accessTokenProvider.getHash("user");
+            when(cachingServiceClient.readMapChanges(ApimlAccessTokenProvider.INVALID_USERS_KEY, null, 0)).thenReturn(new CachingServiceClient.MapChanges(
+                "epoch", 1, true, Collections.singletonMap(hashedUserId, String.valueOf(System.currentTimeMillis())), new HashSet<>()));
+            when(cachingServiceClient.readMapChanges(ApimlAccessTokenProvider.INVALID_USERS_KEY, "epoch", 1)).thenReturn(new CachingServiceClient.MapChanges(
+                "epoch", 2, false, new HashMap<>(), Collections.singleton(hashedUserId)));
+
+            assertTrue(accessTokenProvider.isInvalidated(TOKEN_WITHOUT_SCOPES));
+            assertFalse(accessTokenProvider.isInvalidated(TOKEN_WITHOUT_SCOPES));
+        }
+
+        @Test
+        void whenWholeMapIsSentAgain_thenMissingItemsAreRemoved() {
+            ReflectionTestUtils.setField(accessTokenProvider, "invalidationMaxStalenessMillis", 0L);
+            cacheMap.put(ApimlAccessTokenProvider.INVALID_USERS_KEY,
+                Collections.singletonMap(accessTokenProvider.getHash("user"), String.valueOf(System.currentTimeMillis())));
+            assertTrue(accessTokenProvider.isInvalidated(TOKEN_WITHOUT_SCOPES));
+
+            cacheMap.remove(ApimlAccessTokenProvider.INVALID_USERS_KEY);
+            assertFalse(accessTokenProvider.isInvalidated(TOKEN_WITHOUT_SCOPES));
+        }
+
+        @Test
+        void whenRuleIsNotNumeric_thenItIsIgnored() {
+            cacheMap.put(ApimlAccessTokenProvider.INVALID_USERS_KEY, Collections.singletonMap(accessTokenProvider.getHash("user"), "invalid"));
+
+            assertFalse(accessTokenProvider.isInvalidated(TOKEN_WITHOUT_SCOPES));
+        }
+    }
+
     @Nested
     class WhenCallingEviction {
         @Test
@@ -0,0 +1,40 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.sse;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.net.ssl.SSLContext;
+import java.security.NoSuchAlgorithmException;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class ServerSentEventConfigTest {
+
+    private final ServerSentEventConfig underTest = new ServerSentEventConfig();
+
+    @Test
+    void givenVerifiedCertificates_thenClientIsCreated() throws NoSuchAlgorithmException {
+        ReflectionTestUtils.setField(underTest, "maxConnections", 10);
+        ReflectionTestUtils.setField(underTest, "verifySslCertificatesOfServices", true);
+
+        assertNotNull(underTest.sseWebClient(SSLContext.getDefault()));
+    }
+
+    @Test
+    void givenNonStrictVerification_thenClientIsCreated() throws NoSuchAlgorithmException {
+        ReflectionTestUtils.setField(underTest, "maxConnections", 10);
+        ReflectionTestUtils.setField(underTest, "nonStrictVerifySslCertificatesOfServices", true);
+
+        assertNotNull(underTest.sseWebClient(SSLContext.getDefault()));
+    }
+}
@@ -10,6 +10,9 @@
 
 package org.zowe.apiml.gateway.sse;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -18,30 +21,48 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.cloud.client.ServiceInstance;
-import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.zowe.apiml.gateway.metrics.ConnectionMeter;
+import org.zowe.apiml.gateway.metrics.ConnectionMetrics;
 import org.zowe.apiml.message.core.MessageService;
 import org.zowe.apiml.message.yaml.YamlMessageService;
 import org.zowe.apiml.product.routing.RoutedService;
 import org.zowe.apiml.product.routing.RoutedServices;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 import static org.hamcrest.CoreMatchers.*;
+import static org.awaitility.Awaitility.await;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -57,7 +78,7 @@ class ServerSentEventProxyHandlerTest {
     private static final String GATEWAY_PATH = "/" + SERVICE_ID + "/sse/" + MAJOR_VERSION + ENDPOINT;
 
     private ServerSentEventProxyHandler underTest;
-    private DiscoveryClient mockDiscoveryClient;
+    private LoadBalancerClient mockLoadBalancerClient;
     private HttpServletRequest mockHttpServletRequest;
     private HttpServletResponse mockHttpServletResponse;
     private final MessageService messageService = new YamlMessageService("/gateway-messages.yml");
@@ -67,8 +88,8 @@ class ServerSentEventProxyHandlerTest {
         mockHttpServletRequest = mock(HttpServletRequest.class);
         mockHttpServletResponse = mock(HttpServletResponse.class);
 
-        mockDiscoveryClient = mock(DiscoveryClient.class);
-        underTest = Mockito.spy(new ServerSentEventProxyHandler(mockDiscoveryClient, messageService));
+        mockLoadBalancerClient = mock(LoadBalancerClient.class);
+        underTest = Mockito.spy(new ServerSentEventProxyHandler(mockLoadBalancerClient, messageService, WebClient.create(), ConnectionMetrics.NONE));
     }
 
     @Nested
@@ -105,7 +126,7 @@ class ServerSentEventProxyHandlerTest {
 
                     PrintWriter mockWriter = mock(PrintWriter.class);
                     when(mockHttpServletResponse.getWriter()).thenReturn(mockWriter);
-                    when(mockDiscoveryClient.getInstances(anyString())).thenReturn(new ArrayList<>());
+                    when(mockLoadBalancerClient.choose(anyString())).thenReturn(null);
 
                     verifyError(mockWriter, HttpStatus.NOT_FOUND);
                 }
@@ -117,9 +138,7 @@ class ServerSentEventProxyHandlerTest {
                     PrintWriter mockWriter = mock(PrintWriter.class);
                     when(mockHttpServletResponse.getWriter()).thenReturn(mockWriter);
 
-                    List<ServiceInstance> serviceInstances = new ArrayList<>();
-                    serviceInstances.add(mock(ServiceInstance.class));
-                    when(mockDiscoveryClient.getInstances(SERVICE_ID)).thenReturn(serviceInstances);
+                    when(mockLoadBalancerClient.choose(SERVICE_ID)).thenReturn(mock(ServiceInstance.class));
 
                     verifyError(mockWriter, HttpStatus.NOT_FOUND);
                 }
@@ -131,9 +150,7 @@ class ServerSentEventProxyHandlerTest {
                     PrintWriter mockWriter = mock(PrintWriter.class);
                     when(mockHttpServletResponse.getWriter()).thenReturn(mockWriter);
 
-                    List<ServiceInstance> serviceInstances = new ArrayList<>();
-                    serviceInstances.add(mock(ServiceInstance.class));
-                    when(mockDiscoveryClient.getInstances(SERVICE_ID)).thenReturn(serviceInstances);
+                    when(mockLoadBalancerClient.choose(SERVICE_ID)).thenReturn(mock(ServiceInstance.class));
 
                     RoutedServices mockRoutedServices = mock(RoutedServices.class);
                     underTest.addRoutedServices(SERVICE_ID, mockRoutedServices);
@@ -158,7 +175,7 @@ class ServerSentEventProxyHandlerTest {
                 mockServiceInstance(false);
 
                 verifyConsumerUsed();
-                verify(underTest).getSseStream(URL_INSECURE + ENDPOINT);
+                verify(underTest).getSseStream(eq(URL_INSECURE + ENDPOINT), any(ConnectionMeter.class));
             }
 
             @ParameterizedTest
@@ -168,7 +185,7 @@ class ServerSentEventProxyHandlerTest {
                 mockServiceInstance(true, serviceUrlEndingSlash);
 
                 verifyConsumerUsed();
-                verify(underTest).getSseStream(URL_SECURE + ENDPOINT);
+                verify(underTest).getSseStream(eq(URL_SECURE + ENDPOINT), any(ConnectionMeter.class));
             }
 
             @ParameterizedTest(name = "givenEndpoint {0}")
@@ -178,7 +195,7 @@ class ServerSentEventProxyHandlerTest {
                 mockServiceInstance(true);
 
                 verifyConsumerUsed();
-                verify(underTest).getSseStream(URL_SECURE + expectedEndpoint);
+                verify(underTest).getSseStream(eq(URL_SECURE + expectedEndpoint), any(ConnectionMeter.class));
             }
 
             @Test
@@ -189,7 +206,7 @@ class ServerSentEventProxyHandlerTest {
                 mockServiceInstance(true);
 
                 verifyConsumerUsed();
-                verify(underTest).getSseStream(URL_SECURE + ENDPOINT + "?" + params);
+                verify(underTest).getSseStream(eq(URL_SECURE + ENDPOINT + "?" + params), any(ConnectionMeter.class));
             }
         }
 
@@ -221,6 +238,101 @@ class ServerSentEventProxyHandlerTest {
             }
         }
 
+        @Nested
+        class WhenForwardingStream {
+            private final SseEmitter mockEmitter = mock(SseEmitter.class);
+            private final ConnectionMeter meter = ConnectionMetrics.NONE.open(ConnectionMetrics.SSE, SERVICE_ID);
+
+            @Test
+            void givenEvents_thenSendThemAndComplete() throws IOException {
+                MeterRegistry registry = new SimpleMeterRegistry();
+                ConnectionMeter meter = new ConnectionMetrics(registry).open(ConnectionMetrics.SSE, SERVICE_ID);
+                underTest.forward(Flux.just(ServerSentEvent.builder("first").build(), ServerSentEvent.builder("second").build()), mockEmitter, meter);
+
+                await().untilAsserted(() -> verify(mockEmitter).complete());
+                verify(mockEmitter).send("first");
+                verify(mockEmitter).send("second");
+                assertThat(registry.get("apiml.gateway.connections.messages").tag("direction", "toClient").counter().count(), is(2.0));
+                assertThat(registry.get("apiml.gateway.connections.bytes").tag("direction", "toClient").counter().count(), is(11.0));
+            }
+
+            @Test
+            void givenLongStream_thenOnlyPrefetchedEventsAreRequested() {
+                ReflectionTestUtils.setField(underTest, "prefetch", 4);
+                List<Long> requests = new CopyOnWriteArrayList<>();
+                Flux<ServerSentEvent<String>> stream = Flux.range(0, 100)
+                    .map(i -> ServerSentEvent.builder(String.valueOf(i)).build())
+                    .doOnRequest(requests::add);
+
+                underTest.forward(stream, mockEmitter, meter);
+
+                await().untilAsserted(() -> verify(mockEmitter).complete());
+                assertThat(requests.stream().allMatch(request -> request <= 4), is(true));
+            }
+
+            @Test
+            void whenEmitterIsCompleted_thenStreamIsCancelled() {
+                AtomicBoolean cancelled = new AtomicBoolean();
+                ArgumentCaptor<Runnable> onCompletion = ArgumentCaptor.forClass(Runnable.class);
+
+                underTest.forward(Flux.<ServerSentEvent<String>>never().doOnCancel(() -> cancelled.set(true)), mockEmitter, meter);
+                verify(mockEmitter).onCompletion(onCompletion.capture());
+                onCompletion.getValue().run();
+
+                assertThat(cancelled.get(), is(true));
+                assertThat(meter.isClosed(), is(true));
+            }
+        }
+
+        @Nested
+        class WhenOpeningStream {
+            private final MeterRegistry registry = new SimpleMeterRegistry();
+            private final ConnectionMeter meter = new ConnectionMetrics(registry).open(ConnectionMetrics.SSE, SERVICE_ID);
+
+            private ServerSentEventProxyHandler handler(ExchangeFunction exchangeFunction) {
+                WebClient webClient = WebClient.builder().exchangeFunction(exchangeFunction).build();
+                return new ServerSentEventProxyHandler(mockLoadBalancerClient, messageService, webClient, ConnectionMetrics.NONE);
+            }
+
+            private long handshakes(String outcome) {
+                return registry.find("apiml.gateway.connections.handshake").tag("outcome", outcome).timers().stream()
+                    .mapToLong(Timer::count).sum();
+            }
+
+            @Test
+            void givenSuccessfulStatus_whenNoEventIsSent_thenHandshakeIsRecorded() {
+                ServerSentEventProxyHandler handler = handler(request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.TEXT_EVENT_STREAM_VALUE)
+                    .build()));
+
+                assertThat(handler.getSseStream(URL_SECURE + ENDPOINT, meter).collectList().block(), is(empty()));
+
+                assertThat(handshakes("success"), is(1L));
+                assertThat(handshakes("failure"), is(0L));
+            }
+
+            @Test
+            void givenErrorStatus_thenHandshakeFailureIsRecorded() {
+                ServerSentEventProxyHandler handler = handler(request -> Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build()));
+
+                Flux<ServerSentEvent<String>> stream = handler.getSseStream(URL_SECURE + ENDPOINT, meter);
+                assertThrows(WebClientResponseException.class, stream::blockLast);
+
+                assertThat(handshakes("success"), is(0L));
+                assertThat(handshakes("failure"), is(1L));
+            }
+
+            @Test
+            void givenNoResponse_thenHandshakeFailureIsRecorded() {
+                ServerSentEventProxyHandler handler = handler(request -> Mono.error(new IOException("Connection refused")));
+
+                Flux<ServerSentEvent<String>> stream = handler.getSseStream(URL_SECURE + ENDPOINT, meter);
+                assertThrows(RuntimeException.class, stream::blockLast);
+
+                assertThat(handshakes("failure"), is(1L));
+            }
+        }
+
         private void mockServiceInstance(boolean isSecure) {
             mockServiceInstance(isSecure, true);
         }
@@ -237,9 +349,8 @@ class ServerSentEventProxyHandlerTest {
             when(serviceInstance.getPort()).thenReturn(PORT);
             when(serviceInstance.isSecure()).thenReturn(isSecure);
 
-            List<ServiceInstance> serviceInstances = new ArrayList<>();
-            serviceInstances.add(serviceInstance);
-            when(mockDiscoveryClient.getInstances(SERVICE_ID)).thenReturn(serviceInstances);
+            when(mockLoadBalancerClient.choose(SERVICE_ID)).thenReturn(serviceInstance);
+            doReturn(Flux.empty()).when(underTest).getSseStream(anyString(), any(ConnectionMeter.class));
         }
 
         private void verifyConsumerUsed() throws IOException {
@@ -0,0 +1,246 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.ws;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class FlowControlledWebSocketSessionTest {
+    private static final long HIGH_WATERMARK = 10;
+    private static final long LOW_WATERMARK = 5;
+
+    private final TextMessage first = new TextMessage("1111");
+    private final TextMessage second = new TextMessage("2222");
+    private final TextMessage third = new TextMessage("3333");
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private WebSocketSession delegate;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(WebSocketSession.class);
+        when(delegate.getId()).thenReturn("sessionId");
+        when(delegate.isOpen()).thenReturn(true);
+    }
+
+    private FlowControlledWebSocketSession createSession(WebSocketFlowControl.OverflowPolicy policy, long blockTimeoutMillis) {
+        return new WebSocketFlowControl(HIGH_WATERMARK, LOW_WATERMARK, policy, blockTimeoutMillis, tasks::add).decorate(delegate);
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    @Nested
+    class WhenSending {
+        private FlowControlledWebSocketSession underTest;
+
+        @BeforeEach
+        void setUp() {
+            underTest = createSession(WebSocketFlowControl.OverflowPolicy.CLOSE, 0);
+        }
+
+        @Test
+        void thenMessagesAreSentAsynchronouslyInOrder() throws IOException {
+            underTest.sendMessage(first);
+            underTest.sendMessage(second);
+
+            verify(delegate, never()).sendMessage(any());
+            assertEquals(2, underTest.getQueueDepth());
+            assertEquals(8, underTest.getQueuedBytes());
+
+            runTasks();
+
+            InOrder inOrder = inOrder(delegate);
+            inOrder.verify(delegate).sendMessage(first);
+            inOrder.verify(delegate).sendMessage(second);
+            assertEquals(0, underTest.getQueueDepth());
+            assertEquals(2, underTest.getSentMessages());
+            assertTrue(underTest.getMaxSendLatencyMillis() >= underTest.getAverageSendLatencyMillis());
+        }
+
+        @Test
+        void givenMessageBiggerThanHighWatermark_whenQueueIsEmpty_thenItIsQueued() throws IOException {
+            TextMessage big = new TextMessage("message longer than the watermark");
+            underTest.sendMessage(big);
+
+            runTasks();
+
+            verify(delegate).sendMessage(big);
+        }
+
+        @Test
+        void givenFailingSession_thenItIsClosed() throws IOException {
+            doThrow(new IOException("broken pipe")).when(delegate).sendMessage(first);
+            underTest.sendMessage(first);
+            underTest.sendMessage(second);
+
+            runTasks();
+
+            verify(delegate).close(CloseStatus.SESSION_NOT_RELIABLE);
+            verify(delegate, never()).sendMessage(second);
+            assertEquals(1, underTest.getDroppedMessages());
+            assertThrows(IOException.class, () -> underTest.sendMessage(third));
+        }
+
+        @Test
+        void whenClosedWithQueuedMessages_thenTheyAreSentFirst() throws IOException {
+            underTest.sendMessage(first);
+
+            underTest.close(CloseStatus.GOING_AWAY);
+            verify(delegate, never()).close(any());
+            assertThrows(IOException.class, () -> underTest.sendMessage(second));
+
+            runTasks();
+
+            InOrder inOrder = inOrder(delegate);
+            inOrder.verify(delegate).sendMessage(first);
+            inOrder.verify(delegate).close(CloseStatus.GOING_AWAY);
+        }
+
+        @Test
+        void whenClosedWithoutQueuedMessages_thenItIsClosedImmediately() throws IOException {
+            underTest.close(CloseStatus.NORMAL);
+
+            verify(delegate).close(CloseStatus.NORMAL);
+        }
+    }
+
+    @Nested
+    class WhenQueueIsLongerThanDrainBatch {
+        @Test
+        void thenThreadIsReleasedAfterBatchAndDrainContinuesLater() throws IOException {
+            FlowControlledWebSocketSession underTest = new WebSocketFlowControl(
+                100, 50, WebSocketFlowControl.OverflowPolicy.CLOSE, 0, 2, tasks::add).decorate(delegate);
+            underTest.sendMessage(first);
+            underTest.sendMessage(second);
+            underTest.sendMessage(third);
+
+            tasks.poll().run();
+
+            verify(delegate, times(2)).sendMessage(any());
+            assertEquals(1, underTest.getQueueDepth());
+            assertEquals(1, tasks.size());
+
+            runTasks();
+
+            InOrder inOrder = inOrder(delegate);
+            inOrder.verify(delegate).sendMessage(first);
+            inOrder.verify(delegate).sendMessage(second);
+            inOrder.verify(delegate).sendMessage(third);
+            assertEquals(0, underTest.getQueueDepth());
+        }
+    }
+
+    @Nested
+    class WhenExecutorRejectsSending {
+        @Test
+        void thenSessionIsClosedWithServiceOverload() throws IOException {
+            Executor rejecting = task -> {
+                throw new RejectedExecutionException("queue is full");
+            };
+            FlowControlledWebSocketSession underTest = new WebSocketFlowControl(
+                HIGH_WATERMARK, LOW_WATERMARK, WebSocketFlowControl.OverflowPolicy.CLOSE, 0, rejecting).decorate(delegate);
+
+            underTest.sendMessage(first);
+
+            verify(delegate).close(new CloseStatus(1013, "Too many sessions waiting to send messages"));
+            verify(delegate, never()).sendMessage(any());
+            assertEquals(1, underTest.getDroppedMessages());
+            assertThrows(IOException.class, () -> underTest.sendMessage(second));
+        }
+    }
+
+    @Nested
+    class WhenQueueIsFull {
+        @Test
+        void givenClosePolicy_thenSessionIsClosedWithPolicyViolation() throws IOException {
+            FlowControlledWebSocketSession underTest = createSession(WebSocketFlowControl.OverflowPolicy.CLOSE, 0);
+            underTest.sendMessage(first);
+            underTest.sendMessage(second);
+
+            assertThrows(IOException.class, () -> underTest.sendMessage(third));
+
+            verify(delegate).close(new CloseStatus(1008, "Too many messages waiting to be sent"));
+            assertEquals(0, underTest.getQueueDepth());
+        }
+
+        @Test
+        void givenDropOldestPolicy_thenOldestMessagesAreDropped() throws IOException {
+            FlowControlledWebSocketSession underTest = createSession(WebSocketFlowControl.OverflowPolicy.DROP_OLDEST, 0);
+            underTest.sendMessage(first);
+            underTest.sendMessage(second);
+            underTest.sendMessage(third);
+
+            runTasks();
+
+            verify(delegate, never()).sendMessage(first);
+            verify(delegate).sendMessage(second);
+            verify(delegate).sendMessage(third);
+            assertEquals(1, underTest.getDroppedMessages());
+        }
+
+        @Test
+        void givenBlockPolicy_whenQueueIsNotDrained_thenSessionIsClosedAfterTimeout() throws IOException {
+            FlowControlledWebSocketSession underTest = createSession(WebSocketFlowControl.OverflowPolicy.BLOCK, 10);
+            underTest.sendMessage(first);
+            underTest.sendMessage(second);
+
+            assertThrows(IOException.class, () -> underTest.sendMessage(third));
+
+            verify(delegate).close(FlowControlledWebSocketSession.QUEUE_OVERFLOW);
+        }
+
+        @Test
+        void givenBlockPolicy_whenQueueIsDrained_thenProducerContinues() throws Exception {
+            FlowControlledWebSocketSession underTest = createSession(WebSocketFlowControl.OverflowPolicy.BLOCK, 10_000);
+            underTest.sendMessage(first);
+            underTest.sendMessage(second);
+            Runnable drain = tasks.poll();
+            Thread consumer = new Thread(() -> {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                drain.run();
+            });
+            consumer.start();
+
+            underTest.sendMessage(third);
+            consumer.join();
+            runTasks();
+
+            verify(delegate).sendMessage(first);
+            verify(delegate).sendMessage(second);
+            verify(delegate).sendMessage(third);
+            verify(delegate, never()).close(any());
+        }
+    }
+}
@@ -14,6 +14,7 @@ import org.json.JSONArray;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -47,4 +48,21 @@ class WebSocketActuatorEndpointTest {
         String clientResponse = new JSONArray(underTest.getAll()).toString();
         assertThat(clientResponse, is("[{\"gatewayPath\":\"ws:\\/\\/gateway:10010\\/api\\/v2\\/\",\"serviceUrl\":\"ws:\\/\\/localhost:8080\\/v2\",\"serviceSessionId\":\"12\",\"sessionId\":\"webSocketSessionId\",\"clientAddress\":\"ws:\\/\\/gateway:10010\"}]"));
     }
+
+    @Test
+    void givenSessionWithFlowControl_whenTheStatusOfRoutesIsRequested_thenQueueMetricsAreReturned() {
+        WebSocketRoutedSession validSession = mock(WebSocketRoutedSession.class);
+        FlowControlledWebSocketSession queue = mock(FlowControlledWebSocketSession.class);
+        when(queue.getQueueDepth()).thenReturn(3);
+        when(queue.getQueuedBytes()).thenReturn(120L);
+        when(queue.getAverageSendLatencyMillis()).thenReturn(1.5);
+        when(validSession.getServerSendQueue()).thenReturn(queue);
+        when(webSocketProxyServerHandler.getRoutedSessions()).thenReturn(Collections.singletonMap("webSocketSessionId", validSession));
+
+        Map<String, String> session = underTest.getAll().get(0);
+        assertThat(session.get("clientQueueDepth"), is("3"));
+        assertThat(session.get("clientQueuedBytes"), is("120"));
+        assertThat(session.get("clientAverageSendLatencyMillis"), is("1.5"));
+        assertThat(session.containsKey("serviceQueueDepth"), is(false));
+    }
 }
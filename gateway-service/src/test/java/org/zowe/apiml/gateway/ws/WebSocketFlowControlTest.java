@@ -0,0 +1,67 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.ws;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebSocketFlowControlTest {
+
+    @Test
+    void givenLowWatermarkAboveHighWatermark_thenItIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new WebSocketFlowControl(
+            10, 20, WebSocketFlowControl.OverflowPolicy.BLOCK, 0, 1, 1, 32));
+    }
+
+    @Nested
+    class GivenSendExecutor {
+        @Test
+        void thenItIsBounded() {
+            WebSocketFlowControl underTest = new WebSocketFlowControl(10, 5, WebSocketFlowControl.OverflowPolicy.BLOCK, 0, 4, 8, 32);
+            try {
+                ThreadPoolExecutor executor = (ThreadPoolExecutor) underTest.getExecutor();
+                assertEquals(4, executor.getMaximumPoolSize());
+                assertEquals(8, executor.getQueue().remainingCapacity());
+            } finally {
+                underTest.shutdown();
+            }
+        }
+
+        @Test
+        void whenAllThreadsAndWaitingSlotsAreUsed_thenTaskIsRejected() {
+            ThreadPoolExecutor executor = WebSocketFlowControl.createExecutor(1, 1);
+            CountDownLatch release = new CountDownLatch(1);
+            Runnable blocking = () -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            };
+            try {
+                executor.execute(blocking);
+                executor.execute(blocking);
+
+                assertThrows(RejectedExecutionException.class, () -> executor.execute(blocking));
+            } finally {
+                release.countDown();
+                executor.shutdownNow();
+            }
+        }
+    }
+
+}
@@ -14,6 +14,7 @@ import org.eclipse.jetty.websocket.api.WebSocketException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -29,11 +30,13 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -56,7 +59,6 @@ class WebSocketProxyServerHandlerTest {
             webSocketRoutedSessionFactory,
             lbClient
         );
-        ReflectionTestUtils.setField(underTest, "meAsProxy", underTest);
     }
 
     @Nested
@@ -94,7 +96,7 @@ class WebSocketProxyServerHandlerTest {
             @Test
              void givenValidRoute() throws Exception {
                 String path = "wss://gatewayHost:1443/valid-service/ws/v1/valid-path";
-                when(webSocketRoutedSessionFactory.session(any(), any(), any())).thenReturn(mock(WebSocketRoutedSession.class));
+                when(webSocketRoutedSessionFactory.session(any(), any(), any(), any(), any())).thenReturn(mock(WebSocketRoutedSession.class));
                 ServiceInstance serviceInstance = mock(ServiceInstance.class);
                 when(lbClient.choose(any())).thenReturn(serviceInstance);
                 String establishedSessionId = "validAndUniqueId";
@@ -103,10 +105,33 @@ class WebSocketProxyServerHandlerTest {
 
                 underTest.afterConnectionEstablished(establishedSession);
 
-                verify(webSocketRoutedSessionFactory).session(any(), any(), any());
+                verify(webSocketRoutedSessionFactory).session(any(), eq("valid-service"), any(), any(), any());
                 WebSocketRoutedSession preparedSession = routedSessions.get(establishedSessionId);
                 assertThat(preparedSession, is(notNullValue()));
             }
+
+            @Test
+            @SuppressWarnings("unchecked")
+            void givenValidRoute_whenHandshakeIsRetried_thenInstanceIsChosenAgain() throws Exception {
+                when(webSocketRoutedSessionFactory.session(any(), any(), any(), any(), any())).thenReturn(mock(WebSocketRoutedSession.class));
+                ServiceInstance firstInstance = mock(ServiceInstance.class);
+                when(firstInstance.getHost()).thenReturn("first");
+                when(firstInstance.getPort()).thenReturn(10010);
+                ServiceInstance secondInstance = mock(ServiceInstance.class);
+                when(secondInstance.getHost()).thenReturn("second");
+                when(secondInstance.getPort()).thenReturn(10012);
+                when(lbClient.choose("valid-service")).thenReturn(firstInstance, secondInstance, null);
+                when(establishedSession.getId()).thenReturn("validAndUniqueId");
+                when(establishedSession.getUri()).thenReturn(new URI("wss://gatewayHost:1443/valid-service/ws/v1/valid-path"));
+
+                underTest.afterConnectionEstablished(establishedSession);
+
+                ArgumentCaptor<Supplier<String>> targetUrls = ArgumentCaptor.forClass(Supplier.class);
+                verify(webSocketRoutedSessionFactory).session(any(), any(), eq("ws://first:10010/valid-service/ws/v1/valid-path"),
+                    targetUrls.capture(), any());
+                assertThat(targetUrls.getValue().get(), is("ws://second:10012/valid-service/ws/v1/valid-path"));
+                assertNull(targetUrls.getValue().get());
+            }
         }
 
 
@@ -222,11 +247,9 @@ class WebSocketProxyServerHandlerTest {
         @Test
         void whenTheConnectionIsClosed_thenClientSessionIsAlsoClosed() throws IOException {
             CloseStatus normalClose = CloseStatus.NORMAL;
-            WebSocketSession clientSession = mock(WebSocketSession.class);
-            when(internallyStoredSession.getWebSocketClientSession()).thenReturn(clientSession);
 
             underTest.afterConnectionClosed(establishedSession, normalClose);
-            verify(clientSession, times(1)).close(normalClose);
+            verify(internallyStoredSession, times(1)).close(normalClose);
             assertThat(routedSessions.entrySet(), hasSize(0));
         }
 
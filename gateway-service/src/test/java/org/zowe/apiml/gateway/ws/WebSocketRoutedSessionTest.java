@@ -10,25 +10,35 @@
 
 package org.zowe.apiml.gateway.ws;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.eclipse.jetty.websocket.api.UpgradeException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.web.socket.CloseStatus;
-import org.springframework.web.socket.WebSocketHttpHeaders;
-import org.springframework.web.socket.WebSocketMessage;
-import org.springframework.web.socket.WebSocketSession;
+import org.springframework.util.concurrent.SettableListenableFuture;
+import org.springframework.web.socket.*;
 import org.springframework.web.socket.client.jetty.JettyWebSocketClient;
+import org.zowe.apiml.gateway.metrics.ConnectionMetrics;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
-import static org.junit.jupiter.api.Assertions.assertNull;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class WebSocketRoutedSessionTest {
@@ -100,6 +110,343 @@ class WebSocketRoutedSessionTest {
         }
     }
 
+    @Nested
+    class GivenPendingHandshake {
+        private final SettableListenableFuture<WebSocketSession> futureSession = new SettableListenableFuture<>();
+        private final WebSocketMessage<?> message = new TextMessage("message");
+
+        @BeforeEach
+        void startHandshake() {
+            WebSocketClientFactory webSocketClientFactory = mock(WebSocketClientFactory.class);
+            JettyWebSocketClient jettyWebSocketClient = mock(JettyWebSocketClient.class);
+            when(webSocketClientFactory.getClientInstance()).thenReturn(jettyWebSocketClient);
+            when(serverSession.getHandshakeHeaders()).thenReturn(new WebSocketHttpHeaders());
+            when(serverSession.isOpen()).thenReturn(true);
+            when(jettyWebSocketClient.doHandshake(any(WebSocketHandler.class), any(WebSocketHttpHeaders.class), any(URI.class)))
+                .thenReturn(futureSession);
+
+            underTest = new WebSocketRoutedSession(serverSession, "ws://service:8080/ws", webSocketClientFactory, 2);
+        }
+
+        @Test
+        void whenSessionIsCreated_thenItIsPending() {
+            assertTrue(underTest.isPending());
+            assertNull(underTest.getClientId());
+            assertNull(underTest.getClientUri());
+        }
+
+        @Test
+        void whenHandshakeIsFinished_thenBufferedMessagesAreSent() throws IOException {
+            underTest.sendMessageToServer(message);
+            verify(clientSession, never()).sendMessage(any());
+
+            futureSession.set(clientSession);
+            underTest.sendMessageToServer(message);
+
+            assertFalse(underTest.isPending());
+            verify(clientSession, times(2)).sendMessage(message);
+        }
+
+        @Test
+        void whenHandshakeIsFinished_thenBufferedMessagesAreSentOutsideTheLock() throws IOException {
+            AtomicBoolean sentUnderLock = new AtomicBoolean();
+            doAnswer(invocation -> {
+                sentUnderLock.compareAndSet(false, Thread.holdsLock(underTest));
+                return null;
+            }).when(clientSession).sendMessage(any());
+            underTest.sendMessageToServer(message);
+
+            futureSession.set(clientSession);
+
+            verify(clientSession).sendMessage(message);
+            assertFalse(sentUnderLock.get());
+            assertFalse(underTest.isPending());
+        }
+
+        @Test
+        void whenTooManyMessagesAreBuffered_thenThrowException() throws IOException {
+            underTest.sendMessageToServer(message);
+            underTest.sendMessageToServer(message);
+
+            assertThrows(IOException.class, () -> underTest.sendMessageToServer(message));
+        }
+
+        @Test
+        void whenHandshakeIsRejected_thenServerSessionIsClosedWithStatus() throws IOException {
+            UpgradeException upgradeException = new UpgradeException(URI.create("ws://service:8080/ws"), 401, "Unauthorized");
+            futureSession.setException(new ExecutionException(upgradeException));
+
+            verify(serverSession).close(CloseStatus.NOT_ACCEPTABLE.withReason("Invalid login credentials"));
+            assertThrows(IOException.class, () -> underTest.sendMessageToServer(message));
+        }
+
+        @Test
+        void whenClosed_thenHandshakeIsCancelled() throws IOException {
+            underTest.close(CloseStatus.NORMAL);
+
+            assertTrue(futureSession.isCancelled());
+            verify(serverSession, never()).close(any());
+        }
+
+        @Test
+        void whenClosedBeforeHandshakeIsFinished_thenClientSessionIsClosed() throws IOException {
+            underTest.sendMessageToServer(message);
+            underTest.close(CloseStatus.NORMAL);
+            when(clientSession.isOpen()).thenReturn(true);
+
+            underTest.onConnected(clientSession);
+
+            verify(clientSession, never()).sendMessage(any());
+            verify(clientSession).close(CloseStatus.NORMAL);
+        }
+    }
+
+    @Nested
+    class GivenBackendNotFinishingHandshake {
+        private final SettableListenableFuture<WebSocketSession> futureSession = new SettableListenableFuture<>();
+        private final ScheduledExecutorService timeoutScheduler = mock(ScheduledExecutorService.class);
+        private final ScheduledFuture<?> scheduledTimeout = mock(ScheduledFuture.class);
+        private final ArgumentCaptor<Runnable> timeoutTask = ArgumentCaptor.forClass(Runnable.class);
+        private final MeterRegistry registry = new SimpleMeterRegistry();
+
+        @BeforeEach
+        void startHandshake() {
+            WebSocketClientFactory webSocketClientFactory = mock(WebSocketClientFactory.class);
+            JettyWebSocketClient jettyWebSocketClient = mock(JettyWebSocketClient.class);
+            when(webSocketClientFactory.getClientInstance()).thenReturn(jettyWebSocketClient);
+            when(serverSession.getHandshakeHeaders()).thenReturn(new WebSocketHttpHeaders());
+            when(serverSession.isOpen()).thenReturn(true);
+            when(jettyWebSocketClient.doHandshake(any(WebSocketHandler.class), any(WebSocketHttpHeaders.class), any(URI.class)))
+                .thenReturn(futureSession);
+            doReturn(scheduledTimeout).when(timeoutScheduler).schedule(timeoutTask.capture(), eq(5000L), eq(TimeUnit.MILLISECONDS));
+
+            underTest = new WebSocketRoutedSession(serverSession, "ws://service:8080/ws", () -> "ws://service:8080/ws", webSocketClientFactory,
+                2, 5000, timeoutScheduler, null, new ConnectionMetrics(registry).open(ConnectionMetrics.WEBSOCKET, "service"));
+        }
+
+        @Test
+        void whenTimeoutExpires_thenHandshakeIsCancelledAndServerSessionIsClosed() throws IOException {
+            underTest.sendMessageToServer(new TextMessage("message"));
+
+            timeoutTask.getValue().run();
+
+            assertTrue(futureSession.isCancelled());
+            verify(serverSession).close(WebSocketRoutedSession.HANDSHAKE_TIMEOUT_STATUS);
+            assertEquals(1011, WebSocketRoutedSession.HANDSHAKE_TIMEOUT_STATUS.getCode());
+            assertThrows(IOException.class, () -> underTest.sendMessageToServer(new TextMessage("message")));
+            assertEquals(1, registry.get("apiml.gateway.connections.handshake").tag("outcome", "failure").timer().count());
+        }
+
+        @Test
+        void whenServiceConnectsAfterTimeout_thenClientSessionIsClosed() throws IOException {
+            underTest.sendMessageToServer(new TextMessage("message"));
+            timeoutTask.getValue().run();
+            when(clientSession.isOpen()).thenReturn(true);
+
+            underTest.onConnected(clientSession);
+
+            verify(clientSession, never()).sendMessage(any());
+            verify(clientSession).close(WebSocketRoutedSession.HANDSHAKE_TIMEOUT_STATUS);
+        }
+
+        @Test
+        void whenHandshakeIsFinished_thenTimeoutIsCancelled() {
+            futureSession.set(clientSession);
+
+            verify(scheduledTimeout).cancel(false);
+            timeoutTask.getValue().run();
+            assertFalse(underTest.isPending());
+            verify(serverSession, never()).close(any());
+        }
+
+        @Test
+        void whenHandshakeFails_thenTimeoutIsCancelled() {
+            futureSession.setException(new IOException("Connection refused"));
+
+            verify(scheduledTimeout).cancel(false);
+        }
+    }
+
+    @Nested
+    class GivenUnreachableInstance {
+        private final SettableListenableFuture<WebSocketSession> firstHandshake = new SettableListenableFuture<>();
+        private final SettableListenableFuture<WebSocketSession> secondHandshake = new SettableListenableFuture<>();
+        private final SettableListenableFuture<WebSocketSession> thirdHandshake = new SettableListenableFuture<>();
+        private final ScheduledExecutorService retryScheduler = mock(ScheduledExecutorService.class);
+        private final ScheduledFuture<?> scheduledRetry = mock(ScheduledFuture.class);
+        private final ArgumentCaptor<Runnable> retryTask = ArgumentCaptor.forClass(Runnable.class);
+        private final MeterRegistry registry = new SimpleMeterRegistry();
+        private JettyWebSocketClient jettyWebSocketClient;
+        private String nextTargetUrl = "ws://second:8080/ws";
+
+        @BeforeEach
+        void startHandshake() {
+            WebSocketClientFactory webSocketClientFactory = mock(WebSocketClientFactory.class);
+            jettyWebSocketClient = mock(JettyWebSocketClient.class);
+            when(webSocketClientFactory.getClientInstance()).thenReturn(jettyWebSocketClient);
+            when(serverSession.getHandshakeHeaders()).thenReturn(new WebSocketHttpHeaders());
+            when(serverSession.isOpen()).thenReturn(true);
+            when(jettyWebSocketClient.doHandshake(any(WebSocketHandler.class), any(WebSocketHttpHeaders.class), any(URI.class)))
+                .thenReturn(firstHandshake, secondHandshake, thirdHandshake);
+            doReturn(scheduledRetry).when(retryScheduler).schedule(retryTask.capture(), eq(1000L), eq(TimeUnit.MILLISECONDS));
+
+            underTest = new WebSocketRoutedSession(serverSession, "ws://first:8080/ws", () -> nextTargetUrl, webSocketClientFactory, 2, 0,
+                retryScheduler, null, new ConnectionMetrics(registry).open(ConnectionMetrics.WEBSOCKET, "service"));
+        }
+
+        @Test
+        void whenHandshakeFails_thenItIsRetriedWithAnotherInstance() throws IOException {
+            underTest.sendMessageToServer(new TextMessage("message"));
+            firstHandshake.setException(new IOException("Connection refused"));
+            verify(serverSession, never()).close(any());
+
+            retryTask.getValue().run();
+            secondHandshake.set(clientSession);
+
+            verify(jettyWebSocketClient).doHandshake(any(WebSocketHandler.class), any(WebSocketHttpHeaders.class), eq(URI.create("ws://second:8080/ws")));
+            verify(clientSession).sendMessage(any());
+            assertFalse(underTest.isPending());
+        }
+
+        @Test
+        void whenAllAttemptsFail_thenServerSessionIsClosed() throws IOException {
+            firstHandshake.setException(new IOException("Connection refused"));
+            retryTask.getValue().run();
+            secondHandshake.setException(new IOException("Connection refused"));
+            retryTask.getValue().run();
+            thirdHandshake.setException(new IOException("Connection refused"));
+
+            verify(retryScheduler, times(2)).schedule(any(Runnable.class), eq(1000L), eq(TimeUnit.MILLISECONDS));
+            verify(serverSession).close(CloseStatus.NOT_ACCEPTABLE.withReason(
+                "Error opening session to WebSocket service at ws://second:8080/ws: Connection refused"));
+            assertEquals(1, registry.get("apiml.gateway.connections.handshake").tag("outcome", "failure").timer().count());
+        }
+
+        @Test
+        void whenNoInstanceIsAvailable_thenServerSessionIsClosed() throws IOException {
+            nextTargetUrl = null;
+            firstHandshake.setException(new IOException("Connection refused"));
+
+            retryTask.getValue().run();
+
+            verify(jettyWebSocketClient, times(1)).doHandshake(any(WebSocketHandler.class), any(WebSocketHttpHeaders.class), any(URI.class));
+            verify(serverSession).close(WebSocketRoutedSession.NO_INSTANCE_STATUS);
+        }
+
+        @Test
+        void whenHandshakeIsRejected_thenItIsNotRetried() throws IOException {
+            UpgradeException upgradeException = new UpgradeException(URI.create("ws://first:8080/ws"), 401, "Unauthorized");
+            firstHandshake.setException(new ExecutionException(upgradeException));
+
+            verify(retryScheduler, never()).schedule(any(Runnable.class), anyLong(), any());
+            verify(serverSession).close(CloseStatus.NOT_ACCEPTABLE.withReason("Invalid login credentials"));
+        }
+
+        @Test
+        void whenServiceFailsTheUpgrade_thenItIsRetried() {
+            UpgradeException upgradeException = new UpgradeException(URI.create("ws://first:8080/ws"), 503, "Service Unavailable");
+            firstHandshake.setException(new ExecutionException(upgradeException));
+
+            verify(retryScheduler).schedule(any(Runnable.class), eq(1000L), eq(TimeUnit.MILLISECONDS));
+        }
+
+        @Test
+        void whenClosedBeforeRetry_thenRetryIsCancelled() throws IOException {
+            firstHandshake.setException(new IOException("Connection refused"));
+
+            underTest.close(CloseStatus.NORMAL);
+            verify(scheduledRetry).cancel(false);
+
+            retryTask.getValue().run();
+            verify(jettyWebSocketClient, times(1)).doHandshake(any(WebSocketHandler.class), any(WebSocketHttpHeaders.class), any(URI.class));
+            verify(serverSession, never()).close(any());
+        }
+    }
+
+    @Nested
+    class GivenFlowControl {
+        private final SettableListenableFuture<WebSocketSession> futureSession = new SettableListenableFuture<>();
+        private final List<Runnable> tasks = new ArrayList<>();
+        private JettyWebSocketClient jettyWebSocketClient;
+
+        @BeforeEach
+        void startHandshake() {
+            WebSocketClientFactory webSocketClientFactory = mock(WebSocketClientFactory.class);
+            jettyWebSocketClient = mock(JettyWebSocketClient.class);
+            when(webSocketClientFactory.getClientInstance()).thenReturn(jettyWebSocketClient);
+            when(serverSession.getHandshakeHeaders()).thenReturn(new WebSocketHttpHeaders());
+            when(jettyWebSocketClient.doHandshake(any(WebSocketHandler.class), any(WebSocketHttpHeaders.class), any(URI.class)))
+                .thenReturn(futureSession);
+            WebSocketFlowControl flowControl = new WebSocketFlowControl(100, 10, WebSocketFlowControl.OverflowPolicy.CLOSE, 0, tasks::add);
+
+            underTest = new WebSocketRoutedSession(serverSession, "ws://service:8080/ws", webSocketClientFactory, 2, flowControl,
+                ConnectionMetrics.NONE.open(ConnectionMetrics.WEBSOCKET, "service"));
+        }
+
+        @Test
+        void whenHandshakeIsFinished_thenMessagesToServiceAreQueued() throws IOException {
+            assertNull(underTest.getClientSendQueue());
+            futureSession.set(clientSession);
+
+            underTest.sendMessageToServer(new TextMessage("message"));
+
+            assertEquals(1, underTest.getClientSendQueue().getQueueDepth());
+            verify(clientSession, never()).sendMessage(any());
+            tasks.forEach(Runnable::run);
+            verify(clientSession).sendMessage(any());
+        }
+
+        @Test
+        void thenMessagesToClientAreQueued() throws Exception {
+            ArgumentCaptor<WebSocketHandler> handler = ArgumentCaptor.forClass(WebSocketHandler.class);
+            verify(jettyWebSocketClient).doHandshake(handler.capture(), any(WebSocketHttpHeaders.class), any(URI.class));
+
+            handler.getValue().handleMessage(clientSession, new TextMessage("message"));
+
+            assertEquals(1, underTest.getServerSendQueue().getQueueDepth());
+            verify(serverSession, never()).sendMessage(any());
+        }
+    }
+
+    @Nested
+    class GivenMetrics {
+        private final SettableListenableFuture<WebSocketSession> futureSession = new SettableListenableFuture<>();
+        private final MeterRegistry registry = new SimpleMeterRegistry();
+
+        @BeforeEach
+        void startHandshake() {
+            WebSocketClientFactory webSocketClientFactory = mock(WebSocketClientFactory.class);
+            JettyWebSocketClient jettyWebSocketClient = mock(JettyWebSocketClient.class);
+            when(webSocketClientFactory.getClientInstance()).thenReturn(jettyWebSocketClient);
+            when(serverSession.getHandshakeHeaders()).thenReturn(new WebSocketHttpHeaders());
+            when(jettyWebSocketClient.doHandshake(any(WebSocketHandler.class), any(WebSocketHttpHeaders.class), any(URI.class)))
+                .thenReturn(futureSession);
+
+            underTest = new WebSocketRoutedSession(serverSession, "ws://service:8080/ws", webSocketClientFactory, 2, null,
+                new ConnectionMetrics(registry).open(ConnectionMetrics.WEBSOCKET, "service"));
+        }
+
+        @Test
+        void whenSessionIsUsed_thenItIsMeasured() throws IOException {
+            futureSession.set(clientSession);
+            underTest.sendMessageToServer(new TextMessage("message"));
+            underTest.close(CloseStatus.GOING_AWAY);
+
+            assertEquals(1, registry.get("apiml.gateway.connections.handshake").tag("outcome", "success").timer().count());
+            assertEquals(7, registry.get("apiml.gateway.connections.bytes").tag("direction", "toService").counter().count());
+            assertEquals(1, registry.get("apiml.gateway.connections.closed").tag("reason", "1001").counter().count());
+            assertEquals(0, registry.get("apiml.gateway.connections.active").gauge().value());
+        }
+
+        @Test
+        void whenHandshakeFails_thenFailureIsMeasured() {
+            UpgradeException upgradeException = new UpgradeException(URI.create("ws://service:8080/ws"), 401, "Unauthorized");
+            futureSession.setException(new ExecutionException(upgradeException));
+
+            assertEquals(1, registry.get("apiml.gateway.connections.handshake").tag("outcome", "failure").timer().count());
+        }
+    }
+
     @Nested
     class GivenWSMessage {
         @Test